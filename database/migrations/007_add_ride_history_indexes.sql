@@ -0,0 +1,7 @@
+-- Migration: Add ride history indexes
+-- Description: Composite indexes for keyset-paginated rider and driver ride history
+
+-- Serve WHERE rider_id = ? AND (created_at, ride_id) < (?, ?) ORDER BY created_at DESC, ride_id DESC
+-- as one index range scan, without sorting the user's full history
+CREATE INDEX IF NOT EXISTS idx_rides_rider_created ON rides(rider_id, created_at DESC, ride_id DESC);
+CREATE INDEX IF NOT EXISTS idx_rides_driver_created ON rides(driver_id, created_at DESC, ride_id DESC);
@@ -0,0 +1,4 @@
+-- Migration: Add ride surge multiplier
+-- Description: Surge multiplier quoted at booking, so the final fare is charged at the quoted surge
+
+ALTER TABLE rides ADD COLUMN IF NOT EXISTS surge_multiplier DECIMAL(4,2);
@@ -0,0 +1,13 @@
+-- Migration: Create ride_locations table
+-- Description: GPS breadcrumbs of in-progress rides, written in batches
+
+CREATE TABLE IF NOT EXISTS ride_locations (
+    id BIGSERIAL PRIMARY KEY,
+    ride_id UUID NOT NULL REFERENCES rides(ride_id) ON DELETE CASCADE,
+    latitude DECIMAL(10,8) NOT NULL,
+    longitude DECIMAL(11,8) NOT NULL,
+    recorded_at TIMESTAMP NOT NULL
+);
+
+-- Create indexes
+CREATE INDEX IF NOT EXISTS idx_ride_locations_ride_recorded ON ride_locations(ride_id, recorded_at);
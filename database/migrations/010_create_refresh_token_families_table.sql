@@ -0,0 +1,20 @@
+-- Migration: Create refresh_token_families table
+-- Description: One row per login; holds the hash of the current refresh token and the family's revocation
+
+CREATE TABLE IF NOT EXISTS refresh_token_families (
+    family_id UUID PRIMARY KEY,
+    user_id UUID NOT NULL REFERENCES users(user_id) ON DELETE CASCADE,
+    role VARCHAR(20) NOT NULL,
+    token_hash VARCHAR(64) NOT NULL,
+    generation INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_used_at TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP
+);
+
+-- Create indexes
+CREATE INDEX IF NOT EXISTS idx_refresh_token_families_user_id ON refresh_token_families(user_id);
+-- Revocations are polled by time; only revoked rows are indexed
+CREATE INDEX IF NOT EXISTS idx_refresh_token_families_revoked_at ON refresh_token_families(revoked_at)
+    WHERE revoked_at IS NOT NULL;
@@ -19,6 +19,18 @@
 \echo 'Creating rides table...'
 \i 006_create_rides_table.sql
 
+\echo 'Adding ride history indexes...'
+\i 007_add_ride_history_indexes.sql
+
+\echo 'Adding ride surge multiplier...'
+\i 008_add_ride_surge_multiplier.sql
+
+\echo 'Creating ride_locations table...'
+\i 009_create_ride_locations_table.sql
+
+\echo 'Creating refresh_token_families table...'
+\i 010_create_refresh_token_families_table.sql
+
 \echo 'All migrations completed successfully!'
 \echo 'Verifying tables...'
 \dt
@@ -0,0 +1,68 @@
+package com.ridehailing.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "dispatch")
+public class DispatchProperties {
+    // Turn off to leave PENDING rides for drivers to claim manually
+    private boolean enabled = true;
+    // Pending rides and free drivers are collected for this long, then matched together
+    private long windowMs = 2000;
+    private double candidateRadiusMeters = 5000;
+    // Nearest free drivers considered per ride; keeps the assignment problem sparse
+    private int candidatesPerRide = 8;
+    // An unanswered offer is withdrawn and the ride re-enters the next window
+    private long offerTimeoutMs = 15000;
+    // "hungarian" (minimum total pickup time) or "greedy"
+    private String solver = "hungarian";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    public void setWindowMs(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public double getCandidateRadiusMeters() {
+        return candidateRadiusMeters;
+    }
+
+    public void setCandidateRadiusMeters(double candidateRadiusMeters) {
+        this.candidateRadiusMeters = candidateRadiusMeters;
+    }
+
+    public int getCandidatesPerRide() {
+        return candidatesPerRide;
+    }
+
+    public void setCandidatesPerRide(int candidatesPerRide) {
+        this.candidatesPerRide = candidatesPerRide;
+    }
+
+    public long getOfferTimeoutMs() {
+        return offerTimeoutMs;
+    }
+
+    public void setOfferTimeoutMs(long offerTimeoutMs) {
+        this.offerTimeoutMs = offerTimeoutMs;
+    }
+
+    public String getSolver() {
+        return solver;
+    }
+
+    public void setSolver(String solver) {
+        this.solver = solver;
+    }
+}
@@ -0,0 +1,184 @@
+package com.ridehailing.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "fare")
+public class FareProperties {
+    // Base tariff, used wherever no zone tariff matches
+    private double baseFare = 2.50;
+    private double perKm = 1.50;
+    private double perMinute = 0.20;
+    private double minimumFare = 5.00;
+    // Road distance relative to straight-line distance
+    private double routeFactor = 1.3;
+    // Cap on the demand/supply surge multiplier; 1.0 turns surge off
+    private double maxSurge = 3.0;
+    private long surgeRefreshMs = 30000;
+    // Checked in order; the first tariff whose zone and hours match the pickup applies
+    private List<Tariff> tariffs = new ArrayList<>();
+
+    public double getBaseFare() {
+        return baseFare;
+    }
+
+    public void setBaseFare(double baseFare) {
+        this.baseFare = baseFare;
+    }
+
+    public double getPerKm() {
+        return perKm;
+    }
+
+    public void setPerKm(double perKm) {
+        this.perKm = perKm;
+    }
+
+    public double getPerMinute() {
+        return perMinute;
+    }
+
+    public void setPerMinute(double perMinute) {
+        this.perMinute = perMinute;
+    }
+
+    public double getMinimumFare() {
+        return minimumFare;
+    }
+
+    public void setMinimumFare(double minimumFare) {
+        this.minimumFare = minimumFare;
+    }
+
+    public double getRouteFactor() {
+        return routeFactor;
+    }
+
+    public void setRouteFactor(double routeFactor) {
+        this.routeFactor = routeFactor;
+    }
+
+    public double getMaxSurge() {
+        return maxSurge;
+    }
+
+    public void setMaxSurge(double maxSurge) {
+        this.maxSurge = maxSurge;
+    }
+
+    public long getSurgeRefreshMs() {
+        return surgeRefreshMs;
+    }
+
+    public void setSurgeRefreshMs(long surgeRefreshMs) {
+        this.surgeRefreshMs = surgeRefreshMs;
+    }
+
+    public List<Tariff> getTariffs() {
+        return tariffs;
+    }
+
+    public void setTariffs(List<Tariff> tariffs) {
+        this.tariffs = tariffs;
+    }
+
+    public static class Tariff {
+        private String name;
+        // Zone is a circle around the center; radius 0 matches everywhere and never surges
+        private double centerLatitude;
+        private double centerLongitude;
+        private double radiusMeters;
+        // Local hours [startHour, endHour); wraps past midnight when startHour > endHour
+        private int startHour = 0;
+        private int endHour = 24;
+        // Unset rates fall back to the base tariff
+        private Double baseFare;
+        private Double perKm;
+        private Double perMinute;
+        private Double minimumFare;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public double getCenterLatitude() {
+            return centerLatitude;
+        }
+
+        public void setCenterLatitude(double centerLatitude) {
+            this.centerLatitude = centerLatitude;
+        }
+
+        public double getCenterLongitude() {
+            return centerLongitude;
+        }
+
+        public void setCenterLongitude(double centerLongitude) {
+            this.centerLongitude = centerLongitude;
+        }
+
+        public double getRadiusMeters() {
+            return radiusMeters;
+        }
+
+        public void setRadiusMeters(double radiusMeters) {
+            this.radiusMeters = radiusMeters;
+        }
+
+        public int getStartHour() {
+            return startHour;
+        }
+
+        public void setStartHour(int startHour) {
+            this.startHour = startHour;
+        }
+
+        public int getEndHour() {
+            return endHour;
+        }
+
+        public void setEndHour(int endHour) {
+            this.endHour = endHour;
+        }
+
+        public Double getBaseFare() {
+            return baseFare;
+        }
+
+        public void setBaseFare(Double baseFare) {
+            this.baseFare = baseFare;
+        }
+
+        public Double getPerKm() {
+            return perKm;
+        }
+
+        public void setPerKm(Double perKm) {
+            this.perKm = perKm;
+        }
+
+        public Double getPerMinute() {
+            return perMinute;
+        }
+
+        public void setPerMinute(Double perMinute) {
+            this.perMinute = perMinute;
+        }
+
+        public Double getMinimumFare() {
+            return minimumFare;
+        }
+
+        public void setMinimumFare(Double minimumFare) {
+            this.minimumFare = minimumFare;
+        }
+    }
+}
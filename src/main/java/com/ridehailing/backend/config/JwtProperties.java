@@ -8,6 +8,14 @@ import org.springframework.stereotype.Component;
 public class JwtProperties {
     private String secret;
     private long expiration;
+    // Verified tokens remembered until they expire, so each is parsed once rather than per request
+    private long cacheMaxSize = 10000;
+    // Lifetime of a refresh token family, counted from login; rotation does not extend it
+    private long refreshExpiration = 2592000000L;
+    // How often revocations made by other instances are pulled into the in-memory revocation set
+    private long revocationSyncIntervalMs = 5000;
+    // Revoked families expected within one access token lifetime; sizes the Bloom filter for ~1% false positives
+    private int revocationFilterCapacity = 100000;
 
     public String getSecret() {
         return secret;
@@ -24,5 +32,36 @@ public class JwtProperties {
     public void setExpiration(long expiration) {
         this.expiration = expiration;
     }
-}
 
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(long cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public long getRefreshExpiration() {
+        return refreshExpiration;
+    }
+
+    public void setRefreshExpiration(long refreshExpiration) {
+        this.refreshExpiration = refreshExpiration;
+    }
+
+    public long getRevocationSyncIntervalMs() {
+        return revocationSyncIntervalMs;
+    }
+
+    public void setRevocationSyncIntervalMs(long revocationSyncIntervalMs) {
+        this.revocationSyncIntervalMs = revocationSyncIntervalMs;
+    }
+
+    public int getRevocationFilterCapacity() {
+        return revocationFilterCapacity;
+    }
+
+    public void setRevocationFilterCapacity(int revocationFilterCapacity) {
+        this.revocationFilterCapacity = revocationFilterCapacity;
+    }
+}
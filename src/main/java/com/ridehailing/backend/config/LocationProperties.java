@@ -0,0 +1,145 @@
+package com.ridehailing.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "location")
+public class LocationProperties {
+    // Grid cell edge in degrees (0.01 is roughly 1.1 km at the equator)
+    private double indexCellSizeDegrees = 0.01;
+    // Drivers that have not pinged for this long are treated as offline
+    private long driverStaleAfterMs = 60000;
+    private long indexEvictionIntervalMs = 30000;
+    // Minimum spacing of location frames sent to a rider
+    private long coalesceIntervalMs = 1000;
+    private long coalesceFlushTickMs = 200;
+    // Fixes closer than this to the last one sent are dropped as GPS jitter
+    private double coalesceMinMoveMeters = 3.0;
+    // Moves at least this large bypass the interval and are sent at once
+    private double coalesceImmediateMoveMeters = 50.0;
+    // Speed model grid; 0.01 degrees is roughly 1.1 km
+    private double etaCellSizeDegrees = 0.01;
+    // Used where no driver has been observed recently (30 km/h)
+    private double etaDefaultSpeedMps = 8.3;
+    // Road distance relative to straight-line distance
+    private double etaRoadFactor = 1.3;
+    // Weight of each new speed sample in a cell's moving average
+    private double etaSpeedSmoothing = 0.2;
+    private long etaCacheTtlMs = 30000;
+    private double etaPickupSearchRadiusMeters = 5000;
+    // Quoted at booking when no driver is nearby
+    private int etaFallbackMinutes = 5;
+
+    public double getIndexCellSizeDegrees() {
+        return indexCellSizeDegrees;
+    }
+
+    public void setIndexCellSizeDegrees(double indexCellSizeDegrees) {
+        this.indexCellSizeDegrees = indexCellSizeDegrees;
+    }
+
+    public long getDriverStaleAfterMs() {
+        return driverStaleAfterMs;
+    }
+
+    public void setDriverStaleAfterMs(long driverStaleAfterMs) {
+        this.driverStaleAfterMs = driverStaleAfterMs;
+    }
+
+    public long getIndexEvictionIntervalMs() {
+        return indexEvictionIntervalMs;
+    }
+
+    public void setIndexEvictionIntervalMs(long indexEvictionIntervalMs) {
+        this.indexEvictionIntervalMs = indexEvictionIntervalMs;
+    }
+
+    public long getCoalesceIntervalMs() {
+        return coalesceIntervalMs;
+    }
+
+    public void setCoalesceIntervalMs(long coalesceIntervalMs) {
+        this.coalesceIntervalMs = coalesceIntervalMs;
+    }
+
+    public long getCoalesceFlushTickMs() {
+        return coalesceFlushTickMs;
+    }
+
+    public void setCoalesceFlushTickMs(long coalesceFlushTickMs) {
+        this.coalesceFlushTickMs = coalesceFlushTickMs;
+    }
+
+    public double getCoalesceMinMoveMeters() {
+        return coalesceMinMoveMeters;
+    }
+
+    public void setCoalesceMinMoveMeters(double coalesceMinMoveMeters) {
+        this.coalesceMinMoveMeters = coalesceMinMoveMeters;
+    }
+
+    public double getCoalesceImmediateMoveMeters() {
+        return coalesceImmediateMoveMeters;
+    }
+
+    public void setCoalesceImmediateMoveMeters(double coalesceImmediateMoveMeters) {
+        this.coalesceImmediateMoveMeters = coalesceImmediateMoveMeters;
+    }
+
+    public double getEtaCellSizeDegrees() {
+        return etaCellSizeDegrees;
+    }
+
+    public void setEtaCellSizeDegrees(double etaCellSizeDegrees) {
+        this.etaCellSizeDegrees = etaCellSizeDegrees;
+    }
+
+    public double getEtaDefaultSpeedMps() {
+        return etaDefaultSpeedMps;
+    }
+
+    public void setEtaDefaultSpeedMps(double etaDefaultSpeedMps) {
+        this.etaDefaultSpeedMps = etaDefaultSpeedMps;
+    }
+
+    public double getEtaRoadFactor() {
+        return etaRoadFactor;
+    }
+
+    public void setEtaRoadFactor(double etaRoadFactor) {
+        this.etaRoadFactor = etaRoadFactor;
+    }
+
+    public double getEtaSpeedSmoothing() {
+        return etaSpeedSmoothing;
+    }
+
+    public void setEtaSpeedSmoothing(double etaSpeedSmoothing) {
+        this.etaSpeedSmoothing = etaSpeedSmoothing;
+    }
+
+    public long getEtaCacheTtlMs() {
+        return etaCacheTtlMs;
+    }
+
+    public void setEtaCacheTtlMs(long etaCacheTtlMs) {
+        this.etaCacheTtlMs = etaCacheTtlMs;
+    }
+
+    public double getEtaPickupSearchRadiusMeters() {
+        return etaPickupSearchRadiusMeters;
+    }
+
+    public void setEtaPickupSearchRadiusMeters(double etaPickupSearchRadiusMeters) {
+        this.etaPickupSearchRadiusMeters = etaPickupSearchRadiusMeters;
+    }
+
+    public int getEtaFallbackMinutes() {
+        return etaFallbackMinutes;
+    }
+
+    public void setEtaFallbackMinutes(int etaFallbackMinutes) {
+        this.etaFallbackMinutes = etaFallbackMinutes;
+    }
+}
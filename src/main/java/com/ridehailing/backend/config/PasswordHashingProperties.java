@@ -0,0 +1,59 @@
+package com.ridehailing.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "password-hashing")
+public class PasswordHashingProperties {
+    // BCrypt cost for new hashes; stored hashes with a different cost are rehashed on the next login
+    private int cost = 12;
+    // Threads dedicated to hashing, so a login storm cannot take over the request threads
+    private int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    // Hash requests allowed to wait for a thread; beyond this they are rejected immediately
+    private int queueCapacity = 64;
+    // Requests that waited longer than this for a thread are rejected instead of hashed
+    private long maxQueueWaitMs = 1000;
+    // Time a hash may take once started; a caller waits at most this plus maxQueueWaitMs before giving up
+    private long maxHashMs = 2000;
+
+    public int getCost() {
+        return cost;
+    }
+
+    public void setCost(int cost) {
+        this.cost = cost;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getMaxQueueWaitMs() {
+        return maxQueueWaitMs;
+    }
+
+    public void setMaxQueueWaitMs(long maxQueueWaitMs) {
+        this.maxQueueWaitMs = maxQueueWaitMs;
+    }
+
+    public long getMaxHashMs() {
+        return maxHashMs;
+    }
+
+    public void setMaxHashMs(long maxHashMs) {
+        this.maxHashMs = maxHashMs;
+    }
+}
@@ -0,0 +1,29 @@
+package com.ridehailing.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "ride-details-cache")
+public class RideDetailsCacheProperties {
+    // Rendered ride detail payloads kept; least recently used are evicted first
+    private long maxSize = 50000;
+    // Upper bound on staleness for changes that do not go through RideService
+    private long ttlMs = 30000;
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    public void setTtlMs(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ridehailing.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "trip")
+public class TripProperties {
+    // Breadcrumbs held per ride between flushes; the oldest are dropped when a ride outruns the flush
+    private int bufferCapacity = 512;
+    private long flushIntervalMs = 5000;
+    // Rows per JDBC batch insert
+    private int flushBatchSize = 500;
+    // Fixes closer than this to the last counted one are GPS jitter and add no distance
+    private double minMoveMeters = 5.0;
+    // Fixes implying a faster jump (250 km/h) are treated as outliers
+    private double maxSpeedMps = 70.0;
+
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    public void setBufferCapacity(int bufferCapacity) {
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public int getFlushBatchSize() {
+        return flushBatchSize;
+    }
+
+    public void setFlushBatchSize(int flushBatchSize) {
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    public double getMinMoveMeters() {
+        return minMoveMeters;
+    }
+
+    public void setMinMoveMeters(double minMoveMeters) {
+        this.minMoveMeters = minMoveMeters;
+    }
+
+    public double getMaxSpeedMps() {
+        return maxSpeedMps;
+    }
+
+    public void setMaxSpeedMps(double maxSpeedMps) {
+        this.maxSpeedMps = maxSpeedMps;
+    }
+}
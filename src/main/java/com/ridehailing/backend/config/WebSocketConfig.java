@@ -1,5 +1,7 @@
 package com.ridehailing.backend.config;
 
+import com.ridehailing.backend.websocket.BinaryLocationWebSocketHandler;
+import com.ridehailing.backend.websocket.JwtHandshakeInterceptor;
 import com.ridehailing.backend.websocket.WebSocketHandler;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
@@ -11,14 +13,26 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 public class WebSocketConfig implements WebSocketConfigurer {
 
     private final WebSocketHandler webSocketHandler;
+    private final BinaryLocationWebSocketHandler binaryLocationWebSocketHandler;
+    private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
 
-    public WebSocketConfig(WebSocketHandler webSocketHandler) {
+    public WebSocketConfig(WebSocketHandler webSocketHandler,
+                           BinaryLocationWebSocketHandler binaryLocationWebSocketHandler,
+                           JwtHandshakeInterceptor jwtHandshakeInterceptor) {
         this.webSocketHandler = webSocketHandler;
+        this.binaryLocationWebSocketHandler = binaryLocationWebSocketHandler;
+        this.jwtHandshakeInterceptor = jwtHandshakeInterceptor;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // /ws/** is open to the HTTP security chain; the handshake interceptor requires a valid access token
         registry.addHandler(webSocketHandler, "/ws")
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOrigins("*");
+        // Compact binary location uploads; same session semantics as /ws
+        registry.addHandler(binaryLocationWebSocketHandler, "/ws/binary")
+                .addInterceptors(jwtHandshakeInterceptor)
                 .setAllowedOrigins("*");
     }
 }
@@ -0,0 +1,160 @@
+package com.ridehailing.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "websocket")
+public class WebSocketProperties {
+    // Frames buffered per session before location frames are dropped or the session is evicted
+    private int outboundQueueCapacity = 256;
+    // Writer threads draining outbound queues through asynchronous sends
+    private int writerThreads = 8;
+    // Threads for pings, close handshakes and blocking sends, each of which can wait out the send timeout
+    private int blockingWriterThreads = 32;
+    // Blocking writes waiting for one of those threads before further ones are rejected
+    private int blockingWriterQueueCapacity = 1024;
+    // Upper bound for a single send to one client
+    private long sendTimeoutMs = 10000;
+    // Recent events kept per user for replay after a reconnect
+    private int replayCapacity = 64;
+    // How long a user's replay log survives without new events
+    private long replayRetentionMs = 300000;
+    // How often idle replay logs are purged
+    private long replayPurgeIntervalMs = 60000;
+    // Silence after which a session is pinged
+    private long idlePingMs = 25000;
+    // Silence after which a session is considered dead and closed
+    private long idleTimeoutMs = 60000;
+    // Resolution of the idle timing wheel
+    private long idleTickMs = 1000;
+    // Process inbound frames on virtual threads instead of the container's I/O threads. Only pays off once a
+    // stage of inbound processing blocks; the in-memory location path is several times faster inline.
+    private boolean inboundVirtualThreads = false;
+    // Inbound frames waiting per session before new ones are dropped
+    private int inboundMailboxCapacity = 64;
+    // Record virtual threads that block while pinned to their carrier; only while inbound virtual threads are on
+    private boolean pinningMonitorEnabled = true;
+    // Shortest pinned block worth recording
+    private long pinningThresholdMs = 20;
+
+    public int getOutboundQueueCapacity() {
+        return outboundQueueCapacity;
+    }
+
+    public void setOutboundQueueCapacity(int outboundQueueCapacity) {
+        this.outboundQueueCapacity = outboundQueueCapacity;
+    }
+
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    public void setWriterThreads(int writerThreads) {
+        this.writerThreads = writerThreads;
+    }
+
+    public int getBlockingWriterThreads() {
+        return blockingWriterThreads;
+    }
+
+    public void setBlockingWriterThreads(int blockingWriterThreads) {
+        this.blockingWriterThreads = blockingWriterThreads;
+    }
+
+    public int getBlockingWriterQueueCapacity() {
+        return blockingWriterQueueCapacity;
+    }
+
+    public void setBlockingWriterQueueCapacity(int blockingWriterQueueCapacity) {
+        this.blockingWriterQueueCapacity = blockingWriterQueueCapacity;
+    }
+
+    public long getSendTimeoutMs() {
+        return sendTimeoutMs;
+    }
+
+    public void setSendTimeoutMs(long sendTimeoutMs) {
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+
+    public int getReplayCapacity() {
+        return replayCapacity;
+    }
+
+    public void setReplayCapacity(int replayCapacity) {
+        this.replayCapacity = replayCapacity;
+    }
+
+    public long getReplayRetentionMs() {
+        return replayRetentionMs;
+    }
+
+    public void setReplayRetentionMs(long replayRetentionMs) {
+        this.replayRetentionMs = replayRetentionMs;
+    }
+
+    public long getReplayPurgeIntervalMs() {
+        return replayPurgeIntervalMs;
+    }
+
+    public void setReplayPurgeIntervalMs(long replayPurgeIntervalMs) {
+        this.replayPurgeIntervalMs = replayPurgeIntervalMs;
+    }
+
+    public long getIdlePingMs() {
+        return idlePingMs;
+    }
+
+    public void setIdlePingMs(long idlePingMs) {
+        this.idlePingMs = idlePingMs;
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    public long getIdleTickMs() {
+        return idleTickMs;
+    }
+
+    public void setIdleTickMs(long idleTickMs) {
+        this.idleTickMs = idleTickMs;
+    }
+
+    public boolean isInboundVirtualThreads() {
+        return inboundVirtualThreads;
+    }
+
+    public void setInboundVirtualThreads(boolean inboundVirtualThreads) {
+        this.inboundVirtualThreads = inboundVirtualThreads;
+    }
+
+    public int getInboundMailboxCapacity() {
+        return inboundMailboxCapacity;
+    }
+
+    public void setInboundMailboxCapacity(int inboundMailboxCapacity) {
+        this.inboundMailboxCapacity = inboundMailboxCapacity;
+    }
+
+    public boolean isPinningMonitorEnabled() {
+        return pinningMonitorEnabled;
+    }
+
+    public void setPinningMonitorEnabled(boolean pinningMonitorEnabled) {
+        this.pinningMonitorEnabled = pinningMonitorEnabled;
+    }
+
+    public long getPinningThresholdMs() {
+        return pinningThresholdMs;
+    }
+
+    public void setPinningThresholdMs(long pinningThresholdMs) {
+        this.pinningThresholdMs = pinningThresholdMs;
+    }
+}
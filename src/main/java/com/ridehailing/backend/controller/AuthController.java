@@ -2,24 +2,30 @@ package com.ridehailing.backend.controller;
 
 import com.ridehailing.backend.model.Role;
 import com.ridehailing.backend.service.AuthenticationService;
-import com.ridehailing.backend.util.JwtUtil;
+import com.ridehailing.backend.service.RefreshTokenService;
+import com.ridehailing.backend.service.TokenPair;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/v1/auth")
 public class AuthController {
 
-    private final JwtUtil jwtUtil;
     private final AuthenticationService authenticationService;
+    private final RefreshTokenService refreshTokenService;
 
-    public AuthController(JwtUtil jwtUtil, AuthenticationService authenticationService) {
-        this.jwtUtil = jwtUtil;
+    // Seconds clients are asked to back off when password hashing is saturated
+    private static final String RETRY_AFTER_SECONDS = "2";
+
+    public AuthController(AuthenticationService authenticationService, RefreshTokenService refreshTokenService) {
         this.authenticationService = authenticationService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @PostMapping("/register/rider")
@@ -49,6 +55,8 @@ public class AuthController {
             response.put("message", "Registration successful");
             
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (RejectedExecutionException e) {
+            return serviceBusy(response);
         } catch (IllegalArgumentException e) {
             response.put("error", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
@@ -90,6 +98,8 @@ public class AuthController {
             response.put("message", "Registration successful. Awaiting verification.");
             
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (RejectedExecutionException e) {
+            return serviceBusy(response);
         } catch (IllegalArgumentException e) {
             response.put("error", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
@@ -119,22 +129,20 @@ public class AuthController {
             // Get user role
             Role userRole = authenticationService.getRoleEnum(user);
             
-            // Generate JWT tokens
-            String accessToken = jwtUtil.generateToken(user.getUserId().toString(), userRole);
-            String refreshToken = jwtUtil.generateToken(user.getUserId().toString() + "_refresh", userRole);
+            // Start a refresh token family; later renewals go through /refresh instead of the password
+            TokenPair tokens = refreshTokenService.issue(user.getUserId(), userRole);
             
             Map<String, Object> userInfo = new HashMap<>();
             userInfo.put("userId", user.getUserId().toString());
             userInfo.put("email", user.getEmail());
             userInfo.put("role", userRole.name());
             
-            response.put("accessToken", accessToken);
-            response.put("refreshToken", refreshToken);
-            response.put("tokenType", "Bearer");
-            response.put("expiresIn", 3600);
+            putTokens(response, tokens);
             response.put("user", userInfo);
             
             return ResponseEntity.ok(response);
+        } catch (RejectedExecutionException e) {
+            return serviceBusy(response);
         } catch (IllegalArgumentException e) {
             response.put("error", "Invalid credentials");
             response.put("message", e.getMessage());
@@ -159,20 +167,45 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
 
-        // TODO: Implement token refresh logic
-        response.put("error", "Token refresh not yet implemented");
-        
-        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).body(response);
+        try {
+            putTokens(response, refreshTokenService.refresh(request.get("refreshToken")));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", "Invalid refresh token");
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        } catch (Exception e) {
+            response.put("error", "Token refresh failed");
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
     }
 
     @PostMapping("/logout")
     public ResponseEntity<Map<String, String>> logout(@RequestBody Map<String, String> request) {
         Map<String, String> response = new HashMap<>();
         
-        // TODO: Implement logout logic
+        if (request.get("refreshToken") != null) {
+            // Revokes the refresh token family and, through it, every access token issued under it
+            refreshTokenService.logout(request.get("refreshToken"));
+        }
         response.put("message", "Logout successful");
         
         return ResponseEntity.ok(response);
     }
-}
 
+    private static void putTokens(Map<String, Object> response, TokenPair tokens) {
+        response.put("accessToken", tokens.accessToken());
+        response.put("refreshToken", tokens.refreshToken());
+        response.put("tokenType", "Bearer");
+        response.put("expiresIn", tokens.expiresInSeconds());
+    }
+
+    private static ResponseEntity<Map<String, Object>> serviceBusy(Map<String, Object> response) {
+        response.put("error", "Service busy");
+        response.put("message", "Too many authentication requests, please retry shortly");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(response);
+    }
+}
@@ -1,18 +1,29 @@
 package com.ridehailing.backend.controller;
 
+import com.ridehailing.backend.service.RideHistoryPage;
+import com.ridehailing.backend.service.RideService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/driver")
 public class DriverController {
 
+    private final RideService rideService;
+
+    public DriverController(RideService rideService) {
+        this.rideService = rideService;
+    }
+
     @GetMapping("/profile")
     public ResponseEntity<Map<String, Object>> getProfile(Authentication authentication) {
         Map<String, Object> response = new HashMap<>();
@@ -21,5 +32,28 @@ public class DriverController {
         response.put("role", "DRIVER");
         return ResponseEntity.ok(response);
     }
-}
 
+    /**
+     * The driver's rides, newest first. Pass the returned nextCursor to get the following page.
+     */
+    @GetMapping("/rides")
+    public ResponseEntity<Map<String, Object>> getRideHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        try {
+            UUID driverId = UUID.fromString(authentication.getName());
+            RideHistoryPage page = rideService.findDriverHistory(driverId, cursor, limit);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("rides", page.rides());
+            response.put("nextCursor", page.nextCursor());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Invalid request");
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+    }
+}
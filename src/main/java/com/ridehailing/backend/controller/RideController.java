@@ -1,12 +1,16 @@
 package com.ridehailing.backend.controller;
 
 import com.ridehailing.backend.entity.Ride;
-import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.service.LocationService;
+import com.ridehailing.backend.service.RideDetailsCache;
 import com.ridehailing.backend.service.RideService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
@@ -18,9 +22,14 @@ import java.util.UUID;
 public class RideController {
 
     private final RideService rideService;
+    private final LocationService locationService;
+    private final RideDetailsCache rideDetailsCache;
 
-    public RideController(RideService rideService) {
+    public RideController(RideService rideService, LocationService locationService,
+                          RideDetailsCache rideDetailsCache) {
         this.rideService = rideService;
+        this.locationService = locationService;
+        this.rideDetailsCache = rideDetailsCache;
     }
 
     @PostMapping
@@ -62,8 +71,9 @@ public class RideController {
             Map<String, Object> response = new HashMap<>();
             response.put("rideId", ride.getRideId().toString());
             response.put("status", ride.getStatus().name());
-            response.put("estimatedFare", calculateEstimatedFare(pickupLatitude, pickupLongitude, dropoffLatitude, dropoffLongitude));
-            response.put("estimatedArrivalTime", 5); // Mock: 5 minutes
+            response.put("estimatedFare", ride.getEstimatedFare());
+            response.put("estimatedArrivalTime", locationService.estimatePickupEtaMinutes(
+                    pickupLatitude.doubleValue(), pickupLongitude.doubleValue()));
 
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (Exception e) {
@@ -75,62 +85,22 @@ public class RideController {
     }
 
     @GetMapping("/{rideId}")
-    public ResponseEntity<Map<String, Object>> getRideDetails(@PathVariable UUID rideId) {
-        return rideService.findById(rideId)
-                .map(ride -> {
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("rideId", ride.getRideId().toString());
-                    response.put("riderId", ride.getRiderId().toString());
-                    if (ride.getDriverId() != null) {
-                        response.put("driverId", ride.getDriverId().toString());
+    public ResponseEntity<byte[]> getRideDetails(@PathVariable UUID rideId, WebRequest webRequest) {
+        return rideDetailsCache.get(rideId)
+                .map(rendered -> {
+                    // Pollers send back the ETag; an unchanged ride costs a cache lookup and an empty 304
+                    if (webRequest.checkNotModified(rendered.etag())) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                .eTag(rendered.etag())
+                                .cacheControl(CacheControl.noCache())
+                                .<byte[]>build();
                     }
-                    
-                    Map<String, Object> pickupLocation = new HashMap<>();
-                    pickupLocation.put("latitude", ride.getPickupLatitude());
-                    pickupLocation.put("longitude", ride.getPickupLongitude());
-                    pickupLocation.put("address", ride.getPickupAddress());
-                    response.put("pickupLocation", pickupLocation);
-                    
-                    Map<String, Object> dropoffLocation = new HashMap<>();
-                    dropoffLocation.put("latitude", ride.getDropoffLatitude());
-                    dropoffLocation.put("longitude", ride.getDropoffLongitude());
-                    dropoffLocation.put("address", ride.getDropoffAddress());
-                    response.put("dropoffLocation", dropoffLocation);
-                    
-                    response.put("status", ride.getStatus().name());
-                    // Calculate fare if ride is completed
-                    if (ride.getStatus() == RideStatus.COMPLETED) {
-                        response.put("fare", calculateEstimatedFare(
-                            ride.getPickupLatitude(), ride.getPickupLongitude(),
-                            ride.getDropoffLatitude(), ride.getDropoffLongitude()
-                        ));
-                    } else {
-                        response.put("fare", 0.0);
-                    }
-                    
-                    return ResponseEntity.ok(response);
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .eTag(rendered.etag())
+                            .cacheControl(CacheControl.noCache())
+                            .body(rendered.body());
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
-
-    // Helper method to calculate estimated fare (mock implementation)
-    private double calculateEstimatedFare(BigDecimal pickupLat, BigDecimal pickupLon,
-                                         BigDecimal dropoffLat, BigDecimal dropoffLon) {
-        // Simple distance calculation (Haversine formula approximation)
-        double lat1 = pickupLat.doubleValue();
-        double lon1 = pickupLon.doubleValue();
-        double lat2 = dropoffLat.doubleValue();
-        double lon2 = dropoffLon.doubleValue();
-        
-        double distance = Math.sqrt(
-            Math.pow(lat2 - lat1, 2) + Math.pow(lon2 - lon1, 2)
-        ) * 111; // Rough conversion to km
-        
-        // Base fare + distance-based fare
-        double baseFare = 2.50;
-        double perKmFare = 1.50;
-        
-        return Math.round((baseFare + (distance * perKmFare)) * 100.0) / 100.0;
-    }
 }
-
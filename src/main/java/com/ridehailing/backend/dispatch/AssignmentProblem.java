@@ -0,0 +1,130 @@
+package com.ridehailing.backend.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Sparse rides × drivers assignment problem in compressed-row form.
+ *
+ * Candidates of ride {@code r} are the edges {@code edgeStart[r] .. edgeStart[r + 1] - 1}; each edge names a
+ * driver index and the cost (pickup seconds) of giving that driver the ride. Pairs without an edge are
+ * not allowed.
+ */
+public final class AssignmentProblem {
+
+    private final int rideCount;
+    private final int driverCount;
+    private final int[] edgeStart;
+    private final int[] edgeDriver;
+    private final double[] edgeCost;
+
+    private AssignmentProblem(int rideCount, int driverCount, int[] edgeStart, int[] edgeDriver, double[] edgeCost) {
+        this.rideCount = rideCount;
+        this.driverCount = driverCount;
+        this.edgeStart = edgeStart;
+        this.edgeDriver = edgeDriver;
+        this.edgeCost = edgeCost;
+    }
+
+    public static Builder builder(int driverCount) {
+        return new Builder(driverCount);
+    }
+
+    public int rideCount() {
+        return rideCount;
+    }
+
+    public int driverCount() {
+        return driverCount;
+    }
+
+    public int edgeCount() {
+        return edgeStart[rideCount];
+    }
+
+    public int firstEdge(int ride) {
+        return edgeStart[ride];
+    }
+
+    public int endEdge(int ride) {
+        return edgeStart[ride + 1];
+    }
+
+    public int driver(int edge) {
+        return edgeDriver[edge];
+    }
+
+    public double cost(int edge) {
+        return edgeCost[edge];
+    }
+
+    /**
+     * Total cost of an assignment as returned by a solver
+     */
+    public double totalCost(int[] assignment) {
+        double total = 0;
+        for (int ride = 0; ride < rideCount; ride++) {
+            if (assignment[ride] < 0) {
+                continue;
+            }
+            for (int edge = edgeStart[ride]; edge < edgeStart[ride + 1]; edge++) {
+                if (edgeDriver[edge] == assignment[ride]) {
+                    total += edgeCost[edge];
+                    break;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Appends rides in order; candidates added after {@link #nextRide()} belong to that ride
+     */
+    public static final class Builder {
+
+        private final int driverCount;
+        private int rideCount;
+        private int[] edgeStart = new int[16];
+        private int[] edgeDriver = new int[64];
+        private double[] edgeCost = new double[64];
+        private int edgeCount;
+
+        private Builder(int driverCount) {
+            this.driverCount = driverCount;
+        }
+
+        /**
+         * Start the next ride and return its index
+         */
+        public int nextRide() {
+            if (rideCount + 2 > edgeStart.length) {
+                edgeStart = Arrays.copyOf(edgeStart, edgeStart.length * 2);
+            }
+            edgeStart[rideCount] = edgeCount;
+            return rideCount++;
+        }
+
+        public Builder addCandidate(int driver, double cost) {
+            if (rideCount == 0) {
+                throw new IllegalStateException("nextRide() must be called before adding candidates");
+            }
+            if (driver < 0 || driver >= driverCount) {
+                throw new IllegalArgumentException("Driver index out of range: " + driver);
+            }
+            if (edgeCount == edgeDriver.length) {
+                edgeDriver = Arrays.copyOf(edgeDriver, edgeCount * 2);
+                edgeCost = Arrays.copyOf(edgeCost, edgeCount * 2);
+            }
+            edgeDriver[edgeCount] = driver;
+            edgeCost[edgeCount] = cost;
+            edgeCount++;
+            return this;
+        }
+
+        public AssignmentProblem build() {
+            int[] starts = Arrays.copyOf(edgeStart, rideCount + 1);
+            starts[rideCount] = edgeCount;
+            return new AssignmentProblem(rideCount, driverCount, starts,
+                    Arrays.copyOf(edgeDriver, edgeCount), Arrays.copyOf(edgeCost, edgeCount));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.ridehailing.backend.dispatch;
+
+/**
+ * Matches rides to drivers, each driver taking at most one ride
+ */
+public interface AssignmentSolver {
+
+    /**
+     * @return for each ride, the index of its assigned driver, or -1 if the ride stays unassigned
+     */
+    int[] solve(AssignmentProblem problem);
+}
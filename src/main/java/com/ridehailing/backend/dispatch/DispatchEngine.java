@@ -0,0 +1,322 @@
+package com.ridehailing.backend.dispatch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.backend.config.DispatchProperties;
+import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.geo.DriverLocationIndex;
+import com.ridehailing.backend.geo.DriverPosition;
+import com.ridehailing.backend.geo.EtaEstimator;
+import com.ridehailing.backend.geo.GeoUtils;
+import com.ridehailing.backend.geo.NearbyDriver;
+import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.repository.RideRepository;
+import com.ridehailing.backend.service.ActiveRideRegistry;
+import com.ridehailing.backend.websocket.EncodedFrame;
+import com.ridehailing.backend.websocket.WebSocketHandler;
+import com.ridehailing.backend.websocket.dto.RideRequestEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Proposes drivers for PENDING rides in batches.
+ *
+ * Every {@code dispatch.window-ms} the rides that have no outstanding offer are matched against free
+ * drivers (online in the location index, not on a ride, not holding an offer). Each ride considers its
+ * nearest candidates, costed by pickup ETA, and the window is solved as one assignment problem so a
+ * driver goes to the ride that benefits most rather than the first one asked. Matches are pushed to the
+ * driver as {@code ride:request}; an offer that is not accepted within {@code dispatch.offer-timeout-ms}
+ * is withdrawn and that driver is not offered the same ride again.
+ */
+@Component
+public class DispatchEngine {
+
+    private final RideRepository rideRepository;
+    private final DriverLocationIndex driverLocationIndex;
+    private final ActiveRideRegistry activeRideRegistry;
+    private final EtaEstimator etaEstimator;
+    private final WebSocketHandler webSocketHandler;
+    private final ObjectMapper objectMapper;
+    private final DispatchProperties dispatchProperties;
+    private final AssignmentSolver solver;
+
+    private final ConcurrentHashMap<UUID, PendingRide> pendingRides = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Offer> offersByRideId = new ConcurrentHashMap<>();
+    private final Set<UUID> driversWithOffer = ConcurrentHashMap.newKeySet();
+
+    private final Timer solveTimer;
+    private final Counter offerCounter;
+    private final Counter expiredOfferCounter;
+
+    public DispatchEngine(RideRepository rideRepository, DriverLocationIndex driverLocationIndex,
+                          ActiveRideRegistry activeRideRegistry, EtaEstimator etaEstimator,
+                          WebSocketHandler webSocketHandler, ObjectMapper objectMapper,
+                          DispatchProperties dispatchProperties, MeterRegistry meterRegistry) {
+        this.rideRepository = rideRepository;
+        this.driverLocationIndex = driverLocationIndex;
+        this.activeRideRegistry = activeRideRegistry;
+        this.etaEstimator = etaEstimator;
+        this.webSocketHandler = webSocketHandler;
+        this.objectMapper = objectMapper;
+        this.dispatchProperties = dispatchProperties;
+        this.solver = createSolver(dispatchProperties.getSolver());
+        this.solveTimer = Timer.builder("dispatch.solve")
+                .description("Time to solve one dispatch window")
+                .register(meterRegistry);
+        this.offerCounter = Counter.builder("dispatch.offers")
+                .description("Ride offers pushed to drivers")
+                .register(meterRegistry);
+        this.expiredOfferCounter = Counter.builder("dispatch.offers.expired")
+                .description("Ride offers withdrawn after the timeout")
+                .register(meterRegistry);
+        meterRegistry.gauge("dispatch.pending.rides", pendingRides, Map::size);
+    }
+
+    static AssignmentSolver createSolver(String name) {
+        return switch (name.toLowerCase()) {
+            case "hungarian" -> new HungarianAssignmentSolver();
+            case "greedy" -> new GreedyAssignmentSolver();
+            default -> throw new IllegalArgumentException("Unknown dispatch solver: " + name);
+        };
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        for (Ride ride : rideRepository.findByStatusIn(EnumSet.of(RideStatus.PENDING))) {
+            addPendingRide(ride);
+        }
+    }
+
+    /**
+     * Queue a newly created ride for the next window
+     */
+    public void addPendingRide(Ride ride) {
+        pendingRides.put(ride.getRideId(), new PendingRide(ride));
+    }
+
+    /**
+     * Stop dispatching a ride that was accepted or cancelled
+     */
+    public void rideClosed(UUID rideId) {
+        pendingRides.remove(rideId);
+        Offer offer = offersByRideId.remove(rideId);
+        if (offer != null) {
+            driversWithOffer.remove(offer.driverId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.window-ms:2000}")
+    public void runWindow() {
+        if (dispatchProperties.isEnabled()) {
+            runWindow(System.currentTimeMillis());
+        }
+    }
+
+    void runWindow(long now) {
+        expireOffers(now);
+
+        List<PendingRide> rides = new ArrayList<>();
+        for (PendingRide ride : pendingRides.values()) {
+            if (!offersByRideId.containsKey(ride.rideId)) {
+                rides.add(ride);
+            }
+        }
+        if (rides.isEmpty()) {
+            return;
+        }
+        // Oldest first, so ties in the solver favour riders who have waited longest
+        rides.sort(Comparator.comparingLong(ride -> ride.createdAt));
+
+        List<DriverPosition> drivers = new ArrayList<>();
+        Map<UUID, Integer> driverIndexes = new HashMap<>();
+        List<int[]> candidateDrivers = new ArrayList<>();
+        List<double[]> candidateCosts = new ArrayList<>();
+        int perRide = dispatchProperties.getCandidatesPerRide();
+        for (PendingRide ride : rides) {
+            // Ask for extra neighbours since busy drivers are filtered out afterwards
+            List<NearbyDriver> nearby = driverLocationIndex.findNearest(ride.pickupLatitude, ride.pickupLongitude,
+                    perRide * 2, dispatchProperties.getCandidateRadiusMeters());
+            int[] candidates = new int[perRide];
+            double[] costs = new double[perRide];
+            int count = 0;
+            for (NearbyDriver candidate : nearby) {
+                if (count == perRide) {
+                    break;
+                }
+                DriverPosition position = candidate.position();
+                UUID driverId = position.driverId();
+                if (activeRideRegistry.getByDriverId(driverId) != null || driversWithOffer.contains(driverId)
+                        || ride.passedDrivers.contains(driverId)) {
+                    continue;
+                }
+                Integer index = driverIndexes.get(driverId);
+                if (index == null) {
+                    index = drivers.size();
+                    driverIndexes.put(driverId, index);
+                    drivers.add(position);
+                }
+                candidates[count] = index;
+                costs[count] = etaEstimator.estimateSeconds(position.latitude(), position.longitude(),
+                        ride.pickupLatitude, ride.pickupLongitude);
+                count++;
+            }
+            candidateDrivers.add(Arrays.copyOf(candidates, count));
+            candidateCosts.add(Arrays.copyOf(costs, count));
+        }
+        if (drivers.isEmpty()) {
+            return;
+        }
+
+        AssignmentProblem.Builder builder = AssignmentProblem.builder(drivers.size());
+        for (int r = 0; r < rides.size(); r++) {
+            builder.nextRide();
+            int[] candidates = candidateDrivers.get(r);
+            double[] costs = candidateCosts.get(r);
+            for (int c = 0; c < candidates.length; c++) {
+                builder.addCandidate(candidates[c], costs[c]);
+            }
+        }
+        AssignmentProblem problem = builder.build();
+        int[] assignment = solveTimer.record(() -> solver.solve(problem));
+
+        for (int r = 0; r < assignment.length; r++) {
+            if (assignment[r] >= 0) {
+                PendingRide ride = rides.get(r);
+                DriverPosition driver = drivers.get(assignment[r]);
+                offer(ride, driver, costOf(problem, r, assignment[r]), now);
+            }
+        }
+    }
+
+    int pendingCount() {
+        return pendingRides.size();
+    }
+
+    /**
+     * Pending rides with a pickup inside the circle; the demand side of surge pricing
+     */
+    public int pendingRidesWithin(double latitude, double longitude, double radiusMeters) {
+        int count = 0;
+        for (PendingRide ride : pendingRides.values()) {
+            if (GeoUtils.haversineMeters(latitude, longitude, ride.pickupLatitude, ride.pickupLongitude) <= radiusMeters) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Driver currently holding the offer for a ride, or null
+     */
+    UUID offeredDriver(UUID rideId) {
+        Offer offer = offersByRideId.get(rideId);
+        return offer != null ? offer.driverId() : null;
+    }
+
+    private void expireOffers(long now) {
+        for (Map.Entry<UUID, Offer> entry : offersByRideId.entrySet()) {
+            Offer offer = entry.getValue();
+            if (offer.expiresAt() <= now && offersByRideId.remove(entry.getKey(), offer)) {
+                driversWithOffer.remove(offer.driverId());
+                PendingRide ride = pendingRides.get(entry.getKey());
+                if (ride != null) {
+                    ride.passedDrivers.add(offer.driverId());
+                }
+                expiredOfferCounter.increment();
+            }
+        }
+    }
+
+    private void offer(PendingRide ride, DriverPosition driver, double pickupSeconds, long now) {
+        if (!pendingRides.containsKey(ride.rideId)) {
+            return; // Accepted or cancelled while the window was being solved
+        }
+        long timeoutMs = dispatchProperties.getOfferTimeoutMs();
+        offersByRideId.put(ride.rideId, new Offer(driver.driverId(), now + timeoutMs));
+        driversWithOffer.add(driver.driverId());
+
+        RideRequestEvent event = new RideRequestEvent();
+        event.setRideId(ride.rideId);
+        event.setPickupLocation(new RideRequestEvent.Location(ride.pickupLatitude, ride.pickupLongitude, ride.pickupAddress));
+        if (!Double.isNaN(ride.dropoffLatitude)) {
+            event.setDropoffLocation(new RideRequestEvent.Location(ride.dropoffLatitude, ride.dropoffLongitude, ride.dropoffAddress));
+            if (ride.estimatedDistance != null) {
+                event.setEstimatedDistance(ride.estimatedDistance);
+            } else {
+                double km = GeoUtils.haversineMeters(ride.pickupLatitude, ride.pickupLongitude,
+                        ride.dropoffLatitude, ride.dropoffLongitude) / 1000.0;
+                event.setEstimatedDistance(Math.round(km * 100.0) / 100.0);
+            }
+        }
+        event.setEstimatedFare(ride.estimatedFare);
+        event.setEstimatedPickupTime((int) Math.ceil(pickupSeconds / 60.0));
+        event.setOfferExpiresInMs(timeoutMs);
+
+        try {
+            webSocketHandler.sendToUser(driver.driverId(), EncodedFrame.encode(objectMapper, event, false));
+            offerCounter.increment();
+        } catch (JsonProcessingException e) {
+            // Log error; the offer expires and the ride is dispatched again
+        }
+    }
+
+    private static double costOf(AssignmentProblem problem, int ride, int driver) {
+        for (int edge = problem.firstEdge(ride); edge < problem.endEdge(ride); edge++) {
+            if (problem.driver(edge) == driver) {
+                return problem.cost(edge);
+            }
+        }
+        return 0;
+    }
+
+    private record Offer(UUID driverId, long expiresAt) {
+    }
+
+    private static final class PendingRide {
+
+        private final UUID rideId;
+        private final double pickupLatitude;
+        private final double pickupLongitude;
+        private final String pickupAddress;
+        private final double dropoffLatitude;
+        private final double dropoffLongitude;
+        private final String dropoffAddress;
+        private final Double estimatedFare;
+        private final Double estimatedDistance;
+        private final long createdAt;
+        // Drivers who let an offer for this ride expire
+        private final Set<UUID> passedDrivers = ConcurrentHashMap.newKeySet();
+
+        private PendingRide(Ride ride) {
+            this.rideId = ride.getRideId();
+            this.pickupLatitude = ride.getPickupLatitude().doubleValue();
+            this.pickupLongitude = ride.getPickupLongitude().doubleValue();
+            this.pickupAddress = ride.getPickupAddress();
+            this.dropoffLatitude = ride.getDropoffLatitude() != null ? ride.getDropoffLatitude().doubleValue() : Double.NaN;
+            this.dropoffLongitude = ride.getDropoffLongitude() != null ? ride.getDropoffLongitude().doubleValue() : Double.NaN;
+            this.dropoffAddress = ride.getDropoffAddress();
+            this.estimatedFare = ride.getEstimatedFare() != null ? ride.getEstimatedFare().doubleValue() : null;
+            this.estimatedDistance = ride.getEstimatedDistance() != null ? ride.getEstimatedDistance().doubleValue() : null;
+            // The ride's own creation time, so rides reloaded after a restart keep their place in the queue
+            this.createdAt = ride.getCreatedAt() != null
+                    ? ride.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.ridehailing.backend.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Takes the globally cheapest remaining (ride, driver) pair until none is left.
+ * O(E log E) and fast, but can strand a ride whose only good driver went to a ride with alternatives.
+ */
+public class GreedyAssignmentSolver implements AssignmentSolver {
+
+    @Override
+    public int[] solve(AssignmentProblem problem) {
+        int rideCount = problem.rideCount();
+        int edgeCount = problem.edgeCount();
+
+        // Owning ride of every edge, so edges can be sorted globally by cost
+        int[] edgeRide = new int[edgeCount];
+        for (int ride = 0; ride < rideCount; ride++) {
+            Arrays.fill(edgeRide, problem.firstEdge(ride), problem.endEdge(ride), ride);
+        }
+        // Costs are non-negative, so their float bits order like the values; the edge rides in the low half
+        long[] order = new long[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            order[edge] = ((long) Float.floatToIntBits((float) problem.cost(edge)) << 32) | edge;
+        }
+        Arrays.sort(order);
+
+        int[] assignment = new int[rideCount];
+        Arrays.fill(assignment, -1);
+        boolean[] driverTaken = new boolean[problem.driverCount()];
+        int remaining = rideCount;
+        for (int i = 0; i < edgeCount && remaining > 0; i++) {
+            int edge = (int) order[i];
+            int ride = edgeRide[edge];
+            int driver = problem.driver(edge);
+            if (assignment[ride] < 0 && !driverTaken[driver]) {
+                assignment[ride] = driver;
+                driverTaken[driver] = true;
+                remaining--;
+            }
+        }
+        return assignment;
+    }
+}
@@ -0,0 +1,212 @@
+package com.ridehailing.backend.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Exact solver: the Hungarian method in its shortest-augmenting-path form, run on the sparse candidate graph.
+ *
+ * Each ride also gets a private "stay unassigned" option costing {@code C}, with {@code C} above every real
+ * cost, so every ride can always be matched and leaving a ride out is allowed only when it saves more than
+ * serving it. Rides are added one at a time; a Dijkstra search over reduced costs finds the cheapest way to
+ * fit the new ride in, possibly moving earlier rides to other drivers, and the driver prices are updated so
+ * reduced costs stay non-negative. The search stops at the first free option, so with a handful of
+ * candidates per ride it only touches the local neighbourhood instead of a dense rides × drivers matrix.
+ */
+public class HungarianAssignmentSolver implements AssignmentSolver {
+
+    @Override
+    public int[] solve(AssignmentProblem problem) {
+        int rideCount = problem.rideCount();
+        int driverCount = problem.driverCount();
+        double unassignedCost = 1.0;
+        for (int edge = 0; edge < problem.edgeCount(); edge++) {
+            unassignedCost = Math.max(unassignedCost, problem.cost(edge) + 1.0);
+        }
+
+        // Options 0 .. driverCount - 1 are drivers, driverCount + r is ride r's unassigned option
+        int optionCount = driverCount + rideCount;
+        double[] price = new double[optionCount];
+        int[] owner = new int[optionCount];
+        Arrays.fill(owner, -1);
+        int[] assigned = new int[rideCount];
+        Arrays.fill(assigned, -1);
+
+        double[] dist = new double[optionCount];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        int[] reachedFrom = new int[optionCount];
+        boolean[] settled = new boolean[optionCount];
+        int[] touched = new int[optionCount];
+        MinHeap heap = new MinHeap();
+
+        for (int ride = 0; ride < rideCount; ride++) {
+            int touchedCount = 0;
+            heap.clear();
+
+            // Options the new ride can take directly
+            touchedCount = relax(problem, ride, 0, 0, unassignedCost, price, dist, reachedFrom, settled,
+                    touched, touchedCount, heap);
+
+            int freeOption = -1;
+            double shortest = 0;
+            while (!heap.isEmpty()) {
+                double d = heap.peekKey();
+                int option = heap.poll();
+                if (settled[option] || d > dist[option]) {
+                    continue;
+                }
+                settled[option] = true;
+                if (owner[option] < 0) {
+                    freeOption = option;
+                    shortest = d;
+                    break;
+                }
+                // Option is taken: continue the path through its current ride
+                int other = owner[option];
+                double otherPotential = optionCost(problem, other, option, unassignedCost) - price[option];
+                touchedCount = relax(problem, other, d, otherPotential, unassignedCost, price, dist, reachedFrom,
+                        settled, touched, touchedCount, heap);
+            }
+
+            // Lower prices of settled options so the edges used stay tight
+            for (int i = 0; i < touchedCount; i++) {
+                int option = touched[i];
+                if (settled[option] && dist[option] < shortest) {
+                    price[option] -= shortest - dist[option];
+                }
+            }
+
+            // Shift the path: each ride on it takes the option the search reached it through
+            int option = freeOption;
+            while (true) {
+                int pathRide = reachedFrom[option];
+                int previous = assigned[pathRide];
+                owner[option] = pathRide;
+                assigned[pathRide] = option;
+                if (pathRide == ride) {
+                    break;
+                }
+                option = previous;
+            }
+
+            for (int i = 0; i < touchedCount; i++) {
+                dist[touched[i]] = Double.POSITIVE_INFINITY;
+                settled[touched[i]] = false;
+            }
+        }
+
+        int[] assignment = new int[rideCount];
+        for (int ride = 0; ride < rideCount; ride++) {
+            assignment[ride] = assigned[ride] < driverCount ? assigned[ride] : -1;
+        }
+        return assignment;
+    }
+
+    private static int relax(AssignmentProblem problem, int ride, double base, double ridePotential,
+                             double unassignedCost, double[] price, double[] dist, int[] reachedFrom,
+                             boolean[] settled, int[] touched, int touchedCount, MinHeap heap) {
+        int unassignedOption = problem.driverCount() + ride;
+        for (int edge = problem.firstEdge(ride); edge <= problem.endEdge(ride); edge++) {
+            int option;
+            double cost;
+            if (edge < problem.endEdge(ride)) {
+                option = problem.driver(edge);
+                cost = problem.cost(edge);
+            } else {
+                option = unassignedOption;
+                cost = unassignedCost;
+            }
+            if (settled[option]) {
+                continue;
+            }
+            double candidate = base + cost - price[option] - ridePotential;
+            if (candidate < dist[option]) {
+                if (dist[option] == Double.POSITIVE_INFINITY) {
+                    touched[touchedCount++] = option;
+                }
+                dist[option] = candidate;
+                reachedFrom[option] = ride;
+                heap.add(candidate, option);
+            }
+        }
+        return touchedCount;
+    }
+
+    private static double optionCost(AssignmentProblem problem, int ride, int option, double unassignedCost) {
+        if (option >= problem.driverCount()) {
+            return unassignedCost;
+        }
+        for (int edge = problem.firstEdge(ride); edge < problem.endEdge(ride); edge++) {
+            if (problem.driver(edge) == option) {
+                return problem.cost(edge);
+            }
+        }
+        throw new IllegalStateException("Ride " + ride + " holds option " + option + " without an edge to it");
+    }
+
+    /**
+     * Binary heap of (distance, option) with lazy deletion
+     */
+    private static final class MinHeap {
+
+        private double[] keys = new double[64];
+        private int[] values = new int[64];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double peekKey() {
+            return keys[0];
+        }
+
+        void add(double key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[i] = keys[parent];
+                values[i] = values[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int poll() {
+            int result = values[0];
+            size--;
+            double key = keys[size];
+            int value = values[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= key) {
+                    break;
+                }
+                keys[i] = keys[child];
+                values[i] = values[child];
+                i = child;
+            }
+            keys[i] = key;
+            values[i] = value;
+            return result;
+        }
+    }
+}
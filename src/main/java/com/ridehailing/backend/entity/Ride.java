@@ -52,6 +52,27 @@ public class Ride {
     @Column(name = "cancellation_reason", length = 255)
     private String cancellationReason;
 
+    @Column(name = "estimated_fare", precision = 10, scale = 2)
+    private BigDecimal estimatedFare;
+
+    @Column(name = "actual_fare", precision = 10, scale = 2)
+    private BigDecimal actualFare;
+
+    @Column(name = "estimated_distance", precision = 8, scale = 2)
+    private BigDecimal estimatedDistance; // in km
+
+    @Column(name = "actual_distance", precision = 8, scale = 2)
+    private BigDecimal actualDistance; // in km
+
+    @Column(name = "estimated_duration")
+    private Integer estimatedDuration; // in minutes
+
+    @Column(name = "actual_duration")
+    private Integer actualDuration; // in minutes
+
+    @Column(name = "surge_multiplier", precision = 4, scale = 2)
+    private BigDecimal surgeMultiplier;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -218,5 +239,60 @@ public class Ride {
     public void setCancelledAt(LocalDateTime cancelledAt) {
         this.cancelledAt = cancelledAt;
     }
-}
 
+    public BigDecimal getEstimatedFare() {
+        return estimatedFare;
+    }
+
+    public void setEstimatedFare(BigDecimal estimatedFare) {
+        this.estimatedFare = estimatedFare;
+    }
+
+    public BigDecimal getActualFare() {
+        return actualFare;
+    }
+
+    public void setActualFare(BigDecimal actualFare) {
+        this.actualFare = actualFare;
+    }
+
+    public BigDecimal getEstimatedDistance() {
+        return estimatedDistance;
+    }
+
+    public void setEstimatedDistance(BigDecimal estimatedDistance) {
+        this.estimatedDistance = estimatedDistance;
+    }
+
+    public BigDecimal getActualDistance() {
+        return actualDistance;
+    }
+
+    public void setActualDistance(BigDecimal actualDistance) {
+        this.actualDistance = actualDistance;
+    }
+
+    public Integer getEstimatedDuration() {
+        return estimatedDuration;
+    }
+
+    public void setEstimatedDuration(Integer estimatedDuration) {
+        this.estimatedDuration = estimatedDuration;
+    }
+
+    public Integer getActualDuration() {
+        return actualDuration;
+    }
+
+    public void setActualDuration(Integer actualDuration) {
+        this.actualDuration = actualDuration;
+    }
+
+    public BigDecimal getSurgeMultiplier() {
+        return surgeMultiplier;
+    }
+
+    public void setSurgeMultiplier(BigDecimal surgeMultiplier) {
+        this.surgeMultiplier = surgeMultiplier;
+    }
+}
@@ -0,0 +1,184 @@
+package com.ridehailing.backend.fare;
+
+import com.ridehailing.backend.config.FareProperties;
+import com.ridehailing.backend.dispatch.DispatchEngine;
+import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.geo.DriverLocationIndex;
+import com.ridehailing.backend.geo.EtaEstimator;
+import com.ridehailing.backend.geo.GeoUtils;
+import com.ridehailing.backend.geo.NearbyDriver;
+import com.ridehailing.backend.service.ActiveRideRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prices trips from route distance, driving time, a zone/time-of-day tariff and the zone's surge multiplier.
+ *
+ * Quotes run on the booking path, so everything they read is in memory: distance is haversine × the route
+ * factor, duration comes from the learned speed model, and surge is recomputed per zone on a schedule from
+ * pending rides versus free drivers rather than per request.
+ */
+@Component
+public class FareEngine {
+
+    private static final String BASE_TARIFF = "base";
+
+    private final FareProperties fareProperties;
+    private final EtaEstimator etaEstimator;
+    private final DriverLocationIndex driverLocationIndex;
+    private final ActiveRideRegistry activeRideRegistry;
+    private final DispatchEngine dispatchEngine;
+    private final Tariff baseTariff;
+    private final List<Tariff> tariffs = new ArrayList<>();
+
+    public FareEngine(FareProperties fareProperties, EtaEstimator etaEstimator,
+                      DriverLocationIndex driverLocationIndex, ActiveRideRegistry activeRideRegistry,
+                      DispatchEngine dispatchEngine) {
+        this.fareProperties = fareProperties;
+        this.etaEstimator = etaEstimator;
+        this.driverLocationIndex = driverLocationIndex;
+        this.activeRideRegistry = activeRideRegistry;
+        this.dispatchEngine = dispatchEngine;
+        this.baseTariff = new Tariff(BASE_TARIFF, 0, 0, 0, 0, 24, fareProperties.getBaseFare(),
+                fareProperties.getPerKm(), fareProperties.getPerMinute(), fareProperties.getMinimumFare());
+        for (FareProperties.Tariff tariff : fareProperties.getTariffs()) {
+            if (tariff.getStartHour() < 0 || tariff.getStartHour() > 24
+                    || tariff.getEndHour() < 0 || tariff.getEndHour() > 24) {
+                throw new IllegalArgumentException("Tariff " + tariff.getName() + " hours must be between 0 and 24");
+            }
+            tariffs.add(new Tariff(tariff.getName(), tariff.getCenterLatitude(), tariff.getCenterLongitude(),
+                    tariff.getRadiusMeters(), tariff.getStartHour(), tariff.getEndHour(),
+                    orDefault(tariff.getBaseFare(), baseTariff.baseFare),
+                    orDefault(tariff.getPerKm(), baseTariff.perKm),
+                    orDefault(tariff.getPerMinute(), baseTariff.perMinute),
+                    orDefault(tariff.getMinimumFare(), baseTariff.minimumFare)));
+        }
+    }
+
+    /**
+     * Upfront quote for a trip booked at the given local time, at the pickup zone's current surge
+     */
+    public FareQuote quote(double pickupLatitude, double pickupLongitude,
+                           double dropoffLatitude, double dropoffLongitude, LocalDateTime at) {
+        double km = GeoUtils.haversineMeters(pickupLatitude, pickupLongitude, dropoffLatitude, dropoffLongitude)
+                * fareProperties.getRouteFactor() / 1000.0;
+        int minutes = etaEstimator.estimateMinutes(pickupLatitude, pickupLongitude, dropoffLatitude, dropoffLongitude);
+        Tariff tariff = tariffFor(pickupLatitude, pickupLongitude, at.getHour());
+        return price(tariff, km, minutes, tariff.surge);
+    }
+
+    /**
+     * Final fare for a completed ride: the tariff in force when the trip started, the surge locked in at
+     * booking, and the time actually travelled over the measured distance (estimated distance when it is null)
+     */
+    public FareQuote finalFare(Ride ride, BigDecimal measuredDistanceKm) {
+        LocalDateTime startedAt = ride.getStartedAt() != null ? ride.getStartedAt() : ride.getCompletedAt();
+        LocalDateTime completedAt = ride.getCompletedAt() != null ? ride.getCompletedAt() : LocalDateTime.now();
+        long seconds = Math.max(0, Duration.between(startedAt, completedAt).getSeconds());
+        int minutes = (int) ((seconds + 59) / 60);
+
+        BigDecimal distance = measuredDistanceKm != null ? measuredDistanceKm : ride.getEstimatedDistance();
+        double km = distance != null ? distance.doubleValue() : 0.0;
+        double surge = ride.getSurgeMultiplier() != null ? ride.getSurgeMultiplier().doubleValue() : 1.0;
+
+        Tariff tariff = tariffFor(ride.getPickupLatitude().doubleValue(), ride.getPickupLongitude().doubleValue(),
+                startedAt.getHour());
+        return price(tariff, km, minutes, surge);
+    }
+
+    /**
+     * Recompute each zone's surge from pending rides versus free drivers inside it
+     */
+    @Scheduled(fixedDelayString = "${fare.surge-refresh-ms:30000}")
+    public void refreshSurge() {
+        for (Tariff tariff : tariffs) {
+            if (tariff.radiusMeters > 0) {
+                tariff.surge = surgeFor(tariff);
+            }
+        }
+    }
+
+    private double surgeFor(Tariff zone) {
+        int demand = dispatchEngine.pendingRidesWithin(zone.centerLatitude, zone.centerLongitude, zone.radiusMeters);
+        int supply = 0;
+        for (NearbyDriver driver : driverLocationIndex.findWithinRadius(
+                zone.centerLatitude, zone.centerLongitude, zone.radiusMeters)) {
+            if (activeRideRegistry.getByDriverId(driver.position().driverId()) == null) {
+                supply++;
+            }
+        }
+        double ratio = demand / (double) Math.max(1, supply);
+        // Steps of 0.1 so the multiplier does not jitter between refreshes
+        double surge = Math.floor(ratio * 10.0) / 10.0;
+        return Math.min(fareProperties.getMaxSurge(), Math.max(1.0, surge));
+    }
+
+    private Tariff tariffFor(double latitude, double longitude, int hour) {
+        for (Tariff tariff : tariffs) {
+            if (tariff.covers(latitude, longitude, hour)) {
+                return tariff;
+            }
+        }
+        return baseTariff;
+    }
+
+    private static FareQuote price(Tariff tariff, double km, int minutes, double surge) {
+        double amount = (tariff.baseFare + tariff.perKm * km + tariff.perMinute * minutes) * surge;
+        amount = Math.max(tariff.minimumFare, amount);
+        return new FareQuote(
+                BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP),
+                BigDecimal.valueOf(km).setScale(2, RoundingMode.HALF_UP),
+                minutes,
+                BigDecimal.valueOf(surge).setScale(2, RoundingMode.HALF_UP),
+                tariff.name);
+    }
+
+    private static double orDefault(Double value, double fallback) {
+        return value != null ? value : fallback;
+    }
+
+    private static final class Tariff {
+
+        private final String name;
+        private final double centerLatitude;
+        private final double centerLongitude;
+        private final double radiusMeters;
+        private final int startHour;
+        private final int endHour;
+        private final double baseFare;
+        private final double perKm;
+        private final double perMinute;
+        private final double minimumFare;
+        private volatile double surge = 1.0;
+
+        private Tariff(String name, double centerLatitude, double centerLongitude, double radiusMeters,
+                       int startHour, int endHour, double baseFare, double perKm, double perMinute,
+                       double minimumFare) {
+            this.name = name;
+            this.centerLatitude = centerLatitude;
+            this.centerLongitude = centerLongitude;
+            this.radiusMeters = radiusMeters;
+            this.startHour = startHour;
+            this.endHour = endHour;
+            this.baseFare = baseFare;
+            this.perKm = perKm;
+            this.perMinute = perMinute;
+            this.minimumFare = minimumFare;
+        }
+
+        private boolean covers(double latitude, double longitude, int hour) {
+            boolean inHours = startHour <= endHour
+                    ? (startHour == endHour || (hour >= startHour && hour < endHour))
+                    : (hour >= startHour || hour < endHour);
+            return inHours && (radiusMeters <= 0
+                    || GeoUtils.haversineMeters(centerLatitude, centerLongitude, latitude, longitude) <= radiusMeters);
+        }
+    }
+}
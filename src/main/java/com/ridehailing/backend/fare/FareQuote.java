@@ -0,0 +1,10 @@
+package com.ridehailing.backend.fare;
+
+import java.math.BigDecimal;
+
+/**
+ * Priced trip: fare and distance rounded to cents and hundredths of a km, duration in whole minutes
+ */
+public record FareQuote(BigDecimal fare, BigDecimal distanceKm, int durationMinutes,
+                        BigDecimal surgeMultiplier, String tariff) {
+}
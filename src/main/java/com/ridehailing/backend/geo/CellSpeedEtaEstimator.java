@@ -0,0 +1,130 @@
+package com.ridehailing.backend.geo;
+
+import com.ridehailing.backend.config.LocationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ETA from road-adjusted haversine distance and a speed model learned from driver pings.
+ *
+ * Each grid cell keeps an exponentially weighted average of the speeds observed between consecutive
+ * pings inside it. The effective speed between two cells (harmonic mean over origin, midpoint and
+ * destination cells) is cached per (cell, cell) pair for {@code etaCacheTtlMs}, so an estimate is a
+ * haversine plus one map lookup.
+ */
+@Component
+public class CellSpeedEtaEstimator implements EtaEstimator {
+
+    // Samples outside these bounds are parked drivers or GPS glitches, not traffic
+    private static final double MIN_SAMPLE_SPEED_MPS = 1.0;
+    private static final double MAX_SAMPLE_SPEED_MPS = 45.0;
+    private static final long MIN_SAMPLE_INTERVAL_MS = 1_000;
+    private static final long MAX_SAMPLE_INTERVAL_MS = 60_000;
+    // Cell averages older than this no longer describe current traffic
+    private static final long MAX_CELL_SPEED_AGE_MS = 15 * 60_000;
+    private static final int MAX_CACHED_PAIRS = 100_000;
+
+    private final double cellSizeDegrees;
+    private final int columns;
+    private final double defaultSpeedMps;
+    private final double roadFactor;
+    private final double smoothing;
+    private final long cacheTtlMs;
+
+    private final ConcurrentHashMap<Integer, CellSpeed> cellSpeeds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, PairSpeed> pairSpeeds = new ConcurrentHashMap<>();
+
+    public CellSpeedEtaEstimator(LocationProperties locationProperties) {
+        this.cellSizeDegrees = locationProperties.getEtaCellSizeDegrees();
+        this.columns = (int) Math.ceil(360.0 / cellSizeDegrees) + 1;
+        long rows = (long) Math.ceil(180.0 / cellSizeDegrees) + 1;
+        if (rows * columns > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("ETA cell size too small: " + cellSizeDegrees);
+        }
+        this.defaultSpeedMps = locationProperties.getEtaDefaultSpeedMps();
+        this.roadFactor = locationProperties.getEtaRoadFactor();
+        this.smoothing = locationProperties.getEtaSpeedSmoothing();
+        this.cacheTtlMs = locationProperties.getEtaCacheTtlMs();
+    }
+
+    @Override
+    public int estimateSeconds(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        return estimateSeconds(fromLatitude, fromLongitude, toLatitude, toLongitude, System.currentTimeMillis());
+    }
+
+    int estimateSeconds(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude, long now) {
+        double meters = GeoUtils.haversineMeters(fromLatitude, fromLongitude, toLatitude, toLongitude) * roadFactor;
+        if (meters < 1.0) {
+            return 0;
+        }
+
+        int fromCell = cellOf(fromLatitude, fromLongitude);
+        int toCell = cellOf(toLatitude, toLongitude);
+        long pairKey = ((long) fromCell << 32) | (toCell & 0xFFFFFFFFL);
+        PairSpeed cached = pairSpeeds.get(pairKey);
+        if (cached == null || now - cached.computedAt() > cacheTtlMs) {
+            int midCell = cellOf((fromLatitude + toLatitude) / 2, (fromLongitude + toLongitude) / 2);
+            cached = new PairSpeed(pairSpeed(now, fromCell, midCell, toCell), now);
+            if (pairSpeeds.size() >= MAX_CACHED_PAIRS) {
+                pairSpeeds.clear(); // Cheap bound; entries are recomputed on demand
+            }
+            pairSpeeds.put(pairKey, cached);
+        }
+        return (int) Math.ceil(meters / cached.metersPerSecond());
+    }
+
+    @Override
+    public void recordMovement(DriverPosition previous, double latitude, double longitude, long timestampMillis) {
+        long elapsedMs = timestampMillis - previous.timestampMillis();
+        if (elapsedMs < MIN_SAMPLE_INTERVAL_MS || elapsedMs > MAX_SAMPLE_INTERVAL_MS) {
+            return;
+        }
+        double speed = GeoUtils.haversineMeters(previous.latitude(), previous.longitude(), latitude, longitude)
+                * 1000.0 / elapsedMs;
+        if (speed < MIN_SAMPLE_SPEED_MPS || speed > MAX_SAMPLE_SPEED_MPS) {
+            return;
+        }
+        cellSpeeds.computeIfAbsent(cellOf(latitude, longitude), cell -> new CellSpeed())
+                .add(speed, smoothing, timestampMillis);
+    }
+
+    int cellOf(double latitude, double longitude) {
+        int row = (int) Math.floor((latitude + 90.0) / cellSizeDegrees);
+        int column = (int) Math.floor((longitude + 180.0) / cellSizeDegrees);
+        return row * columns + column;
+    }
+
+    // Harmonic mean: time spent is what adds up along a route, so slow cells weigh more
+    private double pairSpeed(long now, int... cells) {
+        double inverseSum = 0;
+        int samples = 0;
+        for (int cell : cells) {
+            CellSpeed cellSpeed = cellSpeeds.get(cell);
+            if (cellSpeed != null && now - cellSpeed.updatedAt <= MAX_CELL_SPEED_AGE_MS) {
+                inverseSum += 1.0 / cellSpeed.metersPerSecond;
+                samples++;
+            }
+        }
+        return samples == 0 ? defaultSpeedMps : samples / inverseSum;
+    }
+
+    private record PairSpeed(double metersPerSecond, long computedAt) {
+    }
+
+    /**
+     * Moving average of one cell. Concurrent updates may occasionally lose a sample, which the
+     * average tolerates; readers always see a complete value.
+     */
+    private static final class CellSpeed {
+
+        private volatile double metersPerSecond;
+        private volatile long updatedAt;
+
+        private void add(double speed, double smoothing, long timestampMillis) {
+            double current = metersPerSecond;
+            metersPerSecond = current == 0 ? speed : current + smoothing * (speed - current);
+            updatedAt = timestampMillis;
+        }
+    }
+}
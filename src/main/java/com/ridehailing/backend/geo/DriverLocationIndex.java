@@ -0,0 +1,224 @@
+package com.ridehailing.backend.geo;
+
+import com.ridehailing.backend.config.LocationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory spatial index of online drivers, updated on every location ping.
+ *
+ * Drivers are bucketed into a fixed lat/lon grid. Each bucket is its own concurrent map, so updates
+ * for drivers in different cells never contend, and queries only touch the cells around the query point.
+ */
+@Component
+public class DriverLocationIndex {
+
+    private static final Comparator<NearbyDriver> BY_DISTANCE_DESC =
+            Comparator.comparingDouble(NearbyDriver::distanceMeters).reversed();
+
+    private final double cellSizeDegrees;
+    private final int latCells;
+    private final int lonCells;
+    private final long staleAfterMs;
+
+    private final ConcurrentHashMap<UUID, DriverPosition> positions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<UUID, DriverPosition>> cells = new ConcurrentHashMap<>();
+
+    public DriverLocationIndex(LocationProperties locationProperties) {
+        this.cellSizeDegrees = locationProperties.getIndexCellSizeDegrees();
+        this.latCells = (int) Math.ceil(180.0 / cellSizeDegrees);
+        this.lonCells = (int) Math.ceil(360.0 / cellSizeDegrees);
+        this.staleAfterMs = locationProperties.getDriverStaleAfterMs();
+    }
+
+    /**
+     * Record the latest position of a driver, moving it between grid cells if needed
+     */
+    public void update(UUID driverId, double latitude, double longitude, long timestampMillis) {
+        DriverPosition position = new DriverPosition(driverId, latitude, longitude, timestampMillis);
+        long newCell = cellKey(latitude, longitude);
+
+        // compute() serializes concurrent updates for the same driver, keeping the cell move atomic
+        positions.compute(driverId, (id, previous) -> {
+            if (previous != null && previous.timestampMillis() > timestampMillis) {
+                return previous; // out-of-order ping
+            }
+            if (previous != null) {
+                long oldCell = cellKey(previous.latitude(), previous.longitude());
+                if (oldCell != newCell) {
+                    removeFromCell(oldCell, id);
+                }
+            }
+            cells.compute(newCell, (key, bucket) -> {
+                ConcurrentHashMap<UUID, DriverPosition> target = bucket != null ? bucket : new ConcurrentHashMap<>();
+                target.put(id, position);
+                return target;
+            });
+            return position;
+        });
+    }
+
+    public void remove(UUID driverId) {
+        positions.computeIfPresent(driverId, (id, previous) -> {
+            removeFromCell(cellKey(previous.latitude(), previous.longitude()), id);
+            return null;
+        });
+    }
+
+    public DriverPosition get(UUID driverId) {
+        return positions.get(driverId);
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    /**
+     * All non-stale drivers within the radius, closest first
+     */
+    public List<NearbyDriver> findWithinRadius(double latitude, double longitude, double radiusMeters) {
+        long cutoff = System.currentTimeMillis() - staleAfterMs;
+        int centerLat = latIndex(latitude);
+        int centerLon = lonIndex(longitude);
+        int latSpan = (int) Math.ceil(radiusMeters / cellHeightMeters());
+        int lonSpan = Math.min((int) Math.ceil(radiusMeters / cellWidthMeters(latitude)), lonCells / 2);
+
+        List<NearbyDriver> result = new ArrayList<>();
+        for (int dLat = -latSpan; dLat <= latSpan; dLat++) {
+            for (int dLon = -lonSpan; dLon <= lonSpan; dLon++) {
+                collectCell(centerLat + dLat, centerLon + dLon, latitude, longitude, radiusMeters, cutoff, result);
+            }
+        }
+        result.sort(Comparator.comparingDouble(NearbyDriver::distanceMeters));
+        return result;
+    }
+
+    /**
+     * The k closest non-stale drivers within maxRadiusMeters, closest first.
+     * Searches outward ring by ring and stops as soon as no unvisited cell can hold a closer driver.
+     */
+    public List<NearbyDriver> findNearest(double latitude, double longitude, int k, double maxRadiusMeters) {
+        if (k <= 0) {
+            return List.of();
+        }
+        long cutoff = System.currentTimeMillis() - staleAfterMs;
+        int centerLat = latIndex(latitude);
+        int centerLon = lonIndex(longitude);
+        double ringStep = Math.min(cellHeightMeters(), cellWidthMeters(latitude));
+        int maxRing = Math.min((int) Math.ceil(maxRadiusMeters / ringStep) + 1, Math.max(latCells, lonCells / 2));
+
+        PriorityQueue<NearbyDriver> closest = new PriorityQueue<>(k + 1, BY_DISTANCE_DESC);
+        List<NearbyDriver> ringHits = new ArrayList<>();
+        for (int ring = 0; ring <= maxRing; ring++) {
+            ringHits.clear();
+            if (ring == 0) {
+                collectCell(centerLat, centerLon, latitude, longitude, maxRadiusMeters, cutoff, ringHits);
+            } else {
+                for (int d = -ring; d <= ring; d++) {
+                    collectCell(centerLat - ring, centerLon + d, latitude, longitude, maxRadiusMeters, cutoff, ringHits);
+                    collectCell(centerLat + ring, centerLon + d, latitude, longitude, maxRadiusMeters, cutoff, ringHits);
+                }
+                for (int d = -ring + 1; d <= ring - 1; d++) {
+                    collectCell(centerLat + d, centerLon - ring, latitude, longitude, maxRadiusMeters, cutoff, ringHits);
+                    collectCell(centerLat + d, centerLon + ring, latitude, longitude, maxRadiusMeters, cutoff, ringHits);
+                }
+            }
+            for (NearbyDriver hit : ringHits) {
+                closest.offer(hit);
+                if (closest.size() > k) {
+                    closest.poll();
+                }
+            }
+
+            // Anything outside the rings visited so far is at least ring * ringStep away
+            double unvisitedBound = ring * ringStep;
+            if (unvisitedBound > maxRadiusMeters
+                    || (closest.size() == k && closest.peek().distanceMeters() <= unvisitedBound)) {
+                break;
+            }
+        }
+
+        List<NearbyDriver> result = new ArrayList<>(closest);
+        result.sort(Comparator.comparingDouble(NearbyDriver::distanceMeters));
+        return result;
+    }
+
+    /**
+     * Drop drivers that stopped sending pings, so the grid does not grow with every driver ever seen
+     */
+    @Scheduled(fixedDelayString = "${location.index-eviction-interval-ms:30000}")
+    public void evictStale() {
+        long cutoff = System.currentTimeMillis() - staleAfterMs;
+        for (Map.Entry<UUID, DriverPosition> entry : positions.entrySet()) {
+            if (entry.getValue().timestampMillis() < cutoff) {
+                positions.computeIfPresent(entry.getKey(), (id, current) -> {
+                    if (current.timestampMillis() >= cutoff) {
+                        return current;
+                    }
+                    removeFromCell(cellKey(current.latitude(), current.longitude()), id);
+                    return null;
+                });
+            }
+        }
+    }
+
+    private void collectCell(int latIdx, int lonIdx, double latitude, double longitude,
+                             double radiusMeters, long cutoff, List<NearbyDriver> out) {
+        if (latIdx < 0 || latIdx >= latCells) {
+            return;
+        }
+        ConcurrentHashMap<UUID, DriverPosition> bucket = cells.get(cellKey(latIdx, Math.floorMod(lonIdx, lonCells)));
+        if (bucket == null) {
+            return;
+        }
+        for (DriverPosition position : bucket.values()) {
+            if (position.timestampMillis() < cutoff) {
+                continue;
+            }
+            double distance = GeoUtils.haversineMeters(latitude, longitude, position.latitude(), position.longitude());
+            if (distance <= radiusMeters) {
+                out.add(new NearbyDriver(position, distance));
+            }
+        }
+    }
+
+    private void removeFromCell(long cell, UUID driverId) {
+        cells.computeIfPresent(cell, (key, bucket) -> {
+            bucket.remove(driverId);
+            return bucket.isEmpty() ? null : bucket;
+        });
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return cellKey(latIndex(latitude), lonIndex(longitude));
+    }
+
+    private long cellKey(int latIdx, int lonIdx) {
+        return (long) latIdx * lonCells + lonIdx;
+    }
+
+    private int latIndex(double latitude) {
+        return Math.min(latCells - 1, Math.max(0, (int) Math.floor((latitude + 90.0) / cellSizeDegrees)));
+    }
+
+    private int lonIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180.0) / cellSizeDegrees), lonCells);
+    }
+
+    private double cellHeightMeters() {
+        return cellSizeDegrees * GeoUtils.METERS_PER_DEGREE_LATITUDE;
+    }
+
+    private double cellWidthMeters(double latitude) {
+        // Clamp near the poles so ring arithmetic stays finite
+        return Math.max(1.0, cellSizeDegrees * GeoUtils.metersPerDegreeLongitude(latitude));
+    }
+}
@@ -0,0 +1,9 @@
+package com.ridehailing.backend.geo;
+
+import java.util.UUID;
+
+/**
+ * Last known position of an online driver
+ */
+public record DriverPosition(UUID driverId, double latitude, double longitude, long timestampMillis) {
+}
@@ -0,0 +1,30 @@
+package com.ridehailing.backend.geo;
+
+/**
+ * Estimates driving time between two points; called inline on the location path, so implementations
+ * must answer from memory.
+ */
+public interface EtaEstimator {
+
+    /**
+     * Estimated driving time in seconds
+     */
+    int estimateSeconds(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude);
+
+    /**
+     * Learn from a driver moving from its previous indexed position to a new fix
+     */
+    void recordMovement(DriverPosition previous, double latitude, double longitude, long timestampMillis);
+
+    /**
+     * Estimated driving time rounded up to whole minutes, or null if either point is unknown (NaN)
+     */
+    default Integer estimateMinutes(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        if (Double.isNaN(fromLatitude) || Double.isNaN(fromLongitude)
+                || Double.isNaN(toLatitude) || Double.isNaN(toLongitude)) {
+            return null;
+        }
+        int seconds = estimateSeconds(fromLatitude, fromLongitude, toLatitude, toLongitude);
+        return (seconds + 59) / 60;
+    }
+}
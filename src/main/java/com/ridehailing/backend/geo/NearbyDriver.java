@@ -0,0 +1,7 @@
+package com.ridehailing.backend.geo;
+
+/**
+ * Result of a spatial query: a driver position and its distance from the query point
+ */
+public record NearbyDriver(DriverPosition position, double distanceMeters) {
+}
@@ -17,7 +17,8 @@ public interface DriverRepository extends JpaRepository<Driver, UUID> {
     
     Optional<Driver> findByLicenseNumber(String licenseNumber);
     
-    @Modifying
+    // Flushes the pending user row first so the foreign key is satisfied
+    @Modifying(flushAutomatically = true)
     @Query(value = "INSERT INTO drivers (driver_id, license_number, license_expiry, total_rides, total_earnings, status, is_verified, created_at, updated_at) VALUES (:driverId, :licenseNumber, :licenseExpiry, 0, 0.00, 'OFFLINE', FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", nativeQuery = true)
     void insertDriver(@Param("driverId") UUID driverId, @Param("licenseNumber") String licenseNumber, @Param("licenseExpiry") LocalDate licenseExpiry);
 }
@@ -0,0 +1,30 @@
+package com.ridehailing.backend.repository;
+
+import com.ridehailing.backend.entity.RefreshTokenFamily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, UUID> {
+
+    // Compare-and-set on the current token hash, so two refreshes with the same token cannot both win
+    @Modifying
+    @Query("UPDATE RefreshTokenFamily f SET f.tokenHash = :newHash, f.generation = f.generation + 1, f.lastUsedAt = :now " +
+            "WHERE f.familyId = :familyId AND f.tokenHash = :oldHash AND f.revokedAt IS NULL AND f.expiresAt > :now " +
+            "AND EXISTS (SELECT 1 FROM User u WHERE u.userId = f.userId AND u.status = 'ACTIVE')")
+    int rotate(@Param("familyId") UUID familyId, @Param("oldHash") String oldHash, @Param("newHash") String newHash,
+               @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE RefreshTokenFamily f SET f.revokedAt = :now WHERE f.familyId = :familyId AND f.revokedAt IS NULL")
+    int revoke(@Param("familyId") UUID familyId, @Param("now") LocalDateTime now);
+
+    List<RefreshTokenFamily> findByRevokedAtAfter(LocalDateTime since);
+}
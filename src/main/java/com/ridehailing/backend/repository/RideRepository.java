@@ -2,9 +2,15 @@ package com.ridehailing.backend.repository;
 
 import com.ridehailing.backend.entity.Ride;
 import com.ridehailing.backend.model.RideStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,7 +21,69 @@ public interface RideRepository extends JpaRepository<Ride, UUID> {
     List<Ride> findByDriverId(UUID driverId);
     List<Ride> findByRiderIdAndStatus(UUID riderId, RideStatus status);
     List<Ride> findByDriverIdAndStatus(UUID driverId, RideStatus status);
+    List<Ride> findByStatusIn(Collection<RideStatus> statuses);
     Optional<Ride> findByRideIdAndRiderId(UUID rideId, UUID riderId);
     Optional<Ride> findByRideIdAndDriverId(UUID rideId, UUID driverId);
+
+    // Ride history, newest first, paged by keyset on (created_at, ride_id) so deep pages cost the same as the first
+
+    @Query("SELECT new com.ridehailing.backend.repository.RideSummary(r.rideId, r.riderId, r.driverId, r.status, " +
+            "r.pickupAddress, r.dropoffAddress, r.createdAt, r.completedAt, r.cancelledAt) FROM Ride r " +
+            "WHERE r.riderId = :riderId ORDER BY r.createdAt DESC, r.rideId DESC")
+    List<RideSummary> findRiderHistory(@Param("riderId") UUID riderId, Limit limit);
+
+    @Query("SELECT new com.ridehailing.backend.repository.RideSummary(r.rideId, r.riderId, r.driverId, r.status, " +
+            "r.pickupAddress, r.dropoffAddress, r.createdAt, r.completedAt, r.cancelledAt) FROM Ride r " +
+            "WHERE r.riderId = :riderId AND (r.createdAt, r.rideId) < (:createdAt, :rideId) " +
+            "ORDER BY r.createdAt DESC, r.rideId DESC")
+    List<RideSummary> findRiderHistoryBefore(@Param("riderId") UUID riderId, @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("rideId") UUID rideId, Limit limit);
+
+    @Query("SELECT new com.ridehailing.backend.repository.RideSummary(r.rideId, r.riderId, r.driverId, r.status, " +
+            "r.pickupAddress, r.dropoffAddress, r.createdAt, r.completedAt, r.cancelledAt) FROM Ride r " +
+            "WHERE r.driverId = :driverId ORDER BY r.createdAt DESC, r.rideId DESC")
+    List<RideSummary> findDriverHistory(@Param("driverId") UUID driverId, Limit limit);
+
+    @Query("SELECT new com.ridehailing.backend.repository.RideSummary(r.rideId, r.riderId, r.driverId, r.status, " +
+            "r.pickupAddress, r.dropoffAddress, r.createdAt, r.completedAt, r.cancelledAt) FROM Ride r " +
+            "WHERE r.driverId = :driverId AND (r.createdAt, r.rideId) < (:createdAt, :rideId) " +
+            "ORDER BY r.createdAt DESC, r.rideId DESC")
+    List<RideSummary> findDriverHistoryBefore(@Param("driverId") UUID driverId, @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("rideId") UUID rideId, Limit limit);
+
+    // Status transitions are compare-and-set: each returns 1 if this caller moved the ride, 0 if it was not in the expected state
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ride r SET r.status = com.ridehailing.backend.model.RideStatus.ACCEPTED, r.driverId = :driverId, " +
+            "r.vehicleId = :vehicleId, r.acceptedAt = :now " +
+            "WHERE r.rideId = :rideId AND r.status = com.ridehailing.backend.model.RideStatus.PENDING")
+    int acceptIfPending(@Param("rideId") UUID rideId, @Param("driverId") UUID driverId,
+                        @Param("vehicleId") UUID vehicleId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ride r SET r.status = com.ridehailing.backend.model.RideStatus.IN_PROGRESS, r.startedAt = :now " +
+            "WHERE r.rideId = :rideId AND r.driverId = :driverId " +
+            "AND r.status = com.ridehailing.backend.model.RideStatus.ACCEPTED")
+    int startIfAccepted(@Param("rideId") UUID rideId, @Param("driverId") UUID driverId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ride r SET r.status = com.ridehailing.backend.model.RideStatus.COMPLETED, r.completedAt = :now " +
+            "WHERE r.rideId = :rideId AND r.driverId = :driverId " +
+            "AND r.status = com.ridehailing.backend.model.RideStatus.IN_PROGRESS")
+    int completeIfInProgress(@Param("rideId") UUID rideId, @Param("driverId") UUID driverId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ride r SET r.status = com.ridehailing.backend.model.RideStatus.CANCELLED, r.cancelledBy = 'RIDER', " +
+            "r.cancellationReason = :reason, r.cancelledAt = :now " +
+            "WHERE r.rideId = :rideId AND r.riderId = :riderId AND r.status IN :cancellable")
+    int cancelByRider(@Param("rideId") UUID rideId, @Param("riderId") UUID riderId, @Param("reason") String reason,
+                      @Param("now") LocalDateTime now, @Param("cancellable") Collection<RideStatus> cancellable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ride r SET r.status = com.ridehailing.backend.model.RideStatus.CANCELLED, r.cancelledBy = 'DRIVER', " +
+            "r.cancellationReason = :reason, r.cancelledAt = :now " +
+            "WHERE r.rideId = :rideId AND r.driverId = :driverId AND r.status IN :cancellable")
+    int cancelByDriver(@Param("rideId") UUID rideId, @Param("driverId") UUID driverId, @Param("reason") String reason,
+                       @Param("now") LocalDateTime now, @Param("cancellable") Collection<RideStatus> cancellable);
 }
 
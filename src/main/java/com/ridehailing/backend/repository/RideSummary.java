@@ -0,0 +1,14 @@
+package com.ridehailing.backend.repository;
+
+import com.ridehailing.backend.model.RideStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The columns a ride history list shows, selected directly instead of loading full {@code Ride} entities
+ */
+public record RideSummary(UUID rideId, UUID riderId, UUID driverId, RideStatus status,
+                          String pickupAddress, String dropoffAddress,
+                          LocalDateTime createdAt, LocalDateTime completedAt, LocalDateTime cancelledAt) {
+}
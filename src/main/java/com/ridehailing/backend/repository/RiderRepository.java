@@ -14,7 +14,8 @@ import java.util.UUID;
 public interface RiderRepository extends JpaRepository<Rider, UUID> {
     Optional<Rider> findByRiderId(UUID riderId);
     
-    @Modifying
+    // Flushes the pending user row first so the foreign key is satisfied
+    @Modifying(flushAutomatically = true)
     @Query(value = "INSERT INTO riders (rider_id, total_rides, created_at, updated_at) VALUES (:riderId, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", nativeQuery = true)
     void insertRider(@Param("riderId") UUID riderId);
 }
@@ -2,6 +2,8 @@ package com.ridehailing.backend.repository;
 
 import com.ridehailing.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -12,5 +14,24 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
     boolean existsByPhoneNumber(String phoneNumber);
-}
 
+    /**
+     * First field already taken by another account (EMAIL or PHONE), or null, in one round trip
+     */
+    @Query(value = "SELECT CASE " +
+            "WHEN EXISTS (SELECT 1 FROM users WHERE email = :email) THEN 'EMAIL' " +
+            "WHEN EXISTS (SELECT 1 FROM users WHERE phone_number = :phoneNumber) THEN 'PHONE' END", nativeQuery = true)
+    String findRiderRegistrationConflict(@Param("email") String email, @Param("phoneNumber") String phoneNumber);
+
+    /**
+     * First field already taken (EMAIL, PHONE, LICENSE or PLATE), or null, in one round trip
+     */
+    @Query(value = "SELECT CASE " +
+            "WHEN EXISTS (SELECT 1 FROM users WHERE email = :email) THEN 'EMAIL' " +
+            "WHEN EXISTS (SELECT 1 FROM users WHERE phone_number = :phoneNumber) THEN 'PHONE' " +
+            "WHEN EXISTS (SELECT 1 FROM drivers WHERE license_number = :licenseNumber) THEN 'LICENSE' " +
+            "WHEN EXISTS (SELECT 1 FROM vehicles WHERE license_plate = :licensePlate) THEN 'PLATE' END", nativeQuery = true)
+    String findDriverRegistrationConflict(@Param("email") String email, @Param("phoneNumber") String phoneNumber,
+                                          @Param("licenseNumber") String licenseNumber,
+                                          @Param("licensePlate") String licensePlate);
+}
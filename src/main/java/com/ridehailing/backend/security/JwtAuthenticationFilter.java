@@ -1,7 +1,6 @@
 package com.ridehailing.backend.security;
 
 import com.ridehailing.backend.model.Role;
-import com.ridehailing.backend.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,15 +13,27 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private static final Map<Role, List<SimpleGrantedAuthority>> AUTHORITIES = new EnumMap<>(Role.class);
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
-        this.jwtUtil = jwtUtil;
+    static {
+        for (Role role : Role.values()) {
+            AUTHORITIES.put(role, List.of(new SimpleGrantedAuthority("ROLE_" + role.name())));
+        }
+    }
+
+    private final JwtVerifier jwtVerifier;
+    private final RevokedFamilies revokedFamilies;
+
+    public JwtAuthenticationFilter(JwtVerifier jwtVerifier, RevokedFamilies revokedFamilies) {
+        this.jwtVerifier = jwtVerifier;
+        this.revokedFamilies = revokedFamilies;
     }
 
     @Override
@@ -33,14 +44,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             try {
-                String subject = jwtUtil.getSubjectFromToken(token);
-                Role role = jwtUtil.getRoleFromToken(token);
-                
-                SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role.name());
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(subject, null, Collections.singletonList(authority));
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                // One verification per token, then served from cache until the token expires
+                JwtPrincipal principal = jwtVerifier.verify(token);
+
+                // Logged out or reused families; an in-memory check, so still no database access
+                if (principal.familyId() == null || !revokedFamilies.isRevoked(principal.familyId())) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(principal, null, AUTHORITIES.get(principal.role()));
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             } catch (Exception e) {
                 // Invalid token, continue without authentication
             }
@@ -0,0 +1,19 @@
+package com.ridehailing.backend.security;
+
+import com.ridehailing.backend.model.Role;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.util.UUID;
+
+/**
+ * Identity carried by a verified access token; {@link #getName()} is the user id, so
+ * {@code authentication.getName()} keeps returning it. {@code familyId} is the refresh token family the
+ * token was issued under, or null for tokens minted outside a login.
+ */
+public record JwtPrincipal(String userId, Role role, long expiresAtMillis, UUID familyId) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return userId;
+    }
+}
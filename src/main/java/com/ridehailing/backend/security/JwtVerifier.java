@@ -0,0 +1,81 @@
+package com.ridehailing.backend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.ridehailing.backend.config.JwtProperties;
+import com.ridehailing.backend.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access token verification with a cache of verified principals.
+ *
+ * A client sends the same token on every request until it expires, so the signature check and claim
+ * parsing are done once per token. Entries are keyed by the token's SHA-256, so raw bearer tokens are not
+ * kept in memory, and each entry expires at the token's own {@code exp}. Invalid tokens are never cached.
+ */
+@Component
+public class JwtVerifier {
+
+    private final JwtUtil jwtUtil;
+    private final Cache<ByteBuffer, JwtPrincipal> cache;
+
+    public JwtVerifier(JwtUtil jwtUtil, JwtProperties jwtProperties, MeterRegistry meterRegistry) {
+        this.jwtUtil = jwtUtil;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getCacheMaxSize())
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.principals");
+    }
+
+    /**
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, forged or expired
+     */
+    public JwtPrincipal verify(String token) {
+        return cache.get(hash(token), key -> jwtUtil.parsePrincipal(token));
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    private static ByteBuffer hash(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Each entry lives until its token's {@code exp}; reads and replacements do not extend it
+     */
+    private static final class TokenExpiry implements Expiry<ByteBuffer, JwtPrincipal> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, JwtPrincipal principal, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, principal.expiresAtMillis() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
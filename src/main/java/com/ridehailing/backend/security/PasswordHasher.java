@@ -0,0 +1,165 @@
+package com.ridehailing.backend.security;
+
+import com.ridehailing.backend.config.PasswordHashingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs password hashing on a dedicated, bounded pool.
+ *
+ * BCrypt is deliberately slow, so a burst of logins must not be allowed to occupy every request thread.
+ * Hash requests queue for one of a fixed number of threads; when the queue is full, or a request has
+ * already waited longer than the configured limit by the time a thread picks it up, it is rejected with
+ * {@link RejectedExecutionException} so the caller can answer 503 instead of piling up. The caller itself waits
+ * no longer than the queue-wait limit plus the hash budget, and gets the same exception when that runs out.
+ */
+@Component
+public class PasswordHasher {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final int cost;
+    private final long maxQueueWaitNanos;
+    private final long maxCallerWaitNanos;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedFull;
+    private final Counter rejectedExpired;
+    private final Counter rejectedCallerTimeout;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, PasswordHashingProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.cost = properties.getCost();
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMaxQueueWaitMs());
+        this.maxCallerWaitNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMaxQueueWaitMs() + properties.getMaxHashMs());
+        this.executor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()), hasherThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("auth.password.hash")
+                .description("Time spent hashing a password")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchTimer = Timer.builder("auth.password.hash")
+                .description("Time spent hashing a password")
+                .tag("operation", "match")
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("auth.password.queue.wait")
+                .description("Time hash requests waited for a hashing thread")
+                .register(meterRegistry);
+        this.rejectedFull = Counter.builder("auth.password.rejected")
+                .description("Hash requests rejected because the hashing pool was saturated")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.rejectedExpired = Counter.builder("auth.password.rejected")
+                .description("Hash requests rejected because the hashing pool was saturated")
+                .tag("reason", "queue_timeout")
+                .register(meterRegistry);
+        this.rejectedCallerTimeout = Counter.builder("auth.password.rejected")
+                .description("Hash requests rejected because the hashing pool was saturated")
+                .tag("reason", "caller_timeout")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.queue.size", executor, e -> e.getQueue().size())
+                .description("Hash requests waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @throws RejectedExecutionException if the hashing pool is saturated
+     */
+    public String encode(CharSequence rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword), encodeTimer);
+    }
+
+    /**
+     * @throws RejectedExecutionException if the hashing pool is saturated
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword), matchTimer);
+    }
+
+    /**
+     * Whether a stored hash was made with a different cost than the configured one, in either direction
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != cost;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T run(Callable<T> hash, Timer timer) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long waited = System.nanoTime() - submittedAt;
+                queueWaitTimer.record(waited, TimeUnit.NANOSECONDS);
+                if (waited > maxQueueWaitNanos) {
+                    // Most of the caller's wait is already spent; don't spend a slot on stale work
+                    rejectedExpired.increment();
+                    throw new RejectedExecutionException("Password hashing queue wait exceeded");
+                }
+                return timer.recordCallable(hash);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedFull.increment();
+            throw new RejectedExecutionException("Password hashing is saturated", e);
+        }
+
+        try {
+            return future.get(maxCallerWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCallerTimeout.increment();
+            throw new RejectedExecutionException("Password hashing did not finish in time", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static ThreadFactory hasherThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package com.ridehailing.backend.security;
+
+import com.ridehailing.backend.config.JwtProperties;
+import com.ridehailing.backend.entity.RefreshTokenFamily;
+import com.ridehailing.backend.repository.RefreshTokenFamilyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory set of revoked token families, consulted for every authenticated request.
+ *
+ * A revoked family's access tokens stay valid JWTs until they expire, so the family is remembered for one
+ * access token lifetime after revocation. Lookups go through a Bloom filter first: a family that was never
+ * revoked is rejected by the filter without touching the exact set, and nothing on this path reads the
+ * database. Revocations made on other instances arrive through a periodic poll of the families table.
+ */
+@Component
+public class RevokedFamilies {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    // Re-read this much before the last poll so revocations committed late are not skipped
+    private static final long SYNC_OVERLAP_SECONDS = 30;
+
+    private final RefreshTokenFamilyRepository familyRepository;
+    private final long accessTokenLifetimeMs;
+    private final int filterCapacity;
+
+    // Family id -> epoch millis after which its access tokens have all expired
+    private final Map<UUID, Long> revokedUntil = new ConcurrentHashMap<>();
+    // Writers hold the lock so a rebuild never loses a concurrent revocation
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile FamilyBloomFilter filter;
+    private LocalDateTime syncedUpTo;
+
+    private final Counter syncFailures;
+
+    public RevokedFamilies(RefreshTokenFamilyRepository familyRepository, JwtProperties jwtProperties,
+                           MeterRegistry meterRegistry) {
+        this.familyRepository = familyRepository;
+        this.accessTokenLifetimeMs = jwtProperties.getExpiration();
+        this.filterCapacity = jwtProperties.getRevocationFilterCapacity();
+        this.filter = new FamilyBloomFilter(filterCapacity, FALSE_POSITIVE_RATE);
+        this.syncedUpTo = LocalDateTime.now().minusNanos(accessTokenLifetimeMs * 1_000_000);
+
+        Gauge.builder("jwt.revoked.families", revokedUntil, Map::size)
+                .description("Token families currently revoked in memory")
+                .register(meterRegistry);
+        this.syncFailures = Counter.builder("jwt.revoked.sync.failures")
+                .description("Polls of revoked token families that failed")
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(UUID familyId) {
+        if (!filter.mightContain(familyId)) {
+            return false;
+        }
+        Long until = revokedUntil.get(familyId);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * Remember a family revoked at the given time until its last access token has expired
+     */
+    public void revoke(UUID familyId, long revokedAtMillis) {
+        long until = revokedAtMillis + accessTokenLifetimeMs;
+        writeLock.lock();
+        try {
+            revokedUntil.merge(familyId, until, Math::max);
+            filter.add(familyId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Pull revocations made by any instance, then forget families whose access tokens have all expired
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation-sync-interval-ms:5000}")
+    public void sync() {
+        LocalDateTime pollStartedAt = LocalDateTime.now();
+        try {
+            for (RefreshTokenFamily family : familyRepository.findByRevokedAtAfter(syncedUpTo)) {
+                revoke(family.getFamilyId(), toMillis(family.getRevokedAt()));
+            }
+            syncedUpTo = pollStartedAt.minusSeconds(SYNC_OVERLAP_SECONDS);
+        } catch (DataAccessException e) {
+            // Keep serving the set we have; the next poll covers this window again
+            syncFailures.increment();
+        }
+        purgeExpired();
+    }
+
+    int size() {
+        return revokedUntil.size();
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        if (!revokedUntil.values().removeIf(until -> until <= now)) {
+            return;
+        }
+        // A Bloom filter cannot forget, so it is rebuilt from what is left
+        writeLock.lock();
+        try {
+            FamilyBloomFilter rebuilt = new FamilyBloomFilter(Math.max(filterCapacity, revokedUntil.size()),
+                    FALSE_POSITIVE_RATE);
+            revokedUntil.keySet().forEach(rebuilt::add);
+            filter = rebuilt;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,136 @@
+package com.ridehailing.backend.service;
+
+import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.repository.RideRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory view of which ride each driver is currently serving (ACCEPTED or IN_PROGRESS).
+ *
+ * Kept current by RideService transitions and warmed from the database at startup,
+ * so the per-ping location path can resolve a driver's ride without any SQL.
+ *
+ * RideService applies transitions from after-commit callbacks, which can run in any order across transactions,
+ * so an entry only ever moves forward (ACCEPTED to IN_PROGRESS) and a ride that reached a terminal status is
+ * remembered for a while so a late register cannot bring it back.
+ */
+@Component
+public class ActiveRideRegistry {
+
+    private static final EnumSet<RideStatus> ACTIVE_STATUSES = EnumSet.of(RideStatus.ACCEPTED, RideStatus.IN_PROGRESS);
+
+    private final RideRepository rideRepository;
+    // Far longer than the gap between the commits of consecutive transitions of one ride
+    private static final long TOMBSTONE_TTL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final ConcurrentHashMap<UUID, ActiveRide> ridesByDriverId = new ConcurrentHashMap<>();
+    // Ride id -> when its tombstone expires, for rides that completed or were cancelled
+    private final ConcurrentHashMap<UUID, Long> finishedRides = new ConcurrentHashMap<>();
+
+    public ActiveRideRegistry(RideRepository rideRepository) {
+        this.rideRepository = rideRepository;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        for (Ride ride : rideRepository.findByStatusIn(ACTIVE_STATUSES)) {
+            register(ride);
+        }
+    }
+
+    /**
+     * Record the ride as the driver's active ride; non-active statuses remove it instead.
+     * Ignored when it would move the ride back to ACCEPTED or revive a ride that already finished.
+     */
+    public void register(Ride ride) {
+        if (ride.getDriverId() == null) {
+            return;
+        }
+        if (!ACTIVE_STATUSES.contains(ride.getStatus())) {
+            remove(ride.getDriverId(), ride.getRideId());
+            return;
+        }
+        ActiveRide next = new ActiveRide(ride.getRideId(), ride.getRiderId(), ride.getDriverId(),
+                ride.getStatus(), degrees(ride.getPickupLatitude()), degrees(ride.getPickupLongitude()),
+                degrees(ride.getDropoffLatitude()), degrees(ride.getDropoffLongitude()));
+        // remove() writes the tombstone before taking this key, so one of the two always sees the other
+        ridesByDriverId.compute(ride.getDriverId(), (id, current) -> {
+            if (finishedRides.containsKey(next.rideId())) {
+                return current;
+            }
+            if (current != null && current.rideId().equals(next.rideId())
+                    && current.status() == RideStatus.IN_PROGRESS) {
+                return current;
+            }
+            return next;
+        });
+    }
+
+    /**
+     * Mark the ride finished and remove the driver's entry only if it still points at that ride
+     */
+    public void remove(UUID driverId, UUID rideId) {
+        if (rideId != null) {
+            finishedRides.put(rideId, System.currentTimeMillis() + TOMBSTONE_TTL_MS);
+        }
+        if (driverId == null) {
+            return;
+        }
+        ridesByDriverId.computeIfPresent(driverId, (id, current) -> current.rideId().equals(rideId) ? null : current);
+    }
+
+    /**
+     * Forget finished rides once no late callback for them can still arrive
+     */
+    @Scheduled(fixedDelayString = "${active-rides.tombstone-purge-interval-ms:60000}")
+    public void purgeFinishedRides() {
+        purgeFinishedRides(System.currentTimeMillis());
+    }
+
+    void purgeFinishedRides(long now) {
+        finishedRides.entrySet().removeIf(entry -> entry.getValue() <= now);
+    }
+
+    /**
+     * Active ride for the driver, or null when the driver is not on a ride
+     */
+    public ActiveRide getByDriverId(UUID driverId) {
+        return ridesByDriverId.get(driverId);
+    }
+
+    public int size() {
+        return ridesByDriverId.size();
+    }
+
+    private static double degrees(BigDecimal value) {
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+
+    /**
+     * Coordinates are NaN when unknown (dropoff is optional)
+     */
+    public record ActiveRide(UUID rideId, UUID riderId, UUID driverId, RideStatus status,
+                             double pickupLatitude, double pickupLongitude,
+                             double dropoffLatitude, double dropoffLongitude) {
+
+        /**
+         * Where the driver is heading: the pickup until the trip starts, then the dropoff
+         */
+        public double targetLatitude() {
+            return status == RideStatus.ACCEPTED ? pickupLatitude : dropoffLatitude;
+        }
+
+        public double targetLongitude() {
+            return status == RideStatus.ACCEPTED ? pickupLongitude : dropoffLongitude;
+        }
+    }
+}
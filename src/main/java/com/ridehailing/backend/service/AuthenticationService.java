@@ -1,191 +1,169 @@
 package com.ridehailing.backend.service;
 
-import com.ridehailing.backend.entity.RoleEntity;
 import com.ridehailing.backend.entity.User;
 import com.ridehailing.backend.entity.Vehicle;
 import com.ridehailing.backend.model.Role;
 import com.ridehailing.backend.repository.DriverRepository;
 import com.ridehailing.backend.repository.RiderRepository;
-import com.ridehailing.backend.repository.RoleRepository;
 import com.ridehailing.backend.repository.UserRepository;
 import com.ridehailing.backend.repository.VehicleRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.ridehailing.backend.security.PasswordHasher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.UUID;
-
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Registration and login.
+ *
+ * Hashing a password waits for the bounded hashing pool and then runs bcrypt, which together can take a second.
+ * No transaction, and so no pooled connection, is held meanwhile: the lookup and the writes around a hash each
+ * run in their own short transaction, so a burst of logins cannot drain the connection pool.
+ */
 @Service
-@Transactional
 public class AuthenticationService {
 
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleCache roleCache;
     private final RiderRepository riderRepository;
     private final DriverRepository driverRepository;
     private final VehicleRepository vehicleRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final TransactionTemplate transactionTemplate;
 
     public AuthenticationService(
             UserRepository userRepository,
-            RoleRepository roleRepository,
+            RoleCache roleCache,
             RiderRepository riderRepository,
             DriverRepository driverRepository,
             VehicleRepository vehicleRepository,
-            PasswordEncoder passwordEncoder) {
+            PasswordHasher passwordHasher,
+            PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
+        this.roleCache = roleCache;
         this.riderRepository = riderRepository;
         this.driverRepository = driverRepository;
         this.vehicleRepository = vehicleRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
-     * Register a new rider
+     * Register a new rider.
+     * Uniqueness is checked in one query and the user and rider rows are written back to back.
      */
     public User registerRider(String email, String password, String phoneNumber,
                               String firstName, String lastName) {
-        // Check if email already exists
-        if (userRepository.existsByEmail(email)) {
-            throw new IllegalArgumentException("Email already registered");
-        }
-
-        // Check if phone number already exists
-        if (userRepository.existsByPhoneNumber(phoneNumber)) {
-            throw new IllegalArgumentException("Phone number already registered");
-        }
-
-        // Get RIDER role
-        RoleEntity riderRole = roleRepository.findByRoleName("RIDER")
-                .orElseThrow(() -> new IllegalStateException("RIDER role not found in database"));
-
-        // Create user
-        User user = new User();
-        user.setEmail(email);
-        user.setPasswordHash(passwordEncoder.encode(password)); // Hash password
-        user.setPhoneNumber(phoneNumber);
-        user.setFirstName(firstName);
-        user.setLastName(lastName);
-        user.setRole(riderRole);
-        user.setStatus("ACTIVE");
-
-        // Save user first - this will generate the UUID
-        User savedUser = userRepository.save(user);
-        
-        // Flush to ensure user is persisted and ID is available
-        userRepository.flush();
-        
-        // Verify user has an ID
-        UUID userId = savedUser.getUserId();
-        if (userId == null) {
-            throw new IllegalStateException("User ID was not generated after save");
+        // Checked before hashing so a duplicate does not cost a hash
+        rejectConflict(transactionTemplate.execute(status ->
+                userRepository.findRiderRegistrationConflict(email, phoneNumber)));
+        String passwordHash = passwordHasher.encode(password);
+
+        try {
+            return transactionTemplate.execute(status -> {
+                User user = newUser(email, passwordHash, phoneNumber, firstName, lastName, Role.RIDER);
+                // Saving only assigns the UUID; the rider insert flushes the user row just ahead of it
+                User savedUser = userRepository.save(user);
+                riderRepository.insertRider(savedUser.getUserId());
+                return savedUser;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Account details already registered", e);
         }
-
-        // Create rider record using native query to avoid Hibernate relationship issues
-        riderRepository.insertRider(userId);
-
-        return savedUser;
     }
 
     /**
-     * Register a new driver
+     * Register a new driver.
+     * Uniqueness is checked in one query and the user, driver and vehicle rows are written back to back
+     * without intermediate flushes or re-reads. Concurrent sign-ups that slip past the check are caught by
+     * the unique constraints.
      */
     public User registerDriver(String email, String password, String phoneNumber,
                               String firstName, String lastName, String licenseNumber,
                               String vehicleModel, String vehiclePlate) {
-        // Check if email already exists
-        if (userRepository.existsByEmail(email)) {
-            throw new IllegalArgumentException("Email already registered");
-        }
-
-        // Check if phone number already exists
-        if (userRepository.existsByPhoneNumber(phoneNumber)) {
-            throw new IllegalArgumentException("Phone number already registered");
-        }
-
-        // Check if license number already exists
-        if (driverRepository.findByLicenseNumber(licenseNumber).isPresent()) {
-            throw new IllegalArgumentException("License number already registered");
-        }
-
-        // Check if license plate already exists
-        if (vehicleRepository.findByLicensePlate(vehiclePlate).isPresent()) {
-            throw new IllegalArgumentException("License plate already registered");
+        rejectConflict(transactionTemplate.execute(status ->
+                userRepository.findDriverRegistrationConflict(email, phoneNumber, licenseNumber, vehiclePlate)));
+        String passwordHash = passwordHasher.encode(password);
+
+        try {
+            return transactionTemplate.execute(status -> {
+                // Parse vehicle model to extract make and model
+                // Format: "Make Model" or just "Model"
+                String vehicleMake = "Unknown";
+                String modelOnly = vehicleModel;
+                if (vehicleModel != null && vehicleModel.contains(" ")) {
+                    String[] parts = vehicleModel.split(" ", 2);
+                    vehicleMake = parts[0];
+                    modelOnly = parts.length > 1 ? parts[1] : vehicleModel;
+                }
+
+                User savedUser = userRepository.save(
+                        newUser(email, passwordHash, phoneNumber, firstName, lastName, Role.DRIVER));
+                UUID userId = savedUser.getUserId();
+
+                // Set license expiry to 1 year from now (can be updated later)
+                LocalDate licenseExpiry = LocalDate.now().plusYears(1);
+
+                // Create driver record using native query to avoid Hibernate relationship issues
+                driverRepository.insertDriver(userId, licenseNumber, licenseExpiry);
+
+                // Create vehicle record against a reference to the driver row just inserted
+                Vehicle vehicle = new Vehicle();
+                vehicle.setDriver(driverRepository.getReferenceById(userId));
+                vehicle.setVehicleMake(vehicleMake);
+                vehicle.setVehicleModel(modelOnly);
+                // Use current year as default (can be updated later)
+                vehicle.setVehicleYear(LocalDate.now().getYear());
+                vehicle.setLicensePlate(vehiclePlate);
+                vehicle.setIsActive(true);
+                vehicleRepository.saveAndFlush(vehicle);
+
+                return savedUser;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Account details already registered", e);
         }
+    }
 
-        // Get DRIVER role
-        RoleEntity driverRole = roleRepository.findByRoleName("DRIVER")
-                .orElseThrow(() -> new IllegalStateException("DRIVER role not found in database"));
-
-        // Create user
+    private User newUser(String email, String passwordHash, String phoneNumber, String firstName, String lastName,
+                         Role role) {
         User user = new User();
         user.setEmail(email);
-        user.setPasswordHash(passwordEncoder.encode(password)); // Hash password
+        user.setPasswordHash(passwordHash);
         user.setPhoneNumber(phoneNumber);
         user.setFirstName(firstName);
         user.setLastName(lastName);
-        user.setRole(driverRole);
+        user.setRole(roleCache.reference(role));
         user.setStatus("ACTIVE");
+        return user;
+    }
 
-        // Save user first - this will generate the UUID
-        User savedUser = userRepository.save(user);
-        
-        // Flush to ensure user is persisted and ID is available
-        userRepository.flush();
-        
-        // Verify user has an ID
-        UUID userId = savedUser.getUserId();
-        if (userId == null) {
-            throw new IllegalStateException("User ID was not generated after save");
-        }
-
-        // Set license expiry to 1 year from now (can be updated later)
-        LocalDate licenseExpiry = LocalDate.now().plusYears(1);
-
-        // Create driver record using native query to avoid Hibernate relationship issues
-        driverRepository.insertDriver(userId, licenseNumber, licenseExpiry);
-        driverRepository.flush();
-
-        // Parse vehicle model to extract make and model
-        // Format: "Make Model" or just "Model"
-        String vehicleMake = "Unknown";
-        String modelOnly = vehicleModel;
-        if (vehicleModel != null && vehicleModel.contains(" ")) {
-            String[] parts = vehicleModel.split(" ", 2);
-            vehicleMake = parts[0];
-            modelOnly = parts.length > 1 ? parts[1] : vehicleModel;
-        }
-
-        // Use current year as default (can be updated later)
-        int vehicleYear = LocalDate.now().getYear();
-
-        // Get the driver entity to set relationship
-        var driverOpt = driverRepository.findByDriverId(userId);
-        if (driverOpt.isEmpty()) {
-            throw new IllegalStateException("Driver was not created successfully");
+    private static void rejectConflict(String conflict) {
+        if (conflict == null) {
+            return;
         }
-
-        // Create vehicle record
-        Vehicle vehicle = new Vehicle();
-        vehicle.setDriver(driverOpt.get());
-        vehicle.setVehicleMake(vehicleMake);
-        vehicle.setVehicleModel(modelOnly);
-        vehicle.setVehicleYear(vehicleYear);
-        vehicle.setLicensePlate(vehiclePlate);
-        vehicle.setIsActive(true);
-        
-        vehicleRepository.saveAndFlush(vehicle);
-
-        return savedUser;
+        throw new IllegalArgumentException(switch (conflict) {
+            case "EMAIL" -> "Email already registered";
+            case "PHONE" -> "Phone number already registered";
+            case "LICENSE" -> "License number already registered";
+            case "PLATE" -> "License plate already registered";
+            default -> "Account details already registered";
+        });
     }
 
     /**
-     * Authenticate user and return User if credentials are valid
+     * Authenticate user and return User if credentials are valid.
+     * A stored hash made with a different cost than the configured one is replaced on success.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if password hashing is saturated
      */
     public User authenticate(String email, String password) {
-        User user = userRepository.findByEmail(email)
+        User user = transactionTemplate.execute(status -> userRepository.findByEmail(email))
                 .orElseThrow(() -> new IllegalArgumentException("Invalid email or password"));
 
         // Check if account is active
@@ -194,16 +172,35 @@ public class AuthenticationService {
         }
 
         // Verify password
-        if (!passwordEncoder.matches(password, user.getPasswordHash())) {
+        if (!passwordHasher.matches(password, user.getPasswordHash())) {
             throw new IllegalArgumentException("Invalid email or password");
         }
 
+        if (passwordHasher.needsRehash(user.getPasswordHash())) {
+            rehash(user, password);
+        }
+
         return user;
     }
 
+    private void rehash(User user, String password) {
+        String passwordHash;
+        try {
+            passwordHash = passwordHasher.encode(password);
+        } catch (RejectedExecutionException e) {
+            // The upgrade is best effort; the next login retries it
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            user.setPasswordHash(passwordHash);
+            userRepository.save(user);
+        });
+    }
+
     /**
      * Get user by ID
      */
+    @Transactional(readOnly = true)
     public User getUserById(UUID userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
@@ -212,6 +209,7 @@ public class AuthenticationService {
     /**
      * Get user by email
      */
+    @Transactional(readOnly = true)
     public User getUserByEmail(String email) {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
@@ -221,8 +219,7 @@ public class AuthenticationService {
      * Convert RoleEntity to Role enum
      */
     public Role getRoleEnum(User user) {
-        String roleName = user.getRole().getRoleName();
-        return Role.valueOf(roleName);
+        return roleCache.roleOf(user.getRole());
     }
 }
 
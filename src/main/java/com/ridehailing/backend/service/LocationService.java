@@ -1,66 +1,85 @@
 package com.ridehailing.backend.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.ridehailing.backend.entity.Ride;
-import com.ridehailing.backend.model.RideStatus;
-import com.ridehailing.backend.repository.RideRepository;
-import com.ridehailing.backend.websocket.WebSocketHandler;
-import com.ridehailing.backend.websocket.dto.DriverLocationUpdateEvent;
+import com.ridehailing.backend.config.LocationProperties;
+import com.ridehailing.backend.geo.DriverLocationIndex;
+import com.ridehailing.backend.geo.DriverPosition;
+import com.ridehailing.backend.geo.EtaEstimator;
+import com.ridehailing.backend.geo.NearbyDriver;
+import com.ridehailing.backend.websocket.InboundMessage;
 import com.ridehailing.backend.websocket.dto.LocationUpdateRequest;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.util.Optional;
+import java.time.ZoneOffset;
 import java.util.UUID;
 
 @Service
 public class LocationService {
 
-    private final RideRepository rideRepository;
-    private final WebSocketHandler webSocketHandler;
-    private final ObjectMapper objectMapper;
+    private final ActiveRideRegistry activeRideRegistry;
+    private final DriverLocationIndex driverLocationIndex;
+    private final LocationUpdateCoalescer locationUpdateCoalescer;
+    private final TripBreadcrumbRecorder tripBreadcrumbRecorder;
+    private final EtaEstimator etaEstimator;
+    private final LocationProperties locationProperties;
 
-    public LocationService(RideRepository rideRepository, WebSocketHandler webSocketHandler, ObjectMapper objectMapper) {
-        this.rideRepository = rideRepository;
-        this.webSocketHandler = webSocketHandler;
-        this.objectMapper = objectMapper;
+    public LocationService(ActiveRideRegistry activeRideRegistry, DriverLocationIndex driverLocationIndex,
+                           LocationUpdateCoalescer locationUpdateCoalescer, TripBreadcrumbRecorder tripBreadcrumbRecorder,
+                           EtaEstimator etaEstimator, LocationProperties locationProperties) {
+        this.activeRideRegistry = activeRideRegistry;
+        this.driverLocationIndex = driverLocationIndex;
+        this.locationUpdateCoalescer = locationUpdateCoalescer;
+        this.tripBreadcrumbRecorder = tripBreadcrumbRecorder;
+        this.etaEstimator = etaEstimator;
+        this.locationProperties = locationProperties;
     }
 
     public void handleDriverLocationUpdate(UUID driverId, LocationUpdateRequest locationUpdate) {
-        // Find active ride for this driver
-        Optional<Ride> activeRide = rideRepository.findByDriverIdAndStatus(driverId, RideStatus.ACCEPTED)
-                .stream()
-                .findFirst()
-                .or(() -> rideRepository.findByDriverIdAndStatus(driverId, RideStatus.IN_PROGRESS)
-                        .stream()
-                        .findFirst());
+        long timestampMillis = locationUpdate.getTimestamp() != null
+                ? locationUpdate.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli()
+                : InboundMessage.NO_TIMESTAMP;
+        handleDriverLocationUpdate(driverId, locationUpdate.getLatitude(), locationUpdate.getLongitude(), timestampMillis);
+    }
+
+    /**
+     * Apply a decoded location frame
+     *
+     * @param timestampMillis client timestamp in epoch millis (UTC), or {@link InboundMessage#NO_TIMESTAMP}
+     */
+    public void handleDriverLocationUpdate(UUID driverId, double latitude, double longitude, long timestampMillis) {
+        // Keep the spatial index current for every online driver, with or without an active ride.
+        // Server receive time is used so a skewed phone clock cannot make a driver look stale.
+        long now = System.currentTimeMillis();
+        DriverPosition previous = driverLocationIndex.get(driverId);
+        driverLocationIndex.update(driverId, latitude, longitude, now);
+        if (previous != null) {
+            etaEstimator.recordMovement(previous, latitude, longitude, now);
+        }
 
-        if (activeRide.isPresent()) {
-            Ride ride = activeRide.get();
-            UUID riderId = ride.getRiderId();
+        // Find active ride for this driver (in-memory, no database round trip per ping)
+        ActiveRideRegistry.ActiveRide ride = activeRideRegistry.getByDriverId(driverId);
 
-            // Create location update event
-            DriverLocationUpdateEvent.Location driverLocation = 
-                    new DriverLocationUpdateEvent.Location(locationUpdate.getLatitude(), locationUpdate.getLongitude());
-            
-            // For now, set estimated arrival time to null or a default value
-            // In production, this would be calculated based on distance and traffic
-            DriverLocationUpdateEvent event = new DriverLocationUpdateEvent(
-                    ride.getRideId(),
-                    driverLocation,
-                    null, // estimatedArrivalTime - can be calculated later
-                    locationUpdate.getTimestamp() != null ? locationUpdate.getTimestamp() : LocalDateTime.now()
-            );
+        if (ride != null) {
+            // Forwarded to the rider at a bounded rate; bursts collapse to the latest fix
+            locationUpdateCoalescer.submit(ride, latitude, longitude, timestampMillis);
+            // Every fix is kept for the trip record, not just the ones forwarded
+            tripBreadcrumbRecorder.record(ride, latitude, longitude, now);
+        }
+    }
 
-            try {
-                String jsonMessage = objectMapper.writeValueAsString(event);
-                // Send to rider
-                webSocketHandler.sendToUser(riderId.toString(), jsonMessage);
-            } catch (JsonProcessingException e) {
-                // Log error, but don't fail
+    /**
+     * Minutes until the nearest free driver could reach a pickup point
+     *
+     * @return the configured fallback when no free driver is within the search radius
+     */
+    public int estimatePickupEtaMinutes(double pickupLatitude, double pickupLongitude) {
+        for (NearbyDriver candidate : driverLocationIndex.findNearest(pickupLatitude, pickupLongitude, 5,
+                locationProperties.getEtaPickupSearchRadiusMeters())) {
+            DriverPosition position = candidate.position();
+            if (activeRideRegistry.getByDriverId(position.driverId()) == null) {
+                return etaEstimator.estimateMinutes(position.latitude(), position.longitude(),
+                        pickupLatitude, pickupLongitude);
             }
         }
+        return locationProperties.getEtaFallbackMinutes();
     }
 }
-
@@ -0,0 +1,206 @@
+package com.ridehailing.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.backend.config.LocationProperties;
+import com.ridehailing.backend.geo.EtaEstimator;
+import com.ridehailing.backend.geo.GeoUtils;
+import com.ridehailing.backend.websocket.EncodedFrame;
+import com.ridehailing.backend.websocket.InboundMessage;
+import com.ridehailing.backend.websocket.WebSocketHandler;
+import com.ridehailing.backend.websocket.dto.DriverLocationUpdateEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rate limits driver location frames sent to riders.
+ *
+ * Each ride sends at most one frame per {@code coalesceIntervalMs}; fixes arriving in between replace a
+ * single pending fix per ride, which a periodic flush sends once the interval has elapsed. Fixes within
+ * {@code coalesceMinMoveMeters} of the last one sent are dropped as jitter, and moves of at least
+ * {@code coalesceImmediateMoveMeters} skip the wait so the rider's map never lags a large jump.
+ */
+@Component
+public class LocationUpdateCoalescer {
+
+    private final ConcurrentMap<UUID, RideLocationState> states = new ConcurrentHashMap<>();
+    private final ActiveRideRegistry activeRideRegistry;
+    private final WebSocketHandler webSocketHandler;
+    private final ObjectMapper objectMapper;
+    private final EtaEstimator etaEstimator;
+    private final long intervalMs;
+    private final double minMoveMeters;
+    private final double immediateMoveMeters;
+    private final Counter sentCounter;
+    private final Counter coalescedCounter;
+    private final Counter duplicateCounter;
+
+    public LocationUpdateCoalescer(ActiveRideRegistry activeRideRegistry, WebSocketHandler webSocketHandler,
+                                   ObjectMapper objectMapper, EtaEstimator etaEstimator,
+                                   LocationProperties locationProperties, MeterRegistry meterRegistry) {
+        this.activeRideRegistry = activeRideRegistry;
+        this.webSocketHandler = webSocketHandler;
+        this.objectMapper = objectMapper;
+        this.etaEstimator = etaEstimator;
+        this.intervalMs = locationProperties.getCoalesceIntervalMs();
+        this.minMoveMeters = locationProperties.getCoalesceMinMoveMeters();
+        this.immediateMoveMeters = locationProperties.getCoalesceImmediateMoveMeters();
+        this.sentCounter = Counter.builder("location.updates.sent")
+                .description("Driver location frames sent to riders")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("location.updates.coalesced")
+                .description("Driver fixes superseded by a newer fix before being sent")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("location.updates.duplicates")
+                .description("Driver fixes dropped as too close to the last one sent")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Offer a driver fix for the ride's rider
+     *
+     * @param timestampMillis client timestamp in epoch millis (UTC), or {@link InboundMessage#NO_TIMESTAMP}
+     */
+    public void submit(ActiveRideRegistry.ActiveRide ride, double latitude, double longitude, long timestampMillis) {
+        submit(ride, latitude, longitude, timestampMillis, System.currentTimeMillis());
+    }
+
+    void submit(ActiveRideRegistry.ActiveRide ride, double latitude, double longitude, long timestampMillis, long now) {
+        RideLocationState state = states.computeIfAbsent(ride.rideId(), id -> new RideLocationState(ride.riderId(), ride.driverId()));
+
+        // Sends happen under the ride's lock so a flush and a fresh fix cannot reach the rider out of order;
+        // sending only enqueues, so the lock is never held across network I/O. A ReentrantLock rather than a
+        // monitor, because the enqueue may park and a virtual thread parked inside a monitor pins its carrier.
+        state.lock.lock();
+        try {
+            if (state.hasSent) {
+                double moved = GeoUtils.haversineMeters(state.sentLatitude, state.sentLongitude, latitude, longitude);
+                if (moved < minMoveMeters) {
+                    // The rider already sees this position; any pending fix is now older than the truth
+                    discardPending(state);
+                    duplicateCounter.increment();
+                    return;
+                }
+                if (moved < immediateMoveMeters && now - state.sentAt < intervalMs) {
+                    discardPending(state);
+                    state.setPending(latitude, longitude, timestampMillis);
+                    return;
+                }
+            }
+            discardPending(state);
+            send(ride, state, latitude, longitude, timestampMillis, now);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Send pending fixes whose interval has elapsed, and forget rides that are no longer active
+     */
+    @Scheduled(fixedDelayString = "${location.coalesce-flush-tick-ms:200}")
+    public void flush() {
+        flush(System.currentTimeMillis());
+    }
+
+    void flush(long now) {
+        for (Map.Entry<UUID, RideLocationState> entry : states.entrySet()) {
+            UUID rideId = entry.getKey();
+            RideLocationState state = entry.getValue();
+            ActiveRideRegistry.ActiveRide active = activeRideRegistry.getByDriverId(state.driverId);
+            if (active == null || !active.rideId().equals(rideId)) {
+                states.remove(rideId, state);
+                continue;
+            }
+            state.lock.lock();
+            try {
+                if (state.hasPending && now - state.sentAt >= intervalMs) {
+                    state.hasPending = false;
+                    send(active, state, state.pendingLatitude, state.pendingLongitude, state.pendingTimestampMillis, now);
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+
+    int trackedRides() {
+        return states.size();
+    }
+
+    private void discardPending(RideLocationState state) {
+        if (state.hasPending) {
+            state.hasPending = false;
+            coalescedCounter.increment();
+        }
+    }
+
+    private void send(ActiveRideRegistry.ActiveRide ride, RideLocationState state, double latitude, double longitude,
+                      long timestampMillis, long now) {
+        state.markSent(latitude, longitude, now);
+
+        // Only fixes that are actually sent pay for an estimate
+        DriverLocationUpdateEvent event = new DriverLocationUpdateEvent(
+                ride.rideId(),
+                new DriverLocationUpdateEvent.Location(latitude, longitude),
+                etaEstimator.estimateMinutes(latitude, longitude, ride.targetLatitude(), ride.targetLongitude()),
+                timestampMillis != InboundMessage.NO_TIMESTAMP
+                        ? LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneOffset.UTC)
+                        : LocalDateTime.now()
+        );
+
+        try {
+            // A newer frame may still replace this one if the rider's connection is behind
+            webSocketHandler.sendToUser(state.riderId, EncodedFrame.encode(objectMapper, event, true));
+            sentCounter.increment();
+        } catch (JsonProcessingException e) {
+            // Log error, but don't fail
+        }
+    }
+
+    private static final class RideLocationState {
+
+        private final UUID riderId;
+        private final UUID driverId;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private boolean hasSent;
+        private double sentLatitude;
+        private double sentLongitude;
+        private long sentAt;
+
+        private boolean hasPending;
+        private double pendingLatitude;
+        private double pendingLongitude;
+        private long pendingTimestampMillis;
+
+        private RideLocationState(UUID riderId, UUID driverId) {
+            this.riderId = riderId;
+            this.driverId = driverId;
+        }
+
+        private void markSent(double latitude, double longitude, long now) {
+            hasSent = true;
+            sentLatitude = latitude;
+            sentLongitude = longitude;
+            sentAt = now;
+        }
+
+        private void setPending(double latitude, double longitude, long timestampMillis) {
+            hasPending = true;
+            pendingLatitude = latitude;
+            pendingLongitude = longitude;
+            pendingTimestampMillis = timestampMillis;
+        }
+    }
+}
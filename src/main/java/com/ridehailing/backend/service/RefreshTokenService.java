@@ -0,0 +1,191 @@
+package com.ridehailing.backend.service;
+
+import com.ridehailing.backend.config.JwtProperties;
+import com.ridehailing.backend.entity.RefreshTokenFamily;
+import com.ridehailing.backend.model.Role;
+import com.ridehailing.backend.repository.RefreshTokenFamilyRepository;
+import com.ridehailing.backend.security.RevokedFamilies;
+import com.ridehailing.backend.util.JwtUtil;
+import com.ridehailing.backend.util.TransactionCallbacks;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues, rotates and revokes refresh tokens.
+ *
+ * A refresh token is {@code familyId.generation.nonce.signature}, HMAC-signed with the JWT secret so forged
+ * tokens are rejected before any lookup. Each login starts a family; each refresh replaces the family's
+ * current token with the next generation via a compare-and-set on its hash. Presenting an older generation
+ * means the token was copied, so the whole family is revoked. Refreshing costs an HMAC and two indexed
+ * statements instead of a password hash.
+ */
+@Service
+@Transactional
+public class RefreshTokenService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int NONCE_BYTES = 32;
+
+    private final RefreshTokenFamilyRepository familyRepository;
+    private final RevokedFamilies revokedFamilies;
+    private final JwtUtil jwtUtil;
+    private final JwtProperties jwtProperties;
+    private final SecretKeySpec signingKey;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenFamilyRepository familyRepository, RevokedFamilies revokedFamilies,
+                               JwtUtil jwtUtil, JwtProperties jwtProperties) {
+        this.familyRepository = familyRepository;
+        this.revokedFamilies = revokedFamilies;
+        this.jwtUtil = jwtUtil;
+        this.jwtProperties = jwtProperties;
+        this.signingKey = new SecretKeySpec(jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+    }
+
+    /**
+     * Start a new token family for a user who just proved their password
+     */
+    public TokenPair issue(UUID userId, Role role) {
+        UUID familyId = UUID.randomUUID();
+        String refreshToken = mint(familyId, 0);
+
+        RefreshTokenFamily family = new RefreshTokenFamily();
+        family.setFamilyId(familyId);
+        family.setUserId(userId);
+        family.setRole(role);
+        family.setTokenHash(hash(refreshToken));
+        family.setGeneration(0);
+        family.setExpiresAt(LocalDateTime.now().plusNanos(jwtProperties.getRefreshExpiration() * 1_000_000));
+        familyRepository.save(family);
+
+        return tokens(userId, role, familyId, refreshToken);
+    }
+
+    /**
+     * Exchange a refresh token for a new access token and the next refresh token of its family
+     *
+     * @throws IllegalArgumentException if the token is forged, expired, revoked or was already used
+     */
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public TokenPair refresh(String refreshToken) {
+        ParsedToken parsed = parse(refreshToken);
+        if (revokedFamilies.isRevoked(parsed.familyId())) {
+            throw new IllegalArgumentException("Refresh token revoked");
+        }
+
+        RefreshTokenFamily family = familyRepository.findById(parsed.familyId())
+                .orElseThrow(() -> new IllegalArgumentException("Invalid refresh token"));
+        if (family.getRevokedAt() != null) {
+            throw new IllegalArgumentException("Refresh token revoked");
+        }
+        if (parsed.generation() < family.getGeneration()) {
+            // A genuine but superseded token: someone else holds a copy of this family
+            revoke(family.getFamilyId());
+            throw new IllegalArgumentException("Refresh token reuse detected");
+        }
+        String currentHash = hash(refreshToken);
+        if (parsed.generation() != family.getGeneration() || !currentHash.equals(family.getTokenHash())) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+
+        String nextToken = mint(family.getFamilyId(), family.getGeneration() + 1);
+        if (familyRepository.rotate(family.getFamilyId(), currentHash, hash(nextToken), LocalDateTime.now()) == 0) {
+            // Expired, revoked, deactivated user, or a concurrent refresh with the same token won
+            throw new IllegalArgumentException("Refresh token expired or revoked");
+        }
+        return tokens(family.getUserId(), family.getRole(), family.getFamilyId(), nextToken);
+    }
+
+    /**
+     * Revoke the family of the given token. Only the current token of a family can log it out.
+     */
+    public void logout(String refreshToken) {
+        ParsedToken parsed;
+        try {
+            parsed = parse(refreshToken);
+        } catch (IllegalArgumentException e) {
+            // Nothing to revoke; logging out is idempotent
+            return;
+        }
+        familyRepository.findById(parsed.familyId())
+                .filter(family -> family.getRevokedAt() == null && hash(refreshToken).equals(family.getTokenHash()))
+                .ifPresent(family -> revoke(family.getFamilyId()));
+    }
+
+    private void revoke(UUID familyId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (familyRepository.revoke(familyId, now) > 0) {
+            long revokedAtMillis = now.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            TransactionCallbacks.afterCommit(() -> revokedFamilies.revoke(familyId, revokedAtMillis));
+        }
+    }
+
+    private TokenPair tokens(UUID userId, Role role, UUID familyId, String refreshToken) {
+        String accessToken = jwtUtil.generateToken(userId.toString(), role, familyId);
+        return new TokenPair(accessToken, refreshToken, jwtProperties.getExpiration() / 1000);
+    }
+
+    private String mint(UUID familyId, int generation) {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        String payload = familyId + "." + generation + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(nonce);
+        return payload + "." + sign(payload);
+    }
+
+    private ParsedToken parse(String refreshToken) {
+        if (refreshToken == null) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+        int signatureStart = refreshToken.lastIndexOf('.');
+        if (signatureStart < 0) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+        String payload = refreshToken.substring(0, signatureStart);
+        byte[] expected = sign(payload).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = refreshToken.substring(signatureStart + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+        String[] parts = payload.split("\\.");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+        // Signed by us, so the fields are well formed
+        return new ParsedToken(UUID.fromString(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    private String sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            byte[] signature = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record ParsedToken(UUID familyId, int generation) {
+    }
+}
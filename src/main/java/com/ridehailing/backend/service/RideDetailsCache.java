@@ -0,0 +1,114 @@
+package com.ridehailing.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ridehailing.backend.config.RideDetailsCacheProperties;
+import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.repository.RideRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Pre-rendered JSON for GET /api/v1/rides/{rideId}, so polling clients are served without a database read
+ * or serialization. Entries are dropped by {@link RideService} after each committed transition; the TTL
+ * only bounds staleness for writes that bypass the service.
+ */
+@Component
+public class RideDetailsCache {
+
+    private final RideRepository rideRepository;
+    private final ObjectMapper objectMapper;
+    private final Cache<UUID, RenderedRide> cache;
+
+    public RideDetailsCache(RideRepository rideRepository, ObjectMapper objectMapper,
+                            RideDetailsCacheProperties properties, MeterRegistry meterRegistry) {
+        this.rideRepository = rideRepository;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(Duration.ofMillis(properties.getTtlMs()))
+                .recordStats()
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size tagged cache=ride.details
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "ride.details");
+    }
+
+    /**
+     * Rendered ride details, loading and caching them on a miss. Unknown rides are not cached.
+     */
+    public Optional<RenderedRide> get(UUID rideId) {
+        // The load runs inside the cache's per-key compute, so an invalidate issued meanwhile waits for it
+        // and then removes the freshly loaded entry instead of being overwritten by a stale one
+        return Optional.ofNullable(cache.get(rideId, id -> rideRepository.findById(id).map(this::render).orElse(null)));
+    }
+
+    public void invalidate(UUID rideId) {
+        cache.invalidate(rideId);
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    RenderedRide render(Ride ride) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("rideId", ride.getRideId().toString());
+        response.put("riderId", ride.getRiderId().toString());
+        if (ride.getDriverId() != null) {
+            response.put("driverId", ride.getDriverId().toString());
+        }
+
+        Map<String, Object> pickupLocation = new LinkedHashMap<>();
+        pickupLocation.put("latitude", ride.getPickupLatitude());
+        pickupLocation.put("longitude", ride.getPickupLongitude());
+        pickupLocation.put("address", ride.getPickupAddress());
+        response.put("pickupLocation", pickupLocation);
+
+        Map<String, Object> dropoffLocation = new LinkedHashMap<>();
+        dropoffLocation.put("latitude", ride.getDropoffLatitude());
+        dropoffLocation.put("longitude", ride.getDropoffLongitude());
+        dropoffLocation.put("address", ride.getDropoffAddress());
+        response.put("dropoffLocation", dropoffLocation);
+
+        response.put("status", ride.getStatus().name());
+        response.put("estimatedFare", ride.getEstimatedFare());
+        // Charged fare, stored when the ride completes
+        response.put("fare", ride.getActualFare() != null ? ride.getActualFare() : BigDecimal.ZERO);
+
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            return new RenderedRide(body, etag(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to render ride " + ride.getRideId(), e);
+        }
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Serialized response body and its strong ETag
+     */
+    public record RenderedRide(byte[] body, String etag) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.ridehailing.backend.service;
+
+import com.ridehailing.backend.repository.RideSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One page of ride history. {@code nextCursor} is null on the last page.
+ */
+public record RideHistoryPage(List<RideSummary> rides, String nextCursor) {
+
+    /**
+     * Opaque cursor naming the last ride of a page by its (createdAt, rideId) sort key
+     */
+    static String encodeCursor(RideSummary last) {
+        String key = last.createdAt() + "|" + last.rideId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Cursor(LocalDateTime.parse(key.substring(0, separator)),
+                    UUID.fromString(key.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    record Cursor(LocalDateTime createdAt, UUID rideId) {
+    }
+}
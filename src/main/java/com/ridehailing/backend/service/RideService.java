@@ -1,27 +1,57 @@
 package com.ridehailing.backend.service;
 
+import com.ridehailing.backend.dispatch.DispatchEngine;
 import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.fare.FareEngine;
+import com.ridehailing.backend.fare.FareQuote;
 import com.ridehailing.backend.model.RideStatus;
 import com.ridehailing.backend.repository.RideRepository;
+import com.ridehailing.backend.repository.RideSummary;
+import com.ridehailing.backend.util.TransactionCallbacks;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @Service
 @Transactional
 public class RideService {
 
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+    private static final Set<RideStatus> CANCELLABLE_STATUSES =
+            EnumSet.of(RideStatus.PENDING, RideStatus.ACCEPTED, RideStatus.IN_PROGRESS);
+
     private final RideRepository rideRepository;
     private final WebSocketEventService webSocketEventService;
-
-    public RideService(RideRepository rideRepository, WebSocketEventService webSocketEventService) {
+    private final ActiveRideRegistry activeRideRegistry;
+    private final DispatchEngine dispatchEngine;
+    private final RideDetailsCache rideDetailsCache;
+    private final FareEngine fareEngine;
+    private final TripBreadcrumbRecorder tripBreadcrumbRecorder;
+
+    public RideService(RideRepository rideRepository, WebSocketEventService webSocketEventService,
+                       ActiveRideRegistry activeRideRegistry, DispatchEngine dispatchEngine,
+                       RideDetailsCache rideDetailsCache, FareEngine fareEngine,
+                       TripBreadcrumbRecorder tripBreadcrumbRecorder) {
         this.rideRepository = rideRepository;
         this.webSocketEventService = webSocketEventService;
+        this.activeRideRegistry = activeRideRegistry;
+        this.dispatchEngine = dispatchEngine;
+        this.rideDetailsCache = rideDetailsCache;
+        this.fareEngine = fareEngine;
+        this.tripBreadcrumbRecorder = tripBreadcrumbRecorder;
     }
 
     public Ride createRide(UUID riderId, BigDecimal pickupLatitude, BigDecimal pickupLongitude,
@@ -36,8 +66,20 @@ public class RideService {
         ride.setDropoffLongitude(dropoffLongitude);
         ride.setDropoffAddress(dropoffAddress);
         ride.setStatus(RideStatus.PENDING);
-        
-        return rideRepository.save(ride);
+        if (dropoffLatitude != null && dropoffLongitude != null) {
+            // Stored with the ride so reads and dispatch offers never reprice it
+            FareQuote quote = fareEngine.quote(pickupLatitude.doubleValue(), pickupLongitude.doubleValue(),
+                    dropoffLatitude.doubleValue(), dropoffLongitude.doubleValue(), LocalDateTime.now());
+            ride.setEstimatedFare(quote.fare());
+            ride.setEstimatedDistance(quote.distanceKm());
+            ride.setEstimatedDuration(quote.durationMinutes());
+            ride.setSurgeMultiplier(quote.surgeMultiplier());
+        }
+
+        Ride savedRide = rideRepository.save(ride);
+        webSocketEventService.subscribeToRide(savedRide.getRideId(), riderId, null);
+        TransactionCallbacks.afterCommit(() -> dispatchEngine.addPendingRide(savedRide));
+        return savedRide;
     }
 
     public Optional<Ride> findById(UUID rideId) {
@@ -52,6 +94,22 @@ public class RideService {
         return rideRepository.findByDriverId(driverId);
     }
 
+    @Transactional(readOnly = true)
+    public RideHistoryPage findRiderHistory(UUID riderId, String cursor, int limit) {
+        return historyPage(cursor, limit,
+                pageSize -> rideRepository.findRiderHistory(riderId, pageSize),
+                (position, pageSize) -> rideRepository.findRiderHistoryBefore(
+                        riderId, position.createdAt(), position.rideId(), pageSize));
+    }
+
+    @Transactional(readOnly = true)
+    public RideHistoryPage findDriverHistory(UUID driverId, String cursor, int limit) {
+        return historyPage(cursor, limit,
+                pageSize -> rideRepository.findDriverHistory(driverId, pageSize),
+                (position, pageSize) -> rideRepository.findDriverHistoryBefore(
+                        driverId, position.createdAt(), position.rideId(), pageSize));
+    }
+
     public List<Ride> findByRiderIdAndStatus(UUID riderId, RideStatus status) {
         return rideRepository.findByRiderIdAndStatus(riderId, status);
     }
@@ -61,83 +119,131 @@ public class RideService {
     }
 
     public Ride acceptRide(UUID rideId, UUID driverId, UUID vehicleId) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new IllegalArgumentException("Ride not found"));
-
-        if (ride.getStatus() != RideStatus.PENDING) {
+        // Single conditional UPDATE: of concurrent accepts exactly one sees a PENDING row
+        if (rideRepository.acceptIfPending(rideId, driverId, vehicleId, LocalDateTime.now()) == 0) {
+            Ride ride = rideRepository.findById(rideId)
+                    .orElseThrow(() -> new IllegalArgumentException("Ride not found"));
             throw new IllegalStateException("Ride cannot be accepted. Current status: " + ride.getStatus());
         }
 
-        ride.setDriverId(driverId);
-        ride.setVehicleId(vehicleId);
-        ride.setStatus(RideStatus.ACCEPTED);
-        ride.setAcceptedAt(LocalDateTime.now());
-
-        Ride savedRide = rideRepository.save(ride);
+        Ride savedRide = reload(rideId);
+        webSocketEventService.subscribeToRide(savedRide.getRideId(), savedRide.getRiderId(), driverId);
+        TransactionCallbacks.afterCommit(() -> {
+            rideDetailsCache.invalidate(savedRide.getRideId());
+            dispatchEngine.rideClosed(savedRide.getRideId());
+            activeRideRegistry.register(savedRide);
+        });
         webSocketEventService.emitRideStatusUpdate(savedRide.getRideId(), savedRide.getStatus());
         return savedRide;
     }
 
     public Ride startRide(UUID rideId, UUID driverId) {
-        Ride ride = rideRepository.findByRideIdAndDriverId(rideId, driverId)
-                .orElseThrow(() -> new IllegalArgumentException("Ride not found or not assigned to driver"));
-
-        if (ride.getStatus() != RideStatus.ACCEPTED) {
+        if (rideRepository.startIfAccepted(rideId, driverId, LocalDateTime.now()) == 0) {
+            Ride ride = rideRepository.findByRideIdAndDriverId(rideId, driverId)
+                    .orElseThrow(() -> new IllegalArgumentException("Ride not found or not assigned to driver"));
             throw new IllegalStateException("Ride cannot be started. Current status: " + ride.getStatus());
         }
 
-        ride.setStatus(RideStatus.IN_PROGRESS);
-        ride.setStartedAt(LocalDateTime.now());
-
-        Ride savedRide = rideRepository.save(ride);
+        Ride savedRide = reload(rideId);
+        TransactionCallbacks.afterCommit(() -> {
+            rideDetailsCache.invalidate(savedRide.getRideId());
+            activeRideRegistry.register(savedRide);
+        });
         webSocketEventService.emitRideStatusUpdate(savedRide.getRideId(), savedRide.getStatus());
         return savedRide;
     }
 
     public Ride completeRide(UUID rideId, UUID driverId) {
-        Ride ride = rideRepository.findByRideIdAndDriverId(rideId, driverId)
-                .orElseThrow(() -> new IllegalArgumentException("Ride not found or not assigned to driver"));
-
-        if (ride.getStatus() != RideStatus.IN_PROGRESS) {
+        if (rideRepository.completeIfInProgress(rideId, driverId, LocalDateTime.now()) == 0) {
+            Ride ride = rideRepository.findByRideIdAndDriverId(rideId, driverId)
+                    .orElseThrow(() -> new IllegalArgumentException("Ride not found or not assigned to driver"));
             throw new IllegalStateException("Ride cannot be completed. Current status: " + ride.getStatus());
         }
 
-        ride.setStatus(RideStatus.COMPLETED);
-        ride.setCompletedAt(LocalDateTime.now());
-
-        Ride savedRide = rideRepository.save(ride);
+        Ride savedRide = reload(rideId);
+        OptionalDouble measuredMeters = tripBreadcrumbRecorder.tripDistanceMeters(rideId);
+        BigDecimal measuredKm = measuredMeters.isPresent()
+                ? BigDecimal.valueOf(measuredMeters.getAsDouble() / 1000.0).setScale(2, RoundingMode.HALF_UP)
+                : null;
+        // Only the request that completed the ride gets here, so the final fare is written once
+        FareQuote fare = fareEngine.finalFare(savedRide, measuredKm);
+        savedRide.setActualFare(fare.fare());
+        savedRide.setActualDistance(fare.distanceKm());
+        savedRide.setActualDuration(fare.durationMinutes());
+        TransactionCallbacks.afterCommit(() -> {
+            rideDetailsCache.invalidate(savedRide.getRideId());
+            activeRideRegistry.remove(savedRide.getDriverId(), savedRide.getRideId());
+        });
         webSocketEventService.emitRideStatusUpdate(savedRide.getRideId(), savedRide.getStatus());
         return savedRide;
     }
 
     public Ride cancelRide(UUID rideId, UUID userId, boolean isRider, String reason) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = isRider
+                ? rideRepository.cancelByRider(rideId, userId, reason, now, CANCELLABLE_STATUSES)
+                : rideRepository.cancelByDriver(rideId, userId, reason, now, CANCELLABLE_STATUSES);
+        if (updated == 0) {
+            throw cancelFailure(rideId, userId, isRider);
+        }
+
+        Ride savedRide = reload(rideId);
+        TransactionCallbacks.afterCommit(() -> {
+            rideDetailsCache.invalidate(savedRide.getRideId());
+            dispatchEngine.rideClosed(savedRide.getRideId());
+            activeRideRegistry.remove(savedRide.getDriverId(), savedRide.getRideId());
+        });
+        webSocketEventService.emitRideStatusUpdate(savedRide.getRideId(), savedRide.getStatus());
+        return savedRide;
+    }
+
+    /**
+     * Explain why a conditional cancel matched no row
+     */
+    private RuntimeException cancelFailure(UUID rideId, UUID userId, boolean isRider) {
         Ride ride = rideRepository.findById(rideId)
                 .orElseThrow(() -> new IllegalArgumentException("Ride not found"));
 
         if (ride.getStatus() == RideStatus.COMPLETED) {
-            throw new IllegalStateException("Cannot cancel a completed ride");
+            return new IllegalStateException("Cannot cancel a completed ride");
         }
 
         if (ride.getStatus() == RideStatus.CANCELLED) {
-            throw new IllegalStateException("Ride is already cancelled");
+            return new IllegalStateException("Ride is already cancelled");
         }
 
-        if (isRider && !ride.getRiderId().equals(userId)) {
-            throw new IllegalArgumentException("Rider does not own this ride");
+        if (isRider && !userId.equals(ride.getRiderId())) {
+            return new IllegalArgumentException("Rider does not own this ride");
         }
 
-        if (!isRider && !ride.getDriverId().equals(userId)) {
-            throw new IllegalArgumentException("Driver does not own this ride");
+        if (!isRider && !userId.equals(ride.getDriverId())) {
+            return new IllegalArgumentException("Driver does not own this ride");
         }
 
-        ride.setStatus(RideStatus.CANCELLED);
-        ride.setCancelledBy(isRider ? "RIDER" : "DRIVER");
-        ride.setCancellationReason(reason);
-        ride.setCancelledAt(LocalDateTime.now());
+        // The ride changed between the UPDATE and this read
+        return new IllegalStateException("Ride cannot be cancelled. Current status: " + ride.getStatus());
+    }
 
-        Ride savedRide = rideRepository.save(ride);
-        webSocketEventService.emitRideStatusUpdate(savedRide.getRideId(), savedRide.getStatus());
-        return savedRide;
+    private RideHistoryPage historyPage(String cursor, int limit,
+                                        Function<Limit, List<RideSummary>> firstPage,
+                                        BiFunction<RideHistoryPage.Cursor, Limit, List<RideSummary>> nextPage) {
+        if (limit < 1 || limit > MAX_HISTORY_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_HISTORY_PAGE_SIZE);
+        }
+        // One extra row tells whether another page exists without a count query
+        Limit pageSize = Limit.of(limit + 1);
+        List<RideSummary> rides = cursor == null || cursor.isEmpty()
+                ? firstPage.apply(pageSize)
+                : nextPage.apply(RideHistoryPage.decodeCursor(cursor), pageSize);
+        if (rides.size() <= limit) {
+            return new RideHistoryPage(rides, null);
+        }
+        List<RideSummary> page = rides.subList(0, limit);
+        return new RideHistoryPage(page, RideHistoryPage.encodeCursor(page.get(limit - 1)));
     }
-}
 
+    private Ride reload(UUID rideId) {
+        return rideRepository.findById(rideId)
+                .orElseThrow(() -> new IllegalStateException("Ride not found after update"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.ridehailing.backend.service;
+
+import com.ridehailing.backend.entity.RoleEntity;
+import com.ridehailing.backend.model.Role;
+import com.ridehailing.backend.repository.RoleRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the roles table.
+ *
+ * Roles are a handful of rows that never change at runtime, so they are read once at startup instead of
+ * on every registration and login. A role missing at startup (e.g. seeded later) is looked up on first use.
+ */
+@Component
+public class RoleCache {
+
+    private final RoleRepository roleRepository;
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, Role> rolesById = new ConcurrentHashMap<>();
+
+    public RoleCache(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+        roleRepository.findAll().forEach(this::remember);
+    }
+
+    /**
+     * A reference to the role row for use as a foreign key, without loading it
+     */
+    public RoleEntity reference(Role role) {
+        Integer roleId = idsByName.get(role.name());
+        if (roleId == null) {
+            roleId = roleRepository.findByRoleName(role.name())
+                    .map(this::remember)
+                    .orElseThrow(() -> new IllegalStateException(role.name() + " role not found in database"));
+        }
+        return roleRepository.getReferenceById(roleId);
+    }
+
+    /**
+     * The role of a user, read from the role id so the lazy role association is not initialized
+     */
+    public Role roleOf(RoleEntity roleEntity) {
+        Role role = rolesById.get(roleEntity.getRoleId());
+        if (role != null) {
+            return role;
+        }
+        // The user is usually detached by now, so its role proxy cannot be initialized; load the row instead
+        return roleRepository.findById(roleEntity.getRoleId())
+                .map(entity -> rolesById.get(remember(entity)))
+                .orElseThrow(() -> new IllegalStateException("Role " + roleEntity.getRoleId() + " not found in database"));
+    }
+
+    private Integer remember(RoleEntity roleEntity) {
+        idsByName.put(roleEntity.getRoleName(), roleEntity.getRoleId());
+        rolesById.put(roleEntity.getRoleId(), Role.valueOf(roleEntity.getRoleName()));
+        return roleEntity.getRoleId();
+    }
+}
@@ -0,0 +1,7 @@
+package com.ridehailing.backend.service;
+
+/**
+ * Tokens handed to a client at login and on every refresh
+ */
+public record TokenPair(String accessToken, String refreshToken, long expiresInSeconds) {
+}
@@ -0,0 +1,279 @@
+package com.ridehailing.backend.service;
+
+import com.ridehailing.backend.config.TripProperties;
+import com.ridehailing.backend.geo.GeoUtils;
+import com.ridehailing.backend.model.RideStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the GPS trail of in-progress rides and the distance driven.
+ *
+ * Fixes land in a fixed-size ring buffer per ride and are written to {@code ride_locations} by a periodic
+ * flush in JDBC batches of {@code trip.flush-batch-size}, so the location path never waits on the database
+ * and each flush costs a few batch round trips regardless of how many drivers are pinging. Distance is
+ * accumulated as fixes arrive, skipping jitter and implausible jumps, and is read when the ride completes,
+ * together with whatever part of the trail an earlier process persisted before this one saw the ride.
+ */
+@Component
+public class TripBreadcrumbRecorder {
+
+    static final String INSERT_SQL =
+            "INSERT INTO ride_locations (ride_id, latitude, longitude, recorded_at) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_TRAIL_SQL =
+            "SELECT latitude, longitude, recorded_at FROM ride_locations WHERE ride_id = ? ORDER BY recorded_at, id";
+    private static final String SELECT_TRAIL_BEFORE_SQL =
+            "SELECT latitude, longitude, recorded_at FROM ride_locations WHERE ride_id = ? AND recorded_at < ? "
+                    + "ORDER BY recorded_at, id";
+
+    private final ConcurrentMap<UUID, Trip> trips = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final ActiveRideRegistry activeRideRegistry;
+    private final TripProperties tripProperties;
+    private final Counter recordedCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+
+    public TripBreadcrumbRecorder(JdbcTemplate jdbcTemplate, ActiveRideRegistry activeRideRegistry,
+                                  TripProperties tripProperties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.activeRideRegistry = activeRideRegistry;
+        this.tripProperties = tripProperties;
+        this.recordedCounter = Counter.builder("trip.breadcrumbs.recorded")
+                .description("Driver fixes buffered for in-progress rides")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("trip.breadcrumbs.dropped")
+                .description("Buffered fixes overwritten before they could be flushed")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("trip.breadcrumbs.failed")
+                .description("Fixes lost to a failed batch insert")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("trip.breadcrumbs.flush")
+                .description("Time to write one batch of breadcrumbs")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Buffer a driver fix; ignored unless the ride is in progress
+     */
+    public void record(ActiveRideRegistry.ActiveRide ride, double latitude, double longitude, long timestampMillis) {
+        if (ride.status() != RideStatus.IN_PROGRESS) {
+            return;
+        }
+        Trip trip = trips.computeIfAbsent(ride.rideId(), id -> new Trip(ride.driverId(), tripProperties));
+        synchronized (trip) {
+            if (trip.add(latitude, longitude, timestampMillis)) {
+                droppedCounter.increment();
+            }
+            trip.odometer.add(latitude, longitude, timestampMillis);
+        }
+        recordedCounter.increment();
+    }
+
+    /**
+     * Distance driven on the ride in meters; empty when no fix was ever recorded.
+     *
+     * A ride that was already under way when this process started (e.g. after a restart) has its earlier fixes
+     * only in the persisted trail. Those are measured up to this process's first fix and added to the distance
+     * tracked since, so the stretch driven before the restart is not lost from the fare.
+     */
+    public OptionalDouble tripDistanceMeters(UUID rideId) {
+        Odometer live = null;
+        Trip trip = trips.get(rideId);
+        if (trip != null) {
+            synchronized (trip) {
+                if (trip.odometer.hasFix) {
+                    live = trip.odometer.copy();
+                }
+            }
+        }
+
+        Odometer odometer = new Odometer(tripProperties);
+        if (live == null) {
+            jdbcTemplate.query(SELECT_TRAIL_SQL, rs -> {
+                odometer.add(rs.getDouble(1), rs.getDouble(2), rs.getTimestamp(3).getTime());
+            }, rideId);
+            return odometer.hasFix ? OptionalDouble.of(odometer.meters) : OptionalDouble.empty();
+        }
+
+        // Usually empty: fixes this process recorded are never older than its first one
+        jdbcTemplate.query(SELECT_TRAIL_BEFORE_SQL, rs -> {
+            odometer.add(rs.getDouble(1), rs.getDouble(2), rs.getTimestamp(3).getTime());
+        }, rideId, new Timestamp(live.firstTimestamp));
+        if (!odometer.hasFix) {
+            return OptionalDouble.of(live.meters);
+        }
+        // Bridge from the last persisted fix to the first one seen here, then continue with the live distance
+        odometer.add(live.firstLatitude, live.firstLongitude, live.firstTimestamp);
+        return OptionalDouble.of(odometer.meters + live.meters);
+    }
+
+    /**
+     * Write buffered fixes, and forget rides that are no longer active once their trail is persisted
+     */
+    @Scheduled(fixedDelayString = "${trip.flush-interval-ms:5000}")
+    public void flush() {
+        int batchSize = Math.max(1, tripProperties.getFlushBatchSize());
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (Map.Entry<UUID, Trip> entry : trips.entrySet()) {
+            UUID rideId = entry.getKey();
+            Trip trip = entry.getValue();
+            ActiveRideRegistry.ActiveRide active = activeRideRegistry.getByDriverId(trip.driverId);
+            boolean finished = active == null || !active.rideId().equals(rideId);
+            while (true) {
+                synchronized (trip) {
+                    trip.drainTo(rideId, batch, batchSize);
+                    if (trip.size == 0 && finished) {
+                        trips.remove(rideId, trip);
+                    }
+                }
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                // The lock is released while the batch is written, so pings for this ride never wait on I/O
+                write(batch);
+            }
+        }
+        write(batch);
+    }
+
+    int trackedRides() {
+        return trips.size();
+    }
+
+    private void write(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, batch));
+        } catch (DataAccessException e) {
+            // The trail has a gap; distance is tracked in memory and is unaffected
+            failedCounter.increment(batch.size());
+        }
+        batch.clear();
+    }
+
+    /**
+     * Ring buffer of unflushed fixes plus the running distance of one ride
+     */
+    private static final class Trip {
+
+        private final UUID driverId;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final long[] timestamps;
+        private final Odometer odometer;
+        private int head;
+        private int size;
+
+        private Trip(UUID driverId, TripProperties tripProperties) {
+            int capacity = Math.max(1, tripProperties.getBufferCapacity());
+            this.driverId = driverId;
+            this.latitudes = new double[capacity];
+            this.longitudes = new double[capacity];
+            this.timestamps = new long[capacity];
+            this.odometer = new Odometer(tripProperties);
+        }
+
+        /**
+         * @return true when the buffer was full and the oldest fix was overwritten
+         */
+        private boolean add(double latitude, double longitude, long timestampMillis) {
+            latitudes[head] = latitude;
+            longitudes[head] = longitude;
+            timestamps[head] = timestampMillis;
+            head = (head + 1) % latitudes.length;
+            if (size == latitudes.length) {
+                return true;
+            }
+            size++;
+            return false;
+        }
+
+        private void drainTo(UUID rideId, List<Object[]> batch, int batchSize) {
+            int capacity = latitudes.length;
+            while (size > 0 && batch.size() < batchSize) {
+                int oldest = (head - size + capacity) % capacity;
+                batch.add(new Object[]{rideId, latitudes[oldest], longitudes[oldest], new Timestamp(timestamps[oldest])});
+                size--;
+            }
+        }
+    }
+
+    private static final class Odometer {
+
+        private final double minMoveMeters;
+        private final double maxSpeedMps;
+        private boolean hasFix;
+        private double firstLatitude;
+        private double firstLongitude;
+        private long firstTimestamp;
+        private double lastLatitude;
+        private double lastLongitude;
+        private long lastTimestamp;
+        private double meters;
+
+        private Odometer(TripProperties tripProperties) {
+            this(tripProperties.getMinMoveMeters(), tripProperties.getMaxSpeedMps());
+        }
+
+        private Odometer(double minMoveMeters, double maxSpeedMps) {
+            this.minMoveMeters = minMoveMeters;
+            this.maxSpeedMps = maxSpeedMps;
+        }
+
+        private void add(double latitude, double longitude, long timestampMillis) {
+            if (!hasFix) {
+                hasFix = true;
+                firstLatitude = latitude;
+                firstLongitude = longitude;
+                firstTimestamp = timestampMillis;
+                moveTo(latitude, longitude, timestampMillis);
+                return;
+            }
+            double moved = GeoUtils.haversineMeters(lastLatitude, lastLongitude, latitude, longitude);
+            if (moved < minMoveMeters) {
+                return;
+            }
+            long elapsedMs = timestampMillis - lastTimestamp;
+            if (elapsedMs > 0 && moved / (elapsedMs / 1000.0) > maxSpeedMps) {
+                return;
+            }
+            meters += moved;
+            moveTo(latitude, longitude, timestampMillis);
+        }
+
+        private Odometer copy() {
+            Odometer copy = new Odometer(minMoveMeters, maxSpeedMps);
+            copy.hasFix = hasFix;
+            copy.firstLatitude = firstLatitude;
+            copy.firstLongitude = firstLongitude;
+            copy.firstTimestamp = firstTimestamp;
+            copy.moveTo(lastLatitude, lastLongitude, lastTimestamp);
+            copy.meters = meters;
+            return copy;
+        }
+
+        private void moveTo(double latitude, double longitude, long timestampMillis) {
+            lastLatitude = latitude;
+            lastLongitude = longitude;
+            lastTimestamp = timestampMillis;
+        }
+    }
+}
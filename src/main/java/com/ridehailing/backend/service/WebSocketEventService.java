@@ -3,32 +3,136 @@ package com.ridehailing.backend.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.util.TransactionCallbacks;
+import com.ridehailing.backend.websocket.EncodedFrame;
+import com.ridehailing.backend.websocket.EventSequences;
+import com.ridehailing.backend.websocket.RideSubscriptionRegistry;
 import com.ridehailing.backend.websocket.WebSocketHandler;
 import com.ridehailing.backend.websocket.dto.RideStatusUpdateEvent;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class WebSocketEventService {
 
     private final WebSocketHandler webSocketHandler;
     private final ObjectMapper objectMapper;
+    private final RideSubscriptionRegistry rideSubscriptionRegistry;
+    // Server-side commit order of status events; clients order by the per-user seq the replay log adds instead
+    private final AtomicLong sequence = new AtomicLong(EventSequences.clockSeed());
+    // Highest sequence delivered per open ride, so a late batch cannot roll a client back to an older status
+    private final ConcurrentHashMap<UUID, Long> lastSequenceByRide = new ConcurrentHashMap<>();
 
-    public WebSocketEventService(WebSocketHandler webSocketHandler, ObjectMapper objectMapper) {
+    public WebSocketEventService(WebSocketHandler webSocketHandler, ObjectMapper objectMapper,
+                                 RideSubscriptionRegistry rideSubscriptionRegistry) {
         this.webSocketHandler = webSocketHandler;
         this.objectMapper = objectMapper;
+        this.rideSubscriptionRegistry = rideSubscriptionRegistry;
     }
 
+    /**
+     * Register the users that should receive events for a ride, once the current transaction commits
+     */
+    public void subscribeToRide(UUID rideId, UUID riderId, UUID driverId) {
+        TransactionCallbacks.afterCommit(() -> rideSubscriptionRegistry.subscribe(rideId, riderId, driverId));
+    }
+
+    /**
+     * Queue a status event for the ride's participants.
+     *
+     * Inside a transaction the event is buffered with the transaction and delivered only after it commits, so
+     * clients never see a status that is rolled back and socket I/O does not extend the transaction. The
+     * sequence number is taken just before commit, while the status UPDATE still holds the ride's row lock,
+     * so sequence order matches commit order for each ride.
+     */
     public void emitRideStatusUpdate(UUID rideId, RideStatus status) {
         RideStatusUpdateEvent event = new RideStatusUpdateEvent(rideId, status, LocalDateTime.now());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            event.setSequence(sequence.incrementAndGet());
+            publish(List.of(event));
+            return;
+        }
+
+        TransactionEvents pending = (TransactionEvents) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            // Registered after any subscribeToRide callback of the same transaction, so those run first
+            pending = new TransactionEvents();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.events.add(event);
+    }
+
+    /**
+     * Deliver committed events in sequence order, skipping any older than what a ride already delivered
+     */
+    void publish(List<RideStatusUpdateEvent> events) {
+        for (RideStatusUpdateEvent event : events) {
+            UUID rideId = event.getRideId();
+            RideSubscriptionRegistry.RideSubscription subscription = rideSubscriptionRegistry.get(rideId);
+            if (subscription == null) {
+                continue; // Nobody is subscribed to this ride
+            }
+            long eventSequence = event.getSequence();
+            if (lastSequenceByRide.merge(rideId, eventSequence, Math::max) != eventSequence) {
+                continue; // A later transition of this ride was already delivered
+            }
+            send(subscription, event);
+            if (event.getStatus() == RideStatus.COMPLETED || event.getStatus() == RideStatus.CANCELLED) {
+                rideSubscriptionRegistry.unsubscribe(rideId);
+                lastSequenceByRide.remove(rideId);
+            }
+        }
+    }
+
+    private void send(RideSubscriptionRegistry.RideSubscription subscription, RideStatusUpdateEvent event) {
         try {
-            String jsonMessage = objectMapper.writeValueAsString(event);
-            webSocketHandler.broadcast(jsonMessage);
+            // Serialized once and shared by both recipients
+            EncodedFrame frame = EncodedFrame.encode(objectMapper, event, false);
+            // Only the ride's participants receive it, so cost does not grow with the connection count
+            if (subscription.riderId() != null) {
+                webSocketHandler.sendToUser(subscription.riderId(), frame);
+            }
+            if (subscription.driverId() != null) {
+                webSocketHandler.sendToUser(subscription.driverId(), frame);
+            }
         } catch (JsonProcessingException e) {
             // Log error, but don't fail the ride status update
         }
     }
-}
 
+    /**
+     * Status events buffered by one transaction
+     */
+    private final class TransactionEvents implements TransactionSynchronization {
+
+        private final List<RideStatusUpdateEvent> events = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            for (RideStatusUpdateEvent event : events) {
+                event.setSequence(sequence.incrementAndGet());
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            events.sort(Comparator.comparingLong(RideStatusUpdateEvent::getSequence));
+            publish(events);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(WebSocketEventService.this);
+        }
+    }
+}
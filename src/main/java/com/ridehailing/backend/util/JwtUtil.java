@@ -2,7 +2,9 @@ package com.ridehailing.backend.util;
 
 import com.ridehailing.backend.config.JwtProperties;
 import com.ridehailing.backend.model.Role;
+import com.ridehailing.backend.security.JwtPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.stereotype.Component;
@@ -10,27 +12,42 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
     private static final String ROLE_CLAIM = "role";
+    private static final String FAMILY_CLAIM = "fid";
 
     private final JwtProperties jwtProperties;
     private final SecretKey secretKey;
+    // Immutable and thread-safe, so built once rather than per token
+    private final JwtParser parser;
 
     public JwtUtil(JwtProperties jwtProperties) {
         this.jwtProperties = jwtProperties;
         this.secretKey = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
     }
 
     public String generateToken(String subject, Role role) {
+        return generateToken(subject, role, null);
+    }
+
+    /**
+     * Access token tied to a refresh token family, so revoking the family also rejects the token
+     */
+    public String generateToken(String subject, Role role, UUID familyId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtProperties.getExpiration());
 
         return Jwts.builder()
                 .subject(subject)
                 .claim(ROLE_CLAIM, role.name())
+                .claim(FAMILY_CLAIM, familyId != null ? familyId.toString() : null)
                 .issuedAt(now)
                 .expiration(expiryDate)
                 .signWith(secretKey)
@@ -38,11 +55,18 @@ public class JwtUtil {
     }
 
     public Claims validateToken(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    /**
+     * Verify the token once and read everything authentication needs from it
+     */
+    public JwtPrincipal parsePrincipal(String token) {
+        Claims claims = validateToken(token);
+        Role role = Role.valueOf(claims.get(ROLE_CLAIM, String.class));
+        String familyId = claims.get(FAMILY_CLAIM, String.class);
+        return new JwtPrincipal(claims.getSubject(), role, claims.getExpiration().getTime(),
+                familyId != null ? UUID.fromString(familyId) : null);
     }
 
     public String getSubjectFromToken(String token) {
@@ -0,0 +1,128 @@
+package com.ridehailing.backend.websocket;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary wire format for driver location frames on {@code /ws/binary}.
+ *
+ * Coordinates are fixed-point microdegrees (~0.11 m) and timestamps epoch millis. Two frame kinds:
+ * <pre>
+ *   KEYFRAME  0x01 | latMicros int32 | lonMicros int32 | epochMillis int64      (17 bytes, big-endian)
+ *   DELTA     0x02 | dLat zigzag-varint | dLon zigzag-varint | dMillis zigzag-varint   (typically 6-8 bytes)
+ * </pre>
+ * Deltas are relative to the previous frame of the same connection. Clients send a keyframe first and
+ * whenever a delta would not fit in an int; a delta that arrives before any keyframe is rejected.
+ */
+public final class BinaryLocationCodec {
+
+    public static final byte KEYFRAME = 0x01;
+    public static final byte DELTA = 0x02;
+    public static final int KEYFRAME_SIZE = 17;
+    // Upper bound of a delta frame: tag plus three 5-byte varints
+    public static final int MAX_DELTA_SIZE = 16;
+
+    private static final double MICROS_PER_DEGREE = 1_000_000.0;
+
+    private BinaryLocationCodec() {
+    }
+
+    public static int toMicros(double degrees) {
+        return (int) Math.round(degrees * MICROS_PER_DEGREE);
+    }
+
+    public static double fromMicros(int micros) {
+        return micros / MICROS_PER_DEGREE;
+    }
+
+    public static void writeKeyframe(ByteBuffer out, int latMicros, int lonMicros, long epochMillis) {
+        out.put(KEYFRAME).putInt(latMicros).putInt(lonMicros).putLong(epochMillis);
+    }
+
+    public static void writeDelta(ByteBuffer out, int dLatMicros, int dLonMicros, int dMillis) {
+        out.put(DELTA);
+        writeVarint(out, zigzag(dLatMicros));
+        writeVarint(out, zigzag(dLonMicros));
+        writeVarint(out, zigzag(dMillis));
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int readVarint(ByteBuffer in) {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than 5 bytes");
+    }
+
+    /**
+     * Per-connection decoding state: the last absolute fix that deltas apply to
+     */
+    public static final class Decoder {
+
+        private boolean hasBase;
+        private int latMicros;
+        private int lonMicros;
+        private long epochMillis;
+
+        /**
+         * Decode one frame into the holder as a location update
+         *
+         * @return false if the frame is malformed or is a delta without a preceding keyframe
+         */
+        public boolean decode(ByteBuffer frame, InboundMessage target) {
+            target.reset();
+            try {
+                byte kind = frame.get();
+                if (kind == KEYFRAME) {
+                    if (frame.remaining() != KEYFRAME_SIZE - 1) {
+                        return false;
+                    }
+                    latMicros = frame.getInt();
+                    lonMicros = frame.getInt();
+                    epochMillis = frame.getLong();
+                    hasBase = true;
+                } else if (kind == DELTA && hasBase) {
+                    int dLat = unzigzag(readVarint(frame));
+                    int dLon = unzigzag(readVarint(frame));
+                    int dMillis = unzigzag(readVarint(frame));
+                    if (frame.hasRemaining()) {
+                        return false;
+                    }
+                    latMicros += dLat;
+                    lonMicros += dLon;
+                    epochMillis += dMillis;
+                } else {
+                    return false;
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                return false; // Truncated or corrupt frame; keep the previous base
+            }
+
+            target.setType(InboundMessageType.LOCATION_UPDATE);
+            target.setLatitude(fromMicros(latMicros));
+            target.setLongitude(fromMicros(lonMicros));
+            target.setTimestampMillis(epochMillis);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.ridehailing.backend.websocket;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Endpoint for driver apps that upload locations in the {@link BinaryLocationCodec} format.
+ *
+ * Connection lifecycle, outbound events, pongs and text frames (e.g. ping) are delegated to the JSON
+ * {@link WebSocketHandler}, so a binary connection is registered and served exactly like a JSON one;
+ * only inbound location decoding differs.
+ */
+@Component
+public class BinaryLocationWebSocketHandler extends AbstractWebSocketHandler {
+
+    private static final String DECODER_ATTRIBUTE = "binaryLocationDecoder";
+
+    private final WebSocketHandler webSocketHandler;
+
+    public BinaryLocationWebSocketHandler(WebSocketHandler webSocketHandler) {
+        this.webSocketHandler = webSocketHandler;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        session.getAttributes().put(DECODER_ATTRIBUTE, new BinaryLocationCodec.Decoder());
+        webSocketHandler.afterConnectionEstablished(session);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        webSocketHandler.afterConnectionClosed(session, status);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        webSocketHandler.recordActivity(session);
+        BinaryLocationCodec.Decoder decoder = (BinaryLocationCodec.Decoder) session.getAttributes().get(DECODER_ATTRIBUTE);
+        if (decoder == null) {
+            return;
+        }
+        // The container may reuse the frame's buffer once this method returns
+        ByteBuffer payload = message.getPayload();
+        ByteBuffer frame = ByteBuffer.allocate(payload.remaining()).put(payload.duplicate()).flip();
+        // The mailbox runs a session's frames in order, which the delta decoder relies on
+        webSocketHandler.submitInbound(session, inbound -> {
+            if (decoder.decode(frame, inbound)) {
+                webSocketHandler.handleLocationUpdate(session, inbound);
+            }
+            // Malformed frames and deltas without a keyframe are dropped; the next keyframe resynchronizes
+        });
+    }
+
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        webSocketHandler.recordActivity(session);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        webSocketHandler.handleTextMessage(session, message);
+    }
+}
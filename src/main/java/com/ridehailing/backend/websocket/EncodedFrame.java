@@ -0,0 +1,80 @@
+package com.ridehailing.backend.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.socket.TextMessage;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An outbound event serialized exactly once and shared, unchanged, by every recipient.
+ *
+ * The event is written straight to UTF-8 bytes and wrapped in a single immutable TextMessage that keeps
+ * those bytes, so fanning out to N sessions costs one serialization instead of N. Containers that send
+ * the raw payload bytes reuse them as-is; JSR-356 containers still encode the shared String per send.
+ */
+public final class EncodedFrame {
+
+    private static final byte[] SEQUENCE_FIELD = "{\"seq\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final TextMessage message;
+    private final boolean droppable;
+
+    private EncodedFrame(TextMessage message, boolean droppable) {
+        this.message = message;
+        this.droppable = droppable;
+    }
+
+    /**
+     * Serialize an event to a frame
+     *
+     * @param droppable whether a newer frame may supersede this one when a client falls behind
+     */
+    public static EncodedFrame encode(ObjectMapper objectMapper, Object event, boolean droppable)
+            throws JsonProcessingException {
+        return new EncodedFrame(new TextMessage(objectMapper.writeValueAsBytes(event)), droppable);
+    }
+
+    public static EncodedFrame text(String payload, boolean droppable) {
+        return new EncodedFrame(new TextMessage(payload), droppable);
+    }
+
+    /**
+     * Copy of this frame with a leading {@code "seq"} field spliced into its JSON object, without re-serializing
+     *
+     * @throws IllegalStateException if the payload is not a JSON object
+     */
+    public EncodedFrame withSequence(long sequence) {
+        if (!isJsonObject()) {
+            throw new IllegalStateException("Only JSON object frames can carry a sequence");
+        }
+        byte[] payload = message.asBytes();
+        byte[] digits = Long.toString(sequence).getBytes(StandardCharsets.US_ASCII);
+        boolean empty = payload.length > 1 && payload[1] == '}';
+        byte[] spliced = new byte[SEQUENCE_FIELD.length + digits.length + (empty ? 0 : 1) + payload.length - 1];
+        System.arraycopy(SEQUENCE_FIELD, 0, spliced, 0, SEQUENCE_FIELD.length);
+        System.arraycopy(digits, 0, spliced, SEQUENCE_FIELD.length, digits.length);
+        int position = SEQUENCE_FIELD.length + digits.length;
+        if (!empty) {
+            spliced[position++] = ',';
+        }
+        System.arraycopy(payload, 1, spliced, position, payload.length - 1);
+        return new EncodedFrame(new TextMessage(spliced), droppable);
+    }
+
+    /**
+     * Whether the payload is a JSON object, as every encoded event is; plain text frames are not
+     */
+    public boolean isJsonObject() {
+        String payload = message.getPayload();
+        return payload.length() >= 2 && payload.charAt(0) == '{';
+    }
+
+    public TextMessage getMessage() {
+        return message;
+    }
+
+    public boolean isDroppable() {
+        return droppable;
+    }
+}
@@ -0,0 +1,120 @@
+package com.ridehailing.backend.websocket;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Per-user sequence numbers and a bounded ring of recent events, so a client that lost its socket can ask
+ * for exactly the events it missed instead of re-reading its rides.
+ *
+ * Every reliable event for a user gets the next sequence of that user, spliced into the frame as {@code seq},
+ * and is kept until it is pushed out of the ring. A user's log lives while it keeps receiving events and is
+ * purged after a quiet period. A new log starts its sequences above anything an earlier log for the same user
+ * could have issued, so a client resuming across a purge or a restart gets a resync instead of wrong events.
+ */
+public class EventReplayLog {
+
+    private final ConcurrentHashMap<UUID, UserLog> logs = new ConcurrentHashMap<>();
+    private final int capacity;
+
+    public EventReplayLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Replay capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Sequence and record a frame, then hand it to {@code deliver} while still holding the user's lock,
+     * so every session of the user receives events in sequence order
+     */
+    public void append(UUID userId, EncodedFrame frame, Consumer<EncodedFrame> deliver) {
+        UserLog log = logs.computeIfAbsent(userId, id -> new UserLog(capacity));
+        log.lock.lock();
+        try {
+            log.append(frame, deliver);
+        } finally {
+            log.lock.unlock();
+        }
+        // A purge may have dropped the log while this event went in; publish it again so it stays replayable
+        if (logs.get(userId) != log) {
+            logs.putIfAbsent(userId, log);
+        }
+    }
+
+    /**
+     * Hand every recorded event after {@code lastSequence} to {@code deliver}, oldest first
+     *
+     * @return whether the gap was filled; if not, nothing was delivered and the client must resync
+     */
+    public Replay replay(UUID userId, long lastSequence, Consumer<EncodedFrame> deliver) {
+        UserLog log = logs.get(userId);
+        if (log == null) {
+            return new Replay(false, 0, 0);
+        }
+        log.lock.lock();
+        try {
+            return log.replay(lastSequence, deliver);
+        } finally {
+            log.lock.unlock();
+        }
+    }
+
+    /**
+     * Forget users who have not received an event since the given time
+     */
+    public void purgeIdle(long idleSinceMillis) {
+        logs.values().removeIf(log -> log.lastAppendMillis < idleSinceMillis);
+    }
+
+    public int size() {
+        return logs.size();
+    }
+
+    /**
+     * Outcome of a resume: whether the gap was filled, the user's latest sequence and how many frames were sent
+     */
+    public record Replay(boolean complete, long lastSequence, int replayed) {
+    }
+
+    private static final class UserLog {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final EncodedFrame[] frames;
+        // Sequences of this log are firstSequence + 1, firstSequence + 2, ...
+        private final long firstSequence;
+        private long lastSequence;
+        private volatile long lastAppendMillis;
+
+        private UserLog(int capacity) {
+            this.frames = new EncodedFrame[capacity];
+            this.lastAppendMillis = System.currentTimeMillis();
+            // Ahead of any earlier log for this user, including one from before a restart
+            this.firstSequence = EventSequences.clockSeed();
+            this.lastSequence = firstSequence;
+        }
+
+        private void append(EncodedFrame frame, Consumer<EncodedFrame> deliver) {
+            long sequence = lastSequence + 1;
+            EncodedFrame sequenced = frame.withSequence(sequence);
+            frames[(int) (sequence % frames.length)] = sequenced;
+            lastSequence = sequence;
+            lastAppendMillis = System.currentTimeMillis();
+            deliver.accept(sequenced);
+        }
+
+        private Replay replay(long lastSeen, Consumer<EncodedFrame> deliver) {
+            long oldestKept = Math.max(firstSequence + 1, lastSequence - frames.length + 1);
+            if (lastSeen > lastSequence || lastSeen < oldestKept - 1) {
+                // From another log, or older than the ring reaches back
+                return new Replay(false, lastSequence, 0);
+            }
+            for (long sequence = lastSeen + 1; sequence <= lastSequence; sequence++) {
+                deliver.accept(frames[(int) (sequence % frames.length)]);
+            }
+            return new Replay(true, lastSequence, (int) (lastSequence - lastSeen));
+        }
+    }
+}
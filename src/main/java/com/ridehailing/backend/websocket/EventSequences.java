@@ -0,0 +1,18 @@
+package com.ridehailing.backend.websocket;
+
+/**
+ * Starting values for event sequence counters that must keep increasing across restarts without being stored.
+ */
+public final class EventSequences {
+
+    private EventSequences() {
+    }
+
+    /**
+     * The wall clock in thousandths of a millisecond. A counter seeded later starts above everything an earlier
+     * one issued, unless that one averaged more than a thousand numbers per millisecond since its own seed.
+     */
+    public static long clockSeed() {
+        return System.currentTimeMillis() * 1000;
+    }
+}
@@ -0,0 +1,179 @@
+package com.ridehailing.backend.websocket;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Pings sessions that went quiet and evicts the ones that stay quiet, so half-open connections from phones
+ * that lost coverage do not linger in the session maps.
+ *
+ * Deadlines live in a hashed timing wheel: one bucket per tick, each session in exactly one bucket. Inbound
+ * traffic only stamps the session's last-activity time; the session is not moved. When its bucket comes round
+ * the stamp is checked and the session is either rescheduled from that stamp, pinged, or evicted if a ping
+ * sent earlier in the same silence went unanswered. A tick therefore touches only the sessions whose deadline
+ * falls in it, however many are connected, and each session is visited about once per ping interval. Only the
+ * reaper thread touches the wheel; new sessions are handed over through a queue and closed ones are skipped
+ * when their bucket is next visited.
+ */
+public class IdleSessionReaper {
+
+    private static final int MAX_SLOTS = 1 << 16;
+
+    private final long tickMs;
+    private final long pingAfterMs;
+    private final long timeoutMs;
+    private final LongSupplier clock;
+    private final WebSocketMetrics metrics;
+    private final Consumer<OutboundMessageQueue> evictor;
+
+    private final ArrayDeque<Entry>[] wheel;
+    private final int mask;
+    private final ConcurrentLinkedQueue<Entry> added = new ConcurrentLinkedQueue<>();
+    // Next tick to process; advanced by the reaper thread only
+    private long currentTick;
+    private ScheduledExecutorService ticker;
+
+    /**
+     * @param evictor called on the reaper thread for each session found dead; it must not block
+     */
+    @SuppressWarnings("unchecked")
+    public IdleSessionReaper(long tickMs, long pingAfterMs, long timeoutMs, LongSupplier clock,
+                             WebSocketMetrics metrics, Consumer<OutboundMessageQueue> evictor) {
+        if (tickMs <= 0 || pingAfterMs < tickMs || timeoutMs <= pingAfterMs) {
+            throw new IllegalArgumentException("Idle timing must satisfy 0 < tick <= ping-after < timeout");
+        }
+        this.tickMs = tickMs;
+        this.pingAfterMs = pingAfterMs;
+        this.timeoutMs = timeoutMs;
+        this.clock = clock;
+        this.metrics = metrics;
+        this.evictor = evictor;
+        // One turn of the wheel spans the timeout, so most sessions are seen once per deadline
+        int spanTicks = (int) Math.min(MAX_SLOTS, timeoutMs / tickMs + 1);
+        int slots = Integer.highestOneBit(spanTicks * 2 - 1);
+        this.wheel = new ArrayDeque[slots];
+        for (int i = 0; i < slots; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        this.mask = slots - 1;
+        this.currentTick = clock.getAsLong() / tickMs;
+    }
+
+    /**
+     * Run {@link #tick()} every tick on a dedicated daemon thread
+     */
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ws-idle-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Start watching a session; its first deadline is one ping interval from now
+     */
+    public Entry register(OutboundMessageQueue queue) {
+        Entry entry = new Entry(queue, clock.getAsLong());
+        added.add(entry);
+        return entry;
+    }
+
+    /**
+     * Record inbound traffic. Called for every frame, so it only writes the timestamp.
+     */
+    public void touch(Entry entry) {
+        entry.lastActivityMillis = clock.getAsLong();
+    }
+
+    /**
+     * Stop watching a closed session; it is dropped from its bucket when the bucket is next visited
+     */
+    public void cancel(Entry entry) {
+        entry.cancelled = true;
+    }
+
+    /**
+     * Process every tick up to the current time. Must only be called from one thread at a time.
+     */
+    public void tick() {
+        long now = clock.getAsLong();
+        Entry entry;
+        while ((entry = added.poll()) != null) {
+            schedule(entry, entry.lastActivityMillis + pingAfterMs);
+        }
+        for (long lastTick = now / tickMs; currentTick <= lastTick; currentTick++) {
+            ArrayDeque<Entry> bucket = wheel[(int) (currentTick & mask)];
+            for (int remaining = bucket.size(); remaining > 0; remaining--) {
+                entry = bucket.pollFirst();
+                if (entry.cancelled) {
+                    continue;
+                }
+                if (entry.deadlineTick > currentTick) {
+                    // Due on a later turn of the wheel
+                    bucket.addLast(entry);
+                    continue;
+                }
+                expire(entry, now);
+            }
+        }
+    }
+
+    private void expire(Entry entry, long now) {
+        long lastActivity = entry.lastActivityMillis;
+        long idle = now - lastActivity;
+        // Every ping gets at least this long to be answered before the session is evicted
+        long grace = timeoutMs - pingAfterMs;
+        if (idle < pingAfterMs) {
+            schedule(entry, lastActivity + pingAfterMs);
+        } else if (entry.pingSentMillis <= lastActivity) {
+            // First visit in this silence
+            entry.pingSentMillis = now;
+            metrics.idlePingSent();
+            entry.queue.ping();
+            schedule(entry, Math.max(lastActivity + timeoutMs, now + grace));
+        } else if (idle >= timeoutMs && now - entry.pingSentMillis >= grace) {
+            entry.cancelled = true;
+            metrics.idleSessionEvicted();
+            evictor.accept(entry.queue);
+        } else {
+            schedule(entry, Math.max(lastActivity + timeoutMs, entry.pingSentMillis + grace));
+        }
+    }
+
+    private void schedule(Entry entry, long dueMillis) {
+        // Never into a tick that is being or has been processed
+        entry.deadlineTick = Math.max(Math.ceilDiv(dueMillis, tickMs), currentTick + 1);
+        wheel[(int) (entry.deadlineTick & mask)].addLast(entry);
+    }
+
+    /**
+     * Idle state of one session, kept in its attributes
+     */
+    public static final class Entry {
+
+        private final OutboundMessageQueue queue;
+        private volatile long lastActivityMillis;
+        private volatile boolean cancelled;
+        // Reaper thread only
+        private long deadlineTick;
+        private long pingSentMillis = Long.MIN_VALUE;
+
+        private Entry(OutboundMessageQueue queue, long nowMillis) {
+            this.queue = queue;
+            this.lastActivityMillis = nowMillis;
+        }
+    }
+}
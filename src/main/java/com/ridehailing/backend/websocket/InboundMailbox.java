@@ -0,0 +1,114 @@
+package com.ridehailing.backend.websocket;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serial queue of inbound work for one WebSocket session.
+ *
+ * The tasks of a session run one at a time, in arrival order, on a single drain task submitted to the executor,
+ * so per-session state such as the binary delta decoder needs no locking and a driver's fixes are applied in the
+ * order they were sent. With the default inline executor the drain runs on the container thread that submitted the
+ * task, which reads the session's next frame only afterwards, so the queue never holds more than that one task and
+ * the capacity and drop counting never come into play. With a virtual-thread-per-task executor the container
+ * thread only enqueues and returns to reading sockets, a session that blocks holds only its own virtual thread, and
+ * a session that sends faster than its tasks complete loses frames beyond the capacity rather than growing without
+ * bound.
+ */
+public class InboundMailbox {
+
+    private final Executor executor;
+    private final int capacity;
+    private final WebSocketMetrics metrics;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    // Per-session decode buffer; only touched by the task currently running
+    private final InboundMessage message = new InboundMessage();
+    private boolean draining;
+    private boolean closed;
+
+    public InboundMailbox(Executor executor, int capacity, WebSocketMetrics metrics) {
+        this.executor = executor;
+        this.capacity = capacity;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Queue a task behind the session's earlier ones
+     *
+     * @return false if the task was dropped because the mailbox is full or closed
+     */
+    public boolean submit(Runnable task) {
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            if (tasks.size() >= capacity) {
+                metrics.inboundDropped();
+                return false;
+            }
+            tasks.addLast(task);
+            if (draining) {
+                return true;
+            }
+            draining = true;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the session goes with it
+            close();
+        }
+        return true;
+    }
+
+    /**
+     * Holder for decoding this session's frames; valid only inside a task of this mailbox
+     */
+    public InboundMessage message() {
+        return message;
+    }
+
+    /**
+     * Discard pending tasks once the session is gone
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            tasks.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable task;
+            lock.lock();
+            try {
+                task = tasks.pollFirst();
+                if (task == null) {
+                    draining = false;
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // One bad frame must not stall the frames queued behind it
+                metrics.inboundFailed();
+            }
+        }
+    }
+}
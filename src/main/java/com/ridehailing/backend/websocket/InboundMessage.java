@@ -0,0 +1,114 @@
+package com.ridehailing.backend.websocket;
+
+/**
+ * Mutable, reusable holder for one decoded inbound frame.
+ *
+ * Fields are primitives so decoding a location frame does not box coordinates or build a DTO.
+ * An instance is reset and refilled for every frame, and must not be retained after dispatch.
+ */
+public class InboundMessage {
+
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    public static final long NO_SEQUENCE = -1;
+
+    private InboundMessageType type;
+    private boolean typed;
+    private int version;
+    private double latitude;
+    private double longitude;
+    private boolean hasLatitude;
+    private boolean hasLongitude;
+    private long timestampMillis;
+    private long lastSequence;
+
+    public InboundMessage() {
+        reset();
+    }
+
+    void reset() {
+        type = InboundMessageType.UNKNOWN;
+        typed = false;
+        version = InboundMessageParser.CURRENT_VERSION;
+        latitude = 0;
+        longitude = 0;
+        hasLatitude = false;
+        hasLongitude = false;
+        timestampMillis = NO_TIMESTAMP;
+        lastSequence = NO_SEQUENCE;
+    }
+
+    public InboundMessageType getType() {
+        return type;
+    }
+
+    void setType(InboundMessageType type) {
+        this.type = type;
+        this.typed = true;
+    }
+
+    /**
+     * Assign a type deduced from the frame's fields, for legacy frames without a {@code type}
+     */
+    void inferType(InboundMessageType type) {
+        this.type = type;
+    }
+
+    /**
+     * Whether the frame carried an explicit {@code type} field (legacy frames do not)
+     */
+    public boolean isTyped() {
+        return typed;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    void setVersion(int version) {
+        this.version = version;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    void setLatitude(double latitude) {
+        this.latitude = latitude;
+        this.hasLatitude = true;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    void setLongitude(double longitude) {
+        this.longitude = longitude;
+        this.hasLongitude = true;
+    }
+
+    public boolean hasCoordinates() {
+        return hasLatitude && hasLongitude;
+    }
+
+    /**
+     * Client timestamp in epoch millis (UTC), or {@link #NO_TIMESTAMP} if absent or unparseable
+     */
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    void setTimestampMillis(long timestampMillis) {
+        this.timestampMillis = timestampMillis;
+    }
+
+    /**
+     * Last event sequence the client saw before reconnecting, or {@link #NO_SEQUENCE} if absent
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    void setLastSequence(long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+}
@@ -0,0 +1,193 @@
+package com.ridehailing.backend.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * Token-level decoder for the inbound WebSocket envelope.
+ *
+ * Envelope: {@code {"type": "location:update", "v": 1, ...fields}}. Only the fields the server acts on
+ * are read; everything else is skipped without being bound. Frames without a {@code type} that carry
+ * coordinates are the legacy location format and are decoded as {@link InboundMessageType#LOCATION_UPDATE}.
+ */
+public class InboundMessageParser {
+
+    public static final int CURRENT_VERSION = 1;
+
+    private final JsonFactory jsonFactory;
+
+    public InboundMessageParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Decode a frame into the given holder
+     *
+     * @return false if the payload is not a well-formed JSON object
+     */
+    public boolean parse(String payload, InboundMessage target) {
+        target.reset();
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                // Field names are canonicalized by the parser's symbol table, so this does not allocate
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "type" -> target.setType(value == JsonToken.VALUE_STRING
+                            ? InboundMessageType.fromWireName(
+                                    parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())
+                            : InboundMessageType.UNKNOWN);
+                    case "v" -> {
+                        if (value == JsonToken.VALUE_NUMBER_INT) {
+                            target.setVersion(parser.getIntValue());
+                        }
+                    }
+                    case "latitude" -> {
+                        if (value.isNumeric()) {
+                            target.setLatitude(parser.getDoubleValue());
+                        }
+                    }
+                    case "longitude" -> {
+                        if (value.isNumeric()) {
+                            target.setLongitude(parser.getDoubleValue());
+                        }
+                    }
+                    case "lastSeq" -> {
+                        if (value == JsonToken.VALUE_NUMBER_INT && parser.getLongValue() >= 0) {
+                            target.setLastSequence(parser.getLongValue());
+                        }
+                    }
+                    case "timestamp" -> {
+                        if (value == JsonToken.VALUE_STRING) {
+                            target.setTimestampMillis(parseTimestamp(
+                                    parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+                        } else if (value == JsonToken.VALUE_NUMBER_INT) {
+                            target.setTimestampMillis(parser.getLongValue());
+                        }
+                    }
+                    default -> {
+                        // Not used by the server
+                    }
+                }
+                parser.skipChildren();
+            }
+            if (token != JsonToken.END_OBJECT) {
+                return false;
+            }
+        } catch (IOException e) {
+            return false; // Malformed JSON
+        }
+
+        if (!target.isTyped() && target.hasCoordinates()) {
+            target.inferType(InboundMessageType.LOCATION_UPDATE);
+        }
+        return true;
+    }
+
+    /**
+     * Parse an ISO-8601 timestamp to epoch millis. Offsets are honoured; local date-times (as sent by the
+     * mobile client, with or without fractional seconds) are read as UTC.
+     *
+     * The common {@code yyyy-MM-ddTHH:mm:ss[.fff...][Z|±HH:mm]} shapes are read straight from the parser's
+     * buffer; anything else falls back to {@link DateTimeFormatter#ISO_DATE_TIME}.
+     *
+     * @return epoch millis, or {@link InboundMessage#NO_TIMESTAMP} if the text is not a timestamp
+     */
+    static long parseTimestamp(char[] text, int offset, int length) {
+        int end = offset + length;
+        if (length < 19 || text[offset + 4] != '-' || text[offset + 7] != '-' || text[offset + 10] != 'T'
+                || text[offset + 13] != ':' || text[offset + 16] != ':') {
+            return parseTimestampSlow(new String(text, offset, length));
+        }
+        int year = digits(text, offset, 4);
+        int month = digits(text, offset + 5, 2);
+        int day = digits(text, offset + 8, 2);
+        int hour = digits(text, offset + 11, 2);
+        int minute = digits(text, offset + 14, 2);
+        int second = digits(text, offset + 17, 2);
+
+        int pos = offset + 19;
+        int millis = 0;
+        if (pos < end && text[pos] == '.') {
+            pos++;
+            int fractionStart = pos;
+            while (pos < end && text[pos] >= '0' && text[pos] <= '9') {
+                if (pos - fractionStart < 3) {
+                    millis = millis * 10 + (text[pos] - '0');
+                }
+                pos++;
+            }
+            for (int scale = pos - fractionStart; scale < 3; scale++) {
+                millis *= 10;
+            }
+        }
+
+        int offsetSeconds = 0;
+        if (pos < end) {
+            char zone = text[pos];
+            if (zone == 'Z' && pos + 1 == end) {
+                offsetSeconds = 0;
+            } else if ((zone == '+' || zone == '-') && pos + 6 == end && text[pos + 3] == ':') {
+                int offsetHours = digits(text, pos + 1, 2);
+                int offsetMinutes = digits(text, pos + 4, 2);
+                if (offsetHours < 0 || offsetMinutes < 0) {
+                    return InboundMessage.NO_TIMESTAMP;
+                }
+                offsetSeconds = (zone == '-' ? -1 : 1) * (offsetHours * 3600 + offsetMinutes * 60);
+            } else {
+                return parseTimestampSlow(new String(text, offset, length));
+            }
+        }
+
+        if ((year | month | day | hour | minute | second) < 0 || hour > 23 || minute > 59 || second > 59) {
+            return InboundMessage.NO_TIMESTAMP;
+        }
+        try {
+            long epochDay = LocalDate.of(year, month, day).toEpochDay();
+            long epochSecond = epochDay * 86_400 + hour * 3600L + minute * 60L + second - offsetSeconds;
+            return epochSecond * 1000 + millis;
+        } catch (DateTimeException e) {
+            return InboundMessage.NO_TIMESTAMP; // e.g. February 30th
+        }
+    }
+
+    // Non-negative value of a run of ASCII digits, or -1 if any character is not a digit
+    private static int digits(char[] text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static long parseTimestampSlow(String text) {
+        try {
+            TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(
+                    text, ZonedDateTime::from, LocalDateTime::from);
+            if (parsed instanceof ZonedDateTime zoned) {
+                return zoned.toInstant().toEpochMilli();
+            }
+            return ((LocalDateTime) parsed).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeException e) {
+            return InboundMessage.NO_TIMESTAMP;
+        }
+    }
+}
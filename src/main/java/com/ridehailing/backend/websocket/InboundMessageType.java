@@ -0,0 +1,44 @@
+package com.ridehailing.backend.websocket;
+
+/**
+ * Client → server message types, keyed by the envelope's {@code type} field
+ */
+public enum InboundMessageType {
+
+    LOCATION_UPDATE("location:update"),
+    PING("ping"),
+    RESUME("session:resume"),
+    UNKNOWN("");
+
+    private static final InboundMessageType[] KNOWN = {LOCATION_UPDATE, PING, RESUME};
+
+    private final String wireName;
+
+    InboundMessageType(String wireName) {
+        this.wireName = wireName;
+    }
+
+    public String getWireName() {
+        return wireName;
+    }
+
+    /**
+     * Resolve a type straight from the parser's character buffer, without materializing a String
+     */
+    public static InboundMessageType fromWireName(char[] buffer, int offset, int length) {
+        for (InboundMessageType type : KNOWN) {
+            String name = type.wireName;
+            if (name.length() != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && name.charAt(i) == buffer[offset + i]) {
+                i++;
+            }
+            if (i == length) {
+                return type;
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,86 @@
+package com.ridehailing.backend.websocket;
+
+import com.ridehailing.backend.security.JwtPrincipal;
+import com.ridehailing.backend.security.JwtVerifier;
+import com.ridehailing.backend.security.RevokedFamilies;
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Authenticates WebSocket upgrades with the same access tokens as the REST API.
+ *
+ * The token is taken from the {@code Authorization: Bearer} header or, for clients that cannot set headers
+ * on an upgrade (browsers), from the {@code token} query parameter. It is verified once here and the
+ * resulting {@link SessionPrincipal} is what every later frame of the session relies on.
+ */
+@Component
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String TOKEN_PARAMETER = "token";
+
+    private final JwtVerifier jwtVerifier;
+    private final RevokedFamilies revokedFamilies;
+    private final WebSocketMetrics webSocketMetrics;
+
+    public JwtHandshakeInterceptor(JwtVerifier jwtVerifier, RevokedFamilies revokedFamilies,
+                                   WebSocketMetrics webSocketMetrics) {
+        this.jwtVerifier = jwtVerifier;
+        this.revokedFamilies = revokedFamilies;
+        this.webSocketMetrics = webSocketMetrics;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler,
+                                   Map<String, Object> attributes) {
+        SessionPrincipal principal = authenticate(request);
+        if (principal == null) {
+            webSocketMetrics.handshakeRejected();
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        attributes.put(SessionPrincipal.ATTRIBUTE, principal);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler,
+                               Exception exception) {
+    }
+
+    private SessionPrincipal authenticate(ServerHttpRequest request) {
+        String token = extractToken(request);
+        if (token == null) {
+            return null;
+        }
+        try {
+            JwtPrincipal jwtPrincipal = jwtVerifier.verify(token);
+            if (jwtPrincipal.familyId() != null && revokedFamilies.isRevoked(jwtPrincipal.familyId())) {
+                return null;
+            }
+            return new SessionPrincipal(UUID.fromString(jwtPrincipal.userId()), jwtPrincipal.role());
+        } catch (JwtException | IllegalArgumentException e) {
+            // Forged, expired, or a subject that is not a user id
+            return null;
+        }
+    }
+
+    private static String extractToken(ServerHttpRequest request) {
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith(BEARER_PREFIX)) {
+            return authHeader.substring(BEARER_PREFIX.length());
+        }
+        // JWTs are base64url with dots, so the raw query value needs no decoding
+        return UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst(TOKEN_PARAMETER);
+    }
+}
@@ -0,0 +1,329 @@
+package com.ridehailing.backend.websocket;
+
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded outbound buffer for one WebSocket session.
+ *
+ * Callers only enqueue and return immediately; frames are written by a single drain task per session
+ * running on the shared writer executor, so sends to one session never overlap and a stalled client
+ * never blocks a request thread. When the buffer is full the oldest droppable (location) frame is
+ * discarded; if nothing can be discarded the client is treated as a slow consumer and disconnected.
+ *
+ * Frames go out through the container's asynchronous send when the session has one: the drain hands a frame
+ * to the socket and returns, and the next frame is sent from the completion callback. A client whose TCP
+ * window is full therefore parks only its own queue, never a writer thread. Pings, close handshakes and
+ * sessions without an asynchronous send block for up to the send timeout, so they run on a separate bounded
+ * executor instead; when that is saturated the work is rejected and counted rather than starting more threads.
+ */
+public class OutboundMessageQueue {
+
+    // Frames written per drain pass before yielding the writer thread to other sessions
+    private static final int MAX_FRAMES_PER_DRAIN = 64;
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final Executor writerExecutor;
+    private final Executor blockingExecutor;
+    private final WebSocketMetrics metrics;
+    // Null when the session is not backed by a standard WebSocket session
+    private final RemoteEndpoint.Async asyncRemote;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<EncodedFrame> frames = new ArrayDeque<>();
+    private boolean draining;
+    private boolean closed;
+    private boolean pingPending;
+
+    public OutboundMessageQueue(WebSocketSession session, int capacity, Executor writerExecutor, WebSocketMetrics metrics) {
+        this(session, capacity, writerExecutor, writerExecutor, metrics);
+    }
+
+    public OutboundMessageQueue(WebSocketSession session, int capacity, Executor writerExecutor,
+                                Executor blockingExecutor, WebSocketMetrics metrics) {
+        this.session = session;
+        this.capacity = capacity;
+        this.writerExecutor = writerExecutor;
+        this.blockingExecutor = blockingExecutor;
+        this.metrics = metrics;
+        this.asyncRemote = asyncRemote(session);
+    }
+
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    /**
+     * Queue a frame for delivery. Droppable frames may be superseded by newer ones under backpressure.
+     *
+     * @return false if the frame was not queued because the session is closed or was just evicted
+     */
+    public boolean enqueue(EncodedFrame frame) {
+        boolean scheduleDrain = false;
+        boolean evicted = false;
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            if (frames.size() >= capacity && !dropOldestDroppable()) {
+                // Nothing left to shed: the client is not keeping up with reliable frames
+                discardLocked();
+                evicted = true;
+            } else {
+                frames.addLast(frame);
+                metrics.framesQueued(1);
+                if (!draining) {
+                    draining = true;
+                    scheduleDrain = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (evicted) {
+            metrics.slowConsumerEvicted();
+            executeBlocking(() -> closeSession(CloseStatus.SESSION_NOT_RELIABLE));
+            return false;
+        }
+        if (scheduleDrain) {
+            scheduleDrain();
+        }
+        return true;
+    }
+
+    /**
+     * Queue a protocol-level ping, sent ahead of pending frames. Repeated calls before it is sent are merged.
+     */
+    public void ping() {
+        lock.lock();
+        try {
+            if (closed || pingPending) {
+                return;
+            }
+            pingPending = true;
+            if (draining) {
+                return;
+            }
+            draining = true;
+        } finally {
+            lock.unlock();
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Discard pending frames and close the session from the blocking executor, so the caller never blocks on the socket
+     */
+    public void disconnect(CloseStatus status) {
+        close();
+        executeBlocking(() -> closeSession(status));
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return frames.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discard pending frames once the session is gone
+     */
+    public void close() {
+        lock.lock();
+        try {
+            discardLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        for (int sent = 0; ; sent++) {
+            EncodedFrame frame = null;
+            boolean ping;
+            lock.lock();
+            try {
+                if (sent == MAX_FRAMES_PER_DRAIN && (pingPending || !frames.isEmpty())) {
+                    break; // resubmit below so one busy session cannot monopolize a writer
+                }
+                ping = pingPending;
+                pingPending = false;
+                if (!ping) {
+                    frame = frames.pollFirst();
+                    if (frame == null) {
+                        draining = false;
+                        return;
+                    }
+                    metrics.framesDequeued(1);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (!session.isOpen()) {
+                continue;
+            }
+            if (asyncRemote != null) {
+                if (ping) {
+                    // Dropped when the blocking executor is saturated; the idle reaper pings again
+                    if (executeBlocking(this::pingThenDrain)) {
+                        return;
+                    }
+                } else if (!sendAsync(frame)) {
+                    return; // the completion callback resumes the drain
+                }
+                continue;
+            }
+            send(ping ? new PingMessage() : frame.getMessage());
+        }
+        scheduleDrain();
+    }
+
+    private void pingThenDrain() {
+        if (session.isOpen()) {
+            send(new PingMessage());
+        }
+        scheduleDrain();
+    }
+
+    private void send(WebSocketMessage<?> message) {
+        try {
+            session.sendMessage(message);
+        } catch (IOException | RuntimeException e) {
+            metrics.sendFailed();
+        }
+    }
+
+    /**
+     * @return true if the send already completed, so the drain can go on without a callback
+     */
+    private boolean sendAsync(EncodedFrame frame) {
+        AsyncSend send = new AsyncSend();
+        try {
+            asyncRemote.sendText(frame.getMessage().getPayload(), send);
+        } catch (RuntimeException e) {
+            metrics.sendFailed();
+            return true;
+        }
+        return !send.handOff();
+    }
+
+    private static RemoteEndpoint.Async asyncRemote(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            Session standardSession = nativeSession.getNativeSession(Session.class);
+            if (standardSession != null) {
+                return standardSession.getAsyncRemote();
+            }
+        }
+        return null;
+    }
+
+    private boolean dropOldestDroppable() {
+        Iterator<EncodedFrame> iterator = frames.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isDroppable()) {
+                iterator.remove();
+                metrics.framesDequeued(1);
+                metrics.frameDropped();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void discardLocked() {
+        closed = true;
+        pingPending = false;
+        metrics.framesDequeued(frames.size());
+        frames.clear();
+    }
+
+    private void closeSession(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            // Session is already gone
+        }
+    }
+
+    /**
+     * Run the drain where its sends belong: the writer pool when they are asynchronous, else the blocking executor
+     */
+    private void scheduleDrain() {
+        if (asyncRemote != null) {
+            execute(this::drain);
+        } else if (!executeBlocking(this::drain)) {
+            close();
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            writerExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Writer pool is shutting down; pending frames are discarded with the session
+            close();
+        }
+    }
+
+    private boolean executeBlocking(Runnable task) {
+        try {
+            blockingExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            metrics.blockingSendRejected();
+            return false;
+        }
+    }
+
+    /**
+     * Completion of one asynchronous send. Whichever of the drain and the container finishes second
+     * continues the drain, so it runs inline when the socket accepted the frame at once.
+     */
+    private final class AsyncSend implements SendHandler {
+
+        private static final int PENDING = 0;
+        private static final int HANDED_OFF = 1;
+        private static final int COMPLETED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        @Override
+        public void onResult(SendResult result) {
+            if (!result.isOK()) {
+                metrics.sendFailed();
+            }
+            if (!state.compareAndSet(PENDING, COMPLETED)) {
+                scheduleDrain();
+            }
+        }
+
+        /**
+         * @return true if the send is still in flight and its callback now owns the drain
+         */
+        private boolean handOff() {
+            return state.compareAndSet(PENDING, HANDED_OFF);
+        }
+    }
+}
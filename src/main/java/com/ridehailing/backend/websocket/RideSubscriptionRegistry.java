@@ -0,0 +1,61 @@
+package com.ridehailing.backend.websocket;
+
+import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.repository.RideRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Who should hear about each open ride: its rider and, once assigned, its driver.
+ * Lets ride events be delivered to the two participants instead of every connected socket.
+ */
+@Component
+public class RideSubscriptionRegistry {
+
+    private static final EnumSet<RideStatus> OPEN_STATUSES =
+            EnumSet.of(RideStatus.PENDING, RideStatus.ACCEPTED, RideStatus.IN_PROGRESS);
+
+    private final RideRepository rideRepository;
+    private final ConcurrentHashMap<UUID, RideSubscription> subscriptions = new ConcurrentHashMap<>();
+
+    public RideSubscriptionRegistry(RideRepository rideRepository) {
+        this.rideRepository = rideRepository;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        for (Ride ride : rideRepository.findByStatusIn(OPEN_STATUSES)) {
+            subscribe(ride.getRideId(), ride.getRiderId(), ride.getDriverId());
+        }
+    }
+
+    /**
+     * Add participants to a ride. A null driverId keeps any driver already subscribed.
+     */
+    public void subscribe(UUID rideId, UUID riderId, UUID driverId) {
+        subscriptions.merge(rideId, new RideSubscription(riderId, driverId), (current, added) ->
+                new RideSubscription(
+                        added.riderId() != null ? added.riderId() : current.riderId(),
+                        added.driverId() != null ? added.driverId() : current.driverId()));
+    }
+
+    public RideSubscription get(UUID rideId) {
+        return subscriptions.get(rideId);
+    }
+
+    public void unsubscribe(UUID rideId) {
+        subscriptions.remove(rideId);
+    }
+
+    public int size() {
+        return subscriptions.size();
+    }
+
+    public record RideSubscription(UUID riderId, UUID driverId) {
+    }
+}
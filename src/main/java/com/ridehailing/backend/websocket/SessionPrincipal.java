@@ -0,0 +1,13 @@
+package com.ridehailing.backend.websocket;
+
+import com.ridehailing.backend.model.Role;
+
+import java.util.UUID;
+
+/**
+ * Identity of a WebSocket session, verified once at the handshake and kept in the session attributes
+ */
+public record SessionPrincipal(UUID userId, Role role) {
+
+    static final String ATTRIBUTE = "principal";
+}
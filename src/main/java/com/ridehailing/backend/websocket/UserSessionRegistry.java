@@ -0,0 +1,96 @@
+package com.ridehailing.backend.websocket;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open sessions of each user, so a rider or driver signed in on several devices hears every event on all of them.
+ *
+ * Each user maps to an immutable array of outbound queues. Adds and removals go through
+ * {@link ConcurrentHashMap#compute}, which locks only the hash bin of that user, so connects and disconnects
+ * of different users proceed in parallel. Lookups take no lock and return the array as published: fan-out is
+ * one hash lookup and a walk over that user's sessions, never a scan of other users. Removal matches the
+ * queue by reference, so a late close of an old socket never drops the session that replaced it.
+ */
+public class UserSessionRegistry {
+
+    private static final OutboundMessageQueue[] NONE = new OutboundMessageQueue[0];
+
+    private final ConcurrentHashMap<UUID, OutboundMessageQueue[]> sessionsByUserId = new ConcurrentHashMap<>();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    public void register(UUID userId, OutboundMessageQueue queue) {
+        boolean[] added = new boolean[1];
+        sessionsByUserId.compute(userId, (id, current) -> {
+            if (current == null) {
+                added[0] = true;
+                return new OutboundMessageQueue[] {queue};
+            }
+            if (indexOf(current, queue) >= 0) {
+                return current;
+            }
+            added[0] = true;
+            OutboundMessageQueue[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = queue;
+            return grown;
+        });
+        if (added[0]) {
+            sessionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Remove exactly this queue from the user's sessions; other devices of the same user are untouched
+     *
+     * @return false if the queue was not registered for this user
+     */
+    public boolean unregister(UUID userId, OutboundMessageQueue queue) {
+        boolean[] removed = new boolean[1];
+        sessionsByUserId.computeIfPresent(userId, (id, current) -> {
+            int index = indexOf(current, queue);
+            if (index < 0) {
+                return current;
+            }
+            removed[0] = true;
+            if (current.length == 1) {
+                // Dropping the key keeps the map sized to connected users
+                return null;
+            }
+            OutboundMessageQueue[] shrunk = new OutboundMessageQueue[current.length - 1];
+            System.arraycopy(current, 0, shrunk, 0, index);
+            System.arraycopy(current, index + 1, shrunk, index, current.length - index - 1);
+            return shrunk;
+        });
+        if (removed[0]) {
+            sessionCount.decrementAndGet();
+        }
+        return removed[0];
+    }
+
+    /**
+     * The user's sessions at the moment of the call; the returned array must not be modified
+     */
+    public OutboundMessageQueue[] sessionsOf(UUID userId) {
+        OutboundMessageQueue[] sessions = sessionsByUserId.get(userId);
+        return sessions != null ? sessions : NONE;
+    }
+
+    public int userCount() {
+        return sessionsByUserId.size();
+    }
+
+    public int sessionCount() {
+        return sessionCount.get();
+    }
+
+    private static int indexOf(OutboundMessageQueue[] queues, OutboundMessageQueue queue) {
+        for (int i = 0; i < queues.length; i++) {
+            if (queues[i] == queue) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,93 @@
+package com.ridehailing.backend.websocket;
+
+import com.ridehailing.backend.config.WebSocketProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports virtual threads that blocked while pinned to their carrier.
+ *
+ * With websocket.inbound-virtual-threads on, inbound frames run on virtual threads, and a virtual thread that
+ * parks inside a monitor or a native frame holds its carrier for the whole wait; enough of those starve every
+ * other session. The JVM emits a jdk.VirtualThreadPinned event for such waits; this streams them in-process and
+ * records each one in the "jvm.threads.virtual.pinned" timer, tagged with the first application frame on the
+ * stack so the offending lock shows up on the metrics endpoint. With inbound virtual threads off (the default)
+ * there is nothing to watch, so no recording is started.
+ */
+@Component
+public class VirtualThreadPinningMonitor {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "com.ridehailing.";
+    // Bounds the timer's tag cardinality; later sites are reported as "other"
+    private static final int MAX_SITES = 32;
+
+    private final WebSocketProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> sites = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(WebSocketProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isInboundVirtualThreads() || !properties.isPinningMonitorEnabled()) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT)
+                .withThreshold(Duration.ofMillis(properties.getPinningThresholdMs()))
+                .withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::record);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void record(RecordedEvent event) {
+        Timer.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier thread")
+                .tag("site", site(event.getStackTrace()))
+                .register(meterRegistry)
+                .record(event.getDuration());
+    }
+
+    private String site(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        RecordedFrame site = frames.get(0);
+        for (RecordedFrame frame : frames) {
+            if (frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE)) {
+                site = frame;
+                break;
+            }
+        }
+        String name = site.getMethod().getType().getName() + "." + site.getMethod().getName();
+        if (sites.contains(name) || (sites.size() < MAX_SITES && sites.add(name))) {
+            return name;
+        }
+        return "other";
+    }
+}
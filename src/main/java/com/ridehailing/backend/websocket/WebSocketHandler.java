@@ -1,87 +1,193 @@
 package com.ridehailing.backend.websocket;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.backend.config.WebSocketProperties;
+import com.ridehailing.backend.geo.GeoUtils;
+import com.ridehailing.backend.model.Role;
 import com.ridehailing.backend.service.LocationService;
-import com.ridehailing.backend.util.JwtUtil;
-import com.ridehailing.backend.websocket.dto.LocationUpdateRequest;
+import jakarta.annotation.PreDestroy;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
-import java.io.IOException;
-import java.net.URI;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Component
 public class WebSocketHandler extends TextWebSocketHandler {
 
-    private static final String USER_ID_ATTRIBUTE = "userId";
-    private static final String LOCATION_UPDATE_EVENT = "location:update";
+    private static final String PONG_EVENT = "pong";
+    private static final String RESUMED_EVENT = "session:resumed";
+    private static final String RESYNC_EVENT = "session:resync";
+    private static final String IDLE_ENTRY_ATTRIBUTE = "idleEntry";
+    private static final String MAILBOX_ATTRIBUTE = "inboundMailbox";
+    // Tomcat's per-session limit for a blocking send; ignored by other containers
+    private static final String BLOCKING_SEND_TIMEOUT_PROPERTY = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
 
-    private final ConcurrentMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, WebSocketSession> sessionsByUserId = new ConcurrentHashMap<>();
-    private final JwtUtil jwtUtil;
+    private final ConcurrentMap<String, OutboundMessageQueue> sessions = new ConcurrentHashMap<>();
+    private final UserSessionRegistry userSessions = new UserSessionRegistry();
+    private final EventReplayLog eventLog;
+    private final IdleSessionReaper idleReaper;
     private final ObjectMapper objectMapper;
     private final LocationService locationService;
+    private final WebSocketProperties webSocketProperties;
+    private final WebSocketMetrics webSocketMetrics;
+    // Frames are sent asynchronously, so a fixed pool of writers is only busy briefly per frame
+    private final ExecutorService writerExecutor;
+    // Pings, close handshakes and blocking sends, which can wait the full send timeout on a stalled client
+    private final ExecutorService blockingWriterExecutor;
+    // Runs each session's inbound mailbox; inline on the container thread when virtual threads are off
+    private final Executor inboundExecutor;
+    private final InboundMessageParser inboundMessageParser;
+    private final Map<InboundMessageType, BiConsumer<WebSocketSession, InboundMessage>> dispatchTable =
+            new EnumMap<>(InboundMessageType.class);
 
-    public WebSocketHandler(JwtUtil jwtUtil, ObjectMapper objectMapper, @Lazy LocationService locationService) {
-        this.jwtUtil = jwtUtil;
+    public WebSocketHandler(ObjectMapper objectMapper, @Lazy LocationService locationService,
+                            WebSocketProperties webSocketProperties, WebSocketMetrics webSocketMetrics) {
         this.objectMapper = objectMapper;
         this.locationService = locationService;
+        this.webSocketProperties = webSocketProperties;
+        this.webSocketMetrics = webSocketMetrics;
+        this.writerExecutor = Executors.newFixedThreadPool(webSocketProperties.getWriterThreads(),
+                writerThreadFactory("ws-writer-"));
+        ThreadPoolExecutor blockingWriters = new ThreadPoolExecutor(webSocketProperties.getBlockingWriterThreads(),
+                webSocketProperties.getBlockingWriterThreads(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(webSocketProperties.getBlockingWriterQueueCapacity()),
+                writerThreadFactory("ws-blocking-writer-"));
+        blockingWriters.allowCoreThreadTimeOut(true);
+        this.blockingWriterExecutor = blockingWriters;
+        this.inboundExecutor = webSocketProperties.isInboundVirtualThreads()
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-inbound-", 0).factory())
+                : Runnable::run;
+        this.inboundMessageParser = new InboundMessageParser(objectMapper.getFactory());
+        this.eventLog = new EventReplayLog(webSocketProperties.getReplayCapacity());
+        webSocketMetrics.trackUserSessions(userSessions);
+        webSocketMetrics.trackReplayLog(eventLog);
+        dispatchTable.put(InboundMessageType.LOCATION_UPDATE, this::handleLocationUpdate);
+        dispatchTable.put(InboundMessageType.PING, this::handlePing);
+        dispatchTable.put(InboundMessageType.RESUME, this::handleResume);
+        this.idleReaper = new IdleSessionReaper(webSocketProperties.getIdleTickMs(), webSocketProperties.getIdlePingMs(),
+                webSocketProperties.getIdleTimeoutMs(), System::currentTimeMillis, webSocketMetrics, this::evictIdle);
+        idleReaper.start();
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        sessions.put(session.getId(), session);
-        
-        // Extract user ID from query parameters (token can be passed as query param)
-        String userId = extractUserIdFromSession(session);
-        if (userId != null) {
-            session.getAttributes().put(USER_ID_ATTRIBUTE, userId);
-            sessionsByUserId.put(userId, session);
+        applySendTimeout(session);
+        OutboundMessageQueue queue = new OutboundMessageQueue(session, webSocketProperties.getOutboundQueueCapacity(),
+                writerExecutor, blockingWriterExecutor, webSocketMetrics);
+        session.getAttributes().put(MAILBOX_ATTRIBUTE, new InboundMailbox(
+                inboundExecutor, webSocketProperties.getInboundMailboxCapacity(), webSocketMetrics));
+        sessions.put(session.getId(), queue);
+        session.getAttributes().put(IDLE_ENTRY_ATTRIBUTE, idleReaper.register(queue));
+
+        // Set by JwtHandshakeInterceptor; the upgrade is refused without it
+        SessionPrincipal principal = principal(session);
+        if (principal != null) {
+            userSessions.register(principal.userId(), queue);
         }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        sessions.remove(session.getId());
-        String userId = (String) session.getAttributes().get(USER_ID_ATTRIBUTE);
-        if (userId != null) {
-            sessionsByUserId.remove(userId);
+        IdleSessionReaper.Entry idleEntry = (IdleSessionReaper.Entry) session.getAttributes().get(IDLE_ENTRY_ATTRIBUTE);
+        if (idleEntry != null) {
+            idleReaper.cancel(idleEntry);
         }
+        unregister(session);
+    }
+
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        recordActivity(session);
+    }
+
+    /**
+     * Note inbound traffic so the idle reaper leaves the session alone; shared with the binary endpoint
+     */
+    void recordActivity(WebSocketSession session) {
+        IdleSessionReaper.Entry idleEntry = (IdleSessionReaper.Entry) session.getAttributes().get(IDLE_ENTRY_ATTRIBUTE);
+        if (idleEntry != null) {
+            idleReaper.touch(idleEntry);
+        }
+    }
+
+    private void unregister(WebSocketSession session) {
+        InboundMailbox mailbox = (InboundMailbox) session.getAttributes().get(MAILBOX_ATTRIBUTE);
+        if (mailbox != null) {
+            mailbox.close();
+        }
+        OutboundMessageQueue queue = sessions.remove(session.getId());
+        if (queue != null) {
+            queue.close();
+        }
+        SessionPrincipal principal = principal(session);
+        if (principal != null && queue != null) {
+            // Removes this socket only; the user's other devices and any reconnect stay registered
+            userSessions.unregister(principal.userId(), queue);
+        }
+    }
+
+    /**
+     * Drop a session that stopped answering pings. The close handshake of a half-open connection can hang,
+     * so the session leaves the maps first and the close runs on a blocking writer thread.
+     */
+    private void evictIdle(OutboundMessageQueue queue) {
+        unregister(queue.getSession());
+        queue.disconnect(CloseStatus.SESSION_NOT_RELIABLE);
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        recordActivity(session);
         String payload = message.getPayload();
-        
-        try {
-            // Try to parse as JSON to check if it's a structured message
-            if (payload.trim().startsWith("{")) {
-                // Try to parse as location update
-                LocationUpdateRequest locationUpdate = objectMapper.readValue(payload, LocationUpdateRequest.class);
-                
-                // Check if it's a location update (has latitude and longitude)
-                if (locationUpdate.getLatitude() != null && locationUpdate.getLongitude() != null) {
-                    String userId = (String) session.getAttributes().get(USER_ID_ATTRIBUTE);
-                    if (userId != null) {
-                        UUID driverId = UUID.fromString(userId);
-                        locationService.handleDriverLocationUpdate(driverId, locationUpdate);
-                    }
-                    return;
-                }
-            }
-            
-            // Default: echo back for connection test
-            session.sendMessage(new TextMessage("Echo: " + payload));
-        } catch (Exception e) {
-            // If parsing fails, echo back for backward compatibility
-            session.sendMessage(new TextMessage("Echo: " + payload));
+        submitInbound(session, inbound -> processText(session, payload, inbound));
+    }
+
+    /**
+     * Run inbound work after the session's earlier frames, with the session's decode holder. By default it runs
+     * inline on the container thread before this returns; with inbound virtual threads enabled it is queued on the
+     * session's mailbox and the container thread returns at once.
+     */
+    void submitInbound(WebSocketSession session, Consumer<InboundMessage> work) {
+        InboundMailbox mailbox = (InboundMailbox) session.getAttributes().get(MAILBOX_ATTRIBUTE);
+        if (mailbox != null) {
+            mailbox.submit(() -> work.accept(mailbox.message()));
+        }
+    }
+
+    private void processText(WebSocketSession session, String payload, InboundMessage inbound) {
+        BiConsumer<WebSocketSession, InboundMessage> handler = null;
+        if (inboundMessageParser.parse(payload, inbound) && inbound.getVersion() <= InboundMessageParser.CURRENT_VERSION) {
+            handler = dispatchTable.get(inbound.getType());
+        }
+
+        if (handler != null) {
+            handler.accept(session, inbound);
+        } else {
+            // Plain text, unknown types and newer envelope versions are echoed back for connection tests
+            reply(session, EncodedFrame.text("Echo: " + payload, false));
         }
     }
 
@@ -89,43 +195,138 @@ public class WebSocketHandler extends TextWebSocketHandler {
         return sessions.size();
     }
 
+    public int getConnectedUsers() {
+        return userSessions.userCount();
+    }
+
     public void broadcast(String message) {
-        sessions.values().forEach(session -> {
-            try {
-                if (session.isOpen()) {
-                    session.sendMessage(new TextMessage(message));
-                }
-            } catch (IOException e) {
-                // Log error, but continue with other sessions
-            }
-        });
+        broadcast(EncodedFrame.text(message, false));
+    }
+
+    /**
+     * Queue the same pre-encoded frame for every open session
+     */
+    public void broadcast(EncodedFrame frame) {
+        sessions.values().forEach(queue -> queue.enqueue(frame));
+    }
+
+    public void sendToUser(UUID userId, String message) {
+        sendToUser(userId, EncodedFrame.text(message, false));
     }
 
-    public void sendToUser(String userId, String message) {
-        WebSocketSession session = sessionsByUserId.get(userId);
-        if (session != null && session.isOpen()) {
-            try {
-                session.sendMessage(new TextMessage(message));
-            } catch (IOException e) {
-                // Log error
+    /**
+     * Queue a frame for every open session of a user without blocking the caller.
+     * Droppable frames (e.g. location updates) may be superseded by newer ones if a client falls behind.
+     * Reliable JSON events are numbered per user and kept for replay; a newer location makes an old one
+     * worthless, so droppable frames are neither numbered nor kept.
+     */
+    public void sendToUser(UUID userId, EncodedFrame frame) {
+        if (frame.isDroppable() || !frame.isJsonObject()) {
+            deliver(userId, frame);
+        } else {
+            eventLog.append(userId, frame, sequenced -> deliver(userId, sequenced));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${websocket.replay-purge-interval-ms:60000}")
+    public void purgeReplayLogs() {
+        eventLog.purgeIdle(System.currentTimeMillis() - webSocketProperties.getReplayRetentionMs());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        idleReaper.shutdown();
+        if (inboundExecutor instanceof ExecutorService inboundThreads) {
+            inboundThreads.shutdown();
+        }
+        writerExecutor.shutdown();
+        blockingWriterExecutor.shutdown();
+    }
+
+    private void deliver(UUID userId, EncodedFrame frame) {
+        for (OutboundMessageQueue queue : userSessions.sessionsOf(userId)) {
+            if (queue.getSession().isOpen()) {
+                queue.enqueue(frame);
             }
         }
     }
 
-    private String extractUserIdFromSession(WebSocketSession session) {
-        // Try to get userId from query parameters (e.g., ?userId=123)
-        URI uri = session.getUri();
-        if (uri != null && uri.getQuery() != null) {
-            String query = uri.getQuery();
-            String[] params = query.split("&");
-            for (String param : params) {
-                String[] keyValue = param.split("=");
-                if (keyValue.length == 2 && "userId".equals(keyValue[0])) {
-                    return keyValue[1];
-                }
+    private void reply(WebSocketSession session, EncodedFrame frame) {
+        OutboundMessageQueue queue = sessions.get(session.getId());
+        if (queue != null) {
+            queue.enqueue(frame);
+        }
+    }
+
+    /**
+     * Feed a decoded location frame into the location pipeline; shared by the JSON and binary endpoints
+     */
+    void handleLocationUpdate(WebSocketSession session, InboundMessage inbound) {
+        SessionPrincipal principal = principal(session);
+        if (principal == null || principal.role() != Role.DRIVER || !inbound.hasCoordinates()
+                || !GeoUtils.isValidCoordinate(inbound.getLatitude(), inbound.getLongitude())) {
+            return;
+        }
+        locationService.handleDriverLocationUpdate(
+                principal.userId(), inbound.getLatitude(), inbound.getLongitude(), inbound.getTimestampMillis());
+    }
+
+    private void handlePing(WebSocketSession session, InboundMessage inbound) {
+        try {
+            reply(session, EncodedFrame.encode(objectMapper,
+                    Map.of("type", PONG_EVENT, "timestamp", Instant.now().toString()), false));
+        } catch (JsonProcessingException e) {
+            // Nothing to send
+        }
+    }
+
+    /**
+     * Replay the events a reconnecting client missed, or tell it to resync if they are no longer kept.
+     * Events sent to the new socket before the resume may arrive again; clients skip a seq they already applied.
+     */
+    private void handleResume(WebSocketSession session, InboundMessage inbound) {
+        SessionPrincipal principal = principal(session);
+        if (principal == null) {
+            return;
+        }
+        EventReplayLog.Replay replay = inbound.getLastSequence() == InboundMessage.NO_SEQUENCE
+                ? new EventReplayLog.Replay(false, 0, 0)
+                : eventLog.replay(principal.userId(), inbound.getLastSequence(), frame -> reply(session, frame));
+        if (replay.complete()) {
+            webSocketMetrics.framesReplayed(replay.replayed());
+        } else {
+            webSocketMetrics.resyncRequired();
+        }
+        try {
+            reply(session, EncodedFrame.encode(objectMapper, Map.of(
+                    "type", replay.complete() ? RESUMED_EVENT : RESYNC_EVENT,
+                    "lastSeq", replay.lastSequence(),
+                    "replayed", replay.replayed()), false));
+        } catch (JsonProcessingException e) {
+            // Nothing to send
+        }
+    }
+
+    private void applySendTimeout(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            jakarta.websocket.Session standardSession = nativeSession.getNativeSession(jakarta.websocket.Session.class);
+            if (standardSession != null) {
+                standardSession.getUserProperties().put(BLOCKING_SEND_TIMEOUT_PROPERTY, webSocketProperties.getSendTimeoutMs());
+                standardSession.getAsyncRemote().setSendTimeout(webSocketProperties.getSendTimeoutMs());
             }
         }
-        return null;
     }
-}
 
+    private static ThreadFactory writerThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static SessionPrincipal principal(WebSocketSession session) {
+        return (SessionPrincipal) session.getAttributes().get(SessionPrincipal.ATTRIBUTE);
+    }
+}
@@ -0,0 +1,140 @@
+package com.ridehailing.backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer meters for WebSocket delivery, exposed under /actuator/metrics
+ */
+@Component
+public class WebSocketMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger outboundQueueDepth = new AtomicInteger();
+    private final Counter droppedFrames;
+    private final Counter slowConsumerEvictions;
+    private final Counter sendFailures;
+    private final Counter blockingSendRejections;
+    private final Counter rejectedHandshakes;
+    private final Counter replayedFrames;
+    private final Counter resyncs;
+    private final Counter idlePings;
+    private final Counter idleEvictions;
+    private final Counter inboundDrops;
+    private final Counter inboundFailures;
+
+    public WebSocketMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("websocket.outbound.queue.depth", outboundQueueDepth, AtomicInteger::get)
+                .description("Frames waiting in outbound session queues")
+                .register(meterRegistry);
+        this.droppedFrames = Counter.builder("websocket.outbound.dropped")
+                .description("Location frames dropped because a newer frame superseded them")
+                .register(meterRegistry);
+        this.slowConsumerEvictions = Counter.builder("websocket.outbound.evictions")
+                .description("Sessions closed because their outbound queue overflowed")
+                .register(meterRegistry);
+        this.sendFailures = Counter.builder("websocket.outbound.send.failures")
+                .description("Frames that failed to send")
+                .register(meterRegistry);
+        this.blockingSendRejections = Counter.builder("websocket.outbound.blocking.rejected")
+                .description("Pings, closes and blocking sends refused because the blocking writer pool was full")
+                .register(meterRegistry);
+        this.rejectedHandshakes = Counter.builder("websocket.handshake.rejected")
+                .description("Handshakes refused for a missing, invalid or revoked token")
+                .register(meterRegistry);
+        this.replayedFrames = Counter.builder("websocket.replay.frames")
+                .description("Missed events replayed to resuming sessions")
+                .register(meterRegistry);
+        this.resyncs = Counter.builder("websocket.replay.resyncs")
+                .description("Resumes whose gap was no longer in the replay log")
+                .register(meterRegistry);
+        this.idlePings = Counter.builder("websocket.idle.pings")
+                .description("Pings sent to sessions with no recent inbound traffic")
+                .register(meterRegistry);
+        this.idleEvictions = Counter.builder("websocket.idle.evictions")
+                .description("Sessions closed because they stayed silent after a ping")
+                .register(meterRegistry);
+        this.inboundDrops = Counter.builder("websocket.inbound.dropped")
+                .description("Inbound frames dropped because the session's mailbox was full")
+                .register(meterRegistry);
+        this.inboundFailures = Counter.builder("websocket.inbound.failures")
+                .description("Inbound frames whose processing threw")
+                .register(meterRegistry);
+    }
+
+    void trackUserSessions(UserSessionRegistry userSessions) {
+        Gauge.builder("websocket.users.connected", userSessions, UserSessionRegistry::userCount)
+                .description("Users with at least one open session")
+                .register(meterRegistry);
+        Gauge.builder("websocket.users.sessions", userSessions, UserSessionRegistry::sessionCount)
+                .description("Authenticated sessions across all users and devices")
+                .register(meterRegistry);
+    }
+
+    void trackReplayLog(EventReplayLog eventLog) {
+        Gauge.builder("websocket.replay.users", eventLog, EventReplayLog::size)
+                .description("Users with a replay log in memory")
+                .register(meterRegistry);
+    }
+
+    void framesQueued(int count) {
+        outboundQueueDepth.addAndGet(count);
+    }
+
+    void framesDequeued(int count) {
+        outboundQueueDepth.addAndGet(-count);
+    }
+
+    void frameDropped() {
+        droppedFrames.increment();
+    }
+
+    void slowConsumerEvicted() {
+        slowConsumerEvictions.increment();
+    }
+
+    void sendFailed() {
+        sendFailures.increment();
+    }
+
+    void blockingSendRejected() {
+        blockingSendRejections.increment();
+    }
+
+    void handshakeRejected() {
+        rejectedHandshakes.increment();
+    }
+
+    void framesReplayed(int count) {
+        replayedFrames.increment(count);
+    }
+
+    void resyncRequired() {
+        resyncs.increment();
+    }
+
+    void idlePingSent() {
+        idlePings.increment();
+    }
+
+    void idleSessionEvicted() {
+        idleEvictions.increment();
+    }
+
+    void inboundDropped() {
+        inboundDrops.increment();
+    }
+
+    void inboundFailed() {
+        inboundFailures.increment();
+    }
+
+    public int getOutboundQueueDepth() {
+        return outboundQueueDepth.get();
+    }
+}
@@ -0,0 +1,129 @@
+package com.ridehailing.backend.websocket.dto;
+
+import java.util.UUID;
+
+/**
+ * Offer of a pending ride to a driver ({@code ride:request})
+ */
+public class RideRequestEvent {
+    public static final String TYPE = "ride:request";
+
+    private UUID rideId;
+    private String riderName;
+    private Location pickupLocation;
+    private Location dropoffLocation;
+    private Double estimatedFare;
+    private Double estimatedDistance; // in km
+    private Integer estimatedPickupTime; // in minutes
+    private Long offerExpiresInMs;
+
+    public RideRequestEvent() {
+    }
+
+    public String getType() {
+        return TYPE;
+    }
+
+    public UUID getRideId() {
+        return rideId;
+    }
+
+    public void setRideId(UUID rideId) {
+        this.rideId = rideId;
+    }
+
+    public String getRiderName() {
+        return riderName;
+    }
+
+    public void setRiderName(String riderName) {
+        this.riderName = riderName;
+    }
+
+    public Location getPickupLocation() {
+        return pickupLocation;
+    }
+
+    public void setPickupLocation(Location pickupLocation) {
+        this.pickupLocation = pickupLocation;
+    }
+
+    public Location getDropoffLocation() {
+        return dropoffLocation;
+    }
+
+    public void setDropoffLocation(Location dropoffLocation) {
+        this.dropoffLocation = dropoffLocation;
+    }
+
+    public Double getEstimatedFare() {
+        return estimatedFare;
+    }
+
+    public void setEstimatedFare(Double estimatedFare) {
+        this.estimatedFare = estimatedFare;
+    }
+
+    public Double getEstimatedDistance() {
+        return estimatedDistance;
+    }
+
+    public void setEstimatedDistance(Double estimatedDistance) {
+        this.estimatedDistance = estimatedDistance;
+    }
+
+    public Integer getEstimatedPickupTime() {
+        return estimatedPickupTime;
+    }
+
+    public void setEstimatedPickupTime(Integer estimatedPickupTime) {
+        this.estimatedPickupTime = estimatedPickupTime;
+    }
+
+    public Long getOfferExpiresInMs() {
+        return offerExpiresInMs;
+    }
+
+    public void setOfferExpiresInMs(Long offerExpiresInMs) {
+        this.offerExpiresInMs = offerExpiresInMs;
+    }
+
+    public static class Location {
+        private Double latitude;
+        private Double longitude;
+        private String address;
+
+        public Location() {
+        }
+
+        public Location(Double latitude, Double longitude, String address) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.address = address;
+        }
+
+        public Double getLatitude() {
+            return latitude;
+        }
+
+        public void setLatitude(Double latitude) {
+            this.latitude = latitude;
+        }
+
+        public Double getLongitude() {
+            return longitude;
+        }
+
+        public void setLongitude(Double longitude) {
+            this.longitude = longitude;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public void setAddress(String address) {
+            this.address = address;
+        }
+    }
+}
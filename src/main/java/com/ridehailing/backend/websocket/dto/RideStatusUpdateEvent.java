@@ -1,6 +1,7 @@
 package com.ridehailing.backend.websocket.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.ridehailing.backend.model.RideStatus;
 
 import java.time.LocalDateTime;
@@ -13,6 +14,11 @@ public class RideStatusUpdateEvent {
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'")
     private LocalDateTime timestamp;
 
+    // Increases with commit order for a ride; the server drops events older than the last one delivered.
+    // Not sent: clients order and dedupe by the per-user seq that every reliable frame carries.
+    @JsonIgnore
+    private long sequence;
+
     public RideStatusUpdateEvent() {
     }
 
@@ -45,5 +51,13 @@ public class RideStatusUpdateEvent {
     public void setTimestamp(LocalDateTime timestamp) {
         this.timestamp = timestamp;
     }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
 }
 
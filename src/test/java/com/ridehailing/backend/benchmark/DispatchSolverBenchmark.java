@@ -0,0 +1,117 @@
+package com.ridehailing.backend.benchmark;
+
+import com.ridehailing.backend.config.LocationProperties;
+import com.ridehailing.backend.dispatch.AssignmentProblem;
+import com.ridehailing.backend.dispatch.GreedyAssignmentSolver;
+import com.ridehailing.backend.dispatch.HungarianAssignmentSolver;
+import com.ridehailing.backend.geo.DriverLocationIndex;
+import com.ridehailing.backend.geo.NearbyDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to solve one dispatch window of 1,000 pending rides against 5,000 online drivers, each ride
+ * limited to its 10 nearest drivers and costed by straight-line pickup time.
+ * "uniform" spreads rides over the city; "hotspot" puts them all near one venue, so rides compete for
+ * the same few hundred drivers and the solvers have to reshuffle long chains.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=DispatchSolverBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchSolverBenchmark {
+
+    private static final int RIDES = 1_000;
+    private static final int DRIVERS = 5_000;
+    private static final int CANDIDATES = 10;
+    private static final double SPEED_MPS = 8.3;
+
+    @Param({"uniform", "hotspot"})
+    public String demand;
+
+    private final GreedyAssignmentSolver greedy = new GreedyAssignmentSolver();
+    private final HungarianAssignmentSolver hungarian = new HungarianAssignmentSolver();
+    private AssignmentProblem problem;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(11);
+        DriverLocationIndex index = new DriverLocationIndex(new LocationProperties());
+        Map<UUID, Integer> driverIndexes = new HashMap<>();
+        long now = System.currentTimeMillis();
+        // ~20 km square
+        for (int i = 0; i < DRIVERS; i++) {
+            UUID driverId = UUID.randomUUID();
+            driverIndexes.put(driverId, i);
+            index.update(driverId, 40.6 + random.nextDouble() * 0.2, -74.1 + random.nextDouble() * 0.2, now);
+        }
+
+        AssignmentProblem.Builder builder = AssignmentProblem.builder(DRIVERS);
+        for (int ride = 0; ride < RIDES; ride++) {
+            double latitude;
+            double longitude;
+            if ("hotspot".equals(demand)) {
+                latitude = 40.7 + random.nextGaussian() * 0.01;
+                longitude = -74.0 + random.nextGaussian() * 0.01;
+            } else {
+                latitude = 40.6 + random.nextDouble() * 0.2;
+                longitude = -74.1 + random.nextDouble() * 0.2;
+            }
+            builder.nextRide();
+            for (NearbyDriver nearby : index.findNearest(latitude, longitude, CANDIDATES, 5_000)) {
+                builder.addCandidate(driverIndexes.get(nearby.position().driverId()),
+                        Math.ceil(nearby.distanceMeters() * 1.3 / SPEED_MPS));
+            }
+        }
+        problem = builder.build();
+    }
+
+    @TearDown
+    public void report() {
+        int[] greedyAssignment = greedy.solve(problem);
+        int[] optimalAssignment = hungarian.solve(problem);
+        System.out.printf("%n[%s] greedy: %d assigned, %.0f s total; hungarian: %d assigned, %.0f s total%n", demand,
+                assignedCount(greedyAssignment), problem.totalCost(greedyAssignment),
+                assignedCount(optimalAssignment), problem.totalCost(optimalAssignment));
+    }
+
+    @Benchmark
+    public int[] greedy() {
+        return greedy.solve(problem);
+    }
+
+    @Benchmark
+    public int[] hungarian() {
+        return hungarian.solve(problem);
+    }
+
+    private static int assignedCount(int[] assignment) {
+        int count = 0;
+        for (int driver : assignment) {
+            if (driver >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,68 @@
+package com.ridehailing.backend.benchmark;
+
+import com.ridehailing.backend.config.LocationProperties;
+import com.ridehailing.backend.geo.CellSpeedEtaEstimator;
+import com.ridehailing.backend.geo.DriverPosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame cost of the ETA that rides on each driver location event, across a city-sized set of
+ * (cell, cell) pairs with a warm speed model.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=EtaEstimatorBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EtaEstimatorBenchmark {
+
+    private static final int QUERIES = 4096;
+
+    private CellSpeedEtaEstimator estimator;
+    private double[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        estimator = new CellSpeedEtaEstimator(new LocationProperties());
+        Random random = new Random(7);
+        // ~20 km square; every cell has recent traffic
+        for (int i = 0; i < 50_000; i++) {
+            double latitude = 40.6 + random.nextDouble() * 0.2;
+            double longitude = -74.1 + random.nextDouble() * 0.2;
+            long now = System.currentTimeMillis();
+            estimator.recordMovement(new DriverPosition(UUID.randomUUID(), latitude, longitude, now - 1000),
+                    latitude + 0.0001, longitude, now);
+        }
+        queries = new double[QUERIES * 4];
+        for (int i = 0; i < queries.length; i += 4) {
+            queries[i] = 40.6 + random.nextDouble() * 0.2;
+            queries[i + 1] = -74.1 + random.nextDouble() * 0.2;
+            queries[i + 2] = 40.6 + random.nextDouble() * 0.2;
+            queries[i + 3] = -74.1 + random.nextDouble() * 0.2;
+        }
+    }
+
+    @Benchmark
+    public int estimateSeconds() {
+        int i = next;
+        next = i + 4 == queries.length ? 0 : i + 4;
+        return estimator.estimateSeconds(queries[i], queries[i + 1], queries[i + 2], queries[i + 3]);
+    }
+}
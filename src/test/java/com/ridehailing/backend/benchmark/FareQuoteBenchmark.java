@@ -0,0 +1,102 @@
+package com.ridehailing.backend.benchmark;
+
+import com.ridehailing.backend.config.FareProperties;
+import com.ridehailing.backend.config.LocationProperties;
+import com.ridehailing.backend.fare.FareEngine;
+import com.ridehailing.backend.fare.FareQuote;
+import com.ridehailing.backend.geo.CellSpeedEtaEstimator;
+import com.ridehailing.backend.geo.DriverLocationIndex;
+import com.ridehailing.backend.geo.DriverPosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upfront quotes per millisecond on one thread, with a warm speed model and the given number of zone
+ * tariffs to scan before falling back to the base tariff.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=FareQuoteBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FareQuoteBenchmark {
+
+    private static final int QUERIES = 4096;
+
+    @Param({"0", "20"})
+    public int zones;
+
+    private FareEngine fareEngine;
+    private double[] queries;
+    private LocalDateTime[] times;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(5);
+        LocationProperties locationProperties = new LocationProperties();
+        CellSpeedEtaEstimator estimator = new CellSpeedEtaEstimator(locationProperties);
+        // ~20 km square; every cell has recent traffic
+        for (int i = 0; i < 50_000; i++) {
+            double latitude = 40.6 + random.nextDouble() * 0.2;
+            double longitude = -74.1 + random.nextDouble() * 0.2;
+            long now = System.currentTimeMillis();
+            estimator.recordMovement(new DriverPosition(UUID.randomUUID(), latitude, longitude, now - 1000),
+                    latitude + 0.0001, longitude, now);
+        }
+
+        FareProperties fareProperties = new FareProperties();
+        List<FareProperties.Tariff> tariffs = new ArrayList<>();
+        for (int i = 0; i < zones; i++) {
+            FareProperties.Tariff tariff = new FareProperties.Tariff();
+            tariff.setName("zone-" + i);
+            tariff.setCenterLatitude(40.6 + random.nextDouble() * 0.2);
+            tariff.setCenterLongitude(-74.1 + random.nextDouble() * 0.2);
+            tariff.setRadiusMeters(1500);
+            tariff.setStartHour(random.nextInt(24));
+            tariff.setEndHour(random.nextInt(24));
+            tariff.setBaseFare(4.0);
+            tariffs.add(tariff);
+        }
+        fareProperties.setTariffs(tariffs);
+        // Surge is never refreshed here, so the registry and dispatch engine are not needed
+        fareEngine = new FareEngine(fareProperties, estimator, new DriverLocationIndex(locationProperties), null, null);
+
+        queries = new double[QUERIES * 4];
+        times = new LocalDateTime[QUERIES];
+        LocalDateTime midnight = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i * 4] = 40.6 + random.nextDouble() * 0.2;
+            queries[i * 4 + 1] = -74.1 + random.nextDouble() * 0.2;
+            queries[i * 4 + 2] = 40.6 + random.nextDouble() * 0.2;
+            queries[i * 4 + 3] = -74.1 + random.nextDouble() * 0.2;
+            times[i] = midnight.plusMinutes(random.nextInt(24 * 60));
+        }
+    }
+
+    @Benchmark
+    public FareQuote quote() {
+        int i = next;
+        next = i + 1 == QUERIES ? 0 : i + 1;
+        return fareEngine.quote(queries[i * 4], queries[i * 4 + 1], queries[i * 4 + 2], queries[i * 4 + 3], times[i]);
+    }
+}
@@ -0,0 +1,100 @@
+package com.ridehailing.backend.benchmark;
+
+import com.ridehailing.backend.websocket.IdleSessionReaper;
+import com.ridehailing.backend.websocket.OutboundMessageQueue;
+import com.ridehailing.backend.websocket.WebSocketMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one idle-reaper tick with every session active, at the default timing (1 s tick, 25 s ping).
+ * "wheel" is IdleSessionReaper.tick, which visits only the sessions due in that tick; "scan" walks a
+ * session-id map and checks every session's last-activity stamp, as a reaper without a wheel would.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=IdleSessionReaperBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdleSessionReaperBenchmark {
+
+    private static final long TICK_MS = 1000;
+
+    @Param({"10000", "100000"})
+    private int sessions;
+
+    private long now;
+    private IdleSessionReaper reaper;
+    private IdleSessionReaper.Entry[] entries;
+    private Map<String, Activity> activityBySessionId;
+
+    @Setup
+    public void setUp() {
+        now = 1_704_103_200_000L;
+        reaper = new IdleSessionReaper(TICK_MS, 25_000, 60_000, () -> now,
+                new WebSocketMetrics(new SimpleMeterRegistry()), queue -> { });
+        OutboundMessageQueue queue = Mockito.mock(OutboundMessageQueue.class);
+        entries = new IdleSessionReaper.Entry[sessions];
+        activityBySessionId = new ConcurrentHashMap<>();
+        // Spread connects over one ping interval, as a steady population would be
+        for (int i = 0; i < sessions; i++) {
+            now += 25_000 / sessions + 1;
+            entries[i] = reaper.register(queue);
+            activityBySessionId.put(Integer.toHexString(i), new Activity(now));
+        }
+        reaper.tick();
+    }
+
+    @Setup(Level.Invocation)
+    public void nextTick() {
+        now += TICK_MS;
+        // Every session sent something during the last tick
+        for (int i = 0; i < sessions; i++) {
+            reaper.touch(entries[i]);
+        }
+        activityBySessionId.values().forEach(activity -> activity.lastActivityMillis = now);
+    }
+
+    @Benchmark
+    public void wheel() {
+        reaper.tick();
+    }
+
+    @Benchmark
+    public int scan() {
+        int idle = 0;
+        for (Activity activity : activityBySessionId.values()) {
+            if (now - activity.lastActivityMillis >= 25_000) {
+                idle++;
+            }
+        }
+        return idle;
+    }
+
+    private static final class Activity {
+        private volatile long lastActivityMillis;
+
+        private Activity(long lastActivityMillis) {
+            this.lastActivityMillis = lastActivityMillis;
+        }
+    }
+}
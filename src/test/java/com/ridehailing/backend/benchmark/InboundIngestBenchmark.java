@@ -0,0 +1,142 @@
+package com.ridehailing.backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.backend.config.WebSocketProperties;
+import com.ridehailing.backend.model.Role;
+import com.ridehailing.backend.service.LocationService;
+import com.ridehailing.backend.websocket.SessionPrincipal;
+import com.ridehailing.backend.websocket.WebSocketHandler;
+import com.ridehailing.backend.websocket.WebSocketMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.standard.StandardWebSocketSession;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Inbound location frames per second through WebSocketHandler, with 16 threads standing in for the container's
+ * I/O pool and 100 driver sessions behind each. "container" processes each frame on the thread that read it;
+ * "virtual" hands it to the session's mailbox and a virtual thread. blockingMicros is how long the location
+ * pipeline blocks per frame: 0 is this tree's in-memory path, 2000 a pipeline that waits on a store.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=InboundIngestBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InboundIngestBenchmark {
+
+    private static final int IO_THREADS = 16;
+    private static final int SESSIONS_PER_THREAD = 100;
+    private static final int FRAMES = IO_THREADS * SESSIONS_PER_THREAD;
+
+    @Param({"container", "virtual"})
+    private String mode;
+
+    @Param({"0", "2000"})
+    private long blockingMicros;
+
+    private final AtomicInteger processed = new AtomicInteger();
+    private WebSocketHandler handler;
+    private WebSocketSession[][] sessions;
+    private TextMessage frame;
+    private ExecutorService ioThreads;
+
+    @Setup
+    public void setUp() throws Exception {
+        WebSocketProperties properties = new WebSocketProperties();
+        properties.setInboundVirtualThreads("virtual".equals(mode));
+        properties.setInboundMailboxCapacity(FRAMES);
+
+        // Mockito answers and stubs synchronize internally, which would serialize (and pin) the virtual threads
+        LocationService locationService = new LocationService(null, null, null, null, null, null) {
+            @Override
+            public void handleDriverLocationUpdate(UUID driverId, double latitude, double longitude, long timestampMillis) {
+                if (blockingMicros > 0) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(blockingMicros));
+                }
+                processed.incrementAndGet();
+            }
+        };
+
+        handler = new WebSocketHandler(new ObjectMapper(), locationService, properties,
+                new WebSocketMetrics(new SimpleMeterRegistry()));
+        sessions = new WebSocketSession[IO_THREADS][SESSIONS_PER_THREAD];
+        for (int t = 0; t < IO_THREADS; t++) {
+            for (int s = 0; s < SESSIONS_PER_THREAD; s++) {
+                sessions[t][s] = driverSession();
+                handler.afterConnectionEstablished(sessions[t][s]);
+            }
+        }
+        frame = new TextMessage("{\"type\":\"location:update\",\"latitude\":40.7580,\"longitude\":-73.9855}");
+        ioThreads = Executors.newFixedThreadPool(IO_THREADS);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetCount() {
+        processed.set(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ioThreads.shutdownNow();
+        handler.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void ingest() throws Exception {
+        CountDownLatch read = new CountDownLatch(IO_THREADS);
+        for (int t = 0; t < IO_THREADS; t++) {
+            WebSocketSession[] owned = sessions[t];
+            ioThreads.execute(() -> {
+                try {
+                    for (WebSocketSession session : owned) {
+                        handler.handleMessage(session, frame);
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    read.countDown();
+                }
+            });
+        }
+        read.await();
+        while (processed.get() < FRAMES) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static WebSocketSession driverSession() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("principal", new SessionPrincipal(UUID.randomUUID(), Role.DRIVER));
+        return new StandardWebSocketSession(new HttpHeaders(), attributes, null, null);
+    }
+}
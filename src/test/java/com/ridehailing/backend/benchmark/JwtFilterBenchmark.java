@@ -0,0 +1,152 @@
+package com.ridehailing.backend.benchmark;
+
+import com.ridehailing.backend.config.JwtProperties;
+import com.ridehailing.backend.model.Role;
+import com.ridehailing.backend.repository.RefreshTokenFamilyRepository;
+import com.ridehailing.backend.security.JwtAuthenticationFilter;
+import com.ridehailing.backend.security.JwtVerifier;
+import com.ridehailing.backend.security.RevokedFamilies;
+import com.ridehailing.backend.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Cost of authenticating one request carrying a bearer token.
+ * "legacy" is the previous filter: a fresh parser and a full signature check for the subject and again
+ * for the role. "singleParse" verifies once with the shared parser; "cached" is the current filter, where
+ * a client re-sending its token is served from the principal cache and checked against the in-memory set
+ * of revoked token families.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=JwtFilterBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final int REVOKED_FAMILIES = 10_000;
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationThatMustBeAtLeast256BitsLongForHS256Algorithm";
+
+    private final FilterChain chain = (request, response) -> {
+    };
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private JwtUtil jwtUtil;
+    private String token;
+    private JwtAuthenticationFilter cachedFilter;
+    private LegacyJwtFilter legacyFilter;
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        properties.setExpiration(3600000);
+        jwtUtil = new JwtUtil(properties);
+        token = jwtUtil.generateToken("6f1c2a9e-6b1d-4c4e-9a55-3f0f5f2b7d10", Role.RIDER, UUID.randomUUID());
+        request = new MockHttpServletRequest("GET", "/api/v1/rides/1");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        // Other users' logouts, so the revocation check runs against a populated filter
+        RevokedFamilies revokedFamilies = new RevokedFamilies(mock(RefreshTokenFamilyRepository.class), properties,
+                new SimpleMeterRegistry());
+        for (int i = 0; i < REVOKED_FAMILIES; i++) {
+            revokedFamilies.revoke(UUID.randomUUID(), System.currentTimeMillis());
+        }
+        cachedFilter = new JwtAuthenticationFilter(new JwtVerifier(jwtUtil, properties, new SimpleMeterRegistry()),
+                revokedFamilies);
+        legacyFilter = new LegacyJwtFilter(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public Authentication legacy() throws ServletException, IOException {
+        return authenticate(legacyFilter);
+    }
+
+    @Benchmark
+    public Object singleParse() {
+        return jwtUtil.parsePrincipal(token);
+    }
+
+    @Benchmark
+    public Authentication cached() throws ServletException, IOException {
+        return authenticate(cachedFilter);
+    }
+
+    private Authentication authenticate(OncePerRequestFilter filter) throws ServletException, IOException {
+        try {
+            filter.doFilter(request, response, chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * The filter as it was before principals were cached
+     */
+    private static final class LegacyJwtFilter extends OncePerRequestFilter {
+
+        private final SecretKey secretKey;
+
+        private LegacyJwtFilter(SecretKey secretKey) {
+            this.secretKey = secretKey;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            String authHeader = request.getHeader("Authorization");
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                String token = authHeader.substring(7);
+                String subject = parse(token).getSubject();
+                Role role = Role.valueOf(parse(token).get("role", String.class));
+                SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role.name());
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(subject, null, Collections.singletonList(authority));
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+            filterChain.doFilter(request, response);
+        }
+
+        private Claims parse(String token) {
+            return Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ridehailing.backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ridehailing.backend.websocket.BinaryLocationCodec;
+import com.ridehailing.backend.websocket.InboundMessage;
+import com.ridehailing.backend.websocket.InboundMessageParser;
+import com.ridehailing.backend.websocket.dto.LocationUpdateRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode cost of one driver location frame: legacy DTO binding vs streaming JSON vs binary delta frames.
+ * Average bytes per frame for each format are printed during setup.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=LocationFrameBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationFrameBenchmark {
+
+    // One keyframe per minute of 1 Hz pings, as a client would send after reconnects or large gaps
+    private static final int FRAMES = 60;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final InboundMessageParser parser = new InboundMessageParser(objectMapper.getFactory());
+    private final InboundMessage message = new InboundMessage();
+    private final BinaryLocationCodec.Decoder decoder = new BinaryLocationCodec.Decoder();
+
+    private String[] jsonFrames;
+    private ByteBuffer[] binaryFrames;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        jsonFrames = new String[FRAMES];
+        binaryFrames = new ByteBuffer[FRAMES];
+        Random random = new Random(42);
+        int latMicros = 40_758_000;
+        int lonMicros = -73_985_500;
+        long millis = 1_704_103_200_000L;
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+
+        for (int i = 0; i < FRAMES; i++) {
+            // Driving at ~10 m/s in a random-ish direction
+            int dLat = random.nextInt(181) - 90;
+            int dLon = random.nextInt(241) - 120;
+            int dMillis = 950 + random.nextInt(100);
+            ByteBuffer frame;
+            if (i == 0) {
+                frame = ByteBuffer.allocate(BinaryLocationCodec.KEYFRAME_SIZE);
+                BinaryLocationCodec.writeKeyframe(frame, latMicros, lonMicros, millis);
+            } else {
+                latMicros += dLat;
+                lonMicros += dLon;
+                millis += dMillis;
+                frame = ByteBuffer.allocate(BinaryLocationCodec.MAX_DELTA_SIZE);
+                BinaryLocationCodec.writeDelta(frame, dLat, dLon, dMillis);
+            }
+            binaryFrames[i] = frame.flip();
+            binaryBytes += frame.remaining();
+
+            jsonFrames[i] = "{\"latitude\":" + BinaryLocationCodec.fromMicros(latMicros)
+                    + ",\"longitude\":" + BinaryLocationCodec.fromMicros(lonMicros)
+                    + ",\"timestamp\":\"" + Instant.ofEpochMilli(millis).toString().substring(0, 19) + "Z\"}";
+            jsonBytes += jsonFrames[i].getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        System.out.printf("%nbytes/frame: json=%.1f binary=%.1f%n",
+                (double) jsonBytes / FRAMES, (double) binaryBytes / FRAMES);
+    }
+
+    @Benchmark
+    public LocationUpdateRequest jsonDtoBinding() throws Exception {
+        return objectMapper.readValue(jsonFrames[advance()], LocationUpdateRequest.class);
+    }
+
+    @Benchmark
+    public double jsonStreaming() {
+        parser.parse(jsonFrames[advance()], message);
+        return message.getLatitude();
+    }
+
+    @Benchmark
+    public double binaryDelta() {
+        ByteBuffer frame = binaryFrames[advance()];
+        decoder.decode(frame.rewind(), message);
+        return message.getLatitude();
+    }
+
+    private int advance() {
+        int index = next;
+        next = index + 1 == FRAMES ? 0 : index + 1;
+        return index;
+    }
+}
@@ -0,0 +1,139 @@
+package com.ridehailing.backend.benchmark;
+
+import com.ridehailing.backend.RideHailingApplication;
+import com.ridehailing.backend.entity.RoleEntity;
+import com.ridehailing.backend.entity.User;
+import com.ridehailing.backend.entity.Vehicle;
+import com.ridehailing.backend.model.Role;
+import com.ridehailing.backend.repository.DriverRepository;
+import com.ridehailing.backend.repository.RoleRepository;
+import com.ridehailing.backend.repository.UserRepository;
+import com.ridehailing.backend.repository.VehicleRepository;
+import com.ridehailing.backend.security.PasswordHasher;
+import com.ridehailing.backend.service.AuthenticationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Driver sign-ups per second against the in-memory test database.
+ * "legacy" replays the previous sequence: four separate uniqueness queries, a role lookup, two explicit
+ * flushes and a re-read of the driver row. "current" is AuthenticationService.registerDriver with one
+ * conflict query, the cached role and back-to-back inserts. BCrypt runs at cost 4 in both so the
+ * numbers reflect database work; against a networked database each saved round trip also saves its latency.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=RegistrationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private AuthenticationService authenticationService;
+    private UserRepository userRepository;
+    private RoleRepository roleRepository;
+    private DriverRepository driverRepository;
+    private VehicleRepository vehicleRepository;
+    private PasswordHasher passwordHasher;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(RideHailingApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false", "password-hashing.cost=4", "dispatch.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        authenticationService = context.getBean(AuthenticationService.class);
+        userRepository = context.getBean(UserRepository.class);
+        roleRepository = context.getBean(RoleRepository.class);
+        driverRepository = context.getBean(DriverRepository.class);
+        vehicleRepository = context.getBean(VehicleRepository.class);
+        passwordHasher = context.getBean(PasswordHasher.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        for (Role role : Role.values()) {
+            roleRepository.save(new RoleEntity(role.name(), role.name()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User current() {
+        String suffix = nextSuffix();
+        return authenticationService.registerDriver(suffix + "@driver.test", "secret", suffix, "Ravi", "Kumar",
+                "DL-" + suffix, "Toyota Prius", "KA-" + suffix);
+    }
+
+    @Benchmark
+    public User legacy() {
+        String suffix = nextSuffix();
+        return transactionTemplate.execute(status -> legacyRegisterDriver(suffix + "@driver.test", suffix,
+                "DL-" + suffix, "KA-" + suffix));
+    }
+
+    private User legacyRegisterDriver(String email, String phoneNumber, String licenseNumber, String vehiclePlate) {
+        if (userRepository.existsByEmail(email)
+                || userRepository.existsByPhoneNumber(phoneNumber)
+                || driverRepository.findByLicenseNumber(licenseNumber).isPresent()
+                || vehicleRepository.findByLicensePlate(vehiclePlate).isPresent()) {
+            throw new IllegalArgumentException("Already registered");
+        }
+        RoleEntity driverRole = roleRepository.findByRoleName("DRIVER").orElseThrow();
+
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash(passwordHasher.encode("secret"));
+        user.setPhoneNumber(phoneNumber);
+        user.setFirstName("Ravi");
+        user.setLastName("Kumar");
+        user.setRole(driverRole);
+        user.setStatus("ACTIVE");
+        User savedUser = userRepository.save(user);
+        userRepository.flush();
+
+        driverRepository.insertDriver(savedUser.getUserId(), licenseNumber, LocalDate.now().plusYears(1));
+        driverRepository.flush();
+
+        Vehicle vehicle = new Vehicle();
+        vehicle.setDriver(driverRepository.findByDriverId(savedUser.getUserId()).orElseThrow());
+        vehicle.setVehicleMake("Toyota");
+        vehicle.setVehicleModel("Prius");
+        vehicle.setVehicleYear(LocalDate.now().getYear());
+        vehicle.setLicensePlate(vehiclePlate);
+        vehicle.setIsActive(true);
+        vehicleRepository.saveAndFlush(vehicle);
+        return savedUser;
+    }
+
+    private String nextSuffix() {
+        // Unique across forks of the same run and short enough for the phone and plate columns
+        return Long.toString(sequence.incrementAndGet(), 36) + UUID.randomUUID().toString().substring(0, 6);
+    }
+}
@@ -0,0 +1,143 @@
+package com.ridehailing.backend.benchmark;
+
+import com.ridehailing.backend.websocket.OutboundMessageQueue;
+import com.ridehailing.backend.websocket.UserSessionRegistry;
+import com.ridehailing.backend.websocket.WebSocketMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user fan-out lookup with 20k connected users, one in ten signed in on three devices.
+ * "registry" is UserSessionRegistry.sessionsOf; "scan" walks every open session and keeps the user's,
+ * which is what multi-device delivery costs without a per-user index. "churn" is one connect plus disconnect.
+ * Retained heap per connection (registry entry only, and registry entry plus outbound queue) is printed
+ * during setup.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=UserSessionRegistryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserSessionRegistryBenchmark {
+
+    private static final int USERS = 20_000;
+    private static final int DEVICES_OF_EVERY_TENTH_USER = 3;
+    private static final int QUEUE_CAPACITY = 256;
+
+    private final WebSocketMetrics metrics = new WebSocketMetrics(new SimpleMeterRegistry());
+    // Shared so that the measured footprint excludes the container's own session object
+    private final WebSocketSession session = Mockito.mock(WebSocketSession.class);
+
+    private UserSessionRegistry registry;
+    private Map<OutboundMessageQueue, UUID> ownerBySession;
+    private UUID[] users;
+    private UUID churnUser;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        users = new UUID[USERS];
+        for (int i = 0; i < USERS; i++) {
+            users[i] = UUID.randomUUID();
+        }
+        OutboundMessageQueue[][] queues = newQueues();
+
+        long before = usedHeap();
+        registry = new UserSessionRegistry();
+        register(registry, queues);
+        long registryBytes = usedHeap() - before;
+
+        before = usedHeap();
+        UserSessionRegistry withQueues = new UserSessionRegistry();
+        register(withQueues, newQueues());
+        long totalBytes = usedHeap() - before;
+
+        int connections = registry.sessionCount();
+        System.out.printf("%d users, %d connections: registry %d B/connection, registry + outbound queue %d B/connection%n",
+                USERS, connections, registryBytes / connections, totalBytes / connections);
+
+        ownerBySession = new ConcurrentHashMap<>();
+        for (int i = 0; i < USERS; i++) {
+            for (OutboundMessageQueue queue : queues[i]) {
+                ownerBySession.put(queue, users[i]);
+            }
+        }
+        churnUser = users[1];
+    }
+
+    @Benchmark
+    public void registry(Blackhole blackhole) {
+        for (OutboundMessageQueue queue : registry.sessionsOf(nextUser())) {
+            blackhole.consume(queue);
+        }
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        UUID userId = nextUser();
+        ownerBySession.forEach((queue, owner) -> {
+            if (owner.equals(userId)) {
+                blackhole.consume(queue);
+            }
+        });
+    }
+
+    @Benchmark
+    public boolean churn() {
+        OutboundMessageQueue queue = new OutboundMessageQueue(session, QUEUE_CAPACITY, Runnable::run, metrics);
+        registry.register(churnUser, queue);
+        return registry.unregister(churnUser, queue);
+    }
+
+    private UUID nextUser() {
+        next = (next + 7) % USERS;
+        return users[next];
+    }
+
+    private OutboundMessageQueue[][] newQueues() {
+        OutboundMessageQueue[][] queues = new OutboundMessageQueue[USERS][];
+        for (int i = 0; i < USERS; i++) {
+            queues[i] = new OutboundMessageQueue[i % 10 == 0 ? DEVICES_OF_EVERY_TENTH_USER : 1];
+            for (int d = 0; d < queues[i].length; d++) {
+                queues[i][d] = new OutboundMessageQueue(session, QUEUE_CAPACITY, Runnable::run, metrics);
+            }
+        }
+        return queues;
+    }
+
+    private void register(UserSessionRegistry target, OutboundMessageQueue[][] queues) {
+        for (int i = 0; i < USERS; i++) {
+            for (OutboundMessageQueue queue : queues[i]) {
+                target.register(users[i], queue);
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
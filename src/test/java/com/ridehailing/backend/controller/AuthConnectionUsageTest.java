@@ -0,0 +1,90 @@
+package com.ridehailing.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.backend.entity.RoleEntity;
+import com.ridehailing.backend.model.Role;
+import com.ridehailing.backend.repository.RoleRepository;
+import com.ridehailing.backend.security.PasswordHasher;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Password hashing can wait up to a second for the hashing pool; no pooled connection may be held meanwhile
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "password-hashing.cost=4")
+class AuthConnectionUsageTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @SpyBean
+    private PasswordHasher passwordHasher;
+
+    private final List<Integer> connectionsWhileHashing = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (Role role : Role.values()) {
+            if (roleRepository.findByRoleName(role.name()).isEmpty()) {
+                roleRepository.save(new RoleEntity(role.name(), role.name()));
+            }
+        }
+        doAnswer(this::recordConnections).when(passwordHasher).encode(any());
+        doAnswer(this::recordConnections).when(passwordHasher).matches(any(), anyString());
+    }
+
+    @Test
+    void registerAndLogin_ShouldHashWithoutHoldingAConnection() throws Exception {
+        String suffix = UUID.randomUUID().toString().substring(0, 12);
+        String email = suffix + "@rider.test";
+
+        mockMvc.perform(post("/api/v1/auth/register/rider")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("email", email, "password", "secret",
+                                "phoneNumber", suffix, "firstName", "Asha", "lastName", "Rao"))))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("email", email, "password", "secret"))))
+                .andExpect(status().isOk());
+
+        assertEquals(List.of(0, 0), connectionsWhileHashing);
+    }
+
+    private Object recordConnections(InvocationOnMock invocation) throws Throwable {
+        connectionsWhileHashing.add(dataSource.getHikariPoolMXBean().getActiveConnections());
+        return invocation.callRealMethod();
+    }
+}
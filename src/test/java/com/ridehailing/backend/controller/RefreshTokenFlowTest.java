@@ -0,0 +1,123 @@
+package com.ridehailing.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.backend.entity.RoleEntity;
+import com.ridehailing.backend.model.Role;
+import com.ridehailing.backend.repository.RoleRepository;
+import com.ridehailing.backend.service.AuthenticationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "password-hashing.cost=4")
+class RefreshTokenFlowTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private String email;
+
+    @BeforeEach
+    void setUp() {
+        for (Role role : Role.values()) {
+            if (roleRepository.findByRoleName(role.name()).isEmpty()) {
+                roleRepository.save(new RoleEntity(role.name(), role.name()));
+            }
+        }
+        String suffix = UUID.randomUUID().toString().substring(0, 12);
+        email = suffix + "@rider.test";
+        authenticationService.registerRider(email, "secret", suffix, "Asha", "Rao");
+    }
+
+    @Test
+    void refresh_ShouldRotateTokensAndRejectTheOldOne() throws Exception {
+        JsonNode login = login();
+
+        JsonNode refreshed = refresh(login.get("refreshToken").asText(), 200);
+        assertNotEquals(login.get("refreshToken").asText(), refreshed.get("refreshToken").asText());
+        assertEquals(3600, refreshed.get("expiresIn").asInt());
+        mockMvc.perform(get("/api/v1/rider/profile")
+                        .header("Authorization", "Bearer " + refreshed.get("accessToken").asText()))
+                .andExpect(status().isOk());
+
+        // The superseded token is a replay: the family is revoked, including the token just issued
+        JsonNode reuse = refresh(login.get("refreshToken").asText(), 401);
+        assertEquals("Refresh token reuse detected", reuse.get("message").asText());
+        refresh(refreshed.get("refreshToken").asText(), 401);
+        mockMvc.perform(get("/api/v1/rider/profile")
+                        .header("Authorization", "Bearer " + refreshed.get("accessToken").asText()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void logout_ShouldRevokeRefreshAndAccessTokens() throws Exception {
+        JsonNode login = login();
+        String accessToken = login.get("accessToken").asText();
+        mockMvc.perform(get("/api/v1/rider/profile").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/auth/logout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", login.get("refreshToken").asText()))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/rider/profile").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isUnauthorized());
+        refresh(login.get("refreshToken").asText(), 401);
+    }
+
+    @Test
+    void refresh_ForgedOrAccessToken_ShouldReturn401() throws Exception {
+        JsonNode login = login();
+        String refreshToken = login.get("refreshToken").asText();
+        String forged = refreshToken.substring(0, refreshToken.lastIndexOf('.') + 1) + "AAAA";
+
+        refresh(forged, 401);
+        refresh(login.get("accessToken").asText(), 401);
+        // A failed forgery must not revoke the real family
+        refresh(refreshToken, 200);
+    }
+
+    private JsonNode login() throws Exception {
+        String body = mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("email", email, "password", "secret"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private JsonNode refresh(String refreshToken, int expectedStatus) throws Exception {
+        String body = mockMvc.perform(post("/api/v1/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", refreshToken))))
+                .andExpect(status().is(expectedStatus))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
@@ -0,0 +1,70 @@
+package com.ridehailing.backend.controller;
+
+import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.model.Role;
+import com.ridehailing.backend.service.RideService;
+import com.ridehailing.backend.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RideDetailsEtagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private RideService rideService;
+
+    @Test
+    void getRideDetails_WithMatchingEtag_ShouldReturn304UntilRideChanges() throws Exception {
+        UUID riderId = UUID.randomUUID();
+        String token = "Bearer " + jwtUtil.generateToken(riderId.toString(), Role.RIDER);
+        Ride ride = rideService.createRide(riderId, new BigDecimal("12.9716"), new BigDecimal("77.5946"),
+                "MG Road", new BigDecimal("13.0358"), new BigDecimal("77.5970"), "Hebbal");
+
+        String etag = mockMvc.perform(get("/api/v1/rides/" + ride.getRideId()).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/v1/rides/" + ride.getRideId())
+                        .header("Authorization", token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        rideService.acceptRide(ride.getRideId(), UUID.randomUUID(), UUID.randomUUID());
+
+        String acceptedEtag = mockMvc.perform(get("/api/v1/rides/" + ride.getRideId())
+                        .header("Authorization", token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("ACCEPTED"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, acceptedEtag);
+    }
+
+    @Test
+    void getRideDetails_UnknownRide_ShouldReturn404() throws Exception {
+        String token = "Bearer " + jwtUtil.generateToken(UUID.randomUUID().toString(), Role.RIDER);
+
+        mockMvc.perform(get("/api/v1/rides/" + UUID.randomUUID()).header("Authorization", token))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.UUID;
+
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -67,6 +69,24 @@ class RoleAuthorizationTest {
                 .andExpect(jsonPath("$.role").value("DRIVER"));
     }
 
+    @Test
+    void rideHistoryEndpoints_WithOwnRoleToken_ShouldReturnFirstPage() throws Exception {
+        String riderToken = jwtUtil.generateToken(UUID.randomUUID().toString(), Role.RIDER);
+        String driverToken = jwtUtil.generateToken(UUID.randomUUID().toString(), Role.DRIVER);
+
+        mockMvc.perform(get("/api/v1/rider/rides")
+                        .header("Authorization", "Bearer " + riderToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rides").isArray())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        mockMvc.perform(get("/api/v1/driver/rides").param("limit", "500")
+                        .header("Authorization", "Bearer " + driverToken))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/driver/rides")
+                        .header("Authorization", "Bearer " + riderToken))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void driverEndpoint_WithRiderToken_ShouldReturn403() throws Exception {
         String userId = "rider-user-123";
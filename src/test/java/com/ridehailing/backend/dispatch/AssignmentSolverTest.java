@@ -0,0 +1,136 @@
+package com.ridehailing.backend.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssignmentSolverTest {
+
+    private final AssignmentSolver greedy = new GreedyAssignmentSolver();
+    private final AssignmentSolver hungarian = new HungarianAssignmentSolver();
+
+    @Test
+    void hungarian_ShouldBeatGreedyWhenCheapestPairStrandsAnotherRide() {
+        // Rides A, B; drivers X, Y. Greedy takes A-X (1) and leaves B with Y (100)
+        AssignmentProblem.Builder builder = AssignmentProblem.builder(2);
+        builder.nextRide();
+        builder.addCandidate(0, 1).addCandidate(1, 2);
+        builder.nextRide();
+        builder.addCandidate(0, 2).addCandidate(1, 100);
+        AssignmentProblem problem = builder.build();
+
+        int[] greedyAssignment = greedy.solve(problem);
+        int[] hungarianAssignment = hungarian.solve(problem);
+
+        assertArrayEquals(new int[]{0, 1}, greedyAssignment);
+        assertEquals(101, problem.totalCost(greedyAssignment));
+        assertArrayEquals(new int[]{1, 0}, hungarianAssignment);
+        assertEquals(4, problem.totalCost(hungarianAssignment));
+    }
+
+    @Test
+    void solve_RideWithoutCandidates_ShouldStayUnassigned() {
+        AssignmentProblem.Builder builder = AssignmentProblem.builder(1);
+        builder.nextRide();
+        builder.nextRide();
+        builder.addCandidate(0, 30);
+        AssignmentProblem problem = builder.build();
+
+        assertArrayEquals(new int[]{-1, 0}, greedy.solve(problem));
+        assertArrayEquals(new int[]{-1, 0}, hungarian.solve(problem));
+    }
+
+    @Test
+    void solve_MoreRidesThanDrivers_ShouldUseEachDriverOnce() {
+        AssignmentProblem.Builder builder = AssignmentProblem.builder(2);
+        for (int ride = 0; ride < 5; ride++) {
+            builder.nextRide();
+            builder.addCandidate(0, 10 + ride).addCandidate(1, 20 + ride);
+        }
+        AssignmentProblem problem = builder.build();
+
+        for (AssignmentSolver solver : new AssignmentSolver[]{greedy, hungarian}) {
+            int[] assignment = solver.solve(problem);
+            assertDriversUsedOnce(assignment, 2);
+            int assigned = 0;
+            for (int driver : assignment) {
+                if (driver >= 0) {
+                    assigned++;
+                }
+            }
+            assertEquals(2, assigned);
+        }
+    }
+
+    @Test
+    void hungarian_ShouldMatchBruteForceOnRandomProblems() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 200; trial++) {
+            int rides = 1 + random.nextInt(5);
+            int drivers = 1 + random.nextInt(5);
+            AssignmentProblem.Builder builder = AssignmentProblem.builder(drivers);
+            for (int ride = 0; ride < rides; ride++) {
+                builder.nextRide();
+                for (int driver = 0; driver < drivers; driver++) {
+                    if (random.nextInt(3) > 0) {
+                        builder.addCandidate(driver, random.nextInt(600));
+                    }
+                }
+            }
+            AssignmentProblem problem = builder.build();
+
+            int[] assignment = hungarian.solve(problem);
+
+            assertDriversUsedOnce(assignment, drivers);
+            double offset = maxCost(problem) + 1;
+            double best = bestBenefit(problem, 0, new boolean[drivers], offset);
+            assertEquals(best, benefit(problem, assignment, offset), 1e-9, "Trial " + trial);
+        }
+    }
+
+    private static void assertDriversUsedOnce(int[] assignment, int driverCount) {
+        boolean[] used = new boolean[driverCount];
+        for (int driver : assignment) {
+            if (driver >= 0) {
+                assertFalse(used[driver], "Driver " + driver + " assigned twice");
+                used[driver] = true;
+            }
+        }
+    }
+
+    private static double maxCost(AssignmentProblem problem) {
+        double max = 0;
+        for (int edge = 0; edge < problem.edgeCount(); edge++) {
+            max = Math.max(max, problem.cost(edge));
+        }
+        return max;
+    }
+
+    private static double benefit(AssignmentProblem problem, int[] assignment, double offset) {
+        int assigned = 0;
+        for (int driver : assignment) {
+            if (driver >= 0) {
+                assigned++;
+            }
+        }
+        return assigned * offset - problem.totalCost(assignment);
+    }
+
+    private static double bestBenefit(AssignmentProblem problem, int ride, boolean[] used, double offset) {
+        if (ride == problem.rideCount()) {
+            return 0;
+        }
+        double best = bestBenefit(problem, ride + 1, used, offset);
+        for (int edge = problem.firstEdge(ride); edge < problem.endEdge(ride); edge++) {
+            int driver = problem.driver(edge);
+            if (!used[driver]) {
+                used[driver] = true;
+                best = Math.max(best, offset - problem.cost(edge) + bestBenefit(problem, ride + 1, used, offset));
+                used[driver] = false;
+            }
+        }
+        return best;
+    }
+}
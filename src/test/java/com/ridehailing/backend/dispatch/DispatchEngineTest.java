@@ -0,0 +1,187 @@
+package com.ridehailing.backend.dispatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.backend.config.DispatchProperties;
+import com.ridehailing.backend.config.LocationProperties;
+import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.geo.CellSpeedEtaEstimator;
+import com.ridehailing.backend.geo.DriverLocationIndex;
+import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.repository.RideRepository;
+import com.ridehailing.backend.service.ActiveRideRegistry;
+import com.ridehailing.backend.websocket.EncodedFrame;
+import com.ridehailing.backend.websocket.WebSocketHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DispatchEngineTest {
+
+    // Bangalore city centre
+    private static final double CENTER_LAT = 12.9716;
+    private static final double CENTER_LON = 77.5946;
+
+    @Mock
+    private RideRepository rideRepository;
+
+    @Mock
+    private ActiveRideRegistry activeRideRegistry;
+
+    @Mock
+    private WebSocketHandler webSocketHandler;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private DriverLocationIndex driverLocationIndex;
+    private DispatchEngine dispatchEngine;
+
+    @BeforeEach
+    void setUp() {
+        LocationProperties locationProperties = new LocationProperties();
+        DispatchProperties dispatchProperties = new DispatchProperties();
+        dispatchProperties.setOfferTimeoutMs(15_000);
+        driverLocationIndex = new DriverLocationIndex(locationProperties);
+        dispatchEngine = new DispatchEngine(rideRepository, driverLocationIndex, activeRideRegistry,
+                new CellSpeedEtaEstimator(locationProperties), webSocketHandler, objectMapper,
+                dispatchProperties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void runWindow_ShouldOfferRideToNearestFreeDriver() throws Exception {
+        long now = System.currentTimeMillis();
+        UUID busyDriver = addDriver(CENTER_LAT, CENTER_LON, now);
+        UUID freeDriver = addDriver(CENTER_LAT + 0.01, CENTER_LON, now);
+        UUID farDriver = addDriver(CENTER_LAT + 0.03, CENTER_LON, now);
+        when(activeRideRegistry.getByDriverId(busyDriver)).thenReturn(new ActiveRideRegistry.ActiveRide(
+                UUID.randomUUID(), UUID.randomUUID(), busyDriver, RideStatus.ACCEPTED, 0, 0, 0, 0));
+        Ride ride = pendingRide(CENTER_LAT, CENTER_LON);
+
+        dispatchEngine.addPendingRide(ride);
+        dispatchEngine.runWindow(now);
+
+        assertEquals(freeDriver, dispatchEngine.offeredDriver(ride.getRideId()));
+        ArgumentCaptor<EncodedFrame> frame = ArgumentCaptor.forClass(EncodedFrame.class);
+        verify(webSocketHandler).sendToUser(eq(freeDriver), frame.capture());
+        verify(webSocketHandler, never()).sendToUser(eq(farDriver), any(EncodedFrame.class));
+        assertFalse(frame.getValue().isDroppable());
+        JsonNode event = objectMapper.readTree(frame.getValue().getMessage().getPayload());
+        assertEquals("ride:request", event.get("type").asText());
+        assertEquals(ride.getRideId().toString(), event.get("rideId").asText());
+        assertEquals("MG Road", event.get("pickupLocation").get("address").asText());
+        assertTrue(event.get("estimatedDistance").asDouble() > 0);
+        assertTrue(event.get("estimatedPickupTime").asInt() > 0);
+        assertEquals(15_000, event.get("offerExpiresInMs").asLong());
+    }
+
+    @Test
+    void runWindow_ShouldNotOfferOneDriverTwice() {
+        long now = System.currentTimeMillis();
+        UUID driver = addDriver(CENTER_LAT, CENTER_LON, now);
+        Ride first = pendingRide(CENTER_LAT + 0.001, CENTER_LON);
+        Ride second = pendingRide(CENTER_LAT + 0.002, CENTER_LON);
+        dispatchEngine.addPendingRide(first);
+        dispatchEngine.addPendingRide(second);
+
+        dispatchEngine.runWindow(now);
+        dispatchEngine.runWindow(now + 2_000);
+
+        verify(webSocketHandler, times(1)).sendToUser(eq(driver), any(EncodedFrame.class));
+        UUID firstOffer = dispatchEngine.offeredDriver(first.getRideId());
+        UUID secondOffer = dispatchEngine.offeredDriver(second.getRideId());
+        assertTrue(firstOffer == null ^ secondOffer == null, "Exactly one ride holds the driver");
+    }
+
+    @Test
+    void rideClosed_ShouldFreeDriverForNextWindow() {
+        long now = System.currentTimeMillis();
+        UUID driver = addDriver(CENTER_LAT, CENTER_LON, now);
+        Ride first = pendingRide(CENTER_LAT, CENTER_LON);
+        Ride second = pendingRide(CENTER_LAT, CENTER_LON);
+        dispatchEngine.addPendingRide(first);
+        dispatchEngine.runWindow(now);
+        dispatchEngine.addPendingRide(second);
+
+        dispatchEngine.rideClosed(first.getRideId());
+        dispatchEngine.runWindow(now + 2_000);
+
+        assertEquals(1, dispatchEngine.pendingCount());
+        assertNull(dispatchEngine.offeredDriver(first.getRideId()));
+        assertEquals(driver, dispatchEngine.offeredDriver(second.getRideId()));
+    }
+
+    @Test
+    void warmUp_ShouldFavourTheRiderWhoHasWaitedLongest() {
+        long now = System.currentTimeMillis();
+        UUID driver = addDriver(CENTER_LAT, CENTER_LON, now);
+        Ride recent = pendingRide(CENTER_LAT, CENTER_LON);
+        recent.setCreatedAt(LocalDateTime.now().minusMinutes(1));
+        Ride waiting = pendingRide(CENTER_LAT, CENTER_LON);
+        waiting.setCreatedAt(LocalDateTime.now().minusMinutes(10));
+        when(rideRepository.findByStatusIn(any())).thenReturn(List.of(recent, waiting));
+
+        dispatchEngine.warmUp();
+        dispatchEngine.runWindow(now);
+
+        assertEquals(driver, dispatchEngine.offeredDriver(waiting.getRideId()));
+        assertNull(dispatchEngine.offeredDriver(recent.getRideId()));
+    }
+
+    @Test
+    void expiredOffer_ShouldGoToAnotherDriver() {
+        long now = System.currentTimeMillis();
+        UUID nearDriver = addDriver(CENTER_LAT, CENTER_LON, now);
+        UUID otherDriver = addDriver(CENTER_LAT + 0.01, CENTER_LON, now);
+        Ride ride = pendingRide(CENTER_LAT, CENTER_LON);
+        dispatchEngine.addPendingRide(ride);
+
+        dispatchEngine.runWindow(now);
+        assertEquals(nearDriver, dispatchEngine.offeredDriver(ride.getRideId()));
+        dispatchEngine.runWindow(now + 15_000);
+
+        assertEquals(otherDriver, dispatchEngine.offeredDriver(ride.getRideId()));
+        verify(webSocketHandler, times(1)).sendToUser(eq(nearDriver), any(EncodedFrame.class));
+        verify(webSocketHandler, times(2)).sendToUser(any(UUID.class), any(EncodedFrame.class));
+    }
+
+    @Test
+    void createSolver_UnknownName_ShouldThrowException() {
+        assertInstanceOf(GreedyAssignmentSolver.class, DispatchEngine.createSolver("greedy"));
+        assertInstanceOf(HungarianAssignmentSolver.class, DispatchEngine.createSolver("Hungarian"));
+        assertThrows(IllegalArgumentException.class, () -> DispatchEngine.createSolver("auction"));
+    }
+
+    private UUID addDriver(double latitude, double longitude, long now) {
+        UUID driverId = UUID.randomUUID();
+        driverLocationIndex.update(driverId, latitude, longitude, now);
+        return driverId;
+    }
+
+    private Ride pendingRide(double latitude, double longitude) {
+        Ride ride = new Ride();
+        ride.setRideId(UUID.randomUUID());
+        ride.setRiderId(UUID.randomUUID());
+        ride.setPickupLatitude(BigDecimal.valueOf(latitude));
+        ride.setPickupLongitude(BigDecimal.valueOf(longitude));
+        ride.setPickupAddress("MG Road");
+        ride.setDropoffLatitude(BigDecimal.valueOf(latitude + 0.05));
+        ride.setDropoffLongitude(BigDecimal.valueOf(longitude));
+        ride.setDropoffAddress("Hebbal");
+        ride.setStatus(RideStatus.PENDING);
+        return ride;
+    }
+}
@@ -0,0 +1,170 @@
+package com.ridehailing.backend.fare;
+
+import com.ridehailing.backend.config.FareProperties;
+import com.ridehailing.backend.config.LocationProperties;
+import com.ridehailing.backend.dispatch.DispatchEngine;
+import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.geo.DriverLocationIndex;
+import com.ridehailing.backend.geo.DriverPosition;
+import com.ridehailing.backend.geo.EtaEstimator;
+import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.service.ActiveRideRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FareEngineTest {
+
+    // Airport zone, 3 km around the terminal
+    private static final double AIRPORT_LAT = 13.1986;
+    private static final double AIRPORT_LON = 77.7066;
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 1, 1, 14, 0);
+    private static final LocalDateTime NIGHT = LocalDateTime.of(2024, 1, 1, 23, 30);
+
+    @Mock
+    private ActiveRideRegistry activeRideRegistry;
+
+    @Mock
+    private DispatchEngine dispatchEngine;
+
+    private FareProperties properties;
+    private DriverLocationIndex driverLocationIndex;
+
+    // Every trip takes 10 minutes
+    private final EtaEstimator etaEstimator = new EtaEstimator() {
+        @Override
+        public int estimateSeconds(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+            return 600;
+        }
+
+        @Override
+        public void recordMovement(DriverPosition previous, double latitude, double longitude, long timestampMillis) {
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        properties = new FareProperties();
+        FareProperties.Tariff airportNight = new FareProperties.Tariff();
+        airportNight.setName("airport-night");
+        airportNight.setCenterLatitude(AIRPORT_LAT);
+        airportNight.setCenterLongitude(AIRPORT_LON);
+        airportNight.setRadiusMeters(3000);
+        airportNight.setStartHour(22);
+        airportNight.setEndHour(6);
+        airportNight.setBaseFare(4.00);
+        properties.setTariffs(List.of(airportNight));
+        driverLocationIndex = new DriverLocationIndex(new LocationProperties());
+    }
+
+    @Test
+    void quote_ShouldPriceRouteDistanceAndDuration() {
+        FareEngine engine = engine();
+
+        // 0.1 degrees of latitude is ~11.1 km straight line, ~14.5 km by road
+        FareQuote quote = engine.quote(12.90, 77.60, 13.00, 77.60, DAY);
+
+        assertEquals("base", quote.tariff());
+        assertEquals(10, quote.durationMinutes());
+        double expected = 2.50 + 1.50 * quote.distanceKm().doubleValue() + 0.20 * 10;
+        // Distance and fare are rounded separately
+        assertEquals(expected, quote.fare().doubleValue(), 0.02);
+        assertEquals(14.5, quote.distanceKm().doubleValue(), 0.1);
+    }
+
+    @Test
+    void quote_ShouldApplyZoneTariffOnlyInsideZoneAndHours() {
+        FareEngine engine = engine();
+
+        assertEquals("airport-night", engine.quote(AIRPORT_LAT, AIRPORT_LON, 13.0, 77.6, NIGHT).tariff());
+        // Window wraps past midnight
+        assertEquals("airport-night", engine.quote(AIRPORT_LAT, AIRPORT_LON, 13.0, 77.6, NIGHT.plusHours(3)).tariff());
+        assertEquals("base", engine.quote(AIRPORT_LAT, AIRPORT_LON, 13.0, 77.6, DAY).tariff());
+        assertEquals("base", engine.quote(12.97, 77.59, 13.0, 77.6, NIGHT).tariff());
+
+        FareQuote night = engine.quote(AIRPORT_LAT, AIRPORT_LON, 13.0, 77.6, NIGHT);
+        FareQuote day = engine.quote(AIRPORT_LAT, AIRPORT_LON, 13.0, 77.6, DAY);
+        // Only the base fare is overridden; per-km and per-minute rates are inherited
+        assertEquals(1.50, night.fare().subtract(day.fare()).doubleValue(), 0.001);
+    }
+
+    @Test
+    void quote_ShortTrip_ShouldChargeMinimumFare() {
+        FareQuote quote = engine().quote(12.9716, 77.5946, 12.9720, 77.5946, DAY);
+
+        assertEquals(0, new BigDecimal("5.00").compareTo(quote.fare()));
+    }
+
+    @Test
+    void refreshSurge_ShouldPriceZoneByDemandOverFreeSupply() {
+        properties.setMaxSurge(2.5);
+        FareEngine engine = engine();
+        UUID busyDriver = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        driverLocationIndex.update(UUID.randomUUID(), AIRPORT_LAT + 0.001, AIRPORT_LON, now);
+        driverLocationIndex.update(UUID.randomUUID(), AIRPORT_LAT - 0.001, AIRPORT_LON, now);
+        driverLocationIndex.update(busyDriver, AIRPORT_LAT, AIRPORT_LON + 0.001, now);
+        when(activeRideRegistry.getByDriverId(busyDriver)).thenReturn(new ActiveRideRegistry.ActiveRide(
+                UUID.randomUUID(), UUID.randomUUID(), busyDriver, RideStatus.ACCEPTED, 0, 0, 0, 0));
+        when(dispatchEngine.pendingRidesWithin(eq(AIRPORT_LAT), eq(AIRPORT_LON), anyDouble())).thenReturn(5);
+
+        FareQuote before = engine.quote(AIRPORT_LAT, AIRPORT_LON, 13.0, 77.6, NIGHT);
+        engine.refreshSurge();
+        FareQuote after = engine.quote(AIRPORT_LAT, AIRPORT_LON, 13.0, 77.6, NIGHT);
+
+        // 5 pending rides over 2 free drivers
+        assertEquals(0, new BigDecimal("2.50").compareTo(after.surgeMultiplier()));
+        assertEquals(before.fare().doubleValue() * 2.5, after.fare().doubleValue(), 0.01);
+        // Surge is per zone; the rest of the city is unaffected
+        assertEquals(0, BigDecimal.ONE.compareTo(engine.quote(12.97, 77.59, 13.0, 77.6, NIGHT).surgeMultiplier()));
+    }
+
+    @Test
+    void finalFare_ShouldUseActualDurationAndLockedSurge() {
+        Ride ride = new Ride();
+        ride.setPickupLatitude(new BigDecimal("12.90"));
+        ride.setPickupLongitude(new BigDecimal("77.60"));
+        ride.setEstimatedDistance(new BigDecimal("10.00"));
+        ride.setSurgeMultiplier(new BigDecimal("1.50"));
+        ride.setStartedAt(DAY);
+        ride.setCompletedAt(DAY.plusMinutes(25).plusSeconds(10));
+
+        FareQuote fare = engine().finalFare(ride, null);
+
+        assertEquals(26, fare.durationMinutes());
+        assertEquals(0, new BigDecimal("10.00").compareTo(fare.distanceKm()));
+        assertEquals((2.50 + 15.00 + 0.20 * 26) * 1.5, fare.fare().doubleValue(), 0.001);
+    }
+
+    @Test
+    void finalFare_WithMeasuredDistance_ShouldChargeItInsteadOfTheEstimate() {
+        Ride ride = new Ride();
+        ride.setPickupLatitude(new BigDecimal("12.90"));
+        ride.setPickupLongitude(new BigDecimal("77.60"));
+        ride.setEstimatedDistance(new BigDecimal("10.00"));
+        ride.setStartedAt(DAY);
+        ride.setCompletedAt(DAY.plusMinutes(20));
+
+        FareQuote fare = engine().finalFare(ride, new BigDecimal("12.40"));
+
+        assertEquals(0, new BigDecimal("12.40").compareTo(fare.distanceKm()));
+        assertEquals(2.50 + 1.50 * 12.40 + 0.20 * 20, fare.fare().doubleValue(), 0.001);
+    }
+
+    private FareEngine engine() {
+        return new FareEngine(properties, etaEstimator, driverLocationIndex, activeRideRegistry, dispatchEngine);
+    }
+}
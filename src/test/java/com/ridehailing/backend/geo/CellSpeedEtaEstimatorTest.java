@@ -0,0 +1,87 @@
+package com.ridehailing.backend.geo;
+
+import com.ridehailing.backend.config.LocationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CellSpeedEtaEstimatorTest {
+
+    private static final double ROAD_FACTOR = 1.3;
+    private static final double DEFAULT_SPEED = 8.0;
+
+    private CellSpeedEtaEstimator estimator;
+    private final UUID driverId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        LocationProperties properties = new LocationProperties();
+        properties.setEtaCellSizeDegrees(0.01);
+        properties.setEtaDefaultSpeedMps(DEFAULT_SPEED);
+        properties.setEtaRoadFactor(ROAD_FACTOR);
+        properties.setEtaSpeedSmoothing(0.5);
+        properties.setEtaCacheTtlMs(30_000);
+        estimator = new CellSpeedEtaEstimator(properties);
+    }
+
+    @Test
+    void estimate_WithoutObservations_ShouldUseDefaultSpeed() {
+        double meters = GeoUtils.haversineMeters(40.0, -74.0, 40.05, -74.0) * ROAD_FACTOR;
+
+        int seconds = estimator.estimateSeconds(40.0, -74.0, 40.05, -74.0, 0);
+
+        assertEquals((int) Math.ceil(meters / DEFAULT_SPEED), seconds);
+    }
+
+    @Test
+    void estimate_ShouldUseLearnedCellSpeeds() {
+        // A driver doing ~16 m/s through both endpoint cells and the midpoint cell
+        driveNorth(40.0, 0, 1000);
+        driveNorth(40.025, 0, 1000);
+        driveNorth(40.05, 0, 1000);
+        double meters = GeoUtils.haversineMeters(40.0, -74.0, 40.05, -74.0) * ROAD_FACTOR;
+
+        int seconds = estimator.estimateSeconds(40.0, -74.0, 40.05, -74.0, 1000);
+
+        assertEquals(meters / 16.0, seconds, meters / 16.0 * 0.05);
+    }
+
+    @Test
+    void estimate_ShouldBeCachedPerCellPairUntilTtl() {
+        int before = estimator.estimateSeconds(40.0, -74.0, 40.05, -74.0, 0);
+        driveNorth(40.0, 0, 1000);
+        driveNorth(40.05, 0, 1000);
+
+        assertEquals(before, estimator.estimateSeconds(40.0, -74.0, 40.05, -74.0, 1_000), "Served from the pair cache");
+        assertTrue(estimator.estimateSeconds(40.0, -74.0, 40.05, -74.0, 31_000) < before, "Recomputed after the TTL");
+    }
+
+    @Test
+    void recordMovement_ShouldIgnoreParkedDriversAndGlitches() {
+        DriverPosition previous = new DriverPosition(driverId, 40.0, -74.0, 0);
+        // Standing still, then a 1.1 km jump in one second
+        estimator.recordMovement(previous, 40.0, -74.0, 5_000);
+        estimator.recordMovement(previous, 40.01, -74.0, 1_000);
+
+        int seconds = estimator.estimateSeconds(40.0, -74.0, 40.005, -74.0, 6_000);
+        double meters = GeoUtils.haversineMeters(40.0, -74.0, 40.005, -74.0) * ROAD_FACTOR;
+        assertEquals((int) Math.ceil(meters / DEFAULT_SPEED), seconds);
+    }
+
+    @Test
+    void estimateMinutes_ShouldRoundUpAndHandleUnknownTargets() {
+        assertNull(estimator.estimateMinutes(40.0, -74.0, Double.NaN, Double.NaN));
+        assertEquals(0, estimator.estimateMinutes(40.0, -74.0, 40.0, -74.0));
+        assertEquals(1, estimator.estimateMinutes(40.0, -74.0, 40.001, -74.0));
+    }
+
+    // Two pings one second apart moving ~16 m north
+    private void driveNorth(double latitude, long startMillis, long elapsedMillis) {
+        DriverPosition previous = new DriverPosition(driverId, latitude, -74.0, startMillis);
+        estimator.recordMovement(previous, latitude + 16.0 / GeoUtils.METERS_PER_DEGREE_LATITUDE, -74.0,
+                startMillis + elapsedMillis);
+    }
+}
@@ -0,0 +1,131 @@
+package com.ridehailing.backend.geo;
+
+import com.ridehailing.backend.config.LocationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverLocationIndexTest {
+
+    // Bangalore city centre
+    private static final double CENTER_LAT = 12.9716;
+    private static final double CENTER_LON = 77.5946;
+
+    private DriverLocationIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new DriverLocationIndex(new LocationProperties());
+    }
+
+    @Test
+    void update_ShouldMoveDriverBetweenCells() {
+        UUID driverId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+
+        index.update(driverId, CENTER_LAT, CENTER_LON, now);
+        index.update(driverId, CENTER_LAT + 0.05, CENTER_LON + 0.05, now + 1000);
+
+        assertEquals(1, index.size());
+        assertTrue(index.findWithinRadius(CENTER_LAT, CENTER_LON, 1000).isEmpty());
+        List<NearbyDriver> moved = index.findWithinRadius(CENTER_LAT + 0.05, CENTER_LON + 0.05, 1000);
+        assertEquals(1, moved.size());
+        assertEquals(driverId, moved.get(0).position().driverId());
+    }
+
+    @Test
+    void update_ShouldIgnoreOutOfOrderPing() {
+        UUID driverId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+
+        index.update(driverId, CENTER_LAT, CENTER_LON, now);
+        index.update(driverId, CENTER_LAT + 0.05, CENTER_LON, now - 5000);
+
+        assertEquals(CENTER_LAT, index.get(driverId).latitude());
+    }
+
+    @Test
+    void findWithinRadius_ShouldReturnClosestFirstAndExcludeFarDrivers() {
+        long now = System.currentTimeMillis();
+        UUID near = UUID.randomUUID();
+        UUID middle = UUID.randomUUID();
+        UUID far = UUID.randomUUID();
+        index.update(near, CENTER_LAT + 0.001, CENTER_LON, now);
+        index.update(middle, CENTER_LAT + 0.01, CENTER_LON, now);
+        index.update(far, CENTER_LAT + 0.2, CENTER_LON, now);
+
+        List<NearbyDriver> result = index.findWithinRadius(CENTER_LAT, CENTER_LON, 2000);
+
+        assertEquals(2, result.size());
+        assertEquals(near, result.get(0).position().driverId());
+        assertEquals(middle, result.get(1).position().driverId());
+    }
+
+    @Test
+    void findNearest_ShouldMatchBruteForce() {
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        List<DriverPosition> all = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            DriverPosition position = new DriverPosition(UUID.randomUUID(),
+                    CENTER_LAT + (random.nextDouble() - 0.5) * 0.4,
+                    CENTER_LON + (random.nextDouble() - 0.5) * 0.4,
+                    now);
+            all.add(position);
+            index.update(position.driverId(), position.latitude(), position.longitude(), now);
+        }
+
+        List<NearbyDriver> result = index.findNearest(CENTER_LAT, CENTER_LON, 10, 20000);
+
+        List<UUID> expected = all.stream()
+                .sorted((a, b) -> Double.compare(
+                        GeoUtils.haversineMeters(CENTER_LAT, CENTER_LON, a.latitude(), a.longitude()),
+                        GeoUtils.haversineMeters(CENTER_LAT, CENTER_LON, b.latitude(), b.longitude())))
+                .limit(10)
+                .map(DriverPosition::driverId)
+                .toList();
+        assertEquals(expected, result.stream().map(nearby -> nearby.position().driverId()).toList());
+    }
+
+    @Test
+    void findNearest_ShouldRespectMaxRadius() {
+        index.update(UUID.randomUUID(), CENTER_LAT + 0.1, CENTER_LON, System.currentTimeMillis());
+
+        assertTrue(index.findNearest(CENTER_LAT, CENTER_LON, 5, 1000).isEmpty());
+        assertEquals(1, index.findNearest(CENTER_LAT, CENTER_LON, 5, 20000).size());
+    }
+
+    @Test
+    void staleDrivers_ShouldBeSkippedAndEvicted() {
+        UUID stale = UUID.randomUUID();
+        UUID fresh = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        index.update(stale, CENTER_LAT, CENTER_LON, now - 120000);
+        index.update(fresh, CENTER_LAT, CENTER_LON, now);
+
+        List<NearbyDriver> result = index.findNearest(CENTER_LAT, CENTER_LON, 5, 1000);
+        assertEquals(1, result.size());
+        assertEquals(fresh, result.get(0).position().driverId());
+
+        index.evictStale();
+        assertNull(index.get(stale));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void remove_ShouldDropDriverFromQueries() {
+        UUID driverId = UUID.randomUUID();
+        index.update(driverId, CENTER_LAT, CENTER_LON, System.currentTimeMillis());
+
+        index.remove(driverId);
+
+        assertEquals(0, index.size());
+        assertTrue(index.findWithinRadius(CENTER_LAT, CENTER_LON, 1000).isEmpty());
+    }
+}
@@ -0,0 +1,127 @@
+package com.ridehailing.backend.repository;
+
+import com.ridehailing.backend.dispatch.DispatchEngine;
+import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.fare.FareEngine;
+import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.service.ActiveRideRegistry;
+import com.ridehailing.backend.service.RideDetailsCache;
+import com.ridehailing.backend.service.RideHistoryPage;
+import com.ridehailing.backend.service.RideService;
+import com.ridehailing.backend.service.TripBreadcrumbRecorder;
+import com.ridehailing.backend.service.WebSocketEventService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+class RideHistoryRepositoryTest {
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private RideService rideService;
+    private final UUID riderId = UUID.randomUUID();
+    private final UUID driverId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        rideService = new RideService(rideRepository, mock(WebSocketEventService.class),
+                mock(ActiveRideRegistry.class), mock(DispatchEngine.class), mock(RideDetailsCache.class),
+                mock(FareEngine.class), mock(TripBreadcrumbRecorder.class));
+    }
+
+    @Test
+    void riderHistory_ShouldPageNewestFirstWithoutGapsOrDuplicates() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (int i = 0; i < 25; i++) {
+            // Every three rides share a timestamp, so the ride_id tie-breaker is exercised across page edges
+            saveRide(riderId, null, base.plusMinutes(i / 3));
+        }
+        saveRide(UUID.randomUUID(), null, base.plusMinutes(30));
+
+        List<RideSummary> all = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            RideHistoryPage page = rideService.findRiderHistory(riderId, cursor, 10);
+            pageSizes.add(page.rides().size());
+            all.addAll(page.rides());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(10, 10, 5), pageSizes);
+        Set<UUID> seen = new HashSet<>();
+        for (int i = 0; i < all.size(); i++) {
+            assertTrue(seen.add(all.get(i).rideId()), "Duplicate ride across pages");
+            if (i > 0) {
+                RideSummary previous = all.get(i - 1);
+                RideSummary current = all.get(i);
+                int byTime = current.createdAt().compareTo(previous.createdAt());
+                // The database orders UUIDs as unsigned bytes, which matches their hex string order
+                boolean lowerId = current.rideId().toString().compareTo(previous.rideId().toString()) < 0;
+                assertTrue(byTime < 0 || (byTime == 0 && lowerId),
+                        "Rides must be ordered by (createdAt, rideId) descending");
+            }
+        }
+        assertEquals(25, seen.size());
+    }
+
+    @Test
+    void driverHistory_ShouldOnlyReturnDriversRides() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0);
+        saveRide(riderId, driverId, base);
+        saveRide(riderId, driverId, base.plusMinutes(5));
+        saveRide(riderId, UUID.randomUUID(), base.plusMinutes(10));
+
+        RideHistoryPage page = rideService.findDriverHistory(driverId, null, 20);
+
+        assertEquals(2, page.rides().size());
+        assertNull(page.nextCursor());
+        assertEquals(base.plusMinutes(5), page.rides().get(0).createdAt());
+        assertEquals(RideStatus.COMPLETED, page.rides().get(0).status());
+        assertEquals("MG Road", page.rides().get(0).pickupAddress());
+    }
+
+    @Test
+    void history_WithInvalidCursorOrLimit_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> rideService.findRiderHistory(riderId, "not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class, () -> rideService.findRiderHistory(riderId, null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> rideService.findRiderHistory(riderId, null, RideService.MAX_HISTORY_PAGE_SIZE + 1));
+    }
+
+    private void saveRide(UUID rider, UUID driver, LocalDateTime createdAt) {
+        Ride ride = new Ride();
+        ride.setRiderId(rider);
+        ride.setDriverId(driver);
+        ride.setPickupLatitude(new BigDecimal("12.9716"));
+        ride.setPickupLongitude(new BigDecimal("77.5946"));
+        ride.setPickupAddress("MG Road");
+        ride.setDropoffAddress("Hebbal");
+        ride.setStatus(RideStatus.COMPLETED);
+        Ride saved = rideRepository.saveAndFlush(ride);
+        // created_at is set on insert, so backdate it directly
+        entityManager.createNativeQuery("UPDATE rides SET created_at = ?1 WHERE ride_id = ?2")
+                .setParameter(1, createdAt)
+                .setParameter(2, saved.getRideId())
+                .executeUpdate();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,78 @@
+package com.ridehailing.backend.security;
+
+import com.ridehailing.backend.config.JwtProperties;
+import com.ridehailing.backend.model.Role;
+import com.ridehailing.backend.util.JwtUtil;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class JwtVerifierTest {
+
+    private JwtProperties properties;
+    private JwtUtil jwtUtil;
+    private JwtVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        properties = new JwtProperties();
+        properties.setSecret("mySecretKeyForJWTTokenGenerationThatMustBeAtLeast256BitsLongForHS256Algorithm");
+        properties.setExpiration(3600000);
+        jwtUtil = spy(new JwtUtil(properties));
+        verifier = new JwtVerifier(jwtUtil, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void verify_RepeatedToken_ShouldParseOnce() {
+        String token = jwtUtil.generateToken("user-1", Role.DRIVER);
+
+        JwtPrincipal first = verifier.verify(token);
+        JwtPrincipal second = verifier.verify(token);
+
+        assertSame(first, second);
+        assertEquals("user-1", first.getName());
+        assertEquals(Role.DRIVER, first.role());
+        assertTrue(first.expiresAtMillis() > System.currentTimeMillis());
+        verify(jwtUtil, times(1)).parsePrincipal(token);
+    }
+
+    @Test
+    void verify_TamperedToken_ShouldThrowAndNotBeCached() {
+        String token = jwtUtil.generateToken("user-1", Role.RIDER);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> verifier.verify(tampered));
+        assertThrows(JwtException.class, () -> verifier.verify(tampered));
+
+        verify(jwtUtil, times(2)).parsePrincipal(tampered);
+        assertEquals(0, verifier.size());
+    }
+
+    @Test
+    void verify_ExpiredToken_ShouldThrow() {
+        properties.setExpiration(-60000);
+        String token = new JwtUtil(properties).generateToken("user-1", Role.RIDER);
+
+        assertThrows(ExpiredJwtException.class, () -> verifier.verify(token));
+        assertEquals(0, verifier.size());
+    }
+
+    @Test
+    void verify_BeyondMaxSize_ShouldStayBounded() {
+        properties.setCacheMaxSize(10);
+        verifier = new JwtVerifier(jwtUtil, properties, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 100; i++) {
+            verifier.verify(jwtUtil.generateToken("user-" + i, Role.RIDER));
+        }
+
+        assertTrue(verifier.size() <= 10);
+    }
+}
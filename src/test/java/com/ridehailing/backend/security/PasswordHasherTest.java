@@ -0,0 +1,153 @@
+package com.ridehailing.backend.security;
+
+import com.ridehailing.backend.config.PasswordHashingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Stand-ins for request threads blocked on a hash
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (hasher != null) {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void encodeAndMatches_ShouldRoundTripAndRecordLatency() {
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(4), properties(4, 2, 8, 1000), meterRegistry);
+
+        String hash = hasher.encode("secret");
+
+        assertTrue(hasher.matches("secret", hash));
+        assertFalse(hasher.matches("wrong", hash));
+        assertEquals(1, meterRegistry.get("auth.password.hash").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("auth.password.hash").tag("operation", "match").timer().count());
+    }
+
+    @Test
+    void needsRehash_ShouldFlagHashesWithAnyOtherCost() {
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(5), properties(5, 1, 1, 1000), meterRegistry);
+
+        assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(4).encode("secret")));
+        assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(6).encode("secret")));
+        assertFalse(hasher.needsRehash(new BCryptPasswordEncoder(5).encode("secret")));
+        assertFalse(hasher.needsRehash("not-a-bcrypt-hash"));
+    }
+
+    @Test
+    void encode_WhenQueueIsFull_ShouldRejectImmediately() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        hasher = new PasswordHasher(blockingEncoder(release), properties(4, 1, 1, 60000), meterRegistry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("a"), callers);
+        awaitStarted(1);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("b"), callers);
+        awaitQueueSize(1);
+
+        assertThrows(RejectedExecutionException.class, () -> hasher.encode("c"));
+        assertEquals(1, meterRegistry.get("auth.password.rejected").tag("reason", "queue_full").counter().count());
+
+        release.countDown();
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void encode_WhenQueuedPastMaxWait_ShouldBeRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        hasher = new PasswordHasher(blockingEncoder(release), properties(4, 1, 4, 50), meterRegistry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("a"), callers);
+        awaitStarted(1);
+        CompletableFuture<String> stale = CompletableFuture.supplyAsync(() -> hasher.encode("b"), callers);
+        awaitQueueSize(1);
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        Exception failure = assertThrows(Exception.class, () -> stale.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        assertEquals(1, meterRegistry.get("auth.password.rejected").tag("reason", "queue_timeout").counter().count());
+    }
+
+    @Test
+    void encode_WhenHashOutlastsTheCallersBudget_ShouldBeRejected() {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordHashingProperties properties = properties(4, 1, 4, 50);
+        properties.setMaxHashMs(50);
+        hasher = new PasswordHasher(blockingEncoder(release), properties, meterRegistry);
+
+        try {
+            long started = System.nanoTime();
+            assertThrows(RejectedExecutionException.class, () -> hasher.encode("a"));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 2000);
+            assertEquals(1, meterRegistry.get("auth.password.rejected").tag("reason", "caller_timeout").counter().count());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private void awaitStarted(long expected) throws InterruptedException {
+        awaitUntil(() -> meterRegistry.get("auth.password.queue.wait").timer().count() >= expected);
+    }
+
+    private void awaitQueueSize(double expected) throws InterruptedException {
+        awaitUntil(() -> meterRegistry.get("auth.password.queue.size").gauge().value() == expected);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Hash requests did not reach the expected state");
+            Thread.sleep(5);
+        }
+    }
+
+    private static PasswordEncoder blockingEncoder(CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+    }
+
+    private static PasswordHashingProperties properties(int cost, int threads, int queueCapacity, long maxQueueWaitMs) {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setCost(cost);
+        properties.setThreads(threads);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setMaxQueueWaitMs(maxQueueWaitMs);
+        return properties;
+    }
+}
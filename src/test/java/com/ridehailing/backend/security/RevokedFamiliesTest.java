@@ -0,0 +1,88 @@
+package com.ridehailing.backend.security;
+
+import com.ridehailing.backend.config.JwtProperties;
+import com.ridehailing.backend.entity.RefreshTokenFamily;
+import com.ridehailing.backend.repository.RefreshTokenFamilyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RevokedFamiliesTest {
+
+    private RefreshTokenFamilyRepository repository;
+    private RevokedFamilies revokedFamilies;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setExpiration(3600000);
+        properties.setRevocationFilterCapacity(1000);
+        repository = mock(RefreshTokenFamilyRepository.class);
+        revokedFamilies = new RevokedFamilies(repository, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void isRevoked_ShouldOnlyReportRevokedFamilies() {
+        UUID revoked = UUID.randomUUID();
+        revokedFamilies.revoke(revoked, System.currentTimeMillis());
+
+        assertTrue(revokedFamilies.isRevoked(revoked));
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(revokedFamilies.isRevoked(UUID.randomUUID()));
+        }
+    }
+
+    @Test
+    void sync_ShouldPullRevocationsFromOtherInstances() {
+        RefreshTokenFamily family = new RefreshTokenFamily();
+        family.setFamilyId(UUID.randomUUID());
+        family.setRevokedAt(LocalDateTime.now());
+        when(repository.findByRevokedAtAfter(any())).thenReturn(List.of(family));
+
+        revokedFamilies.sync();
+
+        assertTrue(revokedFamilies.isRevoked(family.getFamilyId()));
+    }
+
+    @Test
+    void sync_ShouldForgetFamiliesOnceTheirAccessTokensExpired() {
+        UUID expired = UUID.randomUUID();
+        UUID recent = UUID.randomUUID();
+        revokedFamilies.revoke(expired, System.currentTimeMillis() - 3600000 - 1000);
+        revokedFamilies.revoke(recent, System.currentTimeMillis());
+        when(repository.findByRevokedAtAfter(any())).thenReturn(List.of());
+
+        revokedFamilies.sync();
+
+        assertEquals(1, revokedFamilies.size());
+        assertFalse(revokedFamilies.isRevoked(expired));
+        assertTrue(revokedFamilies.isRevoked(recent));
+    }
+
+    @Test
+    void bloomFilter_ShouldStayNearItsFalsePositiveRate() {
+        FamilyBloomFilter filter = new FamilyBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(UUID.randomUUID());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        assertEquals(7, filter.hashCount());
+        assertTrue(falsePositives < 2_000, "False positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,139 @@
+package com.ridehailing.backend.service;
+
+import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.repository.RideRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ActiveRideRegistryTest {
+
+    @Mock
+    private RideRepository rideRepository;
+
+    private ActiveRideRegistry registry;
+
+    private UUID driverId;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ActiveRideRegistry(rideRepository);
+        driverId = UUID.randomUUID();
+    }
+
+    @Test
+    void warmUp_ShouldLoadActiveRidesFromDatabase() {
+        Ride accepted = createRide(RideStatus.ACCEPTED);
+        when(rideRepository.findByStatusIn(any())).thenReturn(List.of(accepted));
+
+        registry.warmUp();
+
+        ActiveRideRegistry.ActiveRide activeRide = registry.getByDriverId(driverId);
+        assertNotNull(activeRide);
+        assertEquals(accepted.getRideId(), activeRide.rideId());
+        assertEquals(accepted.getRiderId(), activeRide.riderId());
+    }
+
+    @Test
+    void register_ShouldTrackStatusTransitions() {
+        Ride ride = createRide(RideStatus.ACCEPTED);
+        registry.register(ride);
+
+        ride.setStatus(RideStatus.IN_PROGRESS);
+        registry.register(ride);
+        assertEquals(RideStatus.IN_PROGRESS, registry.getByDriverId(driverId).status());
+
+        ride.setStatus(RideStatus.COMPLETED);
+        registry.register(ride);
+        assertNull(registry.getByDriverId(driverId));
+    }
+
+    @Test
+    void remove_ShouldNotDropNewerRideOfSameDriver() {
+        Ride oldRide = createRide(RideStatus.ACCEPTED);
+        Ride newRide = createRide(RideStatus.ACCEPTED);
+        registry.register(newRide);
+
+        registry.remove(driverId, oldRide.getRideId());
+
+        assertEquals(newRide.getRideId(), registry.getByDriverId(driverId).rideId());
+    }
+
+    @Test
+    void register_AcceptArrivingAfterStart_ShouldKeepTheRideInProgress() {
+        Ride accepted = createRide(RideStatus.ACCEPTED);
+        Ride started = copyOf(accepted, RideStatus.IN_PROGRESS);
+
+        registry.register(started);
+        registry.register(accepted);
+
+        assertEquals(RideStatus.IN_PROGRESS, registry.getByDriverId(driverId).status());
+    }
+
+    @Test
+    void register_StartArrivingAfterComplete_ShouldNotReviveTheRide() {
+        Ride accepted = createRide(RideStatus.ACCEPTED);
+        Ride started = copyOf(accepted, RideStatus.IN_PROGRESS);
+        registry.register(accepted);
+
+        registry.remove(driverId, accepted.getRideId());
+        registry.register(started);
+        registry.register(accepted);
+
+        assertNull(registry.getByDriverId(driverId));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void register_AfterCancelOfAnotherRide_ShouldTrackTheDriversNextRide() {
+        Ride cancelled = createRide(RideStatus.ACCEPTED);
+        registry.register(cancelled);
+        registry.remove(driverId, cancelled.getRideId());
+
+        Ride next = createRide(RideStatus.ACCEPTED);
+        registry.register(next);
+
+        assertEquals(next.getRideId(), registry.getByDriverId(driverId).rideId());
+    }
+
+    @Test
+    void purgeFinishedRides_ShouldOnlyForgetExpiredTombstones() {
+        Ride ride = createRide(RideStatus.ACCEPTED);
+        registry.remove(driverId, ride.getRideId());
+
+        registry.purgeFinishedRides(System.currentTimeMillis());
+        registry.register(ride);
+        assertNull(registry.getByDriverId(driverId));
+
+        registry.purgeFinishedRides(Long.MAX_VALUE);
+        registry.register(ride);
+        assertEquals(ride.getRideId(), registry.getByDriverId(driverId).rideId());
+    }
+
+    private Ride copyOf(Ride ride, RideStatus status) {
+        Ride copy = createRide(status);
+        copy.setRideId(ride.getRideId());
+        copy.setRiderId(ride.getRiderId());
+        return copy;
+    }
+
+    private Ride createRide(RideStatus status) {
+        Ride ride = new Ride();
+        ride.setRideId(UUID.randomUUID());
+        ride.setRiderId(UUID.randomUUID());
+        ride.setDriverId(driverId);
+        ride.setStatus(status);
+        return ride;
+    }
+}
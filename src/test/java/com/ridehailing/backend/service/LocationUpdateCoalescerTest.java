@@ -0,0 +1,133 @@
+package com.ridehailing.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ridehailing.backend.config.LocationProperties;
+import com.ridehailing.backend.geo.CellSpeedEtaEstimator;
+import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.websocket.EncodedFrame;
+import com.ridehailing.backend.websocket.InboundMessage;
+import com.ridehailing.backend.websocket.WebSocketHandler;
+import com.ridehailing.backend.websocket.dto.DriverLocationUpdateEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LocationUpdateCoalescerTest {
+
+    // About 11 m of latitude
+    private static final double STEP = 0.0001;
+    private static final long NO_TS = InboundMessage.NO_TIMESTAMP;
+
+    @Mock
+    private WebSocketHandler webSocketHandler;
+
+    @Mock
+    private ActiveRideRegistry activeRideRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private SimpleMeterRegistry meterRegistry;
+    private LocationUpdateCoalescer coalescer;
+    private ActiveRideRegistry.ActiveRide ride;
+
+    @BeforeEach
+    void setUp() {
+        LocationProperties properties = new LocationProperties();
+        properties.setCoalesceIntervalMs(1000);
+        properties.setCoalesceMinMoveMeters(3.0);
+        properties.setCoalesceImmediateMoveMeters(50.0);
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new LocationUpdateCoalescer(activeRideRegistry, webSocketHandler, objectMapper,
+                new CellSpeedEtaEstimator(properties), properties, meterRegistry);
+        // Dropoff about 5.6 km north of the first fix
+        ride = new ActiveRideRegistry.ActiveRide(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                RideStatus.IN_PROGRESS, 39.99, -74.0, 40.05, -74.0);
+    }
+
+    @Test
+    void firstFix_ShouldBeSentImmediately() throws Exception {
+        coalescer.submit(ride, 40.0, -74.0, NO_TS, 0);
+
+        List<DriverLocationUpdateEvent> sent = sentEvents(1);
+        assertEquals(ride.rideId(), sent.get(0).getRideId());
+        assertEquals(40.0, sent.get(0).getDriverLocation().getLatitude());
+        // ~5.6 km * 1.3 road factor at the 8.3 m/s default speed
+        assertEquals(15, sent.get(0).getEstimatedArrivalTime());
+    }
+
+    @Test
+    void burstWithinInterval_ShouldCollapseToLatestFix() throws Exception {
+        when(activeRideRegistry.getByDriverId(ride.driverId())).thenReturn(ride);
+        coalescer.submit(ride, 40.0, -74.0, NO_TS, 0);
+        coalescer.submit(ride, 40.0 + STEP, -74.0, NO_TS, 200);
+        coalescer.submit(ride, 40.0 + 2 * STEP, -74.0, NO_TS, 400);
+        coalescer.submit(ride, 40.0 + 3 * STEP, -74.0, NO_TS, 600);
+
+        coalescer.flush(800);
+        sentEvents(1);
+
+        coalescer.flush(1000);
+        List<DriverLocationUpdateEvent> sent = sentEvents(2);
+        assertEquals(40.0 + 3 * STEP, sent.get(1).getDriverLocation().getLatitude(), 1e-12);
+        assertEquals(2.0, meterRegistry.get("location.updates.coalesced").counter().count());
+    }
+
+    @Test
+    void nearDuplicate_ShouldBeDroppedAndCancelPendingFix() throws Exception {
+        when(activeRideRegistry.getByDriverId(ride.driverId())).thenReturn(ride);
+        coalescer.submit(ride, 40.0, -74.0, NO_TS, 0);
+        coalescer.submit(ride, 40.0 + STEP, -74.0, NO_TS, 200);
+        // Back to within a metre of what the rider already sees
+        coalescer.submit(ride, 40.000005, -74.0, NO_TS, 400);
+
+        coalescer.flush(2000);
+
+        sentEvents(1);
+        assertEquals(1.0, meterRegistry.get("location.updates.duplicates").counter().count());
+    }
+
+    @Test
+    void largeMove_ShouldBypassInterval() throws Exception {
+        coalescer.submit(ride, 40.0, -74.0, NO_TS, 0);
+        coalescer.submit(ride, 40.0 + 10 * STEP, -74.0, NO_TS, 100);
+
+        sentEvents(2);
+    }
+
+    @Test
+    void flush_ShouldForgetRidesThatAreNoLongerActive() {
+        coalescer.submit(ride, 40.0, -74.0, NO_TS, 0);
+        coalescer.submit(ride, 40.0 + STEP, -74.0, NO_TS, 200);
+        when(activeRideRegistry.getByDriverId(ride.driverId())).thenReturn(null);
+
+        coalescer.flush(2000);
+
+        assertEquals(0, coalescer.trackedRides());
+        verify(webSocketHandler, times(1)).sendToUser(any(), any(EncodedFrame.class));
+    }
+
+    private List<DriverLocationUpdateEvent> sentEvents(int expected) throws Exception {
+        ArgumentCaptor<EncodedFrame> captor = ArgumentCaptor.forClass(EncodedFrame.class);
+        verify(webSocketHandler, times(expected)).sendToUser(eq(ride.riderId()), captor.capture());
+        List<DriverLocationUpdateEvent> events = new ArrayList<>();
+        for (EncodedFrame frame : captor.getAllValues()) {
+            assertTrue(frame.isDroppable());
+            events.add(objectMapper.readValue(frame.getMessage().getPayload(), DriverLocationUpdateEvent.class));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,118 @@
+package com.ridehailing.backend.service;
+
+import com.ridehailing.backend.entity.RoleEntity;
+import com.ridehailing.backend.entity.User;
+import com.ridehailing.backend.entity.Vehicle;
+import com.ridehailing.backend.model.Role;
+import com.ridehailing.backend.repository.RoleRepository;
+import com.ridehailing.backend.repository.VehicleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "jwt.secret=mySecretKeyForJWTTokenGenerationThatMustBeAtLeast256BitsLongForHS256Algorithm",
+        "jwt.expiration=3600000",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "password-hashing.cost=4"
+})
+class RegistrationIntegrationTest {
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (Role role : Role.values()) {
+            if (roleRepository.findByRoleName(role.name()).isEmpty()) {
+                roleRepository.save(new RoleEntity(role.name(), role.name()));
+            }
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void registerDriver_ShouldCheckOnceAndInsertEachRowOnce() {
+        // Warm the role cache for roles seeded after startup
+        registerDriver(unique());
+        String suffix = unique();
+
+        statistics.clear();
+        User user = registerDriver(suffix);
+
+        // Conflict check, then the user, driver and vehicle inserts
+        assertEquals(4, statistics.getPrepareStatementCount());
+        List<Vehicle> vehicles = vehicleRepository.findByDriver_DriverId(user.getUserId());
+        assertEquals(1, vehicles.size());
+        assertEquals("Toyota", vehicles.get(0).getVehicleMake());
+        assertEquals("Prius", vehicles.get(0).getVehicleModel());
+    }
+
+    @Test
+    void registerRider_ShouldCheckOnceAndInsertEachRowOnce() {
+        authenticationService.registerRider(unique() + "@rider.test", "secret", unique(), "Asha", "Rao");
+        String suffix = unique();
+
+        statistics.clear();
+        authenticationService.registerRider(suffix + "@rider.test", "secret", suffix, "Asha", "Rao");
+
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void registerDriver_TakenFields_ShouldNameTheFirstConflict() {
+        String suffix = unique();
+        registerDriver(suffix);
+
+        IllegalArgumentException email = assertThrows(IllegalArgumentException.class, () -> registerDriver(suffix));
+        assertEquals("Email already registered", email.getMessage());
+
+        IllegalArgumentException plate = assertThrows(IllegalArgumentException.class,
+                () -> authenticationService.registerDriver(unique() + "@driver.test", "secret", unique(), "Ravi",
+                        "Kumar", "DL-" + unique(), "Toyota Prius", "KA-" + suffix));
+        assertEquals("License plate already registered", plate.getMessage());
+    }
+
+    @Test
+    void authenticate_ShouldResolveRoleFromCache() {
+        String suffix = unique();
+        registerDriver(suffix);
+
+        User user = authenticationService.authenticate(suffix + "@driver.test", "secret");
+
+        assertEquals(Role.DRIVER, authenticationService.getRoleEnum(user));
+    }
+
+    private User registerDriver(String suffix) {
+        return authenticationService.registerDriver(suffix + "@driver.test", "secret", suffix, "Ravi", "Kumar",
+                "DL-" + suffix, "Toyota Prius", "KA-" + suffix);
+    }
+
+    private static String unique() {
+        return UUID.randomUUID().toString().substring(0, 12);
+    }
+}
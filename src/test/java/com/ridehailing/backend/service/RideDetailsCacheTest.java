@@ -0,0 +1,111 @@
+package com.ridehailing.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.backend.config.RideDetailsCacheProperties;
+import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.repository.RideRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RideDetailsCacheTest {
+
+    @Mock
+    private RideRepository rideRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RideDetailsCacheProperties properties;
+    private RideDetailsCache cache;
+    private Ride ride;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new RideDetailsCacheProperties();
+        cache = new RideDetailsCache(rideRepository, new ObjectMapper(), properties, meterRegistry);
+        ride = new Ride();
+        ride.setRideId(UUID.randomUUID());
+        ride.setRiderId(UUID.randomUUID());
+        ride.setPickupLatitude(new BigDecimal("12.9716"));
+        ride.setPickupLongitude(new BigDecimal("77.5946"));
+        ride.setPickupAddress("MG Road");
+        ride.setDropoffLatitude(new BigDecimal("13.0358"));
+        ride.setDropoffLongitude(new BigDecimal("77.5970"));
+        ride.setDropoffAddress("Hebbal");
+        ride.setStatus(RideStatus.PENDING);
+    }
+
+    @Test
+    void get_RepeatedPolls_ShouldReadDatabaseOnceAndRecordHits() {
+        when(rideRepository.findById(ride.getRideId())).thenReturn(Optional.of(ride));
+
+        RideDetailsCache.RenderedRide first = cache.get(ride.getRideId()).orElseThrow();
+        RideDetailsCache.RenderedRide second = cache.get(ride.getRideId()).orElseThrow();
+
+        assertSame(first, second);
+        verify(rideRepository, times(1)).findById(ride.getRideId());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "ride.details").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "ride.details").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void invalidate_ShouldRenderNewStateWithNewEtag() {
+        when(rideRepository.findById(ride.getRideId())).thenReturn(Optional.of(ride));
+        RideDetailsCache.RenderedRide pending = cache.get(ride.getRideId()).orElseThrow();
+
+        ride.setStatus(RideStatus.ACCEPTED);
+        ride.setDriverId(UUID.randomUUID());
+        assertSame(pending, cache.get(ride.getRideId()).orElseThrow());
+
+        cache.invalidate(ride.getRideId());
+        RideDetailsCache.RenderedRide accepted = cache.get(ride.getRideId()).orElseThrow();
+
+        assertNotEquals(pending.etag(), accepted.etag());
+        assertTrue(new String(accepted.body()).contains("\"status\":\"ACCEPTED\""));
+    }
+
+    @Test
+    void get_UnknownRide_ShouldNotBeCached() {
+        UUID unknown = UUID.randomUUID();
+        when(rideRepository.findById(unknown)).thenReturn(Optional.empty());
+
+        assertTrue(cache.get(unknown).isEmpty());
+        assertTrue(cache.get(unknown).isEmpty());
+
+        verify(rideRepository, times(2)).findById(unknown);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_BeyondMaxSize_ShouldEvict() {
+        properties.setMaxSize(10);
+        cache = new RideDetailsCache(rideRepository, new ObjectMapper(), properties, new SimpleMeterRegistry());
+        when(rideRepository.findById(any())).thenAnswer(invocation -> {
+            ride.setRideId(invocation.getArgument(0));
+            return Optional.of(ride);
+        });
+
+        for (int i = 0; i < 100; i++) {
+            cache.get(UUID.randomUUID());
+        }
+
+        assertTrue(cache.size() <= 10);
+    }
+}
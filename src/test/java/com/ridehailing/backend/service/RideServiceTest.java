@@ -1,11 +1,18 @@
 package com.ridehailing.backend.service;
 
+import com.ridehailing.backend.config.FareProperties;
+import com.ridehailing.backend.config.LocationProperties;
+import com.ridehailing.backend.dispatch.DispatchEngine;
 import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.fare.FareEngine;
+import com.ridehailing.backend.geo.CellSpeedEtaEstimator;
+import com.ridehailing.backend.geo.DriverLocationIndex;
 import com.ridehailing.backend.model.RideStatus;
 import com.ridehailing.backend.repository.RideRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -13,12 +20,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +40,18 @@ class RideServiceTest {
     @Mock
     private WebSocketEventService webSocketEventService;
 
+    @Mock
+    private ActiveRideRegistry activeRideRegistry;
+
+    @Mock
+    private DispatchEngine dispatchEngine;
+
+    @Mock
+    private RideDetailsCache rideDetailsCache;
+
+    @Mock
+    private TripBreadcrumbRecorder tripBreadcrumbRecorder;
+
     private RideService rideService;
 
     private UUID riderId;
@@ -39,7 +61,11 @@ class RideServiceTest {
 
     @BeforeEach
     void setUp() {
-        rideService = new RideService(rideRepository, webSocketEventService);
+        LocationProperties locationProperties = new LocationProperties();
+        FareEngine fareEngine = new FareEngine(new FareProperties(), new CellSpeedEtaEstimator(locationProperties),
+                new DriverLocationIndex(locationProperties), activeRideRegistry, dispatchEngine);
+        rideService = new RideService(rideRepository, webSocketEventService, activeRideRegistry, dispatchEngine,
+                rideDetailsCache, fareEngine, tripBreadcrumbRecorder);
         riderId = UUID.randomUUID();
         driverId = UUID.randomUUID();
         vehicleId = UUID.randomUUID();
@@ -72,22 +98,61 @@ class RideServiceTest {
     }
 
     @Test
-    void acceptRide_ShouldUpdateStatusToAccepted() {
-        Ride ride = createPendingRide();
+    void createRide_ShouldStoreFareQuote() {
+        when(rideRepository.save(any(Ride.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Ride result = rideService.createRide(riderId, new BigDecimal("40.7128"), new BigDecimal("-74.0060"),
+                "123 Main St", new BigDecimal("40.7589"), new BigDecimal("-73.9851"), "456 Park Ave");
+
+        // ~5.4 km straight line, ~7 km by road
+        double km = result.getEstimatedDistance().doubleValue();
+        assertTrue(km > 6.8 && km < 7.2, "Unexpected route distance " + km);
+        assertTrue(result.getEstimatedDuration() > 0);
+        assertEquals(0, BigDecimal.ONE.compareTo(result.getSurgeMultiplier()));
+        assertTrue(result.getEstimatedFare().compareTo(new BigDecimal("10.00")) > 0);
+    }
+
+    @Test
+    void acceptRide_ShouldAcceptIfPendingForThisDriverAndReturnTheReloadedRide() {
+        Ride ride = createAcceptedRide();
+        when(rideRepository.acceptIfPending(eq(rideId), eq(driverId), eq(vehicleId), any())).thenReturn(1);
         when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
-        when(rideRepository.save(any(Ride.class))).thenReturn(ride);
+        LocalDateTime before = LocalDateTime.now();
 
         Ride result = rideService.acceptRide(rideId, driverId, vehicleId);
 
-        assertEquals(RideStatus.ACCEPTED, result.getStatus());
-        assertEquals(driverId, result.getDriverId());
-        assertEquals(vehicleId, result.getVehicleId());
-        assertNotNull(result.getAcceptedAt());
-        verify(rideRepository).save(ride);
+        ArgumentCaptor<LocalDateTime> acceptedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(rideRepository).acceptIfPending(eq(rideId), eq(driverId), eq(vehicleId), acceptedAt.capture());
+        assertBetween(before, acceptedAt.getValue(), LocalDateTime.now());
+        assertSame(ride, result);
+        verify(rideRepository, never()).save(any(Ride.class));
+    }
+
+    @Test
+    void acceptRide_ShouldRegisterActiveRide() {
+        Ride ride = createAcceptedRide();
+        when(rideRepository.acceptIfPending(eq(rideId), eq(driverId), eq(vehicleId), any())).thenReturn(1);
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
+
+        rideService.acceptRide(rideId, driverId, vehicleId);
+
+        verify(activeRideRegistry).register(ride);
+    }
+
+    @Test
+    void acceptRide_ShouldInvalidateCachedDetails() {
+        Ride ride = createAcceptedRide();
+        when(rideRepository.acceptIfPending(eq(rideId), eq(driverId), eq(vehicleId), any())).thenReturn(1);
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
+
+        rideService.acceptRide(rideId, driverId, vehicleId);
+
+        verify(rideDetailsCache).invalidate(rideId);
     }
 
     @Test
     void acceptRide_WhenRideNotFound_ShouldThrowException() {
+        when(rideRepository.acceptIfPending(eq(rideId), eq(driverId), eq(vehicleId), any())).thenReturn(0);
         when(rideRepository.findById(rideId)).thenReturn(Optional.empty());
 
         assertThrows(IllegalArgumentException.class, () -> {
@@ -98,6 +163,7 @@ class RideServiceTest {
     @Test
     void acceptRide_WhenNotPending_ShouldThrowException() {
         Ride ride = createAcceptedRide();
+        when(rideRepository.acceptIfPending(eq(rideId), eq(driverId), eq(vehicleId), any())).thenReturn(0);
         when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
 
         assertThrows(IllegalStateException.class, () -> {
@@ -106,21 +172,25 @@ class RideServiceTest {
     }
 
     @Test
-    void startRide_ShouldUpdateStatusToInProgress() {
-        Ride ride = createAcceptedRide();
-        when(rideRepository.findByRideIdAndDriverId(rideId, driverId)).thenReturn(Optional.of(ride));
-        when(rideRepository.save(any(Ride.class))).thenReturn(ride);
+    void startRide_ShouldStartIfAcceptedByThisDriverAndReturnTheReloadedRide() {
+        Ride ride = createInProgressRide();
+        when(rideRepository.startIfAccepted(eq(rideId), eq(driverId), any())).thenReturn(1);
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
+        LocalDateTime before = LocalDateTime.now();
 
         Ride result = rideService.startRide(rideId, driverId);
 
-        assertEquals(RideStatus.IN_PROGRESS, result.getStatus());
-        assertNotNull(result.getStartedAt());
-        verify(rideRepository).save(ride);
+        ArgumentCaptor<LocalDateTime> startedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(rideRepository).startIfAccepted(eq(rideId), eq(driverId), startedAt.capture());
+        assertBetween(before, startedAt.getValue(), LocalDateTime.now());
+        assertSame(ride, result);
+        verify(rideRepository, never()).save(any(Ride.class));
     }
 
     @Test
     void startRide_WhenNotAccepted_ShouldThrowException() {
         Ride ride = createPendingRide();
+        when(rideRepository.startIfAccepted(eq(rideId), eq(driverId), any())).thenReturn(0);
         when(rideRepository.findByRideIdAndDriverId(rideId, driverId)).thenReturn(Optional.of(ride));
 
         assertThrows(IllegalStateException.class, () -> {
@@ -130,20 +200,35 @@ class RideServiceTest {
 
     @Test
     void completeRide_ShouldUpdateStatusToCompleted() {
-        Ride ride = createInProgressRide();
-        when(rideRepository.findByRideIdAndDriverId(rideId, driverId)).thenReturn(Optional.of(ride));
-        when(rideRepository.save(any(Ride.class))).thenReturn(ride);
+        Ride ride = createCompletedRide();
+        when(rideRepository.completeIfInProgress(eq(rideId), eq(driverId), any())).thenReturn(1);
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
 
         Ride result = rideService.completeRide(rideId, driverId);
 
         assertEquals(RideStatus.COMPLETED, result.getStatus());
         assertNotNull(result.getCompletedAt());
-        verify(rideRepository).save(ride);
+        // Minimum fare: the fixture ride has no distance and a zero-minute trip
+        assertEquals(0, new BigDecimal("5.00").compareTo(result.getActualFare()));
+        assertEquals(0, result.getActualDuration());
+        verify(rideRepository).completeIfInProgress(eq(rideId), eq(driverId), any());
+    }
+
+    @Test
+    void completeRide_ShouldRemoveActiveRide() {
+        Ride ride = createCompletedRide();
+        when(rideRepository.completeIfInProgress(eq(rideId), eq(driverId), any())).thenReturn(1);
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
+
+        rideService.completeRide(rideId, driverId);
+
+        verify(activeRideRegistry).remove(driverId, rideId);
     }
 
     @Test
     void completeRide_WhenNotInProgress_ShouldThrowException() {
         Ride ride = createAcceptedRide();
+        when(rideRepository.completeIfInProgress(eq(rideId), eq(driverId), any())).thenReturn(0);
         when(rideRepository.findByRideIdAndDriverId(rideId, driverId)).thenReturn(Optional.of(ride));
 
         assertThrows(IllegalStateException.class, () -> {
@@ -152,40 +237,53 @@ class RideServiceTest {
     }
 
     @Test
-    void cancelRide_ByRider_ShouldUpdateStatusToCancelled() {
-        Ride ride = createPendingRide();
+    void cancelRide_ByRider_ShouldCancelAsRiderFromAnyOpenStatus() {
         String reason = "Change of plans";
+        Ride ride = createCancelledRide();
+        when(rideRepository.cancelByRider(eq(rideId), eq(riderId), eq(reason), any(), any())).thenReturn(1);
         when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
-        when(rideRepository.save(any(Ride.class))).thenReturn(ride);
+        LocalDateTime before = LocalDateTime.now();
 
         Ride result = rideService.cancelRide(rideId, riderId, true, reason);
 
-        assertEquals(RideStatus.CANCELLED, result.getStatus());
-        assertEquals("RIDER", result.getCancelledBy());
-        assertEquals(reason, result.getCancellationReason());
-        assertNotNull(result.getCancelledAt());
-        verify(rideRepository).save(ride);
+        ArgumentCaptor<LocalDateTime> cancelledAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<RideStatus>> cancellable = ArgumentCaptor.forClass(Collection.class);
+        verify(rideRepository).cancelByRider(eq(rideId), eq(riderId), eq(reason), cancelledAt.capture(),
+                cancellable.capture());
+        assertBetween(before, cancelledAt.getValue(), LocalDateTime.now());
+        assertEquals(Set.of(RideStatus.PENDING, RideStatus.ACCEPTED, RideStatus.IN_PROGRESS),
+                Set.copyOf(cancellable.getValue()));
+        assertSame(ride, result);
+        verify(rideRepository, never()).cancelByDriver(any(), any(), any(), any(), any());
     }
 
     @Test
-    void cancelRide_ByDriver_ShouldUpdateStatusToCancelled() {
-        Ride ride = createAcceptedRide();
+    void cancelRide_ByDriver_ShouldCancelAsDriverFromAnyOpenStatus() {
         String reason = "Unable to reach location";
+        Ride ride = createCancelledRide();
+        when(rideRepository.cancelByDriver(eq(rideId), eq(driverId), eq(reason), any(), any())).thenReturn(1);
         when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
-        when(rideRepository.save(any(Ride.class))).thenReturn(ride);
+        LocalDateTime before = LocalDateTime.now();
 
         Ride result = rideService.cancelRide(rideId, driverId, false, reason);
 
-        assertEquals(RideStatus.CANCELLED, result.getStatus());
-        assertEquals("DRIVER", result.getCancelledBy());
-        assertEquals(reason, result.getCancellationReason());
-        assertNotNull(result.getCancelledAt());
-        verify(rideRepository).save(ride);
+        ArgumentCaptor<LocalDateTime> cancelledAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<RideStatus>> cancellable = ArgumentCaptor.forClass(Collection.class);
+        verify(rideRepository).cancelByDriver(eq(rideId), eq(driverId), eq(reason), cancelledAt.capture(),
+                cancellable.capture());
+        assertBetween(before, cancelledAt.getValue(), LocalDateTime.now());
+        assertEquals(Set.of(RideStatus.PENDING, RideStatus.ACCEPTED, RideStatus.IN_PROGRESS),
+                Set.copyOf(cancellable.getValue()));
+        assertSame(ride, result);
+        verify(rideRepository, never()).cancelByRider(any(), any(), any(), any(), any());
     }
 
     @Test
     void cancelRide_WhenCompleted_ShouldThrowException() {
         Ride ride = createCompletedRide();
+        when(rideRepository.cancelByRider(eq(rideId), eq(riderId), any(), any(), any())).thenReturn(0);
         when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
 
         assertThrows(IllegalStateException.class, () -> {
@@ -196,6 +294,7 @@ class RideServiceTest {
     @Test
     void cancelRide_WhenAlreadyCancelled_ShouldThrowException() {
         Ride ride = createCancelledRide();
+        when(rideRepository.cancelByRider(eq(rideId), eq(riderId), any(), any(), any())).thenReturn(0);
         when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
 
         assertThrows(IllegalStateException.class, () -> {
@@ -203,6 +302,17 @@ class RideServiceTest {
         });
     }
 
+    @Test
+    void cancelRide_ByDriverOnUnassignedRide_ShouldThrowException() {
+        Ride ride = createPendingRide();
+        when(rideRepository.cancelByDriver(eq(rideId), eq(driverId), any(), any(), any())).thenReturn(0);
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            rideService.cancelRide(rideId, driverId, false, "Reason");
+        });
+    }
+
     @Test
     void findByRiderId_ShouldReturnRides() {
         List<Ride> rides = new ArrayList<>();
@@ -227,10 +337,16 @@ class RideServiceTest {
         verify(rideRepository).findByRiderIdAndStatus(riderId, RideStatus.PENDING);
     }
 
+    private static void assertBetween(LocalDateTime earliest, LocalDateTime actual, LocalDateTime latest) {
+        assertFalse(actual.isBefore(earliest) || actual.isAfter(latest), actual + " not in [" + earliest + ", " + latest + "]");
+    }
+
     private Ride createPendingRide() {
         Ride ride = new Ride();
         ride.setRideId(rideId);
         ride.setRiderId(riderId);
+        ride.setPickupLatitude(new BigDecimal("40.7128"));
+        ride.setPickupLongitude(new BigDecimal("-74.0060"));
         ride.setStatus(RideStatus.PENDING);
         ride.setCreatedAt(LocalDateTime.now());
         return ride;
@@ -1,7 +1,13 @@
 package com.ridehailing.backend.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.backend.config.FareProperties;
+import com.ridehailing.backend.config.LocationProperties;
+import com.ridehailing.backend.dispatch.DispatchEngine;
 import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.fare.FareEngine;
+import com.ridehailing.backend.geo.CellSpeedEtaEstimator;
+import com.ridehailing.backend.geo.DriverLocationIndex;
 import com.ridehailing.backend.model.RideStatus;
 import com.ridehailing.backend.repository.RideRepository;
 import com.ridehailing.backend.websocket.WebSocketHandler;
@@ -20,6 +26,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +38,18 @@ class RideServiceWebSocketEventTest {
     @Mock
     private WebSocketEventService webSocketEventService;
 
+    @Mock
+    private ActiveRideRegistry activeRideRegistry;
+
+    @Mock
+    private DispatchEngine dispatchEngine;
+
+    @Mock
+    private RideDetailsCache rideDetailsCache;
+
+    @Mock
+    private TripBreadcrumbRecorder tripBreadcrumbRecorder;
+
     private RideService rideService;
     private ObjectMapper objectMapper;
 
@@ -42,7 +61,11 @@ class RideServiceWebSocketEventTest {
     @BeforeEach
     void setUp() {
         objectMapper = new ObjectMapper();
-        rideService = new RideService(rideRepository, webSocketEventService);
+        LocationProperties locationProperties = new LocationProperties();
+        FareEngine fareEngine = new FareEngine(new FareProperties(), new CellSpeedEtaEstimator(locationProperties),
+                new DriverLocationIndex(locationProperties), activeRideRegistry, dispatchEngine);
+        rideService = new RideService(rideRepository, webSocketEventService, activeRideRegistry, dispatchEngine,
+                rideDetailsCache, fareEngine, tripBreadcrumbRecorder);
         
         riderId = UUID.randomUUID();
         driverId = UUID.randomUUID();
@@ -52,15 +75,13 @@ class RideServiceWebSocketEventTest {
 
     @Test
     void acceptRide_ShouldEmitStatusUpdateEvent() {
-        Ride ride = createPendingRide();
-        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
-        
         Ride savedRide = createPendingRide();
         savedRide.setDriverId(driverId);
         savedRide.setVehicleId(vehicleId);
         savedRide.setStatus(RideStatus.ACCEPTED);
         savedRide.setAcceptedAt(LocalDateTime.now());
-        when(rideRepository.save(any(Ride.class))).thenReturn(savedRide);
+        when(rideRepository.acceptIfPending(eq(rideId), eq(driverId), eq(vehicleId), any())).thenReturn(1);
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(savedRide));
 
         rideService.acceptRide(rideId, driverId, vehicleId);
 
@@ -74,13 +95,11 @@ class RideServiceWebSocketEventTest {
 
     @Test
     void startRide_ShouldEmitStatusUpdateEvent() {
-        Ride ride = createAcceptedRide();
-        when(rideRepository.findByRideIdAndDriverId(rideId, driverId)).thenReturn(Optional.of(ride));
-        
         Ride savedRide = createAcceptedRide();
         savedRide.setStatus(RideStatus.IN_PROGRESS);
         savedRide.setStartedAt(LocalDateTime.now());
-        when(rideRepository.save(any(Ride.class))).thenReturn(savedRide);
+        when(rideRepository.startIfAccepted(eq(rideId), eq(driverId), any())).thenReturn(1);
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(savedRide));
 
         rideService.startRide(rideId, driverId);
 
@@ -94,13 +113,11 @@ class RideServiceWebSocketEventTest {
 
     @Test
     void completeRide_ShouldEmitStatusUpdateEvent() {
-        Ride ride = createInProgressRide();
-        when(rideRepository.findByRideIdAndDriverId(rideId, driverId)).thenReturn(Optional.of(ride));
-        
         Ride savedRide = createInProgressRide();
         savedRide.setStatus(RideStatus.COMPLETED);
         savedRide.setCompletedAt(LocalDateTime.now());
-        when(rideRepository.save(any(Ride.class))).thenReturn(savedRide);
+        when(rideRepository.completeIfInProgress(eq(rideId), eq(driverId), any())).thenReturn(1);
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(savedRide));
 
         rideService.completeRide(rideId, driverId);
 
@@ -114,15 +131,13 @@ class RideServiceWebSocketEventTest {
 
     @Test
     void cancelRide_ShouldEmitStatusUpdateEvent() {
-        Ride ride = createPendingRide();
-        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride));
-        
         Ride savedRide = createPendingRide();
         savedRide.setStatus(RideStatus.CANCELLED);
         savedRide.setCancelledBy("RIDER");
         savedRide.setCancellationReason("Change of plans");
         savedRide.setCancelledAt(LocalDateTime.now());
-        when(rideRepository.save(any(Ride.class))).thenReturn(savedRide);
+        when(rideRepository.cancelByRider(eq(rideId), eq(riderId), eq("Change of plans"), any(), any())).thenReturn(1);
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(savedRide));
 
         rideService.cancelRide(rideId, riderId, true, "Change of plans");
 
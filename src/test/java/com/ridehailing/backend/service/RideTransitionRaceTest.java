@@ -0,0 +1,123 @@
+package com.ridehailing.backend.service;
+
+import com.ridehailing.backend.entity.Ride;
+import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.repository.RideRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "jwt.secret=mySecretKeyForJWTTokenGenerationThatMustBeAtLeast256BitsLongForHS256Algorithm",
+        "jwt.expiration=3600000"
+})
+class RideTransitionRaceTest {
+
+    private static final int THREADS = 200;
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Test
+    void acceptRide_ConcurrentDrivers_ShouldHaveExactlyOneWinner() throws Exception {
+        Ride ride = createRide();
+        List<UUID> drivers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            drivers.add(UUID.randomUUID());
+        }
+        Queue<UUID> winners = new ConcurrentLinkedQueue<>();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        race(i -> () -> {
+            try {
+                rideService.acceptRide(ride.getRideId(), drivers.get(i), UUID.randomUUID());
+                winners.add(drivers.get(i));
+            } catch (IllegalStateException e) {
+                // Lost the race
+            } catch (Throwable t) {
+                unexpected.add(t);
+            }
+            return null;
+        });
+
+        assertTrue(unexpected.isEmpty(), () -> "Unexpected failures: " + unexpected);
+        assertEquals(1, winners.size());
+        Ride stored = rideRepository.findById(ride.getRideId()).orElseThrow();
+        assertEquals(RideStatus.ACCEPTED, stored.getStatus());
+        assertEquals(winners.peek(), stored.getDriverId());
+    }
+
+    @Test
+    void completeRide_ConcurrentRetries_ShouldCompleteOnce() throws Exception {
+        Ride ride = createRide();
+        UUID driverId = UUID.randomUUID();
+        rideService.acceptRide(ride.getRideId(), driverId, UUID.randomUUID());
+        rideService.startRide(ride.getRideId(), driverId);
+        Queue<Ride> completed = new ConcurrentLinkedQueue<>();
+
+        race(i -> () -> {
+            try {
+                completed.add(rideService.completeRide(ride.getRideId(), driverId));
+            } catch (IllegalStateException e) {
+                // Already completed by another request
+            }
+            return null;
+        });
+
+        assertEquals(1, completed.size());
+        assertEquals(RideStatus.COMPLETED, completed.peek().getStatus());
+    }
+
+    private Ride createRide() {
+        return rideService.createRide(UUID.randomUUID(), new BigDecimal("12.9716"), new BigDecimal("77.5946"),
+                "MG Road", new BigDecimal("13.0358"), new BigDecimal("77.5970"), "Hebbal");
+    }
+
+    private void race(TaskFactory tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Callable<Void> task = tasks.create(i);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface TaskFactory {
+        Callable<Void> create(int index);
+    }
+}
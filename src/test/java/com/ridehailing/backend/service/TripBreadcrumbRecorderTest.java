@@ -0,0 +1,132 @@
+package com.ridehailing.backend.service;
+
+import com.ridehailing.backend.config.TripProperties;
+import com.ridehailing.backend.model.RideStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TripBreadcrumbRecorderTest {
+
+    // ~111 m per step north
+    private static final double STEP = 0.001;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ActiveRideRegistry activeRideRegistry;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TripProperties properties;
+    private TripBreadcrumbRecorder recorder;
+    private ActiveRideRegistry.ActiveRide ride;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new TripProperties();
+        properties.setBufferCapacity(8);
+        properties.setFlushBatchSize(5);
+        recorder = new TripBreadcrumbRecorder(jdbcTemplate, activeRideRegistry, properties, meterRegistry);
+        ride = activeRide(RideStatus.IN_PROGRESS);
+    }
+
+    @Test
+    void flush_ShouldWriteBufferedFixesInBatchesOfConfiguredSize() {
+        List<Integer> batchSizes = recordBatchSizes();
+        when(activeRideRegistry.getByDriverId(ride.driverId())).thenReturn(ride);
+        for (int i = 0; i < 7; i++) {
+            recorder.record(ride, 40.0 + i * STEP, -74.0, 10_000L * i);
+        }
+
+        recorder.flush();
+        recorder.flush();
+
+        assertEquals(List.of(5, 2), batchSizes);
+        assertEquals(1, recorder.trackedRides());
+    }
+
+    @Test
+    void record_BeyondBufferCapacity_ShouldDropOldestFixes() {
+        List<Integer> batchSizes = recordBatchSizes();
+        when(activeRideRegistry.getByDriverId(ride.driverId())).thenReturn(ride);
+        for (int i = 0; i < 12; i++) {
+            recorder.record(ride, 40.0 + i * STEP, -74.0, 10_000L * i);
+        }
+
+        recorder.flush();
+
+        assertEquals(List.of(5, 3), batchSizes);
+        assertEquals(4.0, meterRegistry.get("trip.breadcrumbs.dropped").counter().count());
+        // Dropped fixes still count towards distance
+        assertEquals(11 * 111.2, recorder.tripDistanceMeters(ride.rideId()).orElseThrow(), 5.0);
+    }
+
+    @Test
+    void tripDistanceMeters_ShouldSkipJitterAndOutliers() {
+        long t = 0;
+        recorder.record(ride, 40.0, -74.0, t);
+        recorder.record(ride, 40.0 + STEP, -74.0, t += 10_000);
+        // 2 m of GPS noise
+        recorder.record(ride, 40.0 + STEP + 0.00002, -74.0, t += 1_000);
+        // 11 km in one second
+        recorder.record(ride, 40.1, -74.0, t += 1_000);
+        recorder.record(ride, 40.0 + 2 * STEP, -74.0, t += 10_000);
+
+        assertEquals(2 * 111.2, recorder.tripDistanceMeters(ride.rideId()).orElseThrow(), 1.0);
+    }
+
+    @Test
+    void record_WhenRideNotInProgress_ShouldIgnoreFix() {
+        recorder.record(activeRide(RideStatus.ACCEPTED), 40.0, -74.0, 0);
+
+        recorder.flush();
+
+        assertEquals(0, recorder.trackedRides());
+        verify(jdbcTemplate, never()).batchUpdate(eq(TripBreadcrumbRecorder.INSERT_SQL), anyList());
+    }
+
+    @Test
+    void flush_WhenRideFinished_ShouldForgetRideAfterWritingTrail() {
+        List<Integer> batchSizes = recordBatchSizes();
+        recorder.record(ride, 40.0, -74.0, 0);
+        when(activeRideRegistry.getByDriverId(ride.driverId())).thenReturn(null);
+
+        recorder.flush();
+
+        assertEquals(List.of(1), batchSizes);
+        assertEquals(0, recorder.trackedRides());
+    }
+
+    private List<Integer> recordBatchSizes() {
+        List<Integer> sizes = new ArrayList<>();
+        // The recorder reuses its batch list, so sizes are captured at call time
+        when(jdbcTemplate.batchUpdate(eq(TripBreadcrumbRecorder.INSERT_SQL), anyList())).thenAnswer(invocation -> {
+            sizes.add(((List<?>) invocation.getArgument(1)).size());
+            return new int[0];
+        });
+        return sizes;
+    }
+
+    private ActiveRideRegistry.ActiveRide activeRide(RideStatus status) {
+        return new ActiveRideRegistry.ActiveRide(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), status,
+                40.0, -74.0, 40.1, -74.0);
+    }
+}
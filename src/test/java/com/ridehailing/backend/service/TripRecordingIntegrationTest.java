@@ -0,0 +1,97 @@
+package com.ridehailing.backend.service;
+
+import com.ridehailing.backend.config.TripProperties;
+import com.ridehailing.backend.entity.Ride;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "jwt.secret=mySecretKeyForJWTTokenGenerationThatMustBeAtLeast256BitsLongForHS256Algorithm",
+        "jwt.expiration=3600000"
+})
+class TripRecordingIntegrationTest {
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private TripBreadcrumbRecorder tripBreadcrumbRecorder;
+
+    @Autowired
+    private ActiveRideRegistry activeRideRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TripProperties tripProperties;
+
+    @Test
+    void completeRide_ShouldPersistTrailAndRecordActualDistance() {
+        UUID driverId = UUID.randomUUID();
+        Ride ride = rideService.createRide(UUID.randomUUID(), new BigDecimal("12.9716"), new BigDecimal("77.5946"),
+                "MG Road", new BigDecimal("13.0358"), new BigDecimal("77.5970"), "Hebbal");
+        rideService.acceptRide(ride.getRideId(), driverId, UUID.randomUUID());
+        rideService.startRide(ride.getRideId(), driverId);
+
+        // 20 fixes 10 s apart, ~111 m each: ~2.1 km north
+        ActiveRideRegistry.ActiveRide active = activeRideRegistry.getByDriverId(driverId);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 20; i++) {
+            tripBreadcrumbRecorder.record(active, 12.9716 + i * 0.001, 77.5946, start + i * 10_000L);
+        }
+        tripBreadcrumbRecorder.flush();
+
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ride_locations WHERE ride_id = ?", Integer.class, ride.getRideId());
+        assertEquals(20, rows);
+
+        Ride completed = rideService.completeRide(ride.getRideId(), driverId);
+        assertEquals(0, new BigDecimal("2.11").compareTo(completed.getActualDistance()));
+        assertNotNull(completed.getActualFare());
+        assertNotNull(completed.getActualDuration());
+
+        // A fresh recorder (as after a restart) measures the same trip from the persisted trail
+        TripBreadcrumbRecorder restarted = new TripBreadcrumbRecorder(jdbcTemplate, activeRideRegistry,
+                tripProperties, new SimpleMeterRegistry());
+        assertEquals(2113, restarted.tripDistanceMeters(ride.getRideId()).orElseThrow(), 5.0);
+    }
+
+    @Test
+    void completeRide_AfterRestartMidTrip_ShouldChargeTheWholeDistance() {
+        UUID driverId = UUID.randomUUID();
+        Ride ride = rideService.createRide(UUID.randomUUID(), new BigDecimal("12.9716"), new BigDecimal("77.5946"),
+                "MG Road", new BigDecimal("13.0358"), new BigDecimal("77.5970"), "Hebbal");
+        rideService.acceptRide(ride.getRideId(), driverId, UUID.randomUUID());
+        rideService.startRide(ride.getRideId(), driverId);
+        ActiveRideRegistry.ActiveRide active = activeRideRegistry.getByDriverId(driverId);
+        long start = System.currentTimeMillis();
+
+        // The first half is driven under the previous process, which persisted it before going down
+        TripBreadcrumbRecorder beforeRestart = new TripBreadcrumbRecorder(jdbcTemplate, activeRideRegistry,
+                tripProperties, new SimpleMeterRegistry());
+        for (int i = 0; i < 10; i++) {
+            beforeRestart.record(active, 12.9716 + i * 0.001, 77.5946, start + i * 10_000L);
+        }
+        beforeRestart.flush();
+        // The rest reaches this process, which has not seen the ride before
+        for (int i = 10; i < 20; i++) {
+            tripBreadcrumbRecorder.record(active, 12.9716 + i * 0.001, 77.5946, start + i * 10_000L);
+        }
+
+        Ride completed = rideService.completeRide(ride.getRideId(), driverId);
+        assertEquals(0, new BigDecimal("2.11").compareTo(completed.getActualDistance()));
+    }
+}
@@ -0,0 +1,160 @@
+package com.ridehailing.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.repository.RideRepository;
+import com.ridehailing.backend.websocket.EncodedFrame;
+import com.ridehailing.backend.websocket.RideSubscriptionRegistry;
+import com.ridehailing.backend.websocket.WebSocketHandler;
+import com.ridehailing.backend.websocket.dto.RideStatusUpdateEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebSocketEventServiceTest {
+
+    @Mock
+    private WebSocketHandler webSocketHandler;
+
+    @Mock
+    private RideRepository rideRepository;
+
+    private RideSubscriptionRegistry rideSubscriptionRegistry;
+    private WebSocketEventService webSocketEventService;
+
+    private UUID rideId;
+    private UUID riderId;
+    private UUID driverId;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        rideSubscriptionRegistry = new RideSubscriptionRegistry(rideRepository);
+        webSocketEventService = new WebSocketEventService(webSocketHandler, objectMapper, rideSubscriptionRegistry);
+        rideId = UUID.randomUUID();
+        riderId = UUID.randomUUID();
+        driverId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void emitRideStatusUpdate_ShouldOnlyReachRideParticipants() {
+        webSocketEventService.subscribeToRide(rideId, riderId, null);
+        webSocketEventService.subscribeToRide(rideId, riderId, driverId);
+
+        webSocketEventService.emitRideStatusUpdate(rideId, RideStatus.ACCEPTED);
+
+        verify(webSocketHandler).sendToUser(eq(riderId), any(EncodedFrame.class));
+        verify(webSocketHandler).sendToUser(eq(driverId), any(EncodedFrame.class));
+        verify(webSocketHandler, never()).broadcast(any(EncodedFrame.class));
+    }
+
+    @Test
+    void emitRideStatusUpdate_ShouldSerializeOnceForAllRecipients() {
+        webSocketEventService.subscribeToRide(rideId, riderId, driverId);
+
+        webSocketEventService.emitRideStatusUpdate(rideId, RideStatus.IN_PROGRESS);
+
+        ArgumentCaptor<EncodedFrame> captor = ArgumentCaptor.forClass(EncodedFrame.class);
+        verify(webSocketHandler, times(2)).sendToUser(any(UUID.class), captor.capture());
+        EncodedFrame riderFrame = captor.getAllValues().get(0);
+        assertSame(riderFrame, captor.getAllValues().get(1));
+        assertFalse(riderFrame.isDroppable(), "Status events must not be shed under backpressure");
+        assertTrue(riderFrame.getMessage().getPayload().contains("IN_PROGRESS"));
+    }
+
+    @Test
+    void emitRideStatusUpdate_WithoutSubscription_ShouldSendNothing() {
+        webSocketEventService.emitRideStatusUpdate(rideId, RideStatus.ACCEPTED);
+
+        verifyNoInteractions(webSocketHandler);
+    }
+
+    @Test
+    void emitRideStatusUpdate_WhenTerminal_ShouldUnsubscribe() {
+        webSocketEventService.subscribeToRide(rideId, riderId, driverId);
+
+        webSocketEventService.emitRideStatusUpdate(rideId, RideStatus.COMPLETED);
+
+        verify(webSocketHandler, times(2)).sendToUser(any(UUID.class), any(EncodedFrame.class));
+        assertNull(rideSubscriptionRegistry.get(rideId));
+    }
+
+    @Test
+    void emitRideStatusUpdate_InTransaction_ShouldWaitForCommit() throws Exception {
+        webSocketEventService.subscribeToRide(rideId, riderId, driverId);
+        TransactionSynchronizationManager.initSynchronization();
+
+        webSocketEventService.emitRideStatusUpdate(rideId, RideStatus.ACCEPTED);
+        webSocketEventService.emitRideStatusUpdate(rideId, RideStatus.IN_PROGRESS);
+        verifyNoInteractions(webSocketHandler);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        ArgumentCaptor<EncodedFrame> captor = ArgumentCaptor.forClass(EncodedFrame.class);
+        verify(webSocketHandler, times(2)).sendToUser(eq(riderId), captor.capture());
+        String first = captor.getAllValues().get(0).getMessage().getPayload();
+        String second = captor.getAllValues().get(1).getMessage().getPayload();
+        assertTrue(first.contains("ACCEPTED"), first);
+        assertTrue(second.contains("IN_PROGRESS"), second);
+        // Clients order by the per-user seq the handler adds; the commit-order sequence stays on the server
+        assertFalse(new ObjectMapper().readTree(first).has("sequence"), first);
+    }
+
+    @Test
+    void emitRideStatusUpdate_WhenRolledBack_ShouldSendNothing() {
+        webSocketEventService.subscribeToRide(rideId, riderId, driverId);
+        TransactionSynchronizationManager.initSynchronization();
+
+        webSocketEventService.emitRideStatusUpdate(rideId, RideStatus.CANCELLED);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(webSocketHandler);
+        assertNotNull(rideSubscriptionRegistry.get(rideId));
+    }
+
+    @Test
+    void publish_OlderSequenceAfterNewer_ShouldBeDropped() {
+        webSocketEventService.subscribeToRide(rideId, riderId, null);
+
+        webSocketEventService.publish(List.of(event(RideStatus.IN_PROGRESS, 8)));
+        webSocketEventService.publish(List.of(event(RideStatus.ACCEPTED, 7)));
+
+        ArgumentCaptor<EncodedFrame> captor = ArgumentCaptor.forClass(EncodedFrame.class);
+        verify(webSocketHandler, times(1)).sendToUser(eq(riderId), captor.capture());
+        assertTrue(captor.getValue().getMessage().getPayload().contains("IN_PROGRESS"));
+    }
+
+    private RideStatusUpdateEvent event(RideStatus status, long sequence) {
+        RideStatusUpdateEvent event = new RideStatusUpdateEvent(rideId, status, LocalDateTime.now());
+        event.setSequence(sequence);
+        return event;
+    }
+}
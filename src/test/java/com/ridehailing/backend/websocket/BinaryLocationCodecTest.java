@@ -0,0 +1,81 @@
+package com.ridehailing.backend.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryLocationCodecTest {
+
+    private final BinaryLocationCodec.Decoder decoder = new BinaryLocationCodec.Decoder();
+    private final InboundMessage message = new InboundMessage();
+
+    @Test
+    void keyframe_ShouldRoundTripMicrodegrees() {
+        ByteBuffer frame = ByteBuffer.allocate(BinaryLocationCodec.KEYFRAME_SIZE);
+        BinaryLocationCodec.writeKeyframe(frame, BinaryLocationCodec.toMicros(40.758012),
+                BinaryLocationCodec.toMicros(-73.985513), 1_704_103_200_000L);
+
+        assertTrue(decoder.decode(frame.flip(), message));
+
+        assertEquals(InboundMessageType.LOCATION_UPDATE, message.getType());
+        assertEquals(40.758012, message.getLatitude(), 1e-9);
+        assertEquals(-73.985513, message.getLongitude(), 1e-9);
+        assertEquals(1_704_103_200_000L, message.getTimestampMillis());
+    }
+
+    @Test
+    void delta_ShouldApplyToPreviousFrameAndStaySmall() {
+        ByteBuffer keyframe = ByteBuffer.allocate(BinaryLocationCodec.KEYFRAME_SIZE);
+        BinaryLocationCodec.writeKeyframe(keyframe, 40_758_000, -73_985_500, 1_000_000L);
+        decoder.decode(keyframe.flip(), message);
+
+        // ~10 m south-east, one second later
+        ByteBuffer delta = ByteBuffer.allocate(BinaryLocationCodec.MAX_DELTA_SIZE);
+        BinaryLocationCodec.writeDelta(delta, -90, 118, 1000);
+        delta.flip();
+        assertTrue(delta.remaining() <= 7, "Typical delta should be a handful of bytes");
+
+        assertTrue(decoder.decode(delta, message));
+        assertEquals(40.757910, message.getLatitude(), 1e-9);
+        assertEquals(-73.985382, message.getLongitude(), 1e-9);
+        assertEquals(1_001_000L, message.getTimestampMillis());
+    }
+
+    @Test
+    void delta_WithoutKeyframe_ShouldBeRejected() {
+        ByteBuffer delta = ByteBuffer.allocate(BinaryLocationCodec.MAX_DELTA_SIZE);
+        BinaryLocationCodec.writeDelta(delta, 1, 1, 1);
+
+        assertFalse(decoder.decode(delta.flip(), message));
+    }
+
+    @Test
+    void malformedFrames_ShouldBeRejectedWithoutMovingTheBase() {
+        ByteBuffer keyframe = ByteBuffer.allocate(BinaryLocationCodec.KEYFRAME_SIZE);
+        BinaryLocationCodec.writeKeyframe(keyframe, 1_000_000, 2_000_000, 0L);
+        decoder.decode(keyframe.flip(), message);
+
+        assertFalse(decoder.decode(ByteBuffer.wrap(new byte[]{BinaryLocationCodec.DELTA, 2}), message), "Truncated");
+        assertFalse(decoder.decode(ByteBuffer.wrap(new byte[]{BinaryLocationCodec.KEYFRAME, 0, 0}), message), "Short keyframe");
+        assertFalse(decoder.decode(ByteBuffer.wrap(new byte[]{0x7F}), message), "Unknown kind");
+        assertFalse(decoder.decode(ByteBuffer.allocate(0), message), "Empty");
+
+        ByteBuffer delta = ByteBuffer.allocate(BinaryLocationCodec.MAX_DELTA_SIZE);
+        BinaryLocationCodec.writeDelta(delta, 1, -1, 5);
+        assertTrue(decoder.decode(delta.flip(), message));
+        assertEquals(1.000001, message.getLatitude(), 1e-9);
+        assertEquals(1.999999, message.getLongitude(), 1e-9);
+    }
+
+    @Test
+    void varint_ShouldRoundTripExtremes() {
+        for (int value : new int[]{0, -1, 1, 63, -64, 64, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            ByteBuffer buffer = ByteBuffer.allocate(5);
+            BinaryLocationCodec.writeVarint(buffer, BinaryLocationCodec.zigzag(value));
+            buffer.flip();
+            assertEquals(value, BinaryLocationCodec.unzigzag(BinaryLocationCodec.readVarint(buffer)));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ridehailing.backend.websocket;
+
+import com.ridehailing.backend.geo.DriverLocationIndex;
+import com.ridehailing.backend.geo.DriverPosition;
+import com.ridehailing.backend.model.Role;
+import com.ridehailing.backend.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "jwt.secret=mySecretKeyForJWTTokenGenerationThatMustBeAtLeast256BitsLongForHS256Algorithm",
+        "jwt.expiration=3600000"
+})
+class BinaryLocationStreamingTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private DriverLocationIndex driverLocationIndex;
+
+    @Test
+    void binaryFrames_ShouldFeedLocationPipeline() throws Exception {
+        UUID driverId = UUID.randomUUID();
+        String wsUrl = "ws://localhost:" + port + "/ws/binary?token=" + jwtUtil.generateToken(driverId.toString(), Role.DRIVER);
+
+        WebSocketSession session = new StandardWebSocketClient()
+                .doHandshake(new AbstractWebSocketHandler() { }, wsUrl).get();
+
+        ByteBuffer keyframe = ByteBuffer.allocate(BinaryLocationCodec.KEYFRAME_SIZE);
+        BinaryLocationCodec.writeKeyframe(keyframe, 40_758_000, -73_985_500, System.currentTimeMillis());
+        ByteBuffer delta = ByteBuffer.allocate(BinaryLocationCodec.MAX_DELTA_SIZE);
+        BinaryLocationCodec.writeDelta(delta, 100, -200, 1000);
+
+        // The server registers the session asynchronously after the handshake
+        Thread.sleep(300);
+        session.sendMessage(new BinaryMessage(keyframe.flip()));
+        session.sendMessage(new BinaryMessage(delta.flip()));
+
+        DriverPosition position = null;
+        for (int attempt = 0; attempt < 50; attempt++) {
+            position = driverLocationIndex.get(driverId);
+            if (position != null && position.latitude() > 40.758) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+
+        assertNotNull(position, "Driver should be indexed from binary frames");
+        assertEquals(40.758100, position.latitude(), 1e-9);
+        assertEquals(-73.985700, position.longitude(), 1e-9);
+
+        session.close();
+    }
+}
@@ -3,8 +3,10 @@ package com.ridehailing.backend.websocket;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ridehailing.backend.entity.Ride;
 import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.model.Role;
 import com.ridehailing.backend.repository.RideRepository;
 import com.ridehailing.backend.service.RideService;
+import com.ridehailing.backend.util.JwtUtil;
 import com.ridehailing.backend.websocket.dto.DriverLocationUpdateEvent;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +37,9 @@ class DriverLocationStreamingTest {
     @LocalServerPort
     private int port;
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
     @Autowired
     private RideService rideService;
 
@@ -66,7 +71,7 @@ class DriverLocationStreamingTest {
 
         // Connect rider WebSocket
         CompletableFuture<String> riderMessageFuture = new CompletableFuture<>();
-        String riderWsUrl = "ws://localhost:" + port + "/ws?userId=" + riderId;
+        String riderWsUrl = "ws://localhost:" + port + "/ws?token=" + jwtUtil.generateToken(riderId.toString(), Role.RIDER);
         
         WebSocketSession riderSession = new StandardWebSocketClient().doHandshake(
                 new org.springframework.web.socket.WebSocketHandler() {
@@ -105,7 +110,7 @@ class DriverLocationStreamingTest {
         Thread.sleep(200);
 
         // Connect driver WebSocket and send location update
-        String driverWsUrl = "ws://localhost:" + port + "/ws?userId=" + driverId;
+        String driverWsUrl = "ws://localhost:" + port + "/ws?token=" + jwtUtil.generateToken(driverId.toString(), Role.DRIVER);
         
         WebSocketSession driverSession = new StandardWebSocketClient().doHandshake(
                 new org.springframework.web.socket.WebSocketHandler() {
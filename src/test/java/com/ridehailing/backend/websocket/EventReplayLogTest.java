@@ -0,0 +1,134 @@
+package com.ridehailing.backend.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventReplayLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final EventReplayLog log = new EventReplayLog(4);
+    private final UUID userId = UUID.randomUUID();
+    private final List<EncodedFrame> delivered = new ArrayList<>();
+
+    @Test
+    void withSequence_ShouldSpliceLeadingFieldIntoObject() throws Exception {
+        EncodedFrame frame = EncodedFrame.encode(objectMapper, Map.of("rideId", "r1"), false);
+
+        assertEquals("{\"seq\":7,\"rideId\":\"r1\"}", frame.withSequence(7).getMessage().getPayload());
+        assertEquals("{\"seq\":8}", EncodedFrame.text("{}", false).withSequence(8).getMessage().getPayload());
+        assertFalse(EncodedFrame.text("Echo: hi", false).isJsonObject());
+        assertThrows(IllegalStateException.class, () -> EncodedFrame.text("Echo: hi", false).withSequence(1));
+    }
+
+    @Test
+    void append_ShouldNumberEventsConsecutivelyPerUser() throws Exception {
+        append("a");
+        append("b");
+        log.append(UUID.randomUUID(), event("other"), delivered::add);
+
+        long first = sequenceOf(delivered.get(0));
+        assertEquals(first + 1, sequenceOf(delivered.get(1)));
+        assertEquals("b", json(delivered.get(1)).get("name").asText());
+        assertEquals(2, log.size());
+    }
+
+    @Test
+    void replay_ShouldDeliverOnlyTheGap() throws Exception {
+        append("a");
+        append("b");
+        append("c");
+        long seenA = sequenceOf(delivered.get(0));
+        List<EncodedFrame> replayed = new ArrayList<>();
+
+        EventReplayLog.Replay replay = log.replay(userId, seenA, replayed::add);
+
+        assertTrue(replay.complete());
+        assertEquals(2, replay.replayed());
+        assertEquals(seenA + 2, replay.lastSequence());
+        assertEquals(List.of("b", "c"), names(replayed));
+        assertTrue(log.replay(userId, seenA + 2, replayed::add).complete(), "Nothing missed is a complete resume");
+    }
+
+    @Test
+    void replay_BeyondRingOrFromAnotherLog_ShouldRequireResync() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            append("e" + i);
+        }
+        long first = sequenceOf(delivered.get(0));
+        List<EncodedFrame> replayed = new ArrayList<>();
+
+        assertFalse(log.replay(userId, first, replayed::add).complete(), "Four kept, five missed");
+        assertTrue(log.replay(userId, first + 1, replayed::add).complete());
+        assertEquals(List.of("e2", "e3", "e4", "e5"), names(replayed));
+
+        replayed.clear();
+        assertFalse(log.replay(userId, first + 99, replayed::add).complete(), "Ahead of this log");
+        assertFalse(log.replay(UUID.randomUUID(), 0, replayed::add).complete(), "No log for the user");
+        assertTrue(replayed.isEmpty());
+    }
+
+    @Test
+    void purgeIdle_ShouldStartLaterSequencesAboveTheForgottenOnes() throws Exception {
+        append("a");
+        long before = sequenceOf(delivered.get(0));
+
+        log.purgeIdle(System.currentTimeMillis() + 1);
+        assertEquals(0, log.size());
+        Thread.sleep(2);
+        append("b");
+
+        long after = sequenceOf(delivered.get(1));
+        assertTrue(after > before);
+        assertFalse(log.replay(userId, before, frame -> { }).complete());
+    }
+
+    @Test
+    void newLog_AfterRestart_ShouldNumberAbovePreviousInstance() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            append("e" + i);
+        }
+        long beforeRestart = sequenceOf(delivered.get(99));
+        Thread.sleep(2);
+
+        new EventReplayLog(4).append(userId, event("after"), delivered::add);
+
+        long afterRestart = sequenceOf(delivered.get(100));
+        assertTrue(afterRestart > beforeRestart, afterRestart + " <= " + beforeRestart);
+    }
+
+    private void append(String name) {
+        log.append(userId, event(name), delivered::add);
+    }
+
+    private EncodedFrame event(String name) {
+        try {
+            return EncodedFrame.encode(objectMapper, Map.of("name", name), false);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long sequenceOf(EncodedFrame frame) throws Exception {
+        return json(frame).get("seq").asLong();
+    }
+
+    private List<String> names(List<EncodedFrame> frames) throws Exception {
+        List<String> names = new ArrayList<>();
+        for (EncodedFrame frame : frames) {
+            names.add(json(frame).get("name").asText());
+        }
+        return names;
+    }
+
+    private JsonNode json(EncodedFrame frame) throws Exception {
+        return objectMapper.readTree(frame.getMessage().getPayload());
+    }
+}
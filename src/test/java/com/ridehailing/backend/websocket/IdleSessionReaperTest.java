@@ -0,0 +1,106 @@
+package com.ridehailing.backend.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IdleSessionReaperTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final List<OutboundMessageQueue> evicted = new ArrayList<>();
+    private final IdleSessionReaper reaper = new IdleSessionReaper(
+            100, 1000, 3000, clock::get, new WebSocketMetrics(meterRegistry), evicted::add);
+
+    @Test
+    void silentSession_ShouldBePingedOnceThenEvicted() {
+        OutboundMessageQueue queue = mock(OutboundMessageQueue.class);
+        reaper.register(queue);
+
+        advance(900);
+        verify(queue, never()).ping();
+
+        advance(200);
+        advance(1000);
+        verify(queue, times(1)).ping();
+        assertTrue(evicted.isEmpty());
+
+        advance(1000);
+        assertEquals(List.of(queue), evicted);
+        assertEquals(1, meterRegistry.get("websocket.idle.pings").counter().count());
+        assertEquals(1, meterRegistry.get("websocket.idle.evictions").counter().count());
+
+        advance(5000);
+        assertEquals(1, evicted.size(), "An evicted session leaves the wheel");
+    }
+
+    @Test
+    void activeSession_ShouldNeverBePinged() {
+        OutboundMessageQueue queue = mock(OutboundMessageQueue.class);
+        IdleSessionReaper.Entry entry = reaper.register(queue);
+
+        for (int i = 0; i < 20; i++) {
+            advance(500);
+            reaper.touch(entry);
+        }
+
+        verify(queue, never()).ping();
+        assertTrue(evicted.isEmpty());
+    }
+
+    @Test
+    void pongAfterPing_ShouldKeepSessionAndAllowLaterPings() {
+        OutboundMessageQueue queue = mock(OutboundMessageQueue.class);
+        IdleSessionReaper.Entry entry = reaper.register(queue);
+
+        advance(1100);
+        verify(queue, times(1)).ping();
+        advance(500);
+        reaper.touch(entry);
+
+        advance(2500);
+        assertTrue(evicted.isEmpty());
+        verify(queue, times(2)).ping();
+    }
+
+    @Test
+    void cancelledSession_ShouldBeDroppedWithoutPingOrEviction() {
+        OutboundMessageQueue queue = mock(OutboundMessageQueue.class);
+        reaper.cancel(reaper.register(queue));
+
+        advance(10_000);
+
+        verify(queue, never()).ping();
+        assertTrue(evicted.isEmpty());
+    }
+
+    @Test
+    void tickAfterStall_ShouldStillGiveThePingItsGrace() {
+        OutboundMessageQueue queue = mock(OutboundMessageQueue.class);
+        reaper.register(queue);
+        reaper.tick();
+
+        // The reaper thread was starved for longer than the whole timeout
+        clock.addAndGet(10_000);
+        reaper.tick();
+        verify(queue, times(1)).ping();
+        assertTrue(evicted.isEmpty());
+
+        advance(2000);
+        assertEquals(List.of(queue), evicted);
+    }
+
+    private void advance(long millis) {
+        long target = clock.get() + millis;
+        while (clock.get() < target) {
+            clock.set(Math.min(target, clock.get() + 100));
+            reaper.tick();
+        }
+    }
+}
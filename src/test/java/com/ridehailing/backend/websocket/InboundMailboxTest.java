@@ -0,0 +1,101 @@
+package com.ridehailing.backend.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InboundMailboxTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebSocketMetrics metrics = new WebSocketMetrics(meterRegistry);
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<Integer> processed = new ArrayList<>();
+    private final InboundMailbox mailbox = new InboundMailbox(scheduled::add, 3, metrics);
+
+    @Test
+    void submit_ShouldRunTasksInOrderOnOneDrain() {
+        for (int i = 0; i < 3; i++) {
+            int frame = i;
+            assertTrue(mailbox.submit(() -> processed.add(frame)));
+        }
+
+        assertEquals(1, scheduled.size(), "Later frames join the pending drain");
+        runScheduled();
+        assertEquals(List.of(0, 1, 2), processed);
+
+        mailbox.submit(() -> processed.add(3));
+        runScheduled();
+        assertEquals(List.of(0, 1, 2, 3), processed);
+    }
+
+    @Test
+    void submit_WhenFull_ShouldDropAndCount() {
+        for (int i = 0; i < 3; i++) {
+            int frame = i;
+            mailbox.submit(() -> processed.add(frame));
+        }
+
+        assertFalse(mailbox.submit(() -> processed.add(3)));
+        runScheduled();
+
+        assertEquals(List.of(0, 1, 2), processed);
+        assertEquals(1, meterRegistry.get("websocket.inbound.dropped").counter().count());
+    }
+
+    @Test
+    void failingTask_ShouldNotStallTheFramesBehindIt() {
+        mailbox.submit(() -> {
+            throw new IllegalArgumentException("Malformed frame");
+        });
+        mailbox.submit(() -> processed.add(1));
+        runScheduled();
+
+        assertEquals(List.of(1), processed);
+        assertEquals(1, meterRegistry.get("websocket.inbound.failures").counter().count());
+    }
+
+    @Test
+    void close_ShouldDiscardPendingAndRejectNewTasks() {
+        mailbox.submit(() -> processed.add(0));
+        mailbox.close();
+
+        assertFalse(mailbox.submit(() -> processed.add(1)));
+        runScheduled();
+
+        assertTrue(processed.isEmpty());
+        assertEquals(0, meterRegistry.get("websocket.inbound.dropped").counter().count());
+    }
+
+    @Test
+    void virtualThreads_ShouldKeepEachSessionSerial() throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        InboundMailbox session = new InboundMailbox(executor, 1000, metrics);
+        List<Integer> order = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            int frame = i;
+            // Unsynchronized list: a second concurrent drain would corrupt it or reorder frames
+            session.submit(() -> order.add(frame));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, order.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    private void runScheduled() {
+        while (!scheduled.isEmpty()) {
+            scheduled.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.ridehailing.backend.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InboundMessageParserTest {
+
+    private final InboundMessageParser parser = new InboundMessageParser(new JsonFactory());
+    private final InboundMessage message = new InboundMessage();
+
+    @Test
+    void parse_TypedLocationUpdate_ShouldFillPrimitives() {
+        assertTrue(parser.parse("{\"type\":\"location:update\",\"v\":1,\"latitude\":40.758,"
+                + "\"longitude\":-73.9855,\"timestamp\":\"2024-01-01T10:00:00Z\"}", message));
+
+        assertEquals(InboundMessageType.LOCATION_UPDATE, message.getType());
+        assertTrue(message.isTyped());
+        assertEquals(40.758, message.getLatitude());
+        assertEquals(-73.9855, message.getLongitude());
+        assertEquals(Instant.parse("2024-01-01T10:00:00Z").toEpochMilli(), message.getTimestampMillis());
+    }
+
+    @Test
+    void parse_LegacyFrameWithCoordinates_ShouldBeLocationUpdate() {
+        assertTrue(parser.parse("{\"latitude\":40.758,\"longitude\":-73.9855}", message));
+
+        assertEquals(InboundMessageType.LOCATION_UPDATE, message.getType());
+        assertFalse(message.isTyped());
+        assertEquals(InboundMessage.NO_TIMESTAMP, message.getTimestampMillis());
+    }
+
+    @Test
+    void parse_MobileClientTimestamp_ShouldBeAccepted() {
+        // Dart's toIso8601String: no offset, microsecond fraction
+        assertTrue(parser.parse("{\"latitude\":1,\"longitude\":2,\"timestamp\":\"2024-01-01T10:00:00.123456\"}", message));
+
+        assertEquals(Instant.parse("2024-01-01T10:00:00.123Z").toEpochMilli(), message.getTimestampMillis());
+    }
+
+    @Test
+    void parse_TimestampVariants_ShouldMatchJavaTime() {
+        assertEquals(Instant.parse("2024-01-01T08:00:00.500Z").toEpochMilli(),
+                timestampOf("2024-01-01T10:00:00.5+02:00"));
+        assertEquals(Instant.parse("2024-03-10T23:30:00Z").toEpochMilli(),
+                timestampOf("2024-03-10T18:30:00-05:00"));
+        assertEquals(Instant.parse("2024-01-01T10:00:00Z").toEpochMilli(),
+                timestampOf("2024-01-01T10:00:00Z[UTC]"), "Zone ids use the fallback parser");
+        assertEquals(InboundMessage.NO_TIMESTAMP, timestampOf("2024-02-30T10:00:00Z"));
+        assertEquals(InboundMessage.NO_TIMESTAMP, timestampOf("2024-01-01T25:00:00"));
+    }
+
+    @Test
+    void parse_ShouldSkipUnknownFieldsAndNestedValues() {
+        assertTrue(parser.parse("{\"type\":\"ping\",\"meta\":{\"latitude\":5,\"list\":[1,{\"a\":2}]},"
+                + "\"timestamp\":\"not-a-date\"}", message));
+
+        assertEquals(InboundMessageType.PING, message.getType());
+        assertFalse(message.hasCoordinates(), "Nested fields must not leak into the envelope");
+        assertEquals(InboundMessage.NO_TIMESTAMP, message.getTimestampMillis());
+    }
+
+    @Test
+    void parse_UnknownType_ShouldNotFallBackToLocation() {
+        assertTrue(parser.parse("{\"type\":\"chat\",\"latitude\":1,\"longitude\":2}", message));
+
+        assertEquals(InboundMessageType.UNKNOWN, message.getType());
+    }
+
+    @Test
+    void parse_ShouldRejectNonObjectsAndMalformedJson() {
+        assertFalse(parser.parse("Hello", message));
+        assertFalse(parser.parse("[1,2]", message));
+        assertFalse(parser.parse("{\"latitude\":1,", message));
+    }
+
+    @Test
+    void parse_ShouldResetHolderBetweenFrames() {
+        parser.parse("{\"type\":\"location:update\",\"latitude\":1,\"longitude\":2,\"v\":2}", message);
+        parser.parse("{\"type\":\"ping\"}", message);
+
+        assertEquals(InboundMessageType.PING, message.getType());
+        assertFalse(message.hasCoordinates());
+        assertEquals(InboundMessageParser.CURRENT_VERSION, message.getVersion());
+    }
+
+    @Test
+    void parse_Resume_ShouldReadLastSequence() {
+        assertTrue(parser.parse("{\"type\":\"session:resume\",\"lastSeq\":1704103200000042}", message));
+
+        assertEquals(InboundMessageType.RESUME, message.getType());
+        assertEquals(1704103200000042L, message.getLastSequence());
+
+        parser.parse("{\"type\":\"session:resume\",\"lastSeq\":-5}", message);
+        assertEquals(InboundMessage.NO_SEQUENCE, message.getLastSequence());
+    }
+
+    private long timestampOf(String timestamp) {
+        assertTrue(parser.parse("{\"type\":\"ping\",\"timestamp\":\"" + timestamp + "\"}", message));
+        return message.getTimestampMillis();
+    }
+}
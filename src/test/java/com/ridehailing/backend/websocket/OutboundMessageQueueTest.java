@@ -0,0 +1,241 @@
+package com.ridehailing.backend.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboundMessageQueueTest {
+
+    @Mock
+    private WebSocketSession session;
+
+    private final Queue<Runnable> pendingTasks = new ArrayDeque<>();
+    private final Executor manualExecutor = pendingTasks::add;
+
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketMetrics metrics;
+    private OutboundMessageQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new WebSocketMetrics(meterRegistry);
+        queue = new OutboundMessageQueue(session, 3, manualExecutor, metrics);
+    }
+
+    @Test
+    void enqueue_ShouldNotSendOnCallerThread() throws Exception {
+        queue.enqueue(EncodedFrame.text("status", false));
+
+        verify(session, never()).sendMessage(any());
+        assertEquals(1, metrics.getOutboundQueueDepth());
+        assertEquals(1, pendingTasks.size(), "One drain task per session");
+    }
+
+    @Test
+    void drain_ShouldSendFramesInOrder() throws Exception {
+        when(session.isOpen()).thenReturn(true);
+        queue.enqueue(EncodedFrame.text("a", false));
+        queue.enqueue(EncodedFrame.text("b", true));
+        assertEquals(1, pendingTasks.size(), "Drain already scheduled");
+
+        runPendingTasks();
+
+        assertEquals(List.of("a", "b"), sentPayloads(2));
+        assertEquals(0, metrics.getOutboundQueueDepth());
+    }
+
+    @Test
+    void overflow_ShouldDropOldestLocationFrame() throws Exception {
+        when(session.isOpen()).thenReturn(true);
+        queue.enqueue(EncodedFrame.text("loc-1", true));
+        queue.enqueue(EncodedFrame.text("status", false));
+        queue.enqueue(EncodedFrame.text("loc-2", true));
+
+        assertTrue(queue.enqueue(EncodedFrame.text("loc-3", true)));
+        runPendingTasks();
+
+        assertEquals(List.of("status", "loc-2", "loc-3"), sentPayloads(3));
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void overflow_WithOnlyReliableFrames_ShouldEvictSlowConsumer() throws Exception {
+        queue.enqueue(EncodedFrame.text("a", false));
+        queue.enqueue(EncodedFrame.text("b", false));
+        queue.enqueue(EncodedFrame.text("c", false));
+
+        assertFalse(queue.enqueue(EncodedFrame.text("d", false)));
+        runPendingTasks();
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(session, never()).sendMessage(any());
+        assertEquals(0, metrics.getOutboundQueueDepth());
+        assertFalse(queue.enqueue(EncodedFrame.text("e", false)), "Evicted queue accepts nothing");
+    }
+
+    @Test
+    void ping_ShouldGoAheadOfQueuedFramesAndMerge() throws Exception {
+        when(session.isOpen()).thenReturn(true);
+        queue.enqueue(EncodedFrame.text("status", false));
+        queue.ping();
+        queue.ping();
+
+        runPendingTasks();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<WebSocketMessage<?>> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, times(2)).sendMessage(captor.capture());
+        assertInstanceOf(PingMessage.class, captor.getAllValues().get(0));
+        assertEquals("status", captor.getAllValues().get(1).getPayload());
+    }
+
+    @Test
+    void disconnect_ShouldDiscardFramesAndCloseOnWriter() throws Exception {
+        queue.enqueue(EncodedFrame.text("status", false));
+
+        queue.disconnect(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(session, never()).close(any());
+        runPendingTasks();
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(session, never()).sendMessage(any());
+        assertEquals(0, metrics.getOutboundQueueDepth());
+    }
+
+    @Test
+    void stalledClients_ShouldNotHoldUpOtherSessionsOnASharedWriterPool() throws Exception {
+        // As many stalled clients as writer threads: their sends are accepted but never complete
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        try {
+            List<RemoteEndpoint.Async> stalled = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                RemoteEndpoint.Async remote = mock(RemoteEndpoint.Async.class);
+                OutboundMessageQueue stalledQueue = new OutboundMessageQueue(nativeSession(remote), 8, writers, metrics);
+                for (int frame = 0; frame < 3; frame++) {
+                    stalledQueue.enqueue(EncodedFrame.text("stalled-" + frame, false));
+                }
+                stalled.add(remote);
+            }
+            // A healthy client, whose sends complete later on another thread as a container's would
+            RemoteEndpoint.Async healthy = mock(RemoteEndpoint.Async.class);
+            List<String> delivered = new CopyOnWriteArrayList<>();
+            doAnswer(invocation -> {
+                delivered.add(invocation.getArgument(0));
+                SendHandler handler = invocation.getArgument(1);
+                CompletableFuture.runAsync(() -> handler.onResult(new SendResult()));
+                return null;
+            }).when(healthy).sendText(anyString(), any(SendHandler.class));
+            OutboundMessageQueue healthyQueue = new OutboundMessageQueue(nativeSession(healthy), 8, writers, metrics);
+
+            for (int frame = 0; frame < 5; frame++) {
+                healthyQueue.enqueue(EncodedFrame.text("healthy-" + frame, false));
+            }
+
+            verify(healthy, timeout(2000).times(5)).sendText(anyString(), any(SendHandler.class));
+            assertEquals(List.of("healthy-0", "healthy-1", "healthy-2", "healthy-3", "healthy-4"), delivered);
+            for (RemoteEndpoint.Async remote : stalled) {
+                // Only the frame in flight; the rest wait for its completion
+                verify(remote, times(1)).sendText(eq("stalled-0"), any(SendHandler.class));
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+    }
+
+    @Test
+    void ping_OnAsyncSession_ShouldBlockOnTheBlockingExecutorAndThenResumeTheDrain() throws Exception {
+        RemoteEndpoint.Async remote = mock(RemoteEndpoint.Async.class);
+        WebSocketSession asyncSession = nativeSession(remote);
+        Queue<Runnable> blockingTasks = new ArrayDeque<>();
+        OutboundMessageQueue asyncQueue = new OutboundMessageQueue(asyncSession, 3, manualExecutor, blockingTasks::add, metrics);
+        asyncQueue.enqueue(EncodedFrame.text("status", false));
+        asyncQueue.ping();
+
+        runPendingTasks();
+        verify(asyncSession, never()).sendMessage(any());
+        verify(remote, never()).sendText(anyString(), any(SendHandler.class));
+        assertEquals(1, blockingTasks.size());
+
+        blockingTasks.poll().run();
+        verify(asyncSession).sendMessage(any(PingMessage.class));
+        runPendingTasks();
+        verify(remote).sendText(eq("status"), any(SendHandler.class));
+    }
+
+    @Test
+    void closesAndPings_WhenBlockingExecutorIsFull_ShouldBeRejectedAndCounted() throws Exception {
+        RemoteEndpoint.Async remote = mock(RemoteEndpoint.Async.class);
+        WebSocketSession asyncSession = nativeSession(remote);
+        Executor full = task -> {
+            throw new RejectedExecutionException();
+        };
+        OutboundMessageQueue pinged = new OutboundMessageQueue(asyncSession, 3, manualExecutor, full, metrics);
+        pinged.ping();
+        pinged.enqueue(EncodedFrame.text("status", false));
+        runPendingTasks();
+        // The ping is dropped and the drain goes on with the frame
+        verify(remote).sendText(eq("status"), any(SendHandler.class));
+
+        OutboundMessageQueue evicted = new OutboundMessageQueue(session, 3, manualExecutor, full, metrics);
+        evicted.disconnect(CloseStatus.GOING_AWAY);
+
+        verify(session, never()).close(any());
+        verify(asyncSession, never()).sendMessage(any());
+        assertEquals(2.0, meterRegistry.counter("websocket.outbound.blocking.rejected").count());
+    }
+
+    private static WebSocketSession nativeSession(RemoteEndpoint.Async remote) {
+        Session standardSession = mock(Session.class);
+        when(standardSession.getAsyncRemote()).thenReturn(remote);
+        NativeWebSocketSession nativeSession = mock(NativeWebSocketSession.class);
+        when(nativeSession.getNativeSession(Session.class)).thenReturn(standardSession);
+        when(nativeSession.isOpen()).thenReturn(true);
+        return nativeSession;
+    }
+
+    private void runPendingTasks() {
+        Runnable task;
+        while ((task = pendingTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private List<String> sentPayloads(int expected) throws Exception {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<WebSocketMessage<?>> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, times(expected)).sendMessage(captor.capture());
+        return captor.getAllValues().stream().map(message -> (String) message.getPayload()).toList();
+    }
+}
@@ -3,9 +3,11 @@ package com.ridehailing.backend.websocket;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ridehailing.backend.entity.Ride;
 import com.ridehailing.backend.model.RideStatus;
+import com.ridehailing.backend.model.Role;
 import com.ridehailing.backend.repository.RideRepository;
 import com.ridehailing.backend.service.RideService;
 import com.ridehailing.backend.service.WebSocketEventService;
+import com.ridehailing.backend.util.JwtUtil;
 import com.ridehailing.backend.websocket.dto.RideStatusUpdateEvent;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,6 +38,9 @@ class RideStatusUpdateEventTest {
     @LocalServerPort
     private int port;
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
     @Autowired
     private RideService rideService;
 
@@ -66,7 +71,8 @@ class RideStatusUpdateEventTest {
         StandardWebSocketClient client = new StandardWebSocketClient();
         CompletableFuture<String> messageFuture = new CompletableFuture<>();
 
-        String wsUrl = "ws://localhost:" + port + "/ws";
+        // Status events are delivered to the ride's participants only
+        String wsUrl = "ws://localhost:" + port + "/ws?token=" + jwtUtil.generateToken(riderId.toString(), Role.RIDER);
 
         WebSocketSession session = client.doHandshake(new org.springframework.web.socket.WebSocketHandler() {
             @Override
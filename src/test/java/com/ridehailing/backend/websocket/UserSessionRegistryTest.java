@@ -0,0 +1,109 @@
+package com.ridehailing.backend.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class UserSessionRegistryTest {
+
+    private final WebSocketMetrics metrics = new WebSocketMetrics(new SimpleMeterRegistry());
+    private final UserSessionRegistry registry = new UserSessionRegistry();
+
+    @Test
+    void register_SecondDevice_ShouldKeepBothSessions() {
+        UUID userId = UUID.randomUUID();
+        OutboundMessageQueue phone = newQueue();
+        OutboundMessageQueue tablet = newQueue();
+
+        registry.register(userId, phone);
+        registry.register(userId, tablet);
+        registry.register(userId, tablet);
+
+        assertArrayEquals(new OutboundMessageQueue[] {phone, tablet}, registry.sessionsOf(userId));
+        assertEquals(1, registry.userCount());
+        assertEquals(2, registry.sessionCount());
+    }
+
+    @Test
+    void unregister_StaleSession_ShouldNotRemoveItsReplacement() {
+        UUID userId = UUID.randomUUID();
+        OutboundMessageQueue old = newQueue();
+        OutboundMessageQueue reconnected = newQueue();
+        registry.register(userId, old);
+        registry.register(userId, reconnected);
+
+        // The old socket's close arrives after the reconnect
+        assertTrue(registry.unregister(userId, old));
+        assertFalse(registry.unregister(userId, old));
+        assertFalse(registry.unregister(UUID.randomUUID(), reconnected));
+
+        assertArrayEquals(new OutboundMessageQueue[] {reconnected}, registry.sessionsOf(userId));
+        assertTrue(registry.unregister(userId, reconnected));
+        assertEquals(0, registry.sessionsOf(userId).length);
+        assertEquals(0, registry.userCount());
+        assertEquals(0, registry.sessionCount());
+    }
+
+    @Test
+    void concurrentConnectsAndDisconnects_ShouldLeaveExactlyTheSurvivors() throws Exception {
+        int threads = 8;
+        int sessionsPerThread = 500;
+        // An odd user count so every user keeps some of the odd-numbered sessions
+        UUID[] users = new UUID[15];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = UUID.randomUUID();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<OutboundMessageQueue>>> survivors = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                survivors.add(executor.submit(() -> {
+                    start.await();
+                    List<OutboundMessageQueue> kept = new ArrayList<>();
+                    for (int i = 0; i < sessionsPerThread; i++) {
+                        UUID userId = users[i % users.length];
+                        OutboundMessageQueue queue = newQueue();
+                        registry.register(userId, queue);
+                        if (i % 2 == 0) {
+                            assertTrue(registry.unregister(userId, queue));
+                        } else {
+                            kept.add(queue);
+                        }
+                    }
+                    return kept;
+                }));
+            }
+            start.countDown();
+
+            int expected = 0;
+            for (Future<List<OutboundMessageQueue>> future : survivors) {
+                expected += future.get().size();
+            }
+            int registered = 0;
+            for (UUID userId : users) {
+                registered += registry.sessionsOf(userId).length;
+            }
+            assertEquals(expected, registered);
+            assertEquals(expected, registry.sessionCount());
+            assertEquals(users.length, registry.userCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private OutboundMessageQueue newQueue() {
+        return new OutboundMessageQueue(mock(WebSocketSession.class), 4, Runnable::run, metrics);
+    }
+}
@@ -0,0 +1,71 @@
+package com.ridehailing.backend.websocket;
+
+import com.ridehailing.backend.config.WebSocketProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebSocketProperties properties = new WebSocketProperties();
+    private final VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(properties, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @Test
+    void blockingInsideMonitor_ShouldBeRecordedAgainstTheApplicationFrame() throws Exception {
+        properties.setInboundVirtualThreads(true);
+        monitor.start();
+
+        Object lock = new Object();
+        // Until the stream is consuming, pinned events are not delivered; repeat until one is
+        Timer timer = null;
+        for (int attempt = 0; attempt < 100 && timer == null; attempt++) {
+            Thread.ofVirtual().start(() -> sleepHolding(lock)).join();
+            Thread.sleep(100);
+            timer = meterRegistry.find("jvm.threads.virtual.pinned").timer();
+        }
+
+        assertNotNull(timer, "Pinned sleep was not reported");
+        assertTrue(timer.count() >= 1);
+        assertEquals(VirtualThreadPinningMonitorTest.class.getName() + ".sleepHolding", timer.getId().getTag("site"));
+    }
+
+    @Test
+    void disabled_ShouldNotStartRecording() throws Exception {
+        properties.setInboundVirtualThreads(true);
+        properties.setPinningMonitorEnabled(false);
+        monitor.start();
+
+        Thread.ofVirtual().start(() -> sleepHolding(new Object())).join();
+
+        assertNull(meterRegistry.find("jvm.threads.virtual.pinned").timer());
+    }
+
+    @Test
+    void inboundVirtualThreadsOff_ShouldNotStartRecording() throws Exception {
+        monitor.start();
+
+        Thread.ofVirtual().start(() -> sleepHolding(new Object())).join();
+        Thread.sleep(100);
+
+        assertNull(meterRegistry.find("jvm.threads.virtual.pinned").timer());
+    }
+
+    private static void sleepHolding(Object lock) {
+        synchronized (lock) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
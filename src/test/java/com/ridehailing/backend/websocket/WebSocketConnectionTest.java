@@ -1,16 +1,29 @@
 package com.ridehailing.backend.websocket;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.backend.model.Role;
+import com.ridehailing.backend.util.JwtUtil;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
 
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -29,13 +42,19 @@ class WebSocketConnectionTest {
     @Autowired
     private WebSocketHandler webSocketHandler;
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Test
     void testWebSocketConnection() throws Exception {
         StandardWebSocketClient client = new StandardWebSocketClient();
         CompletableFuture<String> messageFuture = new CompletableFuture<>();
         CompletableFuture<Boolean> connectionFuture = new CompletableFuture<>();
 
-        String wsUrl = "ws://localhost:" + port + "/ws";
+        String wsUrl = "ws://localhost:" + port + "/ws?token=" + jwtUtil.generateToken(UUID.randomUUID().toString(), Role.RIDER);
 
         WebSocketSession session = client.doHandshake(new org.springframework.web.socket.WebSocketHandler() {
             @Override
@@ -68,7 +87,8 @@ class WebSocketConnectionTest {
         // Wait for connection
         assertTrue(connectionFuture.get(5, TimeUnit.SECONDS), "WebSocket connection should be established");
 
-        // Verify handler has the session
+        // Verify handler has the session (the server registers it asynchronously after the handshake)
+        waitForActiveConnections(count -> count > 0);
         assertTrue(webSocketHandler.getActiveConnections() > 0, "Handler should track active connections");
 
         // Send a test message
@@ -81,10 +101,104 @@ class WebSocketConnectionTest {
 
         // Close connection
         session.close();
-        Thread.sleep(200); // Give time for cleanup
+        waitForActiveConnections(count -> count == 0);
 
         // Verify connection is removed
         assertEquals(0, webSocketHandler.getActiveConnections(), "Handler should remove closed connections");
     }
-}
 
+    @Test
+    void handshake_WithoutValidToken_ShouldBeRejected() {
+        StandardWebSocketClient client = new StandardWebSocketClient();
+        String forged = jwtUtil.generateToken(UUID.randomUUID().toString(), Role.DRIVER) + "x";
+        // Identity can no longer be claimed with a bare user id
+        for (String query : List.of("", "?userId=" + UUID.randomUUID(), "?token=" + forged,
+                "?token=" + jwtUtil.generateToken("not-a-uuid", Role.RIDER))) {
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> client.doHandshake(
+                    new TextWebSocketHandler(), "ws://localhost:" + port + "/ws" + query).get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause().getMessage().contains("401"), failure.getCause().getMessage());
+        }
+    }
+
+    @Test
+    void handshake_WithBearerHeader_ShouldBeAccepted() throws Exception {
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setBearerAuth(jwtUtil.generateToken(UUID.randomUUID().toString(), Role.DRIVER));
+
+        WebSocketSession session = new StandardWebSocketClient().doHandshake(new TextWebSocketHandler(), headers,
+                URI.create("ws://localhost:" + port + "/ws")).get(5, TimeUnit.SECONDS);
+
+        assertTrue(session.isOpen());
+        session.close();
+    }
+
+    @Test
+    void sendToUser_WithTwoDevices_ShouldReachBothUntilOneCloses() throws Exception {
+        UUID userId = UUID.randomUUID();
+        String wsUrl = "ws://localhost:" + port + "/ws?token=" + jwtUtil.generateToken(userId.toString(), Role.RIDER);
+        int before = webSocketHandler.getActiveConnections();
+        CollectingHandler phone = new CollectingHandler();
+        CollectingHandler tablet = new CollectingHandler();
+        WebSocketSession phoneSession = new StandardWebSocketClient().doHandshake(phone, wsUrl).get(5, TimeUnit.SECONDS);
+        WebSocketSession tabletSession = new StandardWebSocketClient().doHandshake(tablet, wsUrl).get(5, TimeUnit.SECONDS);
+        waitForActiveConnections(count -> count >= before + 2);
+
+        webSocketHandler.sendToUser(userId, "first");
+        assertEquals("first", phone.messages.poll(5, TimeUnit.SECONDS));
+        assertEquals("first", tablet.messages.poll(5, TimeUnit.SECONDS));
+
+        phoneSession.close();
+        waitForActiveConnections(count -> count <= before + 1);
+        webSocketHandler.sendToUser(userId, "second");
+        assertEquals("second", tablet.messages.poll(5, TimeUnit.SECONDS));
+        tabletSession.close();
+    }
+
+    @Test
+    void resume_AfterReconnect_ShouldReplayOnlyMissedEvents() throws Exception {
+        UUID userId = UUID.randomUUID();
+        String wsUrl = "ws://localhost:" + port + "/ws?token=" + jwtUtil.generateToken(userId.toString(), Role.RIDER);
+        int before = webSocketHandler.getActiveConnections();
+        CollectingHandler first = new CollectingHandler();
+        WebSocketSession firstSession = new StandardWebSocketClient().doHandshake(first, wsUrl).get(5, TimeUnit.SECONDS);
+        waitForActiveConnections(count -> count >= before + 1);
+
+        webSocketHandler.sendToUser(userId, "{\"status\":\"ACCEPTED\"}");
+        JsonNode seen = objectMapper.readTree(first.messages.poll(5, TimeUnit.SECONDS));
+        firstSession.close();
+        waitForActiveConnections(count -> count <= before);
+
+        // Sent while the rider is in a tunnel
+        webSocketHandler.sendToUser(userId, "{\"status\":\"IN_PROGRESS\"}");
+        webSocketHandler.sendToUser(userId, "{\"status\":\"COMPLETED\"}");
+
+        CollectingHandler second = new CollectingHandler();
+        WebSocketSession secondSession = new StandardWebSocketClient().doHandshake(second, wsUrl).get(5, TimeUnit.SECONDS);
+        secondSession.sendMessage(new TextMessage(
+                "{\"type\":\"session:resume\",\"lastSeq\":" + seen.get("seq").asLong() + "}"));
+
+        assertEquals("IN_PROGRESS", objectMapper.readTree(second.messages.poll(5, TimeUnit.SECONDS)).get("status").asText());
+        assertEquals("COMPLETED", objectMapper.readTree(second.messages.poll(5, TimeUnit.SECONDS)).get("status").asText());
+        JsonNode resumed = objectMapper.readTree(second.messages.poll(5, TimeUnit.SECONDS));
+        assertEquals("session:resumed", resumed.get("type").asText());
+        assertEquals(2, resumed.get("replayed").asInt());
+        assertEquals(seen.get("seq").asLong() + 2, resumed.get("lastSeq").asLong());
+        secondSession.close();
+    }
+
+    private void waitForActiveConnections(IntPredicate condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.test(webSocketHandler.getActiveConnections()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private static class CollectingHandler extends TextWebSocketHandler {
+        private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+
+        @Override
+        protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+            messages.add(message.getPayload());
+        }
+    }
+}